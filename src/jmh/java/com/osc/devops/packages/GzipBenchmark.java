@@ -0,0 +1,67 @@
+package com.osc.devops.packages;
+
+import com.osc.devops.packages.service.ParallelGzipOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 패키지 압축 경로 비교: 기존 단일 스레드 GZIPOutputStream vs ParallelGzipOutputStream
+ * 입력은 이미지 레이어와 비슷하게 압축 가능한 구간과 난수 구간을 섞은 합성 데이터
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GzipBenchmark {
+
+    private static final int CHUNK = 64 * 1024;
+
+    @Param({"64", "512"})
+    private int sizeMb;
+
+    @Param({"1", "4", "8"})
+    private int threads;
+
+    @Param({"1024"})
+    private int blockSizeKb;
+
+    private byte[] chunk;
+
+    @Setup
+    public void setup() {
+        chunk = new byte[CHUNK];
+        Random random = new Random(42);
+        for (int i = 0; i < CHUNK; i++) {
+            chunk[i] = (i % 4096) < 2048 ? (byte) ('a' + (i % 26)) : (byte) random.nextInt(256);
+        }
+    }
+
+    @Benchmark
+    public void jdkGzip() throws IOException {
+        try (OutputStream out = new GZIPOutputStream(OutputStream.nullOutputStream(), CHUNK)) {
+            writeInput(out);
+        }
+    }
+
+    @Benchmark
+    public void parallelGzip() throws IOException {
+        try (OutputStream out = new ParallelGzipOutputStream(
+                OutputStream.nullOutputStream(), blockSizeKb * 1024, threads)) {
+            writeInput(out);
+        }
+    }
+
+    private void writeInput(OutputStream out) throws IOException {
+        long total = (long) sizeMb * 1024 * 1024;
+        for (long written = 0; written < total; written += CHUNK) {
+            out.write(chunk);
+        }
+    }
+}
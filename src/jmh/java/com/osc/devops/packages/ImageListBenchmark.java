@@ -0,0 +1,83 @@
+package com.osc.devops.packages;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.devops.packages.service.ResolvedAddon;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 이미지 목록 해석 비교: 기존 resolveImageList(호출마다 ObjectMapper 생성 + JSON 파싱) vs ResolvedAddon
+ * - resolveAddons: 빌드를 꺼낼 때 한 번 하는 selectedAddons → ResolvedAddon 변환 (공유 ObjectMapper)
+ * - imageList: 이후 생성기들이 반복 호출하는 경로 (이미 해석된 목록 이어붙이기)
+ * setup에서 두 경로의 image:tag 목록이 같은지 확인하고, 다르면 실행하지 않는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImageListBenchmark {
+
+    @Param({"12", "48"})
+    private int addonCount;
+
+    @Param({"8"})
+    private int imagesPerAddon;
+
+    private List<Map<String, Object>> addons;
+    private List<ResolvedAddon> resolved;
+    private ObjectMapper objectMapper;
+    private Map<String, String> tagMap;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper();
+        addons = new ArrayList<>();
+        for (int i = 0; i < addonCount; i++) {
+            List<String> images = new ArrayList<>();
+            Map<String, String> tags = new LinkedHashMap<>();
+            for (int j = 0; j < imagesPerAddon; j++) {
+                String shortName = "component" + i + "-" + j;
+                // 슬래시 없는 공식 이미지, 부분 일치, fallback 경로가 섞이도록 구성
+                images.add(j == 0 ? "busybox" : "registry.example.com/addon" + i + "/" + shortName);
+                if (j % 3 != 2) tags.put(j % 3 == 0 ? shortName : "component" + i, "1." + j + ".0");
+            }
+            Map<String, Object> addon = new HashMap<>();
+            addon.put("name", "addon-" + i);
+            addon.put("version", "2." + i);
+            addon.put("upstreamImages", objectMapper.writeValueAsString(images));
+            addon.put("imageTags", objectMapper.writeValueAsString(tags));
+            addons.add(addon);
+        }
+        resolved = ResolvedAddon.fromMaps(addons, objectMapper);
+        tagMap = objectMapper.readValue((String) addons.get(addonCount - 1).get("imageTags"),
+                new com.fasterxml.jackson.core.type.TypeReference<>() {});
+
+        if (!LegacyScriptGenerator.resolveImageList(addons).equals(ResolvedAddon.imageList(resolved))) {
+            throw new IllegalStateException("이미지 목록 불일치");
+        }
+    }
+
+    @Benchmark
+    public List<String> legacyResolveImageList() {
+        return LegacyScriptGenerator.resolveImageList(addons);
+    }
+
+    @Benchmark
+    public List<ResolvedAddon> resolveAddons() {
+        return ResolvedAddon.fromMaps(addons, objectMapper);
+    }
+
+    @Benchmark
+    public List<String> imageList() {
+        return ResolvedAddon.imageList(resolved);
+    }
+
+    @Benchmark
+    public String resolveImageTag() {
+        return ResolvedAddon.resolveImageTag("registry.example.com/addon/component-missing", tagMap, "2.0");
+    }
+}
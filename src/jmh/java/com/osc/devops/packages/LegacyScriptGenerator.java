@@ -0,0 +1,751 @@
+package com.osc.devops.packages;
+
+import com.osc.devops.packages.dto.PackageBuildDto;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 템플릿 엔진 / ResolvedAddon 도입 전 생성 코드 (ScriptTemplateBenchmark, ImageListBenchmark 비교 기준)
+ * PackageBuildExecutor의 기존 generateDeployScript / generateHelmValues / generateKeycloakConfig /
+ * resolveImageList(호출마다 JSON 파싱)를 그대로 옮김
+ */
+final class LegacyScriptGenerator {
+
+    private LegacyScriptGenerator() {
+    }
+
+    static String deployScript(List<Map<String, Object>> addons, PackageBuildDto.BuildRequest request) {
+        String ns = sanitizeNamespace(request.getNamespace());
+        String domain = sanitizeDomain(request.getDomain());
+
+        List<Map<String, Object>> sorted = addons.stream()
+                .sorted(Comparator.comparingInt(a -> (Integer) a.getOrDefault("installOrder", 50)))
+                .collect(Collectors.toList());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("#!/bin/bash\n");
+        sb.append("set -e\n");
+        sb.append("SCRIPT_DIR=\"$(cd \"$(dirname \"$0\")\" && pwd)\"\n\n");
+
+        sb.append("# ============================================================\n");
+        sb.append("# DevOps Platform - 애드온 배포 스크립트\n");
+        sb.append("# 생성: ").append(LocalDateTime.now().toLocalDate()).append("\n");
+        sb.append("# 모드: ").append(request.isAirgapped() ? "폐쇄망 (로컬 chart + image)" : "인터넷").append("\n");
+        sb.append("# 플랫폼: ").append(request.getPlatform()).append("\n");
+        sb.append("# ============================================================\n\n");
+
+        // 설정 변수
+        sb.append("NAMESPACE=\"${NAMESPACE:-").append(ns).append("}\"\n");
+        sb.append("DOMAIN=\"${DOMAIN:-").append(domain).append("}\"\n");
+        sb.append("REGISTRY=\"harbor.${DOMAIN}\"\n");
+        sb.append("TLS_ENABLED=\"").append(request.isTlsEnabled()).append("\"\n");
+        sb.append("KEYCLOAK_ENABLED=\"").append(request.isKeycloakEnabled()).append("\"\n");
+        sb.append("TIMEOUT=\"600s\"\n\n");
+
+        // 색상
+        sb.append("RED='\\033[0;31m'; GREEN='\\033[0;32m'; YELLOW='\\033[1;33m'; NC='\\033[0m'\n\n");
+
+        // pre_check
+        sb.append("pre_check() {\n");
+        sb.append("  echo \"🔍 사전 점검...\"\n");
+        sb.append("  command -v helm >/dev/null 2>&1 || { echo -e \"${RED}❌ helm이 설치되어 있지 않습니다${NC}\"; exit 1; }\n");
+        sb.append("  command -v kubectl >/dev/null 2>&1 || { echo -e \"${RED}❌ kubectl이 설치되어 있지 않습니다${NC}\"; exit 1; }\n");
+        sb.append("  kubectl create namespace \"$NAMESPACE\" --dry-run=client -o yaml | kubectl apply -f - 2>/dev/null\n");
+        sb.append("  echo -e \"${GREEN}✅ 사전 점검 완료 (namespace: $NAMESPACE)${NC}\"\n");
+        sb.append("}\n\n");
+
+        // load_images
+        appendOciImageLoader(sb);
+        sb.append("load_images() {\n");
+        sb.append("  echo \"📦 이미지 로드 시작...\"\n");
+        sb.append("  if [ -z \"$(ls -A $SCRIPT_DIR/images/refs/*.manifest.json $SCRIPT_DIR/images/*.tar 2>/dev/null)\" ]; then\n");
+        sb.append("    echo -e \"${YELLOW}⚠️  images/ 디렉토리에 로드할 이미지가 없습니다${NC}\"\n");
+        sb.append("    return 0\n");
+        sb.append("  fi\n");
+        sb.append("  load_all_images \"$SCRIPT_DIR/images\"\n");
+        sb.append("  echo -e \"${GREEN}✅ 이미지 로드 완료${NC}\"\n");
+        sb.append("}\n\n");
+
+        // 개별 install/uninstall 함수
+        boolean airgapped = request.isAirgapped();
+        for (Map<String, Object> a : addons) {
+            String name = (String) a.get("name");
+            String displayName = (String) a.get("displayName");
+            String helmRepo = (String) a.get("helmRepoUrl");
+            String helmChartName = (String) a.get("helmChartName");
+            String chartVersion = (String) a.get("helmChartVersion");
+
+            // chart 참조 결정
+            String chartRef;
+            if (airgapped) {
+                // 폐쇄망: 로컬 tgz (helm pull 결과)
+                // helm pull 결과 파일명이 예측 불가 (v접두사, +빌드메타 등) → glob으로 탐색
+                String chartFileName = (helmChartName != null && !helmChartName.isEmpty() ? helmChartName : name);
+                chartRef = "$(ls $SCRIPT_DIR/charts/" + chartFileName + "-*.tgz 2>/dev/null | head -1)";
+            } else {
+                // 인터넷: repo/chart
+                chartRef = (helmChartName != null && !helmChartName.isEmpty())
+                        ? name + "/" + helmChartName : name + "/" + name;
+            }
+            String funcName = name.replace("-", "_");
+
+            sb.append("install_").append(funcName).append("() {\n");
+            sb.append("  echo \"📦 ").append(displayName).append(" 설치 시작...\"\n");
+            if (!airgapped && helmRepo != null && !helmRepo.isEmpty()) {
+                sb.append("  helm repo add ").append(name).append(" ").append(helmRepo).append(" 2>/dev/null || true\n");
+                sb.append("  helm repo update ").append(name).append(" 2>/dev/null || true\n");
+            }
+            if (airgapped) {
+                // chart tgz 존재 검증
+                sb.append("  local CHART=\"").append(chartRef).append("\"\n");
+                sb.append("  if [ -z \"$CHART\" ] || [ ! -f \"$CHART\" ]; then\n");
+                sb.append("    echo -e \"${YELLOW}⚠️  ").append(displayName).append(" chart 파일이 없습니다. 건너뜁니다.${NC}\"\n");
+                sb.append("    return 0\n");
+                sb.append("  fi\n");
+            }
+            sb.append("  local VALUES=\"-f $SCRIPT_DIR/values/").append(name).append(".yaml\"\n");
+            if (request.isTlsEnabled()) {
+                sb.append("  [ -f \"$SCRIPT_DIR/values/").append(name).append("-tls.yaml\" ] && VALUES=\"$VALUES -f $SCRIPT_DIR/values/").append(name).append("-tls.yaml\"\n");
+            }
+            if (request.isKeycloakEnabled() && Boolean.TRUE.equals(a.get("keycloakEnabled"))) {
+                sb.append("  [ -f \"$SCRIPT_DIR/values/").append(name).append("-keycloak.yaml\" ] && VALUES=\"$VALUES -f $SCRIPT_DIR/values/").append(name).append("-keycloak.yaml\"\n");
+            }
+            sb.append("  helm upgrade --install ").append(name).append(" ");
+            if (airgapped) {
+                sb.append("\"$CHART\"");
+            } else {
+                sb.append(chartRef);
+            }
+            sb.append(" -n \"$NAMESPACE\" --create-namespace");
+            sb.append(" $VALUES");
+            // 폐쇄망은 로컬 tgz이므로 --version 불필요, 인터넷만 --version 지정
+            if (!airgapped && chartVersion != null && !chartVersion.isEmpty()) sb.append(" --version ").append(chartVersion);
+            sb.append(" --wait --timeout \"$TIMEOUT\"\n");
+            sb.append("  echo -e \"${GREEN}  ✅ ").append(displayName).append(" 설치 완료${NC}\"\n");
+            sb.append("}\n\n");
+
+            sb.append("uninstall_").append(funcName).append("() {\n");
+            sb.append("  echo \"🗑️  ").append(displayName).append(" 삭제...\"\n");
+            sb.append("  helm uninstall ").append(name).append(" -n \"$NAMESPACE\" 2>/dev/null || echo \"  (이미 삭제됨)\"\n");
+            sb.append("}\n\n");
+        }
+
+        // install_all
+        sb.append("install_all() {\n");
+        sb.append("  pre_check\n");
+        if (airgapped) {
+            sb.append("  load_images\n");
+        }
+        sb.append("  echo \"\"\n");
+        sb.append("  echo \"========================================\"\n");
+        sb.append("  echo \"  전체 설치 시작 (").append(sorted.size()).append("개 애드온)\"\n");
+        sb.append("  echo \"  모드: ").append(airgapped ? "폐쇄망 (로컬 chart + image)" : "인터넷").append("\"\n");
+        sb.append("  echo \"========================================\"\n");
+        sb.append("  echo \"\"\n");
+        for (Map<String, Object> a : sorted) {
+            sb.append("  install_").append(((String) a.get("name")).replace("-", "_")).append("\n");
+        }
+        if (request.isKeycloakEnabled()) {
+            sb.append("  echo \"\"\n");
+            sb.append("  echo \"🔐 Keycloak SSO 설정 시작...\"\n");
+            sb.append("  bash \"$SCRIPT_DIR/scripts/configure-keycloak.sh\"\n");
+        }
+        sb.append("  echo \"\"\n");
+        sb.append("  echo -e \"${GREEN}========================================${NC}\"\n");
+        sb.append("  echo -e \"${GREEN}  ✅ 전체 설치 완료${NC}\"\n");
+        sb.append("  echo -e \"${GREEN}========================================${NC}\"\n");
+        sb.append("}\n\n");
+
+        // uninstall_all (역순)
+        sb.append("uninstall_all() {\n");
+        sb.append("  echo \"========================================\"\n");
+        sb.append("  echo \"  전체 삭제 시작\"\n");
+        sb.append("  echo \"========================================\"\n");
+        List<Map<String, Object>> reversed = new ArrayList<>(sorted);
+        Collections.reverse(reversed);
+        for (Map<String, Object> a : reversed) {
+            sb.append("  uninstall_").append(((String) a.get("name")).replace("-", "_")).append("\n");
+        }
+        sb.append("  echo -e \"${GREEN}✅ 전체 삭제 완료${NC}\"\n");
+        sb.append("}\n\n");
+
+        // status
+        sb.append("status() {\n");
+        sb.append("  echo \"========================================\"\n");
+        sb.append("  echo \"  배포 상태 (namespace: $NAMESPACE)\"\n");
+        sb.append("  echo \"========================================\"\n");
+        sb.append("  helm list -n \"$NAMESPACE\" 2>/dev/null || echo \"배포된 릴리즈 없음\"\n");
+        sb.append("  echo \"\"\n");
+        sb.append("  kubectl get pods -n \"$NAMESPACE\" 2>/dev/null || true\n");
+        sb.append("}\n\n");
+
+        // usage
+        sb.append("usage() {\n");
+        sb.append("  echo \"사용법: $0 <command> [addon]\"\n");
+        sb.append("  echo \"\"\n");
+        sb.append("  echo \"Commands:\"\n");
+        sb.append("  echo \"  install-all       전체 설치 (의존성 순서)\"\n");
+        sb.append("  echo \"  uninstall-all     전체 삭제 (역순)\"\n");
+        sb.append("  echo \"  install <addon>   개별 애드온 설치\"\n");
+        sb.append("  echo \"  uninstall <addon> 개별 애드온 삭제\"\n");
+        sb.append("  echo \"  load-images       폐쇄망 이미지 로드\"\n");
+        sb.append("  echo \"  status            배포 상태 확인\"\n");
+        sb.append("  echo \"\"\n");
+        sb.append("  echo \"Addons:\"\n");
+        for (Map<String, Object> a : sorted) {
+            sb.append("  echo \"  ").append(String.format("%-20s", a.get("name"))).append(a.get("displayName")).append("\"\n");
+        }
+        sb.append("  echo \"\"\n");
+        sb.append("  echo \"Environment:\"\n");
+        sb.append("  echo \"  NAMESPACE=").append(ns).append("  DOMAIN=").append(domain).append("\"\n");
+        sb.append("  echo \"\"\n");
+        sb.append("  echo \"Examples:\"\n");
+        sb.append("  echo \"  $0 install-all\"\n");
+        sb.append("  echo \"  $0 install keycloak\"\n");
+        sb.append("  echo \"  $0 uninstall harbor\"\n");
+        sb.append("  echo \"  NAMESPACE=prod DOMAIN=prod.com $0 install-all\"\n");
+        sb.append("}\n\n");
+
+        // main dispatcher
+        sb.append("# ============================================================\n");
+        sb.append("# 메인\n");
+        sb.append("# ============================================================\n");
+        sb.append("case \"${1:-}\" in\n");
+        sb.append("  install-all)   install_all ;;\n");
+        sb.append("  uninstall-all) uninstall_all ;;\n");
+        sb.append("  load-images)   load_images ;;\n");
+        sb.append("  status)        status ;;\n");
+        sb.append("  install)\n");
+        sb.append("    [ -z \"${2:-}\" ] && { echo \"사용법: $0 install <addon>\"; exit 1; }\n");
+        sb.append("    FUNC=\"install_$(echo $2 | tr '-' '_')\"\n");
+        sb.append("    if type \"$FUNC\" &>/dev/null; then pre_check; $FUNC\n");
+        sb.append("    else echo -e \"${RED}❌ 알 수 없는 애드온: $2${NC}\"; exit 1; fi\n");
+        sb.append("    ;;\n");
+        sb.append("  uninstall)\n");
+        sb.append("    [ -z \"${2:-}\" ] && { echo \"사용법: $0 uninstall <addon>\"; exit 1; }\n");
+        sb.append("    FUNC=\"uninstall_$(echo $2 | tr '-' '_')\"\n");
+        sb.append("    if type \"$FUNC\" &>/dev/null; then $FUNC\n");
+        sb.append("    else echo -e \"${RED}❌ 알 수 없는 애드온: $2${NC}\"; exit 1; fi\n");
+        sb.append("    ;;\n");
+        sb.append("  *) usage ;;\n");
+        sb.append("esac\n");
+
+        return sb.toString();
+    }
+
+    static Map<String, String> helmValues(List<Map<String, Object>> addons, PackageBuildDto.BuildRequest request) {
+        Map<String, String> files = new LinkedHashMap<>();
+        String ns = sanitizeNamespace(request.getNamespace());
+        String domain = sanitizeDomain(request.getDomain());
+
+        for (Map<String, Object> addon : addons) {
+            String name = (String) addon.get("name");
+            String version = (String) addon.get("version");
+
+            // values 파일
+            StringBuilder sb = new StringBuilder();
+            sb.append("# ").append(addon.get("displayName")).append(" v").append(version).append("\n\n");
+
+            switch (name) {
+                case "cert-manager" -> sb.append("installCRDs: true\nreplicaCount: 1\n");
+                case "keycloak" -> sb.append("replicas: 1\nextraEnv: |\n  - name: KEYCLOAK_ADMIN\n    value: admin\n  - name: KEYCLOAK_ADMIN_PASSWORD\n    value: admin123\ningress:\n  enabled: true\n  rules:\n    - host: keycloak.").append(domain).append("\n      paths:\n        - path: /\n          pathType: Prefix\n");
+                case "harbor" -> sb.append("expose:\n  type: ingress\n  ingress:\n    hosts:\n      core: harbor.").append(domain).append("\nexternalURL: https://harbor.").append(domain).append("\npersistence:\n  enabled: true\n");
+                case "gitea" -> sb.append("gitea:\n  admin:\n    username: gitea_admin\n    password: admin123\ningress:\n  enabled: true\n  hosts:\n    - host: gitea.").append(domain).append("\n");
+                case "gitlab" -> sb.append("global:\n  hosts:\n    domain: ").append(domain).append("\n    gitlab:\n      name: gitlab.").append(domain).append("\n");
+                case "jenkins" -> sb.append("controller:\n  adminUser: admin\n  adminPassword: admin123\n  ingress:\n    enabled: true\n    hostName: jenkins.").append(domain).append("\n");
+                case "argocd" -> sb.append("server:\n  ingress:\n    enabled: true\n    hosts:\n      - argocd.").append(domain).append("\nconfigs:\n  params:\n    server.insecure: true\n");
+                case "sonarqube" -> sb.append("ingress:\n  enabled: true\n  hosts:\n    - name: sonarqube.").append(domain).append("\n");
+                case "nexus" -> sb.append("ingress:\n  enabled: true\n  hostRepo: nexus.").append(domain).append("\n");
+                case "vault" -> sb.append("server:\n  ingress:\n    enabled: true\n    hosts:\n      - host: vault.").append(domain).append("\n");
+                case "monitoring" -> sb.append("grafana:\n  adminPassword: admin123\n  ingress:\n    enabled: true\n    hosts:\n      - grafana.").append(domain).append("\nprometheus:\n  prometheusSpec:\n    retention: 15d\n");
+                case "service-mesh" -> sb.append("pilot:\n  resources:\n    requests:\n      cpu: 100m\n      memory: 128Mi\n");
+                default -> sb.append("# 커스텀 설정\n");
+            }
+
+            files.put("values/" + name + ".yaml", sb.toString());
+
+            if (request.isTlsEnabled()) {
+                files.put("values/" + name + "-tls.yaml", generateTlsValues(name, domain));
+            }
+            if (request.isKeycloakEnabled() && Boolean.TRUE.equals(addon.get("keycloakEnabled"))) {
+                files.put("values/" + name + "-keycloak.yaml",
+                        generateKeycloakValues(name, domain, request.isAirgapped()));
+            }
+        }
+        return files;
+    }
+
+    private static String generateTlsValues(String name, String domain) {
+        String host = name + "." + domain;
+        String secretName = name + "-tls";
+        String issuer = "letsencrypt-prod"; // ClusterIssuer 이름
+
+        return switch (name) {
+            case "keycloak" -> """
+                    ingress:
+                      annotations:
+                        cert-manager.io/cluster-issuer: %s
+                      tls:
+                        - secretName: %s
+                          hosts:
+                            - %s
+                    """.formatted(issuer, secretName, host);
+            case "harbor" -> """
+                    expose:
+                      tls:
+                        enabled: true
+                        certSource: secret
+                        secret:
+                          secretName: %s
+                      ingress:
+                        annotations:
+                          cert-manager.io/cluster-issuer: %s
+                    """.formatted(secretName, issuer);
+            case "gitea" -> """
+                    ingress:
+                      annotations:
+                        cert-manager.io/cluster-issuer: %s
+                      tls:
+                        - secretName: %s
+                          hosts:
+                            - %s
+                    """.formatted(issuer, secretName, host);
+            case "gitlab" -> """
+                    global:
+                      ingress:
+                        configureCertmanager: true
+                        annotations:
+                          cert-manager.io/cluster-issuer: %s
+                        tls:
+                          - secretName: %s
+                            hosts:
+                              - gitlab.%s
+                    """.formatted(issuer, secretName, domain);
+            case "jenkins" -> """
+                    controller:
+                      ingress:
+                        annotations:
+                          cert-manager.io/cluster-issuer: %s
+                        tls:
+                          - secretName: %s
+                            hosts:
+                              - %s
+                    """.formatted(issuer, secretName, host);
+            case "argocd" -> """
+                    server:
+                      ingress:
+                        annotations:
+                          cert-manager.io/cluster-issuer: %s
+                        tls:
+                          - secretName: %s
+                            hosts:
+                              - %s
+                    configs:
+                      params:
+                        server.insecure: false
+                    """.formatted(issuer, secretName, host);
+            case "sonarqube" -> """
+                    ingress:
+                      annotations:
+                        cert-manager.io/cluster-issuer: %s
+                      tls:
+                        - secretName: %s
+                          hosts:
+                            - %s
+                    """.formatted(issuer, secretName, host);
+            case "nexus" -> """
+                    ingress:
+                      annotations:
+                        cert-manager.io/cluster-issuer: %s
+                      tls:
+                        - secretName: %s
+                          hosts:
+                            - %s
+                    """.formatted(issuer, secretName, host);
+            case "vault" -> """
+                    server:
+                      ingress:
+                        annotations:
+                          cert-manager.io/cluster-issuer: %s
+                        tls:
+                          - secretName: %s
+                            hosts:
+                              - %s
+                    """.formatted(issuer, secretName, host);
+            case "monitoring" -> """
+                    grafana:
+                      ingress:
+                        annotations:
+                          cert-manager.io/cluster-issuer: %s
+                        tls:
+                          - secretName: grafana-tls
+                            hosts:
+                              - grafana.%s
+                    """.formatted(issuer, domain);
+            default -> """
+                    # %s TLS 설정
+                    # cert-manager ClusterIssuer: %s
+                    """.formatted(name, issuer);
+        };
+    }
+
+    private static String generateKeycloakValues(String name, String domain, boolean isAirgap) {
+        String kcUrl = "https://keycloak." + domain;
+        String realm = "devops";
+        String clientId = name;
+
+        return switch (name) {
+            case "harbor" -> """
+                    # Harbor OIDC 연동 (Keycloak)
+                    # Harbor는 helm values가 아닌 관리자 UI 또는 harbor.yml에서 설정
+                    # 설치 후 Harbor UI > Configuration > Authentication 에서 설정:
+                    #   Auth Mode: OIDC
+                    #   OIDC Provider: Keycloak
+                    #   OIDC Endpoint: %s/realms/%s
+                    #   OIDC Client ID: %s
+                    #   OIDC Client Secret: (configure-keycloak.sh 실행 후 생성됨)
+                    #   OIDC Scope: openid,profile,email
+                    """.formatted(kcUrl, realm, clientId);
+            case "gitea" -> """
+                    gitea:
+                      oauth:
+                        - name: keycloak
+                          provider: openidConnect
+                          clientID: %s
+                          clientSecret: changeme-run-configure-keycloak-sh
+                          autoDiscoverUrl: %s/realms/%s/.well-known/openid-configuration
+                          scopes: openid profile email
+                    """.formatted(clientId, kcUrl, realm);
+            case "jenkins" -> """
+                    controller:
+                      JCasC:
+                        securityRealm: |-
+                          oic:
+                            clientId: %s
+                            clientSecret: changeme-run-configure-keycloak-sh
+                            wellKnownOpenIDConfigurationUrl: %s/realms/%s/.well-known/openid-configuration
+                            userNameField: preferred_username
+                            fullNameFieldName: name
+                            emailFieldName: email
+                            scopes: openid profile email
+                            logoutFromOpenidProvider: true
+                            endSessionEndpoint: %s/realms/%s/protocol/openid-connect/logout
+                      installPlugins:
+                        - oic-auth:latest
+                    """.formatted(clientId, kcUrl, realm, kcUrl, realm);
+            case "argocd" -> """
+                    configs:
+                      cm:
+                        url: https://argocd.%s
+                        oidc.config: |
+                          name: Keycloak
+                          issuer: %s/realms/%s
+                          clientID: %s
+                          clientSecret: changeme-run-configure-keycloak-sh
+                          requestedScopes:
+                            - openid
+                            - profile
+                            - email
+                      rbac:
+                        policy.csv: |
+                          g, /devops-admin, role:admin
+                    """.formatted(domain, kcUrl, realm, clientId);
+            case "sonarqube" -> {
+                String base = """
+                    sonarProperties:
+                      sonar.auth.oidc.enabled: "true"
+                      sonar.auth.oidc.issuerUri: %s/realms/%s
+                      sonar.auth.oidc.clientId.secured: %s
+                      sonar.auth.oidc.clientSecret.secured: changeme-run-configure-keycloak-sh
+                      sonar.auth.oidc.scopes: openid profile email
+                    """.formatted(kcUrl, realm, clientId);
+                if (isAirgap) {
+                    yield base + """
+                    # ⚠️ 폐쇄망: OIDC 플러그인을 수동 설치 필요
+                    # 인터넷 환경에서 다운로드 후 SonarQube plugins/ 디렉토리에 복사:
+                    # https://github.com/vaulttec/sonar-auth-oidc/releases/download/v2.1.1/sonar-auth-oidc-plugin-2.1.1.jar
+                    """;
+                } else {
+                    yield base + """
+                    plugins:
+                      install:
+                        - https://github.com/vaulttec/sonar-auth-oidc/releases/download/v2.1.1/sonar-auth-oidc-plugin-2.1.1.jar
+                    """;
+                }
+            }
+            case "nexus" -> """
+                    # Nexus OIDC: Keycloak 연동은 Nexus Pro 전용 기능
+                    # Community 버전은 SAML/OIDC 미지원
+                    # 대안: keycloak-proxy (oauth2-proxy) 사이드카 사용
+                    nexus:
+                      env:
+                        - name: NEXUS_SECURITY_INITIAL_PASSWORD
+                          value: admin123
+                    """;
+            default -> """
+                    # %s Keycloak OIDC 연동
+                    # OIDC Endpoint: %s/realms/%s
+                    # Client ID: %s
+                    """.formatted(name, kcUrl, realm, clientId);
+        };
+    }
+
+    static String keycloakConfig(List<Map<String, Object>> addons, PackageBuildDto.BuildRequest request) {
+        String domain = sanitizeDomain(request.getDomain());
+        String ns = sanitizeNamespace(request.getNamespace());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("#!/bin/bash\n");
+        sb.append("set -e\n");
+        sb.append("SCRIPT_DIR=\"$(cd \"$(dirname \"$0\")\" && pwd)\"\n");
+        sb.append("BASE_DIR=\"$(dirname \"$SCRIPT_DIR\")\"\n\n");
+        sb.append("# ============================================================\n");
+        sb.append("# Keycloak SSO 자동 설정\n");
+        sb.append("# 1) Realm 생성\n");
+        sb.append("# 2) OIDC 클라이언트 등록 + Secret 발급\n");
+        sb.append("# 3) values/*-keycloak.yaml 에 Secret 자동 반영\n");
+        sb.append("# 4) SSO 대상 애드온 helm upgrade 재배포\n");
+        sb.append("# ============================================================\n\n");
+
+        sb.append("KC_URL=\"https://keycloak.").append(domain).append("\"\n");
+        sb.append("KC_ADMIN=\"${KC_ADMIN:-admin}\"\n");
+        sb.append("KC_PASS=\"${KC_PASS:-admin123}\"\n");
+        sb.append("REALM=\"devops\"\n");
+        sb.append("NAMESPACE=\"").append(ns).append("\"\n");
+        sb.append("PLACEHOLDER=\"changeme-run-configure-keycloak-sh\"\n\n");
+
+        // macOS sed 호환 함수
+        sb.append("# macOS/Linux sed 호환 함수\n");
+        sb.append("replace_in_file() {\n");
+        sb.append("  local file=\"$1\" old=\"$2\" new=\"$3\"\n");
+        sb.append("  if [[ \"$OSTYPE\" == \"darwin\"* ]]; then\n");
+        sb.append("    sed -i '' \"s|${old}|${new}|g\" \"$file\"\n");
+        sb.append("  else\n");
+        sb.append("    sed -i \"s|${old}|${new}|g\" \"$file\"\n");
+        sb.append("  fi\n");
+        sb.append("}\n\n");
+
+        // health check
+        sb.append("echo \"🔐 Keycloak 연결 확인: $KC_URL\"\n");
+        sb.append("until curl -sf \"$KC_URL/health/ready\" > /dev/null 2>&1; do\n");
+        sb.append("  echo \"  대기 중...\"\n  sleep 5\ndone\n");
+        sb.append("echo \"✅ Keycloak 준비됨\"\n\n");
+
+        // 토큰
+        sb.append("# 토큰 발급\n");
+        sb.append("TOKEN=$(curl -sf -X POST \"$KC_URL/realms/master/protocol/openid-connect/token\" \\\n");
+        sb.append("  -d \"client_id=admin-cli\" -d \"username=$KC_ADMIN\" -d \"password=$KC_PASS\" \\\n");
+        sb.append("  -d \"grant_type=password\" | jq -r '.access_token')\n\n");
+        sb.append("if [ -z \"$TOKEN\" ] || [ \"$TOKEN\" = \"null\" ]; then\n");
+        sb.append("  echo \"❌ Keycloak 토큰 발급 실패\"\n  exit 1\nfi\n\n");
+
+        // realm
+        sb.append("# Realm 생성\n");
+        sb.append("echo \"📦 Realm 생성: $REALM\"\n");
+        sb.append("curl -sf -X POST \"$KC_URL/admin/realms\" \\\n");
+        sb.append("  -H \"Authorization: Bearer $TOKEN\" -H \"Content-Type: application/json\" \\\n");
+        sb.append("  -d '{\"realm\":\"'$REALM'\",\"enabled\":true,\"sslRequired\":\"external\"}' || echo \"  (이미 존재)\"\n\n");
+
+        sb.append("echo \"\"\necho \"========================================\"\n");
+        sb.append("echo \"  Phase 1: OIDC 클라이언트 등록 + Secret 발급\"\n");
+        sb.append("echo \"========================================\"\n\n");
+
+        // 클라이언트 등록 + secret -> sed 자동 치환
+        List<String> ssoAddonNames = new java.util.ArrayList<>();
+        for (Map<String, Object> a : addons) {
+            if (Boolean.TRUE.equals(a.get("keycloakEnabled")) && !"keycloak".equals(a.get("name"))) {
+                String n = (String) a.get("name");
+                String displayName = (String) a.get("displayName");
+                String varName = "SECRET_" + n.toUpperCase().replace("-", "_");
+                ssoAddonNames.add(n);
+
+                sb.append("# -- ").append(displayName).append(" --\n");
+                sb.append("echo \"🔧 ").append(displayName).append(" 클라이언트 등록\"\n");
+                sb.append("curl -sf -X POST \"$KC_URL/admin/realms/$REALM/clients\" \\\n");
+                sb.append("  -H \"Authorization: Bearer $TOKEN\" -H \"Content-Type: application/json\" \\\n");
+                sb.append("  -d '{\n");
+                sb.append("    \"clientId\": \"").append(n).append("\",\n");
+                sb.append("    \"name\": \"").append(displayName).append("\",\n");
+                sb.append("    \"enabled\": true,\n");
+                sb.append("    \"publicClient\": false,\n");
+                sb.append("    \"clientAuthenticatorType\": \"client-secret\",\n");
+                sb.append("    \"standardFlowEnabled\": true,\n");
+                sb.append("    \"directAccessGrantsEnabled\": false,\n");
+                sb.append("    \"protocol\": \"openid-connect\",\n");
+                sb.append("    \"redirectUris\": [\"https://").append(n).append(".").append(domain).append("/*\"],\n");
+                sb.append("    \"webOrigins\": [\"https://").append(n).append(".").append(domain).append("\"]\n");
+                sb.append("  }' 2>/dev/null || echo \"  (이미 존재)\"\n\n");
+
+                // secret 조회
+                sb.append("CLIENT_UUID=$(curl -sf \"$KC_URL/admin/realms/$REALM/clients?clientId=").append(n).append("\" \\\n");
+                sb.append("  -H \"Authorization: Bearer $TOKEN\" | jq -r '.[0].id')\n");
+                sb.append(varName).append("=$(curl -sf \"$KC_URL/admin/realms/$REALM/clients/$CLIENT_UUID/client-secret\" \\\n");
+                sb.append("  -H \"Authorization: Bearer $TOKEN\" | jq -r '.value')\n");
+                sb.append("echo \"  ✅ ").append(n).append(": clientSecret=$").append(varName).append("\"\n\n");
+
+                // sed로 values 파일 자동 치환
+                sb.append("# values/").append(n).append("-keycloak.yaml 에 Secret 자동 반영\n");
+                sb.append("if [ -f \"$BASE_DIR/values/").append(n).append("-keycloak.yaml\" ]; then\n");
+                sb.append("  replace_in_file \"$BASE_DIR/values/").append(n).append("-keycloak.yaml\" \"$PLACEHOLDER\" \"$").append(varName).append("\"\n");
+                sb.append("  echo \"  📝 values/").append(n).append("-keycloak.yaml 업데이트 완료\"\n");
+                sb.append("fi\n\n");
+            }
+        }
+
+        // Phase 2: SSO 대상 재배포
+        sb.append("echo \"\"\necho \"========================================\"\n");
+        sb.append("echo \"  Phase 2: SSO 대상 애드온 재배포 (Secret 반영)\"\n");
+        sb.append("echo \"========================================\"\n\n");
+
+        boolean isAirgap = request.isAirgapped();
+        for (Map<String, Object> a : addons) {
+            if (Boolean.TRUE.equals(a.get("keycloakEnabled")) && !"keycloak".equals(a.get("name"))) {
+                String n = (String) a.get("name");
+                String displayName = (String) a.get("displayName");
+                String helmChartName = (String) a.get("helmChartName");
+
+                sb.append("echo \"🔄 ").append(displayName).append(" 재배포\"\n");
+
+                if (isAirgap) {
+                    // 폐쇄망: 로컬 chart tgz 사용 (deploy.sh와 동일 패턴)
+                    String chartGlob = (helmChartName != null && !helmChartName.isEmpty())
+                            ? helmChartName : n;
+                    sb.append("CHART=\"$(ls $BASE_DIR/charts/").append(chartGlob).append("-*.tgz 2>/dev/null | head -1)\"\n");
+                    sb.append("if [ -n \"$CHART\" ] && [ -f \"$CHART\" ]; then\n");
+                    sb.append("  helm upgrade --install ").append(n).append(" \"$CHART\"");
+                } else {
+                    // 인터넷: 원격 repo 참조
+                    String chartRef = (helmChartName != null && !helmChartName.isEmpty())
+                            ? n + "/" + helmChartName : n + "/" + n;
+                    sb.append("helm upgrade --install ").append(n).append(" ").append(chartRef);
+                }
+
+                sb.append(" -n $NAMESPACE");
+                sb.append(" -f \"$BASE_DIR/values/").append(n).append(".yaml\"");
+                if (request.isTlsEnabled()) {
+                    sb.append(" -f \"$BASE_DIR/values/").append(n).append("-tls.yaml\"");
+                }
+                sb.append(" -f \"$BASE_DIR/values/").append(n).append("-keycloak.yaml\"");
+                sb.append(" --wait --timeout 600s\n");
+
+                if (isAirgap) {
+                    sb.append("else\n");
+                    sb.append("  echo \"  ⚠️ ").append(displayName).append(" chart 파일이 없습니다. 건너뜁니다.\"\n");
+                    sb.append("fi\n");
+                }
+
+                sb.append("echo \"  ✅ ").append(displayName).append(" 재배포 완료\"\n\n");
+            }
+        }
+
+        sb.append("echo \"\"\necho \"========================================\"\n");
+        sb.append("echo \"  ✅ Keycloak SSO 설정 완료\"\n");
+        sb.append("echo \"  - Realm: $REALM\"\n");
+        sb.append("echo \"  - 클라이언트: ").append(String.join(", ", ssoAddonNames)).append("\"\n");
+        sb.append("echo \"  - 모든 Secret이 values 파일에 자동 반영됨\"\n");
+        sb.append("echo \"========================================\"\n");
+        return sb.toString();
+    }
+
+    private static void appendOciImageLoader(StringBuilder sb) {
+        sb.append("load_oci_image() {\n");
+        sb.append("  local dir=\"$1\" ref=\"$2\" tmp rc=0\n");
+        sb.append("  tmp=\"$(mktemp -d)\"\n");
+        sb.append("  cp \"$dir/refs/$ref.manifest.json\" \"$tmp/manifest.json\"\n");
+        sb.append("  ln -s \"$dir/blobs\" \"$tmp/blobs\"\n");
+        sb.append("  tar -chf - -C \"$tmp\" manifest.json $(cat \"$dir/refs/$ref.blobs\") | docker load || rc=$?\n");
+        sb.append("  rm -rf \"$tmp\"\n");
+        sb.append("  return $rc\n");
+        sb.append("}\n\n");
+        sb.append("load_all_images() {\n");
+        sb.append("  local dir=\"$1\" m img\n");
+        sb.append("  for m in \"$dir\"/refs/*.manifest.json; do\n");
+        sb.append("    [ -f \"$m\" ] || continue\n");
+        sb.append("    echo \"  로드: $(basename \"$m\" .manifest.json)\"\n");
+        sb.append("    load_oci_image \"$dir\" \"$(basename \"$m\" .manifest.json)\"\n");
+        sb.append("  done\n");
+        sb.append("  for img in \"$dir\"/*.tar; do\n");
+        sb.append("    [ -f \"$img\" ] || continue\n");
+        sb.append("    echo \"  로드: $(basename \"$img\")\"\n");
+        sb.append("    docker load -i \"$img\"\n");
+        sb.append("  done\n");
+        sb.append("}\n\n");
+    }
+
+    private static String sanitizeDomain(String domain) {
+        if (domain == null || domain.isBlank()) return "example.com";
+        return domain.replaceAll("[,;\\s]+", "").trim();
+    }
+
+    private static String sanitizeNamespace(String ns) {
+        if (ns == null || ns.isBlank()) return "devops";
+        return ns.replaceAll("[^a-zA-Z0-9\\-]", "").trim();
+    }
+
+    /**
+     * addons의 upstreamImages + imageTags를 파싱하여 image:tag 목록 반환
+     * imageTags: {"grafana":"11.3.0","loki":"3.2.0","prometheus":"2.54.0"}
+     * upstreamImages: ["grafana/grafana","grafana/loki","prom/prometheus"]
+     * → grafana/grafana:11.3.0, grafana/loki:3.2.0, prom/prometheus:2.54.0
+     */
+    static List<String> resolveImageList(List<Map<String, Object>> addons) {
+        List<String> result = new ArrayList<>();
+        var mapper = new com.fasterxml.jackson.databind.ObjectMapper();
+        for (Map<String, Object> a : addons) {
+            String images = (String) a.get("upstreamImages");
+            String imageTagsJson = (String) a.get("imageTags");
+            String version = (String) a.get("version");
+            if (images == null || images.isEmpty()) continue;
+            try {
+                List<String> list = mapper.readValue(images,
+                        new com.fasterxml.jackson.core.type.TypeReference<>() {});
+
+                // imageTags JSON 파싱 (key: short name, value: tag)
+                Map<String, String> tagMap = new LinkedHashMap<>();
+                if (imageTagsJson != null && !imageTagsJson.isEmpty()) {
+                    try {
+                        tagMap = mapper.readValue(imageTagsJson,
+                                new com.fasterxml.jackson.core.type.TypeReference<>() {});
+                    } catch (Exception ignored) {}
+                }
+
+                for (String img : list) {
+                    String tag = resolveImageTag(img, tagMap, version);
+                    result.add(img + ":" + tag);
+                }
+            } catch (Exception ignored) {}
+        }
+        return result;
+    }
+
+    /**
+     * 이미지 이름에서 short name을 추출하고 tagMap에서 태그를 찾는다.
+     * 예: "grafana/loki" → shortName="loki" → tagMap.get("loki") = "3.2.0"
+     */
+    private static String resolveImageTag(String imageName, Map<String, String> tagMap, String fallbackVersion) {
+        // 이미지 이름에서 마지막 / 뒤의 부분 추출
+        String shortName = imageName.contains("/")
+                ? imageName.substring(imageName.lastIndexOf("/") + 1)
+                : imageName;
+
+        // 1) tagMap에서 정확히 일치하는 키 찾기
+        if (tagMap.containsKey(shortName)) {
+            return tagMap.get(shortName);
+        }
+
+        // 2) tagMap에서 부분 일치 (예: "configmap-reload" → 없으면 스킵)
+        for (Map.Entry<String, String> entry : tagMap.entrySet()) {
+            if (shortName.contains(entry.getKey()) || entry.getKey().contains(shortName)) {
+                return entry.getValue();
+            }
+        }
+
+        // 3) fallback: 공식 이미지(슬래시 없음)는 latest, 그 외는 version
+        if (!imageName.contains("/")) {
+            return "latest";
+        }
+        return fallbackVersion != null ? fallbackVersion : "latest";
+    }
+}
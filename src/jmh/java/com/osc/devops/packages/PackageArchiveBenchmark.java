@@ -0,0 +1,101 @@
+package com.osc.devops.packages;
+
+import com.osc.devops.common.enums.ArchiveFormat;
+import com.osc.devops.packages.service.PackageArchiveWriter;
+import com.osc.devops.packages.service.ParallelGzipOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 패키지 파일 생성 전체 경로 (tar + 압축 + sha256 + 디스크 기록) - 기존 createTarGzJava를 대체한 PackageArchiveWriter
+ * 입력은 이미지 tar 1개 크기의 합성 스트림 (압축 가능한 구간과 난수 구간을 섞은 64KB 청크 반복)과 스크립트 몇 개.
+ * 결과 파일은 임시 디렉토리에 쓰고 매 호출마다 덮어쓴다 (2GB 설정은 디스크 여유 공간 필요).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class PackageArchiveBenchmark {
+
+    private static final int CHUNK = 64 * 1024;
+
+    @Param({"10", "256", "2048"})
+    private int sizeMb;
+
+    @Param({"TAR_GZ", "TAR_ZST", "TAR"})
+    private ArchiveFormat format;
+
+    @Param({"1", "8"})
+    private int threads;
+
+    private byte[] chunk;
+    private Path target;
+
+    @Setup
+    public void setup() throws IOException {
+        chunk = new byte[CHUNK];
+        Random random = new Random(42);
+        for (int i = 0; i < CHUNK; i++) {
+            chunk[i] = (i % 4096) < 2048 ? (byte) ('a' + (i % 26)) : (byte) random.nextInt(256);
+        }
+        target = Files.createTempFile("package-bench-", "." + format.getExtension());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    public String writeArchive() throws IOException {
+        long size = (long) sizeMb * 1024 * 1024;
+        try (PackageArchiveWriter archive = new PackageArchiveWriter(target, "bench", format, null,
+                ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE, threads)) {
+            archive.writeText("deploy.sh", "#!/bin/bash\necho deploy\n");
+            archive.writeText("values/harbor.yaml", "expose:\n  type: ingress\n");
+            archive.writeText("images.txt", "goharbor/harbor-core:v2.11.0\n");
+            archive.writeStream("images/harbor.tar", new ChunkInputStream(chunk, size), size);
+            archive.close();
+            return archive.getSha256();
+        }
+    }
+
+    /**
+     * chunk를 size 바이트까지 반복해 읽히는 스트림 (대용량 입력을 메모리에 올리지 않기 위함)
+     */
+    private static final class ChunkInputStream extends InputStream {
+
+        private final byte[] chunk;
+        private long remaining;
+        private int pos;
+
+        ChunkInputStream(byte[] chunk, long size) {
+            this.chunk = chunk;
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining <= 0) return -1;
+            int n = (int) Math.min(Math.min(len, chunk.length - pos), remaining);
+            System.arraycopy(chunk, pos, b, off, n);
+            pos = (pos + n) % chunk.length;
+            remaining -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.osc.devops.packages;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.devops.packages.dto.PackageBuildDto;
+import com.osc.devops.packages.service.PackageScriptGenerator;
+import com.osc.devops.packages.service.ResolvedAddon;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 스크립트/values 생성 경로 비교: 기존 StringBuilder(LegacyScriptGenerator) vs 컴파일된 템플릿(PackageScriptGenerator)
+ * 템플릿 경로는 빌드마다 하는 템플릿 모델 변환까지 포함해 측정한다 (ResolvedAddon 변환은 빌드를 꺼낼 때 한 번이므로 제외).
+ * setup에서 두 경로의 출력이 바이트 단위로 같은지 확인하고, 다르면 실행하지 않는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScriptTemplateBenchmark {
+
+    private static final String[] NAMES = {"cert-manager", "keycloak", "harbor", "gitea", "gitlab", "jenkins",
+            "argocd", "sonarqube", "nexus", "vault", "monitoring", "service-mesh"};
+
+    @Param({"12", "48"})
+    private int addonCount;
+
+    @Param({"INTERNET", "AIRGAPPED"})
+    private String deployEnv;
+
+    private List<Map<String, Object>> addons;
+    private List<ResolvedAddon> resolved;
+    private PackageBuildDto.BuildRequest request;
+    private PackageScriptGenerator generator;
+
+    @Setup
+    public void setup() {
+        addons = new ArrayList<>();
+        for (int i = 0; i < addonCount; i++) {
+            String base = NAMES[i % NAMES.length];
+            String name = i < NAMES.length ? base : base + "-" + i;
+            Map<String, Object> addon = new HashMap<>();
+            addon.put("name", name);
+            addon.put("displayName", base.toUpperCase() + " " + i);
+            addon.put("helmRepoUrl", "https://charts.example.com/" + base);
+            addon.put("helmChartName", i % 2 == 0 ? base : null);
+            addon.put("helmChartVersion", "1." + i + ".0");
+            addon.put("version", "2." + i);
+            addon.put("installOrder", (i * 37) % 11 * 10);
+            addon.put("keycloakEnabled", i % 3 != 0);
+            addons.add(addon);
+        }
+        request = PackageBuildDto.BuildRequest.builder()
+                .namespace("devops")
+                .domain("bench.example.com")
+                .deployEnv(deployEnv)
+                .tlsEnabled(true)
+                .keycloakEnabled(true)
+                .build();
+        resolved = ResolvedAddon.fromMaps(addons, new ObjectMapper());
+        generator = new PackageScriptGenerator();
+
+        PackageScriptGenerator.ScriptModel model = generator.model(resolved, request);
+        check("deploy.sh", LegacyScriptGenerator.deployScript(addons, request), generator.deployScript(model));
+        check("configure-keycloak.sh", LegacyScriptGenerator.keycloakConfig(addons, request), generator.keycloakConfig(model));
+        if (!LegacyScriptGenerator.helmValues(addons, request).equals(generator.helmValues(model))) {
+            throw new IllegalStateException("values 출력 불일치");
+        }
+    }
+
+    private static void check(String file, String legacy, String template) {
+        if (!legacy.equals(template)) throw new IllegalStateException(file + " 출력 불일치");
+    }
+
+    @Benchmark
+    public String legacyDeployScript() {
+        return LegacyScriptGenerator.deployScript(addons, request);
+    }
+
+    @Benchmark
+    public String templateDeployScript() {
+        return generator.deployScript(generator.model(resolved, request));
+    }
+
+    @Benchmark
+    public Map<String, String> legacyHelmValues() {
+        return LegacyScriptGenerator.helmValues(addons, request);
+    }
+
+    @Benchmark
+    public Map<String, String> templateHelmValues() {
+        return generator.helmValues(generator.model(resolved, request));
+    }
+
+    @Benchmark
+    public void legacyAll(Blackhole bh) {
+        bh.consume(LegacyScriptGenerator.deployScript(addons, request));
+        bh.consume(LegacyScriptGenerator.helmValues(addons, request));
+        bh.consume(LegacyScriptGenerator.keycloakConfig(addons, request));
+    }
+
+    @Benchmark
+    public void templateAll(Blackhole bh) {
+        PackageScriptGenerator.ScriptModel model = generator.model(resolved, request);
+        bh.consume(generator.deployScript(model));
+        bh.consume(generator.helmValues(model));
+        bh.consume(generator.keycloakConfig(model));
+    }
+}
@@ -0,0 +1,22 @@
+package com.osc.devops.common.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ArchiveFormat {
+
+    TAR_GZ("tar.gz", "application/gzip", 1, 9),
+    TAR_ZST("tar.zst", "application/zstd", 1, 19),
+    TAR("tar", "application/x-tar", 0, 0);      // 압축 없음 (이미지 레이어는 대부분 이미 압축됨)
+
+    private final String extension;
+    private final String contentType;
+    private final int minLevel;
+    private final int maxLevel;
+
+    public boolean isCompressed() {
+        return this != TAR;
+    }
+}
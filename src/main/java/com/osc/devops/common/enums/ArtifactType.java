@@ -0,0 +1,8 @@
+package com.osc.devops.common.enums;
+
+public enum ArtifactType {
+    BUNDLE,     // 패키지 파일 자체 (tar.gz / tar.zst / tar)
+    CHART,      // charts/*.tgz
+    IMAGE,      // images/refs/{ref} (digest: OCI manifest digest)
+    BLOB        // images/blobs/sha256/{digest} - 패키지가 참조하는 blob (델타 빌드에서 기준 패키지에 있는 blob 제외용)
+}
@@ -1,9 +1,18 @@
 package com.osc.devops.common.enums;
 
 public enum BuildStatus {
+    QUEUED,
     SUCCESS,
     BUILDING,
     COMPLETED,
     FAILED,
-    EXPIRED
+    EXPIRED,
+    CANCELLED;
+
+    /**
+     * 아직 끝나지 않은 빌드 (대기 중이거나 실행 중)
+     */
+    public boolean isActive() {
+        return this == QUEUED || this == BUILDING;
+    }
 }
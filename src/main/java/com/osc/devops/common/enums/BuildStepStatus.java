@@ -0,0 +1,8 @@
+package com.osc.devops.common.enums;
+
+public enum BuildStepStatus {
+    SUCCESS,
+    FAILED,
+    SKIPPED,    // 델타 패키지에서 기준 빌드와 같아 제외
+    CANCELLED
+}
@@ -0,0 +1,7 @@
+package com.osc.devops.common.enums;
+
+public enum BuildStepType {
+    STAGE,      // 빌드 단계 (deploy-script, helm-charts, images, finalize ...)
+    CHART,      // helm chart 1개
+    IMAGE       // 이미지 × 플랫폼 1개
+}
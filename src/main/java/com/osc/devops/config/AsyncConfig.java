@@ -1,7 +1,9 @@
 package com.osc.devops.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
@@ -9,14 +11,98 @@ import java.util.concurrent.Executor;
 @Configuration
 public class AsyncConfig {
 
+    /**
+     * 패키지 빌드 실행 풀 - 대기는 PackageBuildScheduler의 DB 대기열이 담당하므로
+     * 풀 자체는 큐 없이 동시 실행 상한(폐쇄망 + 인터넷)만큼만 스레드를 둔다
+     */
     @Bean(name = "packageBuildTaskExecutor")
-    public Executor packageBuildExecutor() {
+    public Executor packageBuildExecutor(
+            @Value("${package.build.queue.max-concurrent-airgapped:2}") int maxAirgapped,
+            @Value("${package.build.queue.max-concurrent-internet:3}") int maxInternet) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(3);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(10);
+        executor.setCorePoolSize(maxAirgapped + maxInternet);
+        executor.setMaxPoolSize(maxAirgapped + maxInternet);
+        executor.setQueueCapacity(0);
         executor.setThreadNamePrefix("pkg-build-");
         executor.initialize();
         return executor;
     }
+
+    /**
+     * 폐쇄망 빌드의 docker pull/save 작업용 풀 (전체 빌드 공용, 동시 실행 수 제한)
+     */
+    @Bean(name = "imagePullTaskExecutor")
+    public Executor imagePullExecutor(@Value("${package.build.image-pull.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("img-pull-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 레지스트리 직접 다운로드(image-export.mode=registry)의 blob 다운로드 풀 (전체 빌드 공용)
+     */
+    @Bean(name = "registryBlobTaskExecutor")
+    public Executor registryBlobExecutor(@Value("${package.build.image-export.blob-parallelism:8}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("blob-pull-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 폐쇄망 빌드의 helm pull 작업용 풀 (캐시 miss chart만 사용)
+     */
+    @Bean(name = "chartPullTaskExecutor")
+    public Executor chartPullExecutor(@Value("${package.build.chart-pull.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("chart-pull-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * S3 결과물 저장소의 multipart part 업로드/복사 풀 (전체 빌드 공용)
+     */
+    @Bean(name = "artifactUploadTaskExecutor")
+    public Executor artifactUploadExecutor(
+            @Value("${package.build.artifact-store.s3.upload-parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("artifact-upload-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 대기열에서 재사용하는 동일 구성 빌드의 결과물 복제 풀 (dispatch는 제출만 하고 기다리지 않음)
+     * 복제 내부의 part 복사는 artifactUploadTaskExecutor를 쓰므로 같은 풀을 쓰지 않는다
+     */
+    @Bean(name = "artifactCopyTaskExecutor")
+    public Executor artifactCopyExecutor(@Value("${package.build.dedup.copy-parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("artifact-copy-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Harbor 태그 조회 풀 (virtual thread, 동시 실행 수 제한 - 초과 시 제출 측이 대기)
+     */
+    @Bean(name = "harborSyncTaskExecutor")
+    public Executor harborSyncExecutor(@Value("${harbor.sync.parallelism:8}") int parallelism) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("harbor-sync-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(parallelism);
+        return executor;
+    }
 }
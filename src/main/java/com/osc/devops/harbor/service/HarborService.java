@@ -14,16 +14,23 @@ import com.osc.devops.harbor.entity.HarborSyncLog;
 import com.osc.devops.harbor.repository.HarborSyncLogRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
 @Slf4j
 @Service
@@ -47,22 +54,42 @@ public class HarborService {
     @Value("${harbor.project:devops-upstream}")
     private String harborProject;
 
+    // Harbor 호스트별 동시 요청 수
+    @Value("${harbor.sync.max-concurrent-per-host:4}")
+    private int maxConcurrentPerHost;
+
+    private final TransactionTemplate transactionTemplate;
+    @Qualifier("harborSyncTaskExecutor")
+    private final Executor harborSyncExecutor;
+
     private final RestTemplate restTemplate = new RestTemplate();
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
 
     /**
      * 전체 애드온의 upstream 이미지를 Harbor에서 확인하고 새 버전 감지
+     * - 태그 조회는 전체 애드온의 이미지를 한 번에 병렬 조회 (같은 repository는 한 번만)
+     * - DB 반영은 조회가 끝난 뒤 애드온별 짧은 트랜잭션으로 처리
      */
-    @Transactional
     public HarborSyncDto.SyncResult syncAllAddons(SyncType syncType) {
         List<Addon> addons = addonRepository.findByIsActiveTrueOrderByInstallOrderAsc();
+        List<HarborSyncLog> syncLogs = transactionTemplate.execute(tx ->
+                addons.stream().map(addon -> startSyncLog(addon, syncType)).toList());
+
+        Map<String, CompletableFuture<List<String>>> tagFetches = new HashMap<>();
+        List<List<String>> addonImages = addons.stream()
+                .map(addon -> parseUpstreamImages(addon.getUpstreamImages()))
+                .toList();
+        addonImages.forEach(images -> fetchTagsAsync(images, tagFetches));
+
         int totalNew = 0;
         int successCount = 0;
         int failCount = 0;
         List<String> errors = new ArrayList<>();
 
-        for (Addon addon : addons) {
+        for (int i = 0; i < addons.size(); i++) {
+            Addon addon = addons.get(i);
             try {
-                int newVersions = syncAddon(addon, syncType);
+                int newVersions = completeSync(addon, syncLogs.get(i), collectTags(addonImages.get(i), tagFetches));
                 totalNew += newVersions;
                 successCount++;
             } catch (Exception e) {
@@ -85,73 +112,72 @@ public class HarborService {
     /**
      * 개별 애드온 동기화
      */
-    @Transactional
     public int syncAddon(Addon addon, SyncType syncType) {
+        HarborSyncLog syncLog = transactionTemplate.execute(tx -> startSyncLog(addon, syncType));
+        List<String> images = parseUpstreamImages(addon.getUpstreamImages());
+        Map<String, CompletableFuture<List<String>>> tagFetches = new HashMap<>();
+        fetchTagsAsync(images, tagFetches);
+        return completeSync(addon, syncLog, collectTags(images, tagFetches));
+    }
+
+    private HarborSyncLog startSyncLog(Addon addon, SyncType syncType) {
         HarborSyncLog syncLog = HarborSyncLog.builder()
                 .addon(addon)
                 .syncType(syncType)
                 .status(SyncStatus.IN_PROGRESS)
                 .startedAt(LocalDateTime.now())
                 .build();
-        syncLog = syncLogRepository.save(syncLog);
+        return syncLogRepository.save(syncLog);
+    }
 
+    /**
+     * 조회한 태그로 신규 버전 등록 + 동기화 로그 완료 (애드온 단위 트랜잭션)
+     */
+    private int completeSync(Addon addon, HarborSyncLog syncLog, Set<String> discoveredTags) {
         try {
-            List<String> upstreamImages = parseUpstreamImages(addon.getUpstreamImages());
-            if (upstreamImages.isEmpty()) {
+            return transactionTemplate.execute(tx -> {
+                // 기존 버전과 비교하여 새 버전 감지
+                List<String> existingVersions = addonVersionRepository
+                        .findByAddonIdOrderByCreatedAtDesc(addon.getId())
+                        .stream()
+                        .map(AddonVersion::getVersion)
+                        .toList();
+
+                List<String> newVersions = discoveredTags.stream()
+                        .filter(tag -> !existingVersions.contains(tag))
+                        .filter(tag -> isValidVersion(tag))
+                        .sorted(Comparator.reverseOrder())
+                        .limit(5) // 최대 5개 신규 버전
+                        .toList();
+
+                // 신규 버전 등록
+                for (String ver : newVersions) {
+                    // 기존 latest 해제
+                    addonVersionRepository.findByAddonIdAndIsLatestTrue(addon.getId())
+                            .ifPresent(v -> { v.setIsLatest(false); addonVersionRepository.save(v); });
+
+                    AddonVersion newVer = AddonVersion.builder()
+                            .addon(addon)
+                            .version(ver)
+                            .isLatest(true)
+                            .syncedAt(LocalDateTime.now())
+                            .build();
+                    addonVersionRepository.save(newVer);
+                }
+
                 syncLog.setStatus(SyncStatus.SUCCESS);
+                syncLog.setNewVersionsFound(toJson(newVersions));
                 syncLog.setCompletedAt(LocalDateTime.now());
                 syncLogRepository.save(syncLog);
-                return 0;
-            }
-
-            // Harbor API로 각 이미지의 태그 목록 조회
-            Set<String> discoveredTags = new HashSet<>();
-            for (String image : upstreamImages) {
-                List<String> tags = fetchHarborTags(image);
-                discoveredTags.addAll(tags);
-            }
-
-            // 기존 버전과 비교하여 새 버전 감지
-            List<String> existingVersions = addonVersionRepository
-                    .findByAddonIdOrderByCreatedAtDesc(addon.getId())
-                    .stream()
-                    .map(AddonVersion::getVersion)
-                    .toList();
-
-            List<String> newVersions = discoveredTags.stream()
-                    .filter(tag -> !existingVersions.contains(tag))
-                    .filter(tag -> isValidVersion(tag))
-                    .sorted(Comparator.reverseOrder())
-                    .limit(5) // 최대 5개 신규 버전
-                    .toList();
-
-            // 신규 버전 등록
-            for (String ver : newVersions) {
-                // 기존 latest 해제
-                addonVersionRepository.findByAddonIdAndIsLatestTrue(addon.getId())
-                        .ifPresent(v -> { v.setIsLatest(false); addonVersionRepository.save(v); });
-
-                AddonVersion newVer = AddonVersion.builder()
-                        .addon(addon)
-                        .version(ver)
-                        .isLatest(true)
-                        .syncedAt(LocalDateTime.now())
-                        .build();
-                addonVersionRepository.save(newVer);
-            }
-
-            syncLog.setStatus(SyncStatus.SUCCESS);
-            syncLog.setNewVersionsFound(objectMapper.writeValueAsString(newVersions));
-            syncLog.setCompletedAt(LocalDateTime.now());
-            syncLogRepository.save(syncLog);
-
-            if (!newVersions.isEmpty()) {
-                log.info("Harbor 동기화: addon={}, 신규버전={}", addon.getName(), newVersions);
-            }
-            return newVersions.size();
 
+                if (!newVersions.isEmpty()) {
+                    log.info("Harbor 동기화: addon={}, 신규버전={}", addon.getName(), newVersions);
+                }
+                return newVersions.size();
+            });
         } catch (Exception e) {
             syncLog.setStatus(SyncStatus.FAILED);
+            syncLog.setNewVersionsFound(null);
             syncLog.setErrorMessage(e.getMessage());
             syncLog.setCompletedAt(LocalDateTime.now());
             syncLogRepository.save(syncLog);
@@ -160,40 +186,71 @@ public class HarborService {
     }
 
     /**
-     * Harbor API: 특정 이미지의 태그 목록 조회
+     * 이미지별 태그 조회 시작 (이미 조회 중인 repository는 건너뜀)
+     */
+    private void fetchTagsAsync(List<String> images, Map<String, CompletableFuture<List<String>>> tagFetches) {
+        for (String image : images) {
+            tagFetches.computeIfAbsent(repositoryName(image), repoName ->
+                    CompletableFuture.supplyAsync(() -> fetchHarborTags(repoName), harborSyncExecutor));
+        }
+    }
+
+    private Set<String> collectTags(List<String> images, Map<String, CompletableFuture<List<String>>> tagFetches) {
+        Set<String> discoveredTags = new HashSet<>();
+        for (String image : images) {
+            discoveredTags.addAll(tagFetches.get(repositoryName(image)).join());
+        }
+        return discoveredTags;
+    }
+
+    /**
+     * 이미지 이름 → Harbor repository 이름
+     * 예: quay.io/keycloak/keycloak → keycloak (마지막 부분 사용)
      */
-    private List<String> fetchHarborTags(String imageName) {
+    private static String repositoryName(String imageName) {
+        return imageName.contains("/") ? imageName.substring(imageName.lastIndexOf("/") + 1) : imageName;
+    }
+
+    /**
+     * Harbor API: 특정 repository의 태그 목록 조회 (호스트별 동시 요청 수 제한)
+     */
+    private List<String> fetchHarborTags(String repoName) {
+        String url = harborUrl + "/api/v2.0/projects/" + harborProject
+                + "/repositories/" + repoName + "/artifacts?page_size=20";
+        Semaphore permits = hostPermits.computeIfAbsent(URI.create(harborUrl).getAuthority(),
+                host -> new Semaphore(Math.max(1, maxConcurrentPerHost)));
         try {
-            // imageName 예: quay.io/keycloak/keycloak → repo name에서 마지막 부분 사용
-            String repoName = imageName.contains("/") ?
-                    imageName.substring(imageName.lastIndexOf("/") + 1) : imageName;
-
-            String url = harborUrl + "/api/v2.0/projects/" + harborProject
-                    + "/repositories/" + repoName + "/artifacts?page_size=20";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBasicAuth(harborUsername, harborPassword);
-            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                JsonNode artifacts = objectMapper.readTree(response.getBody());
-                List<String> tags = new ArrayList<>();
-                for (JsonNode artifact : artifacts) {
-                    JsonNode tagsNode = artifact.get("tags");
-                    if (tagsNode != null && tagsNode.isArray()) {
-                        for (JsonNode tag : tagsNode) {
-                            String tagName = tag.get("name").asText();
-                            tags.add(tagName);
+            permits.acquire();
+            try {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setBasicAuth(harborUsername, harborPassword);
+                headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+
+                ResponseEntity<String> response = restTemplate.exchange(
+                        url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                    JsonNode artifacts = objectMapper.readTree(response.getBody());
+                    List<String> tags = new ArrayList<>();
+                    for (JsonNode artifact : artifacts) {
+                        JsonNode tagsNode = artifact.get("tags");
+                        if (tagsNode != null && tagsNode.isArray()) {
+                            for (JsonNode tag : tagsNode) {
+                                String tagName = tag.get("name").asText();
+                                tags.add(tagName);
+                            }
                         }
                     }
+                    return tags;
                 }
-                return tags;
+            } finally {
+                permits.release();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Harbor 태그 조회 중단: repository={}", repoName);
         } catch (Exception e) {
-            log.warn("Harbor 태그 조회 실패: image={}, error={}", imageName, e.getMessage());
+            log.warn("Harbor 태그 조회 실패: repository={}, error={}", repoName, e.getMessage());
         }
         return Collections.emptyList();
     }
@@ -219,6 +276,14 @@ public class HarborService {
         }
     }
 
+    private String toJson(List<String> versions) {
+        try {
+            return objectMapper.writeValueAsString(versions);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private boolean isValidVersion(String tag) {
         if (tag == null) return false;
         // "latest", "main", "master" 등 비버전 태그 제외
@@ -1,22 +1,25 @@
 package com.osc.devops.packages.controller;
 
 import com.osc.devops.common.dto.ApiResponse;
+import com.osc.devops.common.enums.BuildStepType;
 import com.osc.devops.packages.dto.PackageBuildDto;
 import com.osc.devops.packages.service.PackageBuildService;
+import com.osc.devops.packages.service.PackageDownloadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/packages")
@@ -24,6 +27,7 @@ import java.io.File;
 public class PackageController {
 
     private final PackageBuildService buildService;
+    private final PackageDownloadService downloadService;
 
     @PostMapping("/build")
     @ResponseStatus(HttpStatus.CREATED)
@@ -55,16 +59,51 @@ public class PackageController {
         return ApiResponse.ok(buildService.getBuildByHash(hash));
     }
 
-    @GetMapping("/download/{hash}")
-    public ResponseEntity<Resource> downloadPackage(@PathVariable String hash) {
-        File file = buildService.getBuildFile(hash);
-        Resource resource = new FileSystemResource(file);
-
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + file.getName() + "\"")
-                .contentLength(file.length())
-                .body(resource);
+    @PostMapping("/hash/{hash}/cancel")
+    public ApiResponse<PackageBuildDto.Response> cancelBuild(@PathVariable String hash) {
+        return ApiResponse.ok(buildService.cancelBuild(hash));
+    }
+
+    @GetMapping("/hash/{hash}/steps")
+    public ApiResponse<List<PackageBuildDto.StepResponse>> getBuildSteps(@PathVariable String hash) {
+        return ApiResponse.ok(buildService.getBuildSteps(hash));
+    }
+
+    @GetMapping("/hash/{hash}/artifacts")
+    public ApiResponse<List<PackageBuildDto.ArtifactResponse>> getBuildArtifacts(@PathVariable String hash) {
+        return ApiResponse.ok(buildService.getBuildArtifacts(hash));
+    }
+
+    /**
+     * 최근 N개 빌드에서 느린 step 순위 (예: ?recentBuilds=50&stepType=IMAGE&sort=durationMs,desc)
+     */
+    @GetMapping("/steps/slowest")
+    public ApiResponse<Page<PackageBuildDto.StepResponse>> getSlowestSteps(
+            @RequestParam(defaultValue = "20") int recentBuilds,
+            @RequestParam(required = false) BuildStepType stepType,
+            @PageableDefault(size = 50, sort = "durationMs", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ApiResponse.ok(buildService.getSlowestSteps(recentBuilds, stepType, pageable));
+    }
+
+    @GetMapping(value = "/hash/{hash}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBuildEvents(@PathVariable String hash) {
+        return buildService.subscribeEvents(hash);
+    }
+
+    @GetMapping("/cache-stats")
+    public ApiResponse<PackageBuildDto.CacheStats> getCacheStats() {
+        return ApiResponse.ok(buildService.getCacheStats());
+    }
+
+    @GetMapping("/process-stats")
+    public ApiResponse<List<PackageBuildDto.ProcessStats>> getProcessStats() {
+        return ApiResponse.ok(buildService.getProcessStats());
+    }
+
+    @RequestMapping(value = "/download/{hash}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void downloadPackage(@PathVariable String hash,
+                                HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        downloadService.download(hash, request, response);
     }
 }
@@ -1,7 +1,13 @@
 package com.osc.devops.packages.dto;
 
+import com.osc.devops.common.enums.ArchiveFormat;
+import com.osc.devops.common.enums.ArtifactType;
 import com.osc.devops.common.enums.BuildStatus;
+import com.osc.devops.common.enums.BuildStepStatus;
+import com.osc.devops.common.enums.BuildStepType;
 import com.osc.devops.packages.entity.PackageBuild;
+import com.osc.devops.packages.entity.PackageBuildArtifact;
+import com.osc.devops.packages.entity.PackageBuildStep;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.*;
 
@@ -26,6 +32,9 @@ public class PackageBuildDto {
         private String registryUrl;     // 사용자 지정 레지스트리 (예: harbor.company.com)
         private String platform;        // linux/amd64 | linux/arm64 | linux/amd64,linux/arm64
         private String builtBy;
+        private ArchiveFormat archiveFormat;   // TAR_GZ(기본) | TAR_ZST | TAR
+        private Integer compressionLevel;      // null이면 서버 기본값 (gzip 1~9, zstd 1~19)
+        private String baseBuildHash;          // 델타 패키지 기준 빌드 (폐쇄망 전용, null이면 전체 패키지)
 
         public String getDeployEnv() {
             return deployEnv != null ? deployEnv : "INTERNET";
@@ -42,6 +51,30 @@ public class PackageBuildDto {
         public boolean isAirgapped() {
             return "AIRGAPPED".equalsIgnoreCase(getDeployEnv());
         }
+        public ArchiveFormat getArchiveFormat() {
+            return archiveFormat != null ? archiveFormat : ArchiveFormat.TAR_GZ;
+        }
+
+        /**
+         * 대기열에서 꺼낸 빌드의 옵션 복원 (애드온 정보는 selectedAddons JSON에서 별도 복원)
+         */
+        public static BuildRequest from(PackageBuild entity) {
+            return BuildRequest.builder()
+                    .customerId(entity.getCustomer() != null ? entity.getCustomer().getId() : null)
+                    .projectId(entity.getProject() != null ? entity.getProject().getId() : null)
+                    .namespace(entity.getNamespace())
+                    .domain(entity.getDomain())
+                    .tlsEnabled(Boolean.TRUE.equals(entity.getTlsEnabled()))
+                    .keycloakEnabled(Boolean.TRUE.equals(entity.getKeycloakEnabled()))
+                    .deployEnv(entity.getDeployEnv())
+                    .registryUrl(entity.getRegistryUrl())
+                    .platform(entity.getPlatform())
+                    .builtBy(entity.getBuiltBy())
+                    .archiveFormat(entity.getArchiveFormat())
+                    .compressionLevel(entity.getCompressionLevel())
+                    .baseBuildHash(entity.getBaseBuildHash())
+                    .build();
+        }
     }
 
     @Getter @Builder @NoArgsConstructor @AllArgsConstructor
@@ -52,7 +85,7 @@ public class PackageBuildDto {
         private String helmChartVersion;
     }
 
-    @Getter @Builder @AllArgsConstructor
+    @Getter @Builder(toBuilder = true) @AllArgsConstructor
     public static class Response {
         private Long id;
         private Long customerId;
@@ -72,8 +105,17 @@ public class PackageBuildDto {
         private String deployEnv;
         private String registryUrl;
         private String platform;
+        private ArchiveFormat archiveFormat;
         private Integer progress;
+        private Integer priority;
+        private Integer queuePosition;     // QUEUED 상태일 때만 (1부터)
+        private String baseBuildHash;
+        private String checkpointStage;
+        private Integer resumeCount;
+        private LocalDateTime startedAt;
         private LocalDateTime expiresAt;
+        private String leaseOwner;         // BUILDING 상태일 때 실행 중인 replica
+        private LocalDateTime lastDownloadedAt;
         private LocalDateTime createdAt;
 
         public static Response from(PackageBuild entity) {
@@ -96,10 +138,125 @@ public class PackageBuildDto {
                     .deployEnv(entity.getDeployEnv())
                     .registryUrl(entity.getRegistryUrl())
                     .platform(entity.getPlatform())
+                    .archiveFormat(entity.getArchiveFormat())
                     .progress(entity.getProgress())
+                    .priority(entity.getPriority())
+                    .baseBuildHash(entity.getBaseBuildHash())
+                    .checkpointStage(entity.getCheckpointStage())
+                    .resumeCount(entity.getResumeCount())
+                    .startedAt(entity.getStartedAt())
                     .expiresAt(entity.getExpiresAt())
+                    .leaseOwner(entity.getLeaseOwner())
+                    .lastDownloadedAt(entity.getLastDownloadedAt())
                     .createdAt(entity.getCreatedAt())
                     .build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * SSE 빌드 이벤트 payload (이벤트 종류별로 필요한 필드만 채움)
+     */
+    @Getter @Builder @AllArgsConstructor
+    public static class BuildEvent {
+        private String buildHash;
+        private BuildStatus status;
+        private Integer progress;
+        private String stage;          // deploy-script, helm-values, ..., images, finalize
+        private String image;
+        private String platform;
+        private String imageStatus;    // PULLING | DONE | FAILED
+    }
+
+    @Getter @AllArgsConstructor
+    public static class DownloadFile {
+        private String buildHash;
+        private String location;       // ArtifactStore 위치 (PackageBuild.filePath)
+        private long size;
+        private long lastModified;     // epoch millis
+        private ArchiveFormat archiveFormat;
+
+        public String getFileName() {
+            return buildHash + "." + archiveFormat.getExtension();
+        }
+    }
+
+    @Getter @Builder @AllArgsConstructor
+    public static class CacheStats {
+        private long imageCacheHits;
+        private long imageCacheMisses;
+        private long imageCacheSize;
+        private long blobCacheHits;
+        private long blobCacheMisses;
+        private long blobCacheSize;
+        private long chartCacheHits;
+        private long chartCacheMisses;
+    }
+
+    @Getter @Builder @AllArgsConstructor
+    public static class ProcessStats {
+        private String command;       // 예: "docker pull", "helm pull"
+        private long count;
+        private long failures;        // 종료 코드 != 0 (타임아웃/취소 포함)
+        private long timeouts;
+        private long totalMs;
+        private long avgMs;
+        private long maxMs;
+    }
+
+    /**
+     * 빌드 step 기록 (buildHash는 여러 빌드를 함께 조회할 때만 채움)
+     */
+    @Getter @Builder @AllArgsConstructor
+    public static class StepResponse {
+        private String buildHash;
+        private BuildStepType stepType;
+        private String name;
+        private String platform;
+        private BuildStepStatus status;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private Long durationMs;
+        private Long bytes;
+        private Integer retries;
+        private Integer exitCode;
+        private String message;
+
+        public static StepResponse from(PackageBuildStep entity, String buildHash) {
+            return StepResponse.builder()
+                    .buildHash(buildHash)
+                    .stepType(entity.getStepType())
+                    .name(entity.getName())
+                    .platform(entity.getPlatform())
+                    .status(entity.getStatus())
+                    .startedAt(entity.getStartedAt())
+                    .finishedAt(entity.getFinishedAt())
+                    .durationMs(entity.getDurationMs())
+                    .bytes(entity.getBytes())
+                    .retries(entity.getRetries())
+                    .exitCode(entity.getExitCode())
+                    .message(entity.getMessage())
+                    .build();
+        }
+    }
+
+    @Getter @Builder @AllArgsConstructor
+    public static class ArtifactResponse {
+        private ArtifactType artifactType;
+        private String name;
+        private String platform;
+        private String path;
+        private Long sizeBytes;
+        private String digest;
+
+        public static ArtifactResponse from(PackageBuildArtifact entity) {
+            return ArtifactResponse.builder()
+                    .artifactType(entity.getArtifactType())
+                    .name(entity.getName())
+                    .platform(entity.getPlatform())
+                    .path(entity.getPath())
+                    .sizeBytes(entity.getSizeBytes())
+                    .digest(entity.getDigest())
+                    .build();
+        }
+    }
+}
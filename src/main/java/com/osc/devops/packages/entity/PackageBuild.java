@@ -1,6 +1,7 @@
 package com.osc.devops.packages.entity;
 
 import com.osc.devops.common.entity.BaseTimeEntity;
+import com.osc.devops.common.enums.ArchiveFormat;
 import com.osc.devops.common.enums.BuildStatus;
 import com.osc.devops.customer.entity.Customer;
 import com.osc.devops.customer.entity.Project;
@@ -33,6 +34,10 @@ public class PackageBuild extends BaseTimeEntity {
     @Column(name = "build_hash", nullable = false, unique = true, length = 100)
     private String buildHash;
 
+    // 빌드 내용 fingerprint (동일 구성 빌드 재사용 판단용)
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
     // 선택된 애드온 + 버전 (JSON)
     // [{"addonId":1,"addonName":"keycloak","version":"26.0.7"}, ...]
     @Column(name = "selected_addons", nullable = false, columnDefinition = "TEXT")
@@ -77,10 +82,60 @@ public class PackageBuild extends BaseTimeEntity {
     @Builder.Default
     private String platform = "linux/amd64";
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "archive_format", nullable = false, length = 20)
+    @Builder.Default
+    private ArchiveFormat archiveFormat = ArchiveFormat.TAR_GZ;
+
+    @Column(name = "compression_level")
+    private Integer compressionLevel;
+
     @Column(name = "progress")
     @Builder.Default
     private Integer progress = 0;
 
+    // 대기열 우선순위 (높을수록 먼저 실행)
+    @Column(name = "priority", nullable = false)
+    @Builder.Default
+    private Integer priority = 0;
+
+    // 델타 패키지의 기준 빌드 해시 (null이면 전체 패키지)
+    @Column(name = "base_build_hash", length = 100)
+    private String baseBuildHash;
+
+    // 마지막으로 완료된 빌드 단계 (재개 시 이 단계 이후부터 진행)
+    @Column(name = "checkpoint_stage", length = 50)
+    private String checkpointStage;
+
+    // 서버 재시작 등으로 중단된 빌드를 체크포인트에서 재개한 횟수
+    @Column(name = "resume_count", nullable = false)
+    @Builder.Default
+    private Integer resumeCount = 0;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
     @Column(name = "expires_at")
     private LocalDateTime expiresAt;
+
+    // 마지막 다운로드 시각 (저장 용량 초과 시 오래된 순으로 정리)
+    @Column(name = "last_downloaded_at")
+    private LocalDateTime lastDownloadedAt;
+
+    // 빌드를 실행 중인 replica와 lease 만료 시각 (heartbeat로 연장, 만료되면 다른 replica가 대기열로 되돌림)
+    // 엔티티 save로 덮어쓰지 않도록 PackageBuildRepository의 UPDATE 쿼리로만 변경
+    @Column(name = "lease_owner", length = 100, updatable = false)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at", updatable = false)
+    private LocalDateTime leaseExpiresAt;
+
+    // lease 획득마다 새로 발급 - 같은 replica의 이전 실행(lease 유실 후 아직 종료 전)과 현재 실행을 구분
+    @Column(name = "lease_token", length = 36, updatable = false)
+    private String leaseToken;
+
+    // 실행 중 취소 요청 (다른 replica에서 받은 요청도 실행 중인 replica가 heartbeat에서 반영)
+    @Column(name = "cancel_requested", nullable = false, updatable = false)
+    @Builder.Default
+    private Boolean cancelRequested = false;
 }
\ No newline at end of file
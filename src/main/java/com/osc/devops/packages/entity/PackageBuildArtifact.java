@@ -0,0 +1,48 @@
+package com.osc.devops.packages.entity;
+
+import com.osc.devops.common.entity.BaseTimeEntity;
+import com.osc.devops.common.enums.ArtifactType;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 패키지에 포함된 결과물 목록 (패키지 파일, chart, 이미지)
+ */
+@Entity
+@Table(name = "package_build_artifact")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PackageBuildArtifact extends BaseTimeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "build_id", nullable = false)
+    private PackageBuild build;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "artifact_type", nullable = false, length = 20)
+    private ArtifactType artifactType;
+
+    @Column(nullable = false, length = 500)
+    private String name;
+
+    @Column(length = 100)
+    private String platform;
+
+    // 패키지 루트 기준 경로 (BUNDLE은 파일 이름)
+    @Column(nullable = false, length = 500)
+    private String path;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    // sha256:...
+    @Column(length = 100)
+    private String digest;
+}
@@ -0,0 +1,69 @@
+package com.osc.devops.packages.entity;
+
+import com.osc.devops.common.entity.BaseTimeEntity;
+import com.osc.devops.common.enums.BuildStepStatus;
+import com.osc.devops.common.enums.BuildStepType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 빌드 단계/chart/이미지별 실행 기록 (빌드 종료 시 한 번에 저장)
+ */
+@Entity
+@Table(name = "package_build_step")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PackageBuildStep extends BaseTimeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "build_id", nullable = false)
+    private PackageBuild build;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step_type", nullable = false, length = 20)
+    private BuildStepType stepType;
+
+    // 단계 이름 / chart 이름:버전 / 이미지 참조
+    @Column(nullable = false, length = 500)
+    private String name;
+
+    @Column(length = 100)
+    private String platform;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BuildStepStatus status;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "duration_ms", nullable = false)
+    private Long durationMs;
+
+    @Column(name = "bytes")
+    private Long bytes;
+
+    @Column(name = "retries", nullable = false)
+    @Builder.Default
+    private Integer retries = 0;
+
+    // 마지막 외부 명령(helm/docker)의 종료 코드 (외부 명령을 쓰지 않았으면 null)
+    @Column(name = "exit_code")
+    private Integer exitCode;
+
+    // 데이터 출처(registry/docker/cache/checkpoint) 또는 실패 사유
+    @Column(length = 500)
+    private String message;
+}
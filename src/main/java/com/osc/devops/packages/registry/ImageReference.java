@@ -0,0 +1,79 @@
+package com.osc.devops.packages.registry;
+
+/**
+ * 이미지 참조 파싱 결과 (docker CLI와 같은 규칙)
+ * - 첫 경로 요소에 '.' 또는 ':'가 있거나 localhost면 레지스트리, 아니면 Docker Hub
+ * - Docker Hub 단일 이름은 library/ 접두사
+ * - 태그/digest가 없으면 latest, 둘 다 있으면(name:tag@digest) docker와 같이 digest만 사용
+ * - http:// 로 시작하거나 localhost/127.x 레지스트리면 평문 HTTP (로컬 레지스트리/테스트 stub), 그 외는 HTTPS
+ */
+public record ImageReference(String baseUrl, String registry, String repository, String reference) {
+
+    private static final String DOCKER_HUB = "docker.io";
+    private static final String DOCKER_HUB_API = "registry-1.docker.io";
+
+    public static ImageReference parse(String image) {
+        String scheme = "https";
+        String rest = image.trim();
+        if (rest.startsWith("http://")) {
+            scheme = "http";
+            rest = rest.substring("http://".length());
+        } else if (rest.startsWith("https://")) {
+            rest = rest.substring("https://".length());
+        }
+
+        String registry = DOCKER_HUB;
+        int slash = rest.indexOf('/');
+        if (slash > 0) {
+            String first = rest.substring(0, slash);
+            if (first.contains(".") || first.contains(":") || first.equals("localhost")) {
+                registry = first;
+                rest = rest.substring(slash + 1);
+            }
+        }
+
+        String reference = "latest";
+        String digest = null;
+        int at = rest.indexOf('@');
+        if (at > 0) {
+            digest = rest.substring(at + 1);
+            rest = rest.substring(0, at);
+        }
+        int colon = rest.lastIndexOf(':');
+        if (colon > rest.lastIndexOf('/')) {
+            reference = rest.substring(colon + 1);
+            rest = rest.substring(0, colon);
+        }
+        if (digest != null) reference = digest;
+
+        if (registry.equals(DOCKER_HUB) && !rest.contains("/")) {
+            rest = "library/" + rest;
+        }
+        // docker와 같이 loopback 레지스트리는 scheme 미지정 시 평문 HTTP
+        if (image.trim().indexOf("://") < 0 && (registry.startsWith("localhost") || registry.startsWith("127."))) {
+            scheme = "http";
+        }
+        String apiHost = registry.equals(DOCKER_HUB) ? DOCKER_HUB_API : registry;
+        return new ImageReference(scheme + "://" + apiHost, registry, rest, reference);
+    }
+
+    public boolean isDigest() {
+        return reference.startsWith("sha256:");
+    }
+
+    /**
+     * docker load 후 붙을 태그 (docker pull 했을 때와 같은 이름, digest 참조면 null)
+     */
+    public String repoTag() {
+        if (isDigest()) return null;
+        String name = registry.equals(DOCKER_HUB)
+                ? (repository.startsWith("library/") ? repository.substring("library/".length()) : repository)
+                : registry + "/" + repository;
+        return name + ":" + reference;
+    }
+
+    @Override
+    public String toString() {
+        return registry + "/" + repository + (isDigest() ? "@" : ":") + reference;
+    }
+}
@@ -0,0 +1,351 @@
+package com.osc.devops.packages.registry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * OCI Distribution API 클라이언트 (docker daemon 없이 레지스트리에서 직접 manifest/blob 다운로드)
+ * - 멀티 아키텍처 index(manifest list)는 요청 플랫폼의 manifest로 해석
+ * - 401 응답의 WWW-Authenticate에 따라 Bearer 토큰(익명 또는 설정 계정) / Basic 인증
+ * - blob은 sha256과 크기를 검증하며 파일로 받고, 실패 시 재시도
+ * - blob redirect(S3 등 외부 스토리지)는 Authorization 없이 따라감
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OciRegistryClient {
+
+    public static final String OCI_INDEX = "application/vnd.oci.image.index.v1+json";
+    public static final String OCI_MANIFEST = "application/vnd.oci.image.manifest.v1+json";
+    public static final String DOCKER_MANIFEST_LIST = "application/vnd.docker.distribution.manifest.list.v2+json";
+    public static final String DOCKER_MANIFEST = "application/vnd.docker.distribution.manifest.v2+json";
+
+    private static final String MANIFEST_ACCEPT = String.join(", ",
+            OCI_INDEX, OCI_MANIFEST, DOCKER_MANIFEST_LIST, DOCKER_MANIFEST);
+    private static final Pattern CHALLENGE_PARAM = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+    // manifest의 digest는 파일명/패키지 entry 이름으로 쓰이므로 "algorithm:hex" 형식만 허용 ("../" 등 경로 문자 차단)
+    private static final Pattern DIGEST = Pattern.compile("[a-z0-9]+:[a-f0-9]{32,128}");
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int MAX_REDIRECTS = 5;
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${package.build.image-export.connect-timeout-ms:10000}")
+    private long connectTimeoutMs;
+
+    // 응답 헤더까지의 대기 시간 (blob 본문은 스트림으로 읽으므로 전체 다운로드 시간과는 무관)
+    @Value("${package.build.image-export.response-timeout-ms:60000}")
+    private long responseTimeoutMs;
+
+    // 아래 호스트에만 계정을 보냄 (비어있으면 모든 레지스트리를 익명으로 접근)
+    @Value("${package.build.image-export.auth.host:}")
+    private String authHost;
+
+    @Value("${package.build.image-export.auth.username:}")
+    private String authUsername;
+
+    @Value("${package.build.image-export.auth.password:}")
+    private String authPassword;
+
+    private HttpClient httpClient;
+
+    // registry + repository → Authorization 헤더 값
+    private final Map<String, CachedAuth> authCache = new ConcurrentHashMap<>();
+
+    public record Descriptor(String mediaType, String digest, long size) {}
+
+    /**
+     * 플랫폼별로 해석된 이미지 manifest (digest: 해석된 manifest 자체의 digest)
+     */
+    public record ImageManifest(String digest, Descriptor config, List<Descriptor> layers) {}
+
+    private record ManifestResponse(String mediaType, String digest, JsonNode body) {}
+
+    private record CachedAuth(String header, Instant expiresAt) {
+        boolean isValid() {
+            return expiresAt == null || Instant.now().isBefore(expiresAt);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * 이미지 참조 + 플랫폼(linux/amd64, linux/arm64/v8 ...) → 단일 플랫폼 manifest
+     */
+    public ImageManifest resolve(ImageReference ref, String platform) throws IOException, InterruptedException {
+        ManifestResponse response = fetchManifest(ref, ref.reference());
+        if (OCI_INDEX.equals(response.mediaType()) || DOCKER_MANIFEST_LIST.equals(response.mediaType())) {
+            response = fetchManifest(ref, selectPlatform(response.body(), platform, ref));
+        }
+        if (!OCI_MANIFEST.equals(response.mediaType()) && !DOCKER_MANIFEST.equals(response.mediaType())) {
+            throw new IOException("지원하지 않는 manifest 형식: " + response.mediaType() + " (" + ref + ")");
+        }
+
+        JsonNode manifest = response.body();
+        Descriptor config = toDescriptor(manifest.path("config"), ref);
+        List<Descriptor> layers = new ArrayList<>();
+        for (JsonNode layer : manifest.path("layers")) {
+            layers.add(toDescriptor(layer, ref));
+        }
+        return new ImageManifest(response.digest(), config, layers);
+    }
+
+    /**
+     * blob을 target 파일로 다운로드 (sha256 + 크기 검증, 실패 시 최대 3회 시도)
+     * {target}.part 에 받은 뒤 검증이 끝나면 target으로 이동하므로 target이 있으면 검증된 blob이다.
+     */
+    public void downloadBlob(ImageReference ref, Descriptor blob, Path target) throws IOException, InterruptedException {
+        downloadBlob(ref, blob, target, () -> false);
+    }
+
+    /**
+     * cancelled가 true가 되면 읽기 버퍼마다 확인해 다운로드를 멈추고 CancellationException (재시도하지 않음)
+     * HttpClient 본문 읽기는 스레드 interrupt로 멈추지 않으므로 빌드 취소/lease 유실은 이 확인으로만 반영된다.
+     */
+    public void downloadBlob(ImageReference ref, Descriptor blob, Path target, BooleanSupplier cancelled)
+            throws IOException, InterruptedException {
+        URI uri = URI.create(ref.baseUrl() + "/v2/" + ref.repository() + "/blobs/" + blob.digest());
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        IOException lastError = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            checkCancelled(cancelled, blob);
+            try {
+                HttpResponse<InputStream> response = send(ref, uri, null);
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new IOException("blob 다운로드 실패: HTTP " + response.statusCode() + " " + blob.digest());
+                    }
+                    MessageDigest md = newSha256();
+                    long size = 0;
+                    try (OutputStream out = Files.newOutputStream(part)) {
+                        byte[] buf = new byte[64 * 1024];
+                        int n;
+                        while ((n = body.read(buf)) > 0) {
+                            checkCancelled(cancelled, blob);
+                            md.update(buf, 0, n);
+                            out.write(buf, 0, n);
+                            size += n;
+                        }
+                    }
+                    String actual = "sha256:" + HexFormat.of().formatHex(md.digest());
+                    if (!actual.equals(blob.digest()) || size != blob.size()) {
+                        throw new IOException("blob 검증 실패: expected=" + blob.digest() + "/" + blob.size()
+                                + ", actual=" + actual + "/" + size);
+                    }
+                    Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return;
+                }
+            } catch (CancellationException e) {
+                Files.deleteIfExists(part);
+                throw e;
+            } catch (IOException e) {
+                lastError = e;
+                Files.deleteIfExists(part);
+                if (attempt < MAX_ATTEMPTS) {
+                    meterRegistry.counter("package.build.retries", "operation", "blob-download").increment();
+                    log.warn("  ⚠️ blob 다운로드 재시도 ({}/{}) {} {} - {}",
+                            attempt, MAX_ATTEMPTS, ref, shortDigest(blob.digest()), e.getMessage());
+                    Thread.sleep(attempt * 2_000L);
+                }
+            }
+        }
+        throw lastError;
+    }
+
+    private static void checkCancelled(BooleanSupplier cancelled, Descriptor blob) {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("blob 다운로드 중단: " + blob.digest());
+        }
+    }
+
+    private ManifestResponse fetchManifest(ImageReference ref, String reference) throws IOException, InterruptedException {
+        URI uri = URI.create(ref.baseUrl() + "/v2/" + ref.repository() + "/manifests/" + reference);
+        HttpResponse<InputStream> response = send(ref, uri, MANIFEST_ACCEPT);
+        byte[] bytes;
+        try (InputStream body = response.body()) {
+            bytes = body.readAllBytes();
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("manifest 조회 실패: HTTP " + response.statusCode() + " " + ref.repository() + ":" + reference);
+        }
+
+        String digest = "sha256:" + HexFormat.of().formatHex(newSha256().digest(bytes));
+        if (reference.startsWith("sha256:") && !reference.equals(digest)) {
+            throw new IOException("manifest digest 불일치: expected=" + reference + ", actual=" + digest);
+        }
+        JsonNode body = objectMapper.readTree(bytes);
+        String mediaType = body.path("mediaType").asText(null);
+        if (mediaType == null || mediaType.isEmpty()) {
+            mediaType = response.headers().firstValue("Content-Type").map(v -> v.split(";")[0].trim()).orElse("");
+        }
+        return new ManifestResponse(mediaType, digest, body);
+    }
+
+    private String selectPlatform(JsonNode index, String platform, ImageReference ref) throws IOException {
+        String[] wanted = platform.trim().split("/");
+        for (JsonNode entry : index.path("manifests")) {
+            JsonNode p = entry.path("platform");
+            if (!wanted[0].equals(p.path("os").asText())) continue;
+            if (wanted.length > 1 && !wanted[1].equals(p.path("architecture").asText())) continue;
+            if (wanted.length > 2 && !wanted[2].equals(p.path("variant").asText())) continue;
+            return requireDigest(entry.path("digest").asText(), ref);
+        }
+        throw new IOException("플랫폼 " + platform + " 용 manifest가 없습니다: " + ref);
+    }
+
+    /**
+     * 인증 + redirect 처리 후 응답 반환 (호출 측에서 body를 닫아야 함)
+     */
+    private HttpResponse<InputStream> send(ImageReference ref, URI uri, String accept) throws IOException, InterruptedException {
+        String authKey = ref.registry() + "/" + ref.repository();
+        boolean authenticated = false;
+        URI current = uri;
+        for (int hop = 0; hop <= MAX_REDIRECTS; hop++) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(current)
+                    .timeout(Duration.ofMillis(responseTimeoutMs))
+                    .GET();
+            if (accept != null) request.header("Accept", accept);
+            CachedAuth auth = authCache.get(authKey);
+            // 다른 호스트로 redirect 된 경우 레지스트리 토큰을 보내지 않음
+            if (auth != null && auth.isValid() && sameHost(current, uri)) {
+                request.header("Authorization", auth.header());
+            }
+
+            HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            int status = response.statusCode();
+            if (status == 401 && !authenticated && sameHost(current, uri)) {
+                response.body().close();
+                String challenge = response.headers().firstValue("WWW-Authenticate")
+                        .orElseThrow(() -> new IOException("레지스트리 인증 실패 (challenge 없음): " + ref));
+                authCache.put(authKey, authenticate(ref, challenge));
+                authenticated = true;
+                hop--;
+                continue;
+            }
+            if (status == 301 || status == 302 || status == 303 || status == 307 || status == 308) {
+                response.body().close();
+                String location = response.headers().firstValue("Location")
+                        .orElseThrow(() -> new IOException("redirect 응답에 Location이 없습니다: " + uri));
+                current = current.resolve(location);
+                continue;
+            }
+            return response;
+        }
+        throw new IOException("redirect 횟수 초과: " + uri);
+    }
+
+    private CachedAuth authenticate(ImageReference ref, String challenge) throws IOException, InterruptedException {
+        String basic = credentialsFor(ref.registry());
+        if (challenge.regionMatches(true, 0, "Basic", 0, 5)) {
+            if (basic == null) throw new IOException("레지스트리 인증 정보가 없습니다: " + ref.registry());
+            return new CachedAuth("Basic " + basic, null);
+        }
+        if (!challenge.regionMatches(true, 0, "Bearer", 0, 6)) {
+            throw new IOException("지원하지 않는 인증 방식: " + challenge);
+        }
+
+        Map<String, String> params = new HashMap<>();
+        Matcher m = CHALLENGE_PARAM.matcher(challenge);
+        while (m.find()) params.put(m.group(1), m.group(2));
+        String realm = params.get("realm");
+        if (realm == null) throw new IOException("Bearer challenge에 realm이 없습니다: " + challenge);
+
+        StringBuilder tokenUrl = new StringBuilder(realm).append(realm.contains("?") ? "&" : "?");
+        if (params.containsKey("service")) {
+            tokenUrl.append("service=").append(URLEncoder.encode(params.get("service"), StandardCharsets.UTF_8)).append('&');
+        }
+        String scope = params.getOrDefault("scope", "repository:" + ref.repository() + ":pull");
+        tokenUrl.append("scope=").append(URLEncoder.encode(scope, StandardCharsets.UTF_8));
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(tokenUrl.toString()))
+                .timeout(Duration.ofMillis(responseTimeoutMs))
+                .GET();
+        if (basic != null) request.header("Authorization", "Basic " + basic);
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("레지스트리 토큰 발급 실패: HTTP " + response.statusCode() + " " + ref.registry());
+        }
+        JsonNode body = objectMapper.readTree(response.body());
+        String token = body.path("token").asText(body.path("access_token").asText(null));
+        if (token == null || token.isEmpty()) throw new IOException("토큰 응답에 token이 없습니다: " + ref.registry());
+        // 만료 10초 전부터 재발급
+        long expiresIn = Math.max(body.path("expires_in").asLong(60) - 10, 10);
+        return new CachedAuth("Bearer " + token, Instant.now().plusSeconds(expiresIn));
+    }
+
+    private String credentialsFor(String registry) {
+        if (authHost == null || authHost.isBlank() || !authHost.equalsIgnoreCase(registry)) return null;
+        if (authUsername == null || authUsername.isBlank()) return null;
+        return Base64.getEncoder().encodeToString(
+                (authUsername + ":" + authPassword).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean sameHost(URI a, URI b) {
+        return Objects.equals(a.getHost(), b.getHost()) && a.getPort() == b.getPort();
+    }
+
+    private static Descriptor toDescriptor(JsonNode node, ImageReference ref) throws IOException {
+        return new Descriptor(node.path("mediaType").asText(), requireDigest(node.path("digest").asText(), ref),
+                node.path("size").asLong());
+    }
+
+    public static boolean isValidDigest(String digest) {
+        return digest != null && DIGEST.matcher(digest).matches();
+    }
+
+    private static String requireDigest(String digest, ImageReference ref) throws IOException {
+        if (!isValidDigest(digest)) {
+            throw new IOException("manifest의 digest 형식이 잘못되었습니다: " + digest + " (" + ref + ")");
+        }
+        return digest;
+    }
+
+    public static String shortDigest(String digest) {
+        int colon = digest.indexOf(':');
+        return digest.substring(colon + 1, Math.min(digest.length(), colon + 13));
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.osc.devops.packages.repository;
+
+import com.osc.devops.common.enums.ArtifactType;
+import com.osc.devops.packages.entity.PackageBuildArtifact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+
+public interface PackageBuildArtifactRepository extends JpaRepository<PackageBuildArtifact, Long> {
+    List<PackageBuildArtifact> findByBuildIdOrderByArtifactTypeAscPathAsc(Long buildId);
+
+    // 빌드 결과물의 digest 목록 (델타 기준 패키지의 blob)
+    @Query("SELECT a.digest FROM PackageBuildArtifact a WHERE a.build.id = :buildId AND a.artifactType = :type")
+    List<String> findDigests(@Param("buildId") Long buildId, @Param("type") ArtifactType type);
+}
@@ -2,9 +2,20 @@ package com.osc.devops.packages.repository;
 
 import com.osc.devops.common.enums.BuildStatus;
 import com.osc.devops.packages.entity.PackageBuild;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PackageBuildRepository extends JpaRepository<PackageBuild, Long> {
@@ -15,4 +26,198 @@ public interface PackageBuildRepository extends JpaRepository<PackageBuild, Long
     Page<PackageBuild> findByCustomerIdAndProjectIdOrderByCreatedAtDesc(Long customerId, Long projectId, Pageable pageable);
     Page<PackageBuild> findAllByOrderByCreatedAtDesc(Pageable pageable);
     long countByStatus(BuildStatus status);
+    List<PackageBuild> findByBuildHashIn(Collection<String> buildHashes);
+    List<PackageBuild> findByStatus(BuildStatus status);
+
+    // 동일 구성 빌드 재사용
+    Optional<PackageBuild> findFirstByFingerprintAndStatusAndExpiresAtAfterOrderByIdDesc(
+            String fingerprint, BuildStatus status, LocalDateTime now);
+    Optional<PackageBuild> findFirstByFingerprintAndStatusInOrderByIdAsc(String fingerprint, Collection<BuildStatus> statuses);
+
+    // 최근 빌드 id (step 통계 대상)
+    @Query("SELECT b.id FROM PackageBuild b ORDER BY b.id DESC")
+    List<Long> findRecentIds(Pageable pageable);
+
+    // 대기열 조회: 우선순위 높은 순 → 먼저 요청된 순
+    List<PackageBuild> findByStatusOrderByPriorityDescIdAsc(BuildStatus status, Pageable pageable);
+
+    // 대기열 잠금 조회 (트랜잭션 안에서 호출) - 다른 replica가 잠근 행은 건너뜀 (lock.timeout -2: FOR UPDATE SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT b FROM PackageBuild b WHERE b.status = :status ORDER BY b.priority DESC, b.id ASC")
+    List<PackageBuild> lockQueued(@Param("status") BuildStatus status, Pageable pageable);
+
+    // 대기열 admission 잠금 (요청 트랜잭션 안에서 호출) - 트랜잭션이 끝날 때까지 다른 요청의 QUEUED 확인 + 저장을 막음
+    @Query(value = "SELECT id FROM package_build_queue_lock WHERE id = 1 FOR UPDATE", nativeQuery = true)
+    Integer lockQueueAdmission();
+
+    // 같은 구성이 실행 중인지 (모든 replica 기준)
+    boolean existsByFingerprintAndStatus(String fingerprint, BuildStatus status);
+
+    // 앞에 대기 중인 빌드 수 (queuePosition = 결과 + 1)
+    @Query("SELECT COUNT(b) FROM PackageBuild b WHERE b.status = :status " +
+            "AND (b.priority > :priority OR (b.priority = :priority AND b.id < :id))")
+    long countQueuedAhead(@Param("status") BuildStatus status, @Param("priority") int priority, @Param("id") Long id);
+
+    // 대기 → 실행 전환 (다른 dispatcher가 먼저 가져갔으면 0 반환)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.status = :to, b.startedAt = :startedAt WHERE b.id = :id AND b.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") BuildStatus from, @Param("to") BuildStatus to,
+                         @Param("startedAt") LocalDateTime startedAt);
+
+    // 대기 → 실행 전환 + lease 획득 (token은 이번 실행 고유 값)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.status = :to, b.startedAt = :now, b.leaseOwner = :owner, " +
+            "b.leaseToken = :token, b.leaseExpiresAt = :expiresAt, b.cancelRequested = false " +
+            "WHERE b.id = :id AND b.status = :from")
+    int claimLease(@Param("id") Long id, @Param("from") BuildStatus from, @Param("to") BuildStatus to,
+                   @Param("owner") String owner, @Param("token") String token,
+                   @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // heartbeat: 이 replica의 실행(token)이 가진 lease 연장
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.leaseExpiresAt = :expiresAt " +
+            "WHERE b.leaseToken IN :tokens AND b.status = :status")
+    int renewLeases(@Param("tokens") Collection<String> tokens, @Param("status") BuildStatus status,
+                    @Param("expiresAt") LocalDateTime expiresAt);
+
+    // tokens 중 아직 lease가 유효한 실행 (없으면 다른 실행이 이어받음)
+    @Query("SELECT b.leaseToken FROM PackageBuild b WHERE b.leaseToken IN :tokens AND b.status = :status")
+    List<String> findLeasedTokens(@Param("tokens") Collection<String> tokens, @Param("status") BuildStatus status);
+
+    boolean existsByIdAndStatusAndLeaseToken(Long id, BuildStatus status, String leaseToken);
+
+    // owner가 before 이전에 시작해 BUILDING으로 남은 빌드 (같은 이름으로 재시작한 replica의 이전 실행)
+    @Query("SELECT b FROM PackageBuild b WHERE b.status = :status AND b.leaseOwner = :owner " +
+            "AND (b.startedAt IS NULL OR b.startedAt < :before)")
+    List<PackageBuild> findLeasedBy(@Param("owner") String owner, @Param("status") BuildStatus status,
+                                    @Param("before") LocalDateTime before);
+
+    // 실행 중인 lease token 목록 (남은 실행별 작업 파일 정리 기준)
+    @Query("SELECT b.leaseToken FROM PackageBuild b WHERE b.status = :status AND b.leaseToken IS NOT NULL")
+    List<String> findLeaseTokens(@Param("status") BuildStatus status);
+
+    // 결과 저장 - 현재 lease를 가진 실행만 반영 (lease를 잃었으면 0)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.status = :to, b.filePath = :filePath, b.totalSize = :totalSize, " +
+            "b.progress = 100, b.leaseExpiresAt = NULL WHERE b.id = :id AND b.status = :from AND b.leaseToken = :token")
+    int completeLeased(@Param("id") Long id, @Param("token") String token, @Param("from") BuildStatus from,
+                       @Param("to") BuildStatus to, @Param("filePath") String filePath,
+                       @Param("totalSize") Long totalSize);
+
+    // 실패/취소 종료 - 현재 lease를 가진 실행만 반영
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.status = :to, b.progress = :progress, b.leaseExpiresAt = NULL " +
+            "WHERE b.id = :id AND b.status = :from AND b.leaseToken = :token")
+    int finishLeased(@Param("id") Long id, @Param("token") String token, @Param("from") BuildStatus from,
+                     @Param("to") BuildStatus to, @Param("progress") int progress);
+
+    // lease 반납 후 대기열 복귀 (서버 종료로 중단, 실행 풀 포화, 결과물 복제 실패)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.status = :to, b.startedAt = NULL, b.leaseOwner = NULL, " +
+            "b.leaseToken = NULL, b.leaseExpiresAt = NULL WHERE b.id = :id AND b.status = :from AND b.leaseToken = :token")
+    int releaseLease(@Param("id") Long id, @Param("token") String token, @Param("from") BuildStatus from,
+                     @Param("to") BuildStatus to);
+
+    // 체크포인트에서 재개한 횟수
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.resumeCount = b.resumeCount + 1 " +
+            "WHERE b.id = :id AND b.status = :status AND b.leaseToken = :token")
+    int incrementResumeCount(@Param("id") Long id, @Param("token") String token, @Param("status") BuildStatus status);
+
+    // ids 중 취소 요청된 빌드
+    @Query("SELECT b.id FROM PackageBuild b WHERE b.id IN :ids AND b.cancelRequested = true")
+    List<Long> findCancelRequestedIds(@Param("ids") Collection<Long> ids);
+
+    // 실행 중 취소 요청 (실행 중인 replica가 heartbeat에서 반영)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.cancelRequested = true WHERE b.id = :id AND b.status = :status")
+    int requestCancel(@Param("id") Long id, @Param("status") BuildStatus status);
+
+    // lease가 만료된(또는 lease 없는) 실행 중 빌드 중 취소 요청된 빌드는 그대로 종료
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.status = :to, b.leaseOwner = NULL, b.leaseToken = NULL, " +
+            "b.leaseExpiresAt = NULL WHERE b.status = :from AND b.cancelRequested = true " +
+            "AND (b.leaseExpiresAt IS NULL OR b.leaseExpiresAt < :now)")
+    int cancelExpiredLeases(@Param("from") BuildStatus from, @Param("to") BuildStatus to,
+                            @Param("now") LocalDateTime now);
+
+    // lease가 만료된(또는 lease 없는) 실행 중 빌드를 대기열로 복귀
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.status = :to, b.progress = 0, b.startedAt = NULL, " +
+            "b.leaseOwner = NULL, b.leaseToken = NULL, b.leaseExpiresAt = NULL " +
+            "WHERE b.status = :from AND (b.leaseExpiresAt IS NULL OR b.leaseExpiresAt < :now)")
+    int requeueExpiredLeases(@Param("from") BuildStatus from, @Param("to") BuildStatus to,
+                             @Param("now") LocalDateTime now);
+
+    // owner가 before 이전에 시작한 빌드를 대기열로 복귀 (같은 이름으로 재시작한 replica)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.status = :to, b.progress = 0, b.startedAt = NULL, " +
+            "b.leaseOwner = NULL, b.leaseToken = NULL, b.leaseExpiresAt = NULL " +
+            "WHERE b.status = :from AND b.leaseOwner = :owner " +
+            "AND (b.startedAt IS NULL OR b.startedAt < :before)")
+    int requeueLeasedBy(@Param("owner") String owner, @Param("from") BuildStatus from,
+                        @Param("to") BuildStatus to, @Param("before") LocalDateTime before);
+
+    // 진행률만 갱신 (엔티티 전체 merge 없이 단일 UPDATE)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.progress = :progress WHERE b.id = :id AND b.status = :status")
+    int updateProgress(@Param("id") Long id, @Param("progress") int progress, @Param("status") BuildStatus status);
+
+    // 완료된 빌드 단계 기록 (재개 기준)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.checkpointStage = :stage WHERE b.id = :id")
+    int updateCheckpointStage(@Param("id") Long id, @Param("stage") String stage);
+
+    // 만료된 빌드 (정리 대상)
+    List<PackageBuild> findByStatusAndExpiresAtBefore(BuildStatus status, LocalDateTime now);
+
+    // 상태 변경 후 파일이 남아있는 빌드 (다운로드 중이라 삭제를 미룬 빌드)
+    List<PackageBuild> findByStatusAndFilePathIsNotNull(BuildStatus status);
+
+    // 파일이 남아있는 빌드: 마지막 다운로드(없으면 생성) 시각이 오래된 순
+    @Query("SELECT b FROM PackageBuild b WHERE b.status = :status AND b.filePath IS NOT NULL " +
+            "ORDER BY COALESCE(b.lastDownloadedAt, b.createdAt) ASC, b.id ASC")
+    List<PackageBuild> findStoredLeastRecentlyUsed(@Param("status") BuildStatus status);
+
+    // 상태만 변경 (다른 경로에서 먼저 바뀌었으면 0 반환)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.status = :to WHERE b.id = :id AND b.status = :from")
+    int updateStatus(@Param("id") Long id, @Param("from") BuildStatus from, @Param("to") BuildStatus to);
+
+    // 파일 삭제 후 경로 제거
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.filePath = NULL WHERE b.id = :id")
+    int clearFilePath(@Param("id") Long id);
+
+    // 다운로드 시작 기록 (status가 아니면 0 - 그 사이 만료 처리됨)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.lastDownloadedAt = :at WHERE b.buildHash = :hash AND b.status = :status")
+    int updateLastDownloadedAt(@Param("hash") String hash, @Param("status") BuildStatus status,
+                               @Param("at") LocalDateTime at);
+
+    // 진행 중인 다운로드 갱신 (다른 replica의 reaper가 사용 중으로 판단)
+    @Transactional
+    @Modifying
+    @Query("UPDATE PackageBuild b SET b.lastDownloadedAt = :at WHERE b.buildHash IN :hashes")
+    int touchLastDownloadedAt(@Param("hashes") Collection<String> hashes, @Param("at") LocalDateTime at);
+
+    @Query("SELECT b.lastDownloadedAt FROM PackageBuild b WHERE b.id = :id")
+    Optional<LocalDateTime> findLastDownloadedAt(@Param("id") Long id);
 }
@@ -0,0 +1,21 @@
+package com.osc.devops.packages.repository;
+
+import com.osc.devops.common.enums.BuildStepType;
+import com.osc.devops.packages.entity.PackageBuildStep;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.List;
+
+public interface PackageBuildStepRepository extends JpaRepository<PackageBuildStep, Long> {
+    List<PackageBuildStep> findByBuildIdOrderByStartedAtAscIdAsc(Long buildId);
+
+    // 여러 빌드의 step 조회 (느린 step 순위 - 정렬은 Pageable)
+    @EntityGraph(attributePaths = "build")
+    Page<PackageBuildStep> findByBuildIdIn(Collection<Long> buildIds, Pageable pageable);
+
+    @EntityGraph(attributePaths = "build")
+    Page<PackageBuildStep> findByBuildIdInAndStepType(Collection<Long> buildIds, BuildStepType stepType, Pageable pageable);
+}
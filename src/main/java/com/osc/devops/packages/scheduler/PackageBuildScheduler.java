@@ -0,0 +1,267 @@
+package com.osc.devops.packages.scheduler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.devops.common.enums.BuildStatus;
+import com.osc.devops.packages.dto.PackageBuildDto;
+import com.osc.devops.packages.entity.PackageBuild;
+import com.osc.devops.packages.repository.PackageBuildRepository;
+import com.osc.devops.packages.service.BuildEventBroadcaster;
+import com.osc.devops.packages.service.BuildLeaseManager;
+import com.osc.devops.packages.service.BuildProgressTracker;
+import com.osc.devops.packages.service.PackageBuildDeduplicator;
+import com.osc.devops.packages.service.PackageBuildExecutor;
+import com.osc.devops.packages.service.ResolvedAddon;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 패키지 빌드 대기열 dispatcher
+ * - 대기열은 DB(package_build.status = QUEUED)에 있으므로 재시작해도 유지된다
+ * - 우선순위 높은 순 → 먼저 요청된 순으로 꺼내며, 폐쇄망/인터넷 빌드의 동시 실행 수를 따로 제한
+ * - 빌드 요청 직후, 빌드 종료 직후, 그리고 dispatch-interval-ms 주기로 실행
+ * - 여러 replica가 같은 대기열을 공유: 후보를 FOR UPDATE SKIP LOCKED로 잠가 꺼내고 lease를 기록 (BuildLeaseManager)
+ * - 동일 구성 결과물 재사용도 lease를 잡은 뒤 커밋 후 artifactCopyTaskExecutor에서 복제 (잠금/dispatch를 붙잡지 않음)
+ *   동시 실행 수는 replica별 제한이므로 pod를 늘리면 빌드 처리량도 늘어난다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PackageBuildScheduler {
+
+    private static final int DISPATCH_BATCH = 50;
+
+    private final PackageBuildRepository buildRepository;
+    private final PackageBuildExecutor buildExecutor;
+    private final BuildProgressTracker progressTracker;
+    private final BuildEventBroadcaster buildEvents;
+    private final PackageBuildDeduplicator deduplicator;
+    private final BuildLeaseManager buildLeases;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    @Qualifier("packageBuildTaskExecutor")
+    private final Executor packageBuildExecutor;
+    @Qualifier("artifactCopyTaskExecutor")
+    private final Executor artifactCopyExecutor;
+
+    @Value("${package.build.queue.max-concurrent-airgapped:2}")
+    private int maxConcurrentAirgapped;
+
+    @Value("${package.build.queue.max-concurrent-internet:3}")
+    private int maxConcurrentInternet;
+
+    private final LocalDateTime bootTime = LocalDateTime.now();
+    private int runningAirgapped;
+    private int runningInternet;
+    // 결과물 복제에 실패한 빌드 - 다시 복제하지 않고 일반 빌드로 실행
+    private final Set<Long> reuseFailed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 시작 시 이 replica 이름으로 BUILDING에 남아있는 빌드(이전 프로세스 비정상 종료)를 대기열로 되돌림
+     * 다른 replica의 빌드는 lease가 만료되면 heartbeat에서 되돌린다
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void requeueOrphanedBuilds() {
+        // 이번 프로세스가 이미 시작한 빌드는 제외 - 이전 실행의 작업 디렉토리는 재개용 경로로 복구
+        for (PackageBuild orphan : buildLeases.findOwnOrphans(bootTime)) {
+            buildExecutor.recoverWorkDir(orphan.getBuildHash(), orphan.getLeaseToken());
+        }
+        int requeued = buildLeases.requeueOwnOrphans(bootTime);
+        if (requeued > 0) {
+            log.warn("중단된 빌드 {}건을 대기열로 복귀 (lease owner: {})", requeued, buildLeases.getOwner());
+        }
+        dispatch();
+    }
+
+    @Scheduled(fixedDelayString = "${package.build.queue.dispatch-interval-ms:2000}")
+    public synchronized void dispatch() {
+        if (runningAirgapped >= maxConcurrentAirgapped && runningInternet >= maxConcurrentInternet) return;
+
+        ClaimedBatch batch = transactionTemplate.execute(tx -> claimBatch());
+        if (batch == null) return;
+        batch.reused().forEach(this::startReuse);
+        for (DispatchedBuild dispatched : batch.builds()) {
+            if (dispatched.airgapped()) runningAirgapped++; else runningInternet++;
+            launch(dispatched);
+        }
+    }
+
+    /**
+     * 잠근 대기 빌드 중 실행할 빌드를 골라 lease 획득 (하나의 트랜잭션 - 다른 replica는 잠긴 행을 건너뜀)
+     */
+    private ClaimedBatch claimBatch() {
+        List<DispatchedBuild> claimed = new ArrayList<>();
+        List<ReusedBuild> reused = new ArrayList<>();
+        // 슬롯 수는 커밋 후 반영 (롤백되면 그대로)
+        int airgappedCount = runningAirgapped;
+        int internetCount = runningInternet;
+        List<PackageBuild> queued = buildRepository.lockQueued(BuildStatus.QUEUED, PageRequest.of(0, DISPATCH_BATCH));
+        for (PackageBuild candidate : queued) {
+            // lease를 잃은 이전 실행이 이 replica에서 아직 정리 중이면 끝난 뒤에 다시 가져감
+            if (buildLeases.isRunning(candidate.getId())) continue;
+            // 같은 구성이 실행 중이면 끝날 때까지 기다렸다가 결과물을 재사용
+            String fingerprint = candidate.getFingerprint();
+            if (fingerprint != null && buildRepository.existsByFingerprintAndStatus(fingerprint, BuildStatus.BUILDING)) {
+                continue;
+            }
+            Optional<PackageBuild> source = findReusable(candidate);
+            if (source.isPresent()) {
+                ReusedBuild reuse = claimForReuse(candidate, source.get());
+                if (reuse != null) reused.add(reuse);
+                continue;
+            }
+
+            boolean airgapped = "AIRGAPPED".equalsIgnoreCase(candidate.getDeployEnv());
+            if (airgapped ? airgappedCount >= maxConcurrentAirgapped : internetCount >= maxConcurrentInternet) {
+                continue; // 해당 유형 슬롯이 없으면 다른 유형 빌드가 먼저 실행될 수 있음
+            }
+            DispatchedBuild dispatched = claim(candidate, airgapped);
+            if (dispatched == null) continue;
+
+            if (airgapped) airgappedCount++; else internetCount++;
+            claimed.add(dispatched);
+            if (airgappedCount >= maxConcurrentAirgapped && internetCount >= maxConcurrentInternet) break;
+        }
+        return new ClaimedBatch(claimed, reused);
+    }
+
+    /**
+     * 동일 구성의 완료 빌드 (복제에 실패했던 빌드는 일반 빌드로)
+     */
+    private Optional<PackageBuild> findReusable(PackageBuild queued) {
+        if (!deduplicator.isEnabled() || reuseFailed.contains(queued.getId())) return Optional.empty();
+        return deduplicator.findReusable(queued.getFingerprint());
+    }
+
+    /**
+     * 재사용할 빌드도 lease를 잡아 BUILDING으로 전환 (슬롯은 쓰지 않음) - 복제는 커밋 후 startReuse에서
+     */
+    private ReusedBuild claimForReuse(PackageBuild build, PackageBuild source) {
+        LocalDateTime now = LocalDateTime.now();
+        String token = buildLeases.newToken();
+        if (buildRepository.claimLease(build.getId(), BuildStatus.QUEUED, BuildStatus.BUILDING,
+                buildLeases.getOwner(), token, now, buildLeases.expiresAt(now)) == 0) {
+            return null;
+        }
+        return new ReusedBuild(build.getId(), build.getBuildHash(), token, source);
+    }
+
+    private void startReuse(ReusedBuild reuse) {
+        buildLeases.register(reuse.buildId(), reuse.buildHash(), reuse.leaseToken());
+        artifactCopyExecutor.execute(() -> {
+            try {
+                completeFromExisting(reuse);
+            } finally {
+                buildLeases.release(reuse.buildId(), reuse.leaseToken());
+                dispatch();
+            }
+        });
+    }
+
+    /**
+     * 결과물 복제 후 SUCCESS 처리 (lease를 가진 경우만), 복제 실패 시 대기열로 되돌려 일반 빌드로 실행
+     */
+    private void completeFromExisting(ReusedBuild reuse) {
+        try {
+            Optional<String> location = deduplicator.copyArtifact(reuse.source(), reuse.buildHash());
+            if (location.isEmpty()) {
+                reuseFailed.add(reuse.buildId());
+                buildRepository.releaseLease(reuse.buildId(), reuse.leaseToken(), BuildStatus.BUILDING, BuildStatus.QUEUED);
+                return;
+            }
+            if (buildRepository.completeLeased(reuse.buildId(), reuse.leaseToken(), BuildStatus.BUILDING,
+                    BuildStatus.SUCCESS, location.get(), reuse.source().getTotalSize()) > 0) {
+                buildEvents.complete(reuse.buildHash(), BuildStatus.SUCCESS, 100);
+            } else {
+                log.warn("결과물 복제 중 lease 유실 - 이어받은 실행이 완료 처리: hash={}", reuse.buildHash());
+            }
+        } catch (RuntimeException e) {
+            log.error("결과물 재사용 처리 실패 - 대기열로 복귀: hash={}", reuse.buildHash(), e);
+            reuseFailed.add(reuse.buildId());
+            buildRepository.releaseLease(reuse.buildId(), reuse.leaseToken(), BuildStatus.BUILDING, BuildStatus.QUEUED);
+        }
+    }
+
+    /**
+     * 잠근 빌드를 QUEUED → BUILDING 전환 + lease 기록 후 실행에 필요한 정보 복원 (claimBatch 트랜잭션 안)
+     */
+    private DispatchedBuild claim(PackageBuild build, boolean airgapped) {
+        LocalDateTime now = LocalDateTime.now();
+        String token = buildLeases.newToken();
+        try {
+            List<ResolvedAddon> addons = ResolvedAddon.fromJson(build.getSelectedAddons(), objectMapper);
+            if (buildRepository.claimLease(build.getId(), BuildStatus.QUEUED, BuildStatus.BUILDING,
+                    buildLeases.getOwner(), token, now, buildLeases.expiresAt(now)) == 0) {
+                return null;
+            }
+            reuseFailed.remove(build.getId());
+            // 스냅샷용 (lease 컬럼은 UPDATE 쿼리로만 반영되고, status/startedAt은 같은 값으로 flush)
+            build.setStatus(BuildStatus.BUILDING);
+            build.setStartedAt(now);
+            build.setLeaseOwner(buildLeases.getOwner());
+            return new DispatchedBuild(build.getId(), build.getBuildHash(), token, addons,
+                    PackageBuildDto.BuildRequest.from(build), PackageBuildDto.Response.from(build), airgapped);
+        } catch (Exception e) {
+            log.error("대기열 빌드 복원 실패: hash={} - {}", build.getBuildHash(), e.getMessage());
+            build.setStatus(BuildStatus.FAILED);
+            build.setProgress(-1);
+            return null;
+        }
+    }
+
+    private void launch(DispatchedBuild dispatched) {
+        progressTracker.register(dispatched.buildId(), dispatched.snapshot());
+        buildLeases.register(dispatched.buildId(), dispatched.buildHash(), dispatched.leaseToken());
+        buildEvents.stage(dispatched.buildHash(), "started", 0);
+        log.info("빌드 대기열 → 실행: hash={}, airgapped={} (running: airgapped={}, internet={}, replica={})",
+                dispatched.buildHash(), dispatched.airgapped(), runningAirgapped, runningInternet,
+                buildLeases.getOwner());
+        try {
+            packageBuildExecutor.execute(() -> {
+                try {
+                    buildExecutor.executeBuild(dispatched.buildId(), dispatched.leaseToken(),
+                            dispatched.addons(), dispatched.request());
+                } finally {
+                    buildLeases.release(dispatched.buildId(), dispatched.leaseToken());
+                    releaseSlot(dispatched.airgapped());
+                    dispatch();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("빌드 실행 풀 포화 - 대기열로 복귀: hash={}", dispatched.buildHash());
+            buildLeases.release(dispatched.buildId(), dispatched.leaseToken());
+            releaseSlot(dispatched.airgapped());
+            progressTracker.finish(dispatched.buildHash());
+            buildRepository.releaseLease(dispatched.buildId(), dispatched.leaseToken(),
+                    BuildStatus.BUILDING, BuildStatus.QUEUED);
+        }
+    }
+
+    private synchronized void releaseSlot(boolean airgapped) {
+        if (airgapped) runningAirgapped--; else runningInternet--;
+    }
+
+    private record DispatchedBuild(Long buildId, String buildHash, String leaseToken, List<ResolvedAddon> addons,
+                                   PackageBuildDto.BuildRequest request, PackageBuildDto.Response snapshot,
+                                   boolean airgapped) {}
+
+    private record ReusedBuild(Long buildId, String buildHash, String leaseToken, PackageBuild source) {}
+
+    private record ClaimedBatch(List<DispatchedBuild> builds, List<ReusedBuild> reused) {}
+}
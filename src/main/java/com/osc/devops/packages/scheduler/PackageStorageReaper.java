@@ -0,0 +1,219 @@
+package com.osc.devops.packages.scheduler;
+
+import com.osc.devops.common.enums.BuildStatus;
+import com.osc.devops.packages.entity.PackageBuild;
+import com.osc.devops.packages.repository.PackageBuildRepository;
+import com.osc.devops.packages.service.BuildMetrics;
+import com.osc.devops.packages.service.PackageBuildExecutor;
+import com.osc.devops.packages.service.PackageDownloadService;
+import com.osc.devops.packages.storage.ArtifactStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 패키지 파일 정리 (결과물 저장소 용량 확보)
+ * - expiresAt이 지난 SUCCESS 빌드의 파일을 삭제하고 EXPIRED로 표시
+ * - 보관 중인 파일이 max-total-gb를 넘으면 마지막 다운로드(없으면 생성)가 오래된 빌드부터 같은 방식으로 정리 (LRU)
+ * - 다운로드 중이거나 download-grace-minutes(+ presigned URL 유효 시간) 안에 다운로드된 빌드는 건너뛴다.
+ *   lastDownloadedAt은 모든 replica가 전송 시작 시 기록하고 전송 중 갱신하므로 다른 replica의 다운로드도 보인다.
+ *   EXPIRED 전환 직전에 다운로드가 시작됐으면(전환 후 다시 읽은 lastDownloadedAt) 파일은 남겨두고 다음 실행에서 삭제한다.
+ * - 종료된 실행(lease 유실 후 비정상 종료 등)이 남긴 실행별 작업 디렉토리/임시 결과물도 정리
+ * 동일 구성 재사용 빌드는 local 저장소에서 같은 파일을 hardlink로 공유하므로 용량은 StoredArtifact.fileKey 단위로 계산한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PackageStorageReaper {
+
+    private static final String TOKEN = "([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})";
+    // {hash}.work.{leaseToken} / {hash}.{leaseToken}.part
+    private static final Pattern ATTEMPT_PATH = Pattern.compile(
+            "(?:" + Pattern.quote(PackageBuildExecutor.WORK_SUFFIX) + "\\." + TOKEN + "|\\." + TOKEN
+                    + Pattern.quote(PackageBuildExecutor.PART_SUFFIX) + ")$");
+
+    private final PackageBuildRepository buildRepository;
+    private final PackageDownloadService downloadService;
+    private final ArtifactStore artifactStore;
+    private final BuildMetrics metrics;
+
+    @Value("${package.build.reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${package.build.reaper.max-total-gb:0}")
+    private long maxTotalGb;
+
+    @Value("${package.build.reaper.download-grace-minutes:30}")
+    private long downloadGraceMinutes;
+
+    @Value("${package.build.storage-path:/tmp/devops-platform/packages}")
+    private String storagePath;
+
+    @Scheduled(initialDelayString = "${package.build.reaper.initial-delay-ms:60000}",
+            fixedDelayString = "${package.build.reaper.interval-ms:600000}")
+    public synchronized void reap() {
+        if (!enabled) return;
+        LocalDateTime now = LocalDateTime.now();
+
+        // 다운로드 중이라 삭제를 미뤘던 파일
+        for (PackageBuild build : buildRepository.findByStatusAndFilePathIsNotNull(BuildStatus.EXPIRED)) {
+            if (!isInUse(build, now)) deleteFile(build, "expired");
+        }
+
+        int expired = 0;
+        for (PackageBuild build : buildRepository.findByStatusAndExpiresAtBefore(BuildStatus.SUCCESS, now)) {
+            if (expire(build, now, "expired")) expired++;
+        }
+        int evicted = enforceQuota(now);
+        int stale = deleteStaleAttempts();
+        if (expired + evicted + stale > 0) {
+            log.info("🧹 패키지 정리 완료: 만료 {}건, 용량 초과 {}건, 종료된 실행의 작업 파일 {}건", expired, evicted, stale);
+        }
+    }
+
+    /**
+     * 실행 중(BUILDING)인 lease token이 아닌 실행별 작업 디렉토리/임시 결과물 삭제
+     * 목록을 먼저 읽고 token을 조회 - 그 사이 시작된 실행은 lease가 커밋된 뒤 파일을 만들므로 조회 결과에 포함된다
+     */
+    private int deleteStaleAttempts() {
+        Path root = Paths.get(storagePath);
+        if (!Files.isDirectory(root)) return 0;
+        Map<Path, String> attempts = new HashMap<>();
+        try (Stream<Path> entries = Files.list(root)) {
+            entries.forEach(p -> {
+                Matcher m = ATTEMPT_PATH.matcher(p.getFileName().toString());
+                if (m.find()) attempts.put(p, m.group(1) != null ? m.group(1) : m.group(2));
+            });
+        } catch (IOException e) {
+            log.warn("작업 디렉토리 조회 실패: {} - {}", root, e.getMessage());
+            return 0;
+        }
+        if (attempts.isEmpty()) return 0;
+
+        Set<String> active = new HashSet<>(buildRepository.findLeaseTokens(BuildStatus.BUILDING));
+        int deleted = 0;
+        for (Map.Entry<Path, String> attempt : attempts.entrySet()) {
+            if (active.contains(attempt.getValue())) continue;
+            try (Stream<Path> files = Files.walk(attempt.getKey())) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> {
+                    try { Files.deleteIfExists(p); } catch (IOException ignored) {}
+                });
+                deleted++;
+            } catch (IOException e) {
+                log.warn("종료된 실행의 작업 파일 삭제 실패: {} - {}", attempt.getKey(), e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 보관 중인 파일 크기를 계산하고 max-total-gb를 넘으면 오래 쓰이지 않은 빌드부터 정리
+     */
+    private int enforceQuota(LocalDateTime now) {
+        List<PackageBuild> stored = buildRepository.findStoredLeastRecentlyUsed(BuildStatus.SUCCESS);
+        // fileKey → {크기, 이 파일을 쓰는 빌드 수}
+        Map<Object, long[]> files = new HashMap<>();
+        Map<Long, Object> fileKeys = new HashMap<>();
+        long total = 0;
+        for (PackageBuild build : stored) {
+            try {
+                Optional<ArtifactStore.StoredArtifact> artifact = artifactStore.stat(build.getFilePath());
+                // 파일이 없으면 용량에 포함하지 않음 (다운로드 시 NotFound)
+                if (artifact.isEmpty()) continue;
+                long[] file = files.computeIfAbsent(artifact.get().fileKey(), k -> new long[]{artifact.get().size(), 0});
+                if (file[1]++ == 0) total += file[0];
+                fileKeys.put(build.getId(), artifact.get().fileKey());
+            } catch (IOException e) {
+                log.warn("패키지 파일 조회 실패: {} - {}", build.getFilePath(), e.getMessage());
+            }
+        }
+        metrics.storageBytes(total);
+
+        long maxBytes = maxTotalGb * 1024 * 1024 * 1024;
+        if (maxTotalGb <= 0 || total <= maxBytes) return 0;
+
+        int evicted = 0;
+        for (PackageBuild build : stored) {
+            if (total <= maxBytes) break;
+            Object key = fileKeys.get(build.getId());
+            if (key == null || !expire(build, now, "quota")) continue;
+            evicted++;
+            // hardlink를 공유하는 마지막 빌드까지 정리돼야 실제로 용량이 줄어듦
+            long[] file = files.get(key);
+            if (--file[1] == 0) total -= file[0];
+        }
+        metrics.storageBytes(total);
+        if (total > maxBytes) {
+            log.warn("⚠️ 패키지 저장 용량 초과 (다운로드 중이거나 최근 다운로드된 패키지만 남음): {}MB / {}GB",
+                    total / 1024 / 1024, maxTotalGb);
+        }
+        return evicted;
+    }
+
+    /**
+     * SUCCESS → EXPIRED 전환 후 파일 삭제 (사용 중이거나 다른 경로에서 상태가 바뀌었으면 false)
+     */
+    private boolean expire(PackageBuild build, LocalDateTime now, String reason) {
+        if (isInUse(build, now)) return false;
+        if (buildRepository.updateStatus(build.getId(), BuildStatus.SUCCESS, BuildStatus.EXPIRED) == 0) return false;
+        // 전환 전에 시작된 다운로드(어느 replica든 lastDownloadedAt 기록)는 여기서 보이고, 전환 후 시작된 다운로드는 EXPIRED로 거절된다
+        LocalDateTime lastDownloaded = buildRepository.findLastDownloadedAt(build.getId()).orElse(null);
+        if (downloadService.isDownloading(build.getBuildHash()) || isRecent(lastDownloaded, now)) {
+            log.info("다운로드 중인 패키지 - 파일 삭제 보류: hash={}", build.getBuildHash());
+            return true;
+        }
+        deleteFile(build, reason);
+        return true;
+    }
+
+    private boolean isInUse(PackageBuild build, LocalDateTime now) {
+        if (downloadService.isDownloading(build.getBuildHash())) return true;
+        // 다른 replica의 다운로드, sendfile / presigned redirect 전송은 lastDownloadedAt으로 판단
+        return isRecent(build.getLastDownloadedAt(), now);
+    }
+
+    private boolean isRecent(LocalDateTime lastDownloaded, LocalDateTime now) {
+        return lastDownloaded != null && lastDownloaded.isAfter(now.minus(downloadGrace()));
+    }
+
+    /**
+     * presigned URL은 발급 후 유효 시간 내내 전송을 시작할 수 있으므로 유예 시간에 더한다
+     */
+    private Duration downloadGrace() {
+        return Duration.ofMinutes(downloadGraceMinutes).plus(artifactStore.downloadUrlTtl());
+    }
+
+    private void deleteFile(PackageBuild build, String reason) {
+        String location = build.getFilePath();
+        long size;
+        try {
+            size = artifactStore.stat(location).map(ArtifactStore.StoredArtifact::size).orElse(0L);
+            artifactStore.delete(location);
+        } catch (IOException e) {
+            log.warn("패키지 파일 삭제 실패: {} - {}", location, e.getMessage());
+            return;
+        }
+        buildRepository.clearFilePath(build.getId());
+        metrics.reaped(reason, size);
+        log.info("🗑️ 패키지 파일 삭제 ({}): hash={}, {}MB", reason, build.getBuildHash(), size / 1024 / 1024);
+    }
+}
@@ -0,0 +1,116 @@
+package com.osc.devops.packages.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.devops.packages.registry.OciRegistryClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * 빌드 재개용 체크포인트 ({workDir}/checkpoint.json)
+ * - 완료한 단계와 완료한 이미지(ref 이름 → manifest 정보)를 기록
+ * - 레지스트리 blob은 {workDir}/blobs/, docker save tar는 {workDir}/images/, helm chart는 {workDir}/charts/ 에
+ *   빌드 종료까지 남겨 재개 시 다시 받지 않는다
+ * 패키지 스트림(tar.gz/zst)은 이어 쓸 수 없으므로 재개 시 패키지는 처음부터 다시 쓰고, 다운로드만 체크포인트 이후부터 수행한다.
+ * disabled 체크포인트는 아무것도 기록하지 않으며 blob/tar/chart도 append 직후 삭제된다.
+ */
+@Slf4j
+public class BuildCheckpoint {
+
+    public static final String FILE_NAME = "checkpoint.json";
+
+    private final Path workDir;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final boolean resumed;
+    private final State state;
+
+    /**
+     * 완료된 이미지 (source: registry | docker). docker면 manifest 정보 없이 보관된 tar를 다시 읽는다.
+     */
+    public record ImageEntry(String source, OciRegistryClient.Descriptor config,
+                             List<OciRegistryClient.Descriptor> layers, List<String> repoTags) {}
+
+    static class State {
+        public List<String> stages = new ArrayList<>();
+        public Map<String, ImageEntry> images = new LinkedHashMap<>();
+    }
+
+    private BuildCheckpoint(Path workDir, ObjectMapper objectMapper, boolean enabled, boolean resumed, State state) {
+        this.workDir = workDir;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.resumed = resumed;
+        this.state = state;
+    }
+
+    /**
+     * workDir에 체크포인트가 있으면 읽어서 재개, 없거나 읽을 수 없으면 새로 시작
+     */
+    public static BuildCheckpoint open(Path workDir, ObjectMapper objectMapper, boolean enabled) {
+        if (!enabled) return new BuildCheckpoint(workDir, objectMapper, false, false, new State());
+        Path file = workDir.resolve(FILE_NAME);
+        if (Files.exists(file)) {
+            try {
+                return new BuildCheckpoint(workDir, objectMapper, true, true, objectMapper.readValue(file.toFile(), State.class));
+            } catch (IOException e) {
+                log.warn("체크포인트 읽기 실패 - 처음부터 빌드: {} ({})", file, e.getMessage());
+            }
+        }
+        return new BuildCheckpoint(workDir, objectMapper, true, false, new State());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public synchronized boolean isStageCompleted(String stage) {
+        return state.stages.contains(stage);
+    }
+
+    public synchronized List<String> getCompletedStages() {
+        return List.copyOf(state.stages);
+    }
+
+    public synchronized int getImageCount() {
+        return state.images.size();
+    }
+
+    public synchronized Optional<ImageEntry> getImage(String refName) {
+        return Optional.ofNullable(state.images.get(refName));
+    }
+
+    public synchronized void completeStage(String stage) throws IOException {
+        if (!enabled || state.stages.contains(stage)) return;
+        state.stages.add(stage);
+        save();
+    }
+
+    public synchronized void completeImage(String refName, ImageEntry entry) throws IOException {
+        if (!enabled) return;
+        state.images.put(refName, entry);
+        save();
+    }
+
+    /**
+     * 레지스트리 blob 보관 디렉토리 (disabled면 null - blob은 append 후 삭제)
+     */
+    public Path getBlobDir() throws IOException {
+        return enabled ? Files.createDirectories(workDir.resolve("blobs")) : null;
+    }
+
+    // 임시 파일에 쓴 뒤 교체 (기록 도중 종료돼도 이전 체크포인트 유지)
+    private void save() throws IOException {
+        Path tmp = workDir.resolve(FILE_NAME + ".tmp");
+        objectMapper.writeValue(tmp.toFile(), state);
+        Files.move(tmp, workDir.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,188 @@
+package com.osc.devops.packages.service;
+
+import com.osc.devops.common.enums.BuildStatus;
+import com.osc.devops.packages.dto.PackageBuildDto;
+import com.osc.devops.packages.entity.PackageBuild;
+import com.osc.devops.packages.repository.PackageBuildRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 빌드 진행 이벤트 SSE 브로드캐스터
+ * executor가 보고하는 진행률/단계/이미지 상태를 해당 빌드를 구독 중인 모든 연결로 전송한다.
+ * 이벤트 이름: snapshot(구독 직후 현재 상태), stage, progress, image, status(종료 - 이후 연결 종료)
+ * 다른 replica가 실행 중인(또는 아직 대기 중인) 빌드는 heartbeat마다 DB 행(진행률/상태/체크포인트 단계)을 조회해
+ * 바뀐 값을 stage/progress로 보내고, 종료 상태가 되면 status를 보낸 뒤 연결을 종료한다. (image 이벤트는 실행 중인 replica에서만)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BuildEventBroadcaster {
+
+    private final PackageBuildRepository buildRepository;
+    private final BuildLeaseManager buildLeases;
+
+    @Value("${package.build.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, String> currentStages = new ConcurrentHashMap<>();
+    // 이 replica에서 실행하지 않는 빌드의 마지막으로 보낸 상태 (DB 폴링 결과와 비교)
+    private final Map<String, PackageBuildDto.BuildEvent> polled = new ConcurrentHashMap<>();
+
+    /**
+     * 구독 등록 후 현재 상태(snapshot) 전송. 이미 종료된 빌드면 snapshot만 보내고 종료한다.
+     */
+    public SseEmitter subscribe(PackageBuildDto.Response snapshot) {
+        String buildHash = snapshot.getBuildHash();
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        if (!snapshot.getStatus().isActive()) {
+            send(emitter, "snapshot", snapshot);
+            emitter.complete();
+            return emitter;
+        }
+
+        // heartbeat의 빈 목록 정리와 겹치지 않도록 목록 생성과 추가를 한 번에
+        List<SseEmitter> emitters = subscribers.compute(buildHash, (k, list) -> {
+            List<SseEmitter> target = list != null ? list : new CopyOnWriteArrayList<>();
+            target.add(emitter);
+            return target;
+        });
+        Runnable remove = () -> emitters.remove(emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        String stage = currentStages.get(buildHash);
+        PackageBuildDto.BuildEvent event = PackageBuildDto.BuildEvent.builder()
+                .buildHash(buildHash)
+                .status(snapshot.getStatus())
+                .progress(snapshot.getProgress())
+                .stage(stage != null ? stage : snapshot.getCheckpointStage())
+                .build();
+        polled.putIfAbsent(buildHash, event);
+        send(emitter, "snapshot", event);
+        return emitter;
+    }
+
+    public void stage(String buildHash, String stage, int progress) {
+        currentStages.put(buildHash, stage);
+        publish(buildHash, "stage", PackageBuildDto.BuildEvent.builder()
+                .buildHash(buildHash).stage(stage).progress(progress).build());
+    }
+
+    public void progress(String buildHash, int progress) {
+        publish(buildHash, "progress", PackageBuildDto.BuildEvent.builder()
+                .buildHash(buildHash).progress(progress).build());
+    }
+
+    public void image(String buildHash, String image, String platform, String imageStatus) {
+        publish(buildHash, "image", PackageBuildDto.BuildEvent.builder()
+                .buildHash(buildHash).image(image).platform(platform).imageStatus(imageStatus).build());
+    }
+
+    /**
+     * 종료 이벤트 전송 후 해당 빌드의 모든 연결 종료
+     */
+    public void complete(String buildHash, BuildStatus status, Integer progress) {
+        currentStages.remove(buildHash);
+        polled.remove(buildHash);
+        List<SseEmitter> emitters = subscribers.remove(buildHash);
+        if (emitters == null) return;
+        PackageBuildDto.BuildEvent event = PackageBuildDto.BuildEvent.builder()
+                .buildHash(buildHash).status(status).progress(progress).build();
+        for (SseEmitter emitter : emitters) {
+            send(emitter, "status", event);
+            emitter.complete();
+        }
+    }
+
+    /**
+     * 프록시/로드밸런서 idle timeout 방지 + 끊긴 연결 정리 + 다른 replica에서 실행 중인 빌드 상태 반영
+     */
+    @Scheduled(fixedRateString = "${package.build.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach((buildHash, emitters) -> {
+            emitters.forEach(emitter -> {
+                try {
+                    emitter.send(SseEmitter.event().comment("keepalive"));
+                } catch (IOException | IllegalStateException e) {
+                    emitters.remove(emitter);
+                }
+            });
+            subscribers.computeIfPresent(buildHash, (k, list) -> list.isEmpty() ? null : list);
+        });
+        polled.keySet().retainAll(subscribers.keySet());
+        try {
+            pollRemoteBuilds();
+        } catch (RuntimeException e) {
+            log.warn("SSE 구독 빌드 상태 조회 실패: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 이 replica에서 실행 중이 아닌 구독 빌드의 DB 상태를 조회해 바뀐 진행률/단계를 보내고, 종료됐으면 complete
+     */
+    private void pollRemoteBuilds() {
+        List<String> remote = subscribers.keySet().stream()
+                .filter(buildHash -> !buildLeases.isRunningHere(buildHash))
+                .toList();
+        if (remote.isEmpty()) return;
+
+        for (PackageBuild build : buildRepository.findByBuildHashIn(remote)) {
+            String buildHash = build.getBuildHash();
+            if (buildLeases.isRunningHere(buildHash)) continue; // 조회 중에 이 replica가 가져감
+            if (!build.getStatus().isActive()) {
+                complete(buildHash, build.getStatus(), build.getProgress());
+                continue;
+            }
+            PackageBuildDto.BuildEvent last = polled.getOrDefault(buildHash, PackageBuildDto.BuildEvent.builder().build());
+            PackageBuildDto.BuildEvent current = PackageBuildDto.BuildEvent.builder()
+                    .buildHash(buildHash)
+                    .status(build.getStatus())
+                    .progress(build.getProgress())
+                    .stage(build.getCheckpointStage())
+                    .build();
+            if (current.getStage() != null && !current.getStage().equals(last.getStage())) {
+                publish(buildHash, "stage", PackageBuildDto.BuildEvent.builder()
+                        .buildHash(buildHash).stage(current.getStage()).progress(current.getProgress()).build());
+            } else if (!Objects.equals(current.getProgress(), last.getProgress())
+                    || current.getStatus() != last.getStatus()) {
+                publish(buildHash, "progress", PackageBuildDto.BuildEvent.builder()
+                        .buildHash(buildHash).status(current.getStatus()).progress(current.getProgress()).build());
+            }
+            polled.put(buildHash, current);
+        }
+    }
+
+    private void publish(String buildHash, String name, Object data) {
+        List<SseEmitter> emitters = subscribers.get(buildHash);
+        if (emitters == null) return;
+        for (SseEmitter emitter : emitters) {
+            if (!send(emitter, name, data)) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SSE 전송 실패 (연결 종료): {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.osc.devops.packages.service;
+
+import com.osc.devops.common.enums.BuildStatus;
+import com.osc.devops.packages.entity.PackageBuild;
+import com.osc.devops.packages.repository.PackageBuildRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 빌드 실행 lease (여러 replica가 DB 대기열을 공유)
+ * - 대기열에서 꺼낸 빌드에 lease_owner(이 replica) / lease_token(이번 실행) / lease_expires_at을 기록하고 heartbeat-ms마다 연장
+ * - 결과 저장/상태 변경은 lease_token이 일치하는 실행만 반영 (같은 replica가 다시 가져간 빌드의 이전 실행도 구분)
+ * - lease가 만료된 BUILDING 빌드(replica 종료/장애)는 어느 replica든 대기열로 되돌려 다시 실행
+ * - 다른 실행으로 넘어간 빌드(lease 유실)는 이 실행을 중단하고 DB 상태는 건드리지 않는다
+ * - 다른 replica에서 받은 취소 요청(cancel_requested)도 heartbeat에서 반영
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BuildLeaseManager {
+
+    private final PackageBuildRepository buildRepository;
+    private final ProcessRunner processRunner;
+
+    // 비어있으면 HOSTNAME (k8s pod 이름), 그것도 없으면 임의 값
+    @Value("${package.build.lease.owner:${HOSTNAME:}}")
+    private String configuredOwner;
+
+    @Value("${package.build.lease.ttl-ms:60000}")
+    private long ttlMs;
+
+    private String owner;
+    // 이 replica에서 실행 중인 빌드 id → lease
+    private final Map<Long, Lease> running = new ConcurrentHashMap<>();
+    // lease를 잃은 실행의 token
+    private final Set<String> lost = ConcurrentHashMap.newKeySet();
+
+    private record Lease(String buildHash, String token) {}
+
+    @PostConstruct
+    void init() {
+        owner = configuredOwner == null || configuredOwner.isBlank()
+                ? "replica-" + UUID.randomUUID().toString().substring(0, 8)
+                : configuredOwner;
+        log.info("빌드 lease owner: {} (ttl {}ms)", owner, ttlMs);
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime expiresAt(LocalDateTime now) {
+        return now.plus(Duration.ofMillis(ttlMs));
+    }
+
+    /**
+     * lease 획득 시 기록할 실행 token
+     */
+    public String newToken() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * 실행 시작 (lease 획득 후 호출)
+     */
+    public void register(Long buildId, String buildHash, String token) {
+        running.put(buildId, new Lease(buildHash, token));
+    }
+
+    /**
+     * 실행 종료 - 같은 빌드의 다른 실행이 등록돼 있으면 그대로 둔다
+     */
+    public void release(Long buildId, String token) {
+        running.computeIfPresent(buildId, (id, lease) -> lease.token().equals(token) ? null : lease);
+        lost.remove(token);
+    }
+
+    /**
+     * 이 replica에서 실행 중인지 (lease를 잃은 이전 실행이 아직 종료 전이어도 true - 다시 가져가지 않음)
+     */
+    public boolean isRunning(Long buildId) {
+        return running.containsKey(buildId);
+    }
+
+    /**
+     * 이 replica에서 실행 중인 빌드인지 (buildHash 기준 - SSE 브로드캐스터가 DB 폴링 대상 판단에 사용)
+     */
+    public boolean isRunningHere(String buildHash) {
+        return running.values().stream().anyMatch(lease -> lease.buildHash().equals(buildHash));
+    }
+
+    /**
+     * 실행 중 빌드 취소 - 이 replica에서 실행 중이면 바로 프로세스 종료, 아니면 실행 중인 replica가 heartbeat에서 반영
+     */
+    public void requestCancel(Long buildId, String buildHash) {
+        buildRepository.requestCancel(buildId, BuildStatus.BUILDING);
+        if (running.containsKey(buildId)) {
+            processRunner.cancel(buildHash);
+        }
+    }
+
+    public boolean isLost(String token) {
+        return lost.contains(token);
+    }
+
+    /**
+     * 결과 저장 직전 확인 - lease가 다른 실행으로 넘어갔으면 IllegalStateException
+     */
+    public void checkOwned(Long buildId, String token) {
+        if (lost.contains(token) || !buildRepository.existsByIdAndStatusAndLeaseToken(buildId, BuildStatus.BUILDING, token)) {
+            throw markLost(buildId, token);
+        }
+    }
+
+    /**
+     * token 조건 UPDATE가 0건이면 호출 - 이후 이 실행은 DB 상태를 건드리지 않는다
+     */
+    public IllegalStateException markLost(Long buildId, String token) {
+        lost.add(token);
+        return new IllegalStateException("빌드 lease 유실 (다른 실행이 이어받음): id=" + buildId);
+    }
+
+    /**
+     * 같은 owner로 BUILDING에 남아있는 빌드 (이전 프로세스 비정상 종료)
+     */
+    public List<PackageBuild> findOwnOrphans(LocalDateTime bootTime) {
+        return buildRepository.findLeasedBy(owner, BuildStatus.BUILDING, bootTime);
+    }
+
+    /**
+     * 시작 시 같은 owner로 남아있는 빌드를 대기열로 복귀
+     */
+    public int requeueOwnOrphans(LocalDateTime bootTime) {
+        return buildRepository.requeueLeasedBy(owner, BuildStatus.BUILDING, BuildStatus.QUEUED, bootTime);
+    }
+
+    @Scheduled(fixedDelayString = "${package.build.lease.heartbeat-ms:15000}")
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!running.isEmpty()) {
+            Map<Long, Lease> leases = Map.copyOf(running);
+            Set<String> tokens = leases.values().stream().map(Lease::token).collect(Collectors.toSet());
+            buildRepository.renewLeases(tokens, BuildStatus.BUILDING, expiresAt(now));
+
+            Set<String> leased = new HashSet<>(buildRepository.findLeasedTokens(tokens, BuildStatus.BUILDING));
+            for (Lease lease : leases.values()) {
+                if (leased.contains(lease.token()) || !lost.add(lease.token())) continue;
+                log.error("❌ 빌드 lease 유실 (heartbeat 지연 중 다른 실행이 이어받음) - 이 replica의 실행 중단: hash={}",
+                        lease.buildHash());
+                processRunner.cancel(lease.buildHash());
+            }
+            for (Long id : buildRepository.findCancelRequestedIds(leases.keySet())) {
+                Lease lease = leases.get(id);
+                if (lease != null && !processRunner.isCancelled(lease.buildHash())) {
+                    log.info("다른 replica에서 받은 빌드 취소 요청 반영: hash={}", lease.buildHash());
+                    processRunner.cancel(lease.buildHash());
+                }
+            }
+        }
+        takeOverExpired(now);
+    }
+
+    /**
+     * lease가 만료된 실행 중 빌드 정리 - 취소 요청된 빌드는 CANCELLED, 나머지는 대기열로 복귀
+     */
+    private void takeOverExpired(LocalDateTime now) {
+        int cancelled = buildRepository.cancelExpiredLeases(BuildStatus.BUILDING, BuildStatus.CANCELLED, now);
+        int requeued = buildRepository.requeueExpiredLeases(BuildStatus.BUILDING, BuildStatus.QUEUED, now);
+        if (cancelled + requeued > 0) {
+            log.warn("⚠️ lease 만료 빌드 정리 (실행하던 replica 중단): 대기열 복귀 {}건, 취소 {}건", requeued, cancelled);
+        }
+    }
+}
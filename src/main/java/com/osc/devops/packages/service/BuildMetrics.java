@@ -0,0 +1,180 @@
+package com.osc.devops.packages.service;
+
+import com.osc.devops.common.enums.BuildStatus;
+import com.osc.devops.packages.dto.PackageBuildDto;
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 패키지 빌드 Micrometer 지표 (/actuator/prometheus)
+ * - package.build.duration: 빌드 전체 소요 시간 (deploy_env, platform, format, status)
+ * - package.build.stage: 단계별 소요 시간 - enterStage 사이 구간 (deploy_env, platform, stage)
+ * - package.build.image: 이미지 × 플랫폼 처리 시간 (deploy_env, platform, source, result)
+ * - package.build.bytes: 기록한 바이트 (kind: archive | entries | blob-written | blob-deduplicated)
+ * - package.build.archive.write: tar + 압축 + 디스크 기록에 쓴 시간
+ * - package.build.process: 외부 명령 실행 시간 (command, outcome)
+ * - package.build.retries: 재시도 횟수 (operation)
+ * - package.build.cache.requests: 이미지/blob/chart 캐시 hit/miss
+ * - package.build.reaped: 정리한 패키지 수/바이트 (reason: expired | quota)
+ * - package.build.storage.bytes: 보관 중인 패키지 파일 크기 (정리 작업 실행 시 갱신)
+ * 빌드별 태그는 startBuild에서 정해지며 buildHash 단위로 finishBuild까지 유지된다.
+ */
+@Component
+public class BuildMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, BuildContext> builds = new ConcurrentHashMap<>();
+    private final AtomicLong storageBytes = new AtomicLong();
+
+    private record BuildContext(Tags tags, String format, long startNanos, StageClock stage) {}
+
+    private static class StageClock {
+        private String name;
+        private long startNanos;
+    }
+
+    public BuildMetrics(MeterRegistry registry, ImageTarballCache imageCache, RegistryBlobCache blobCache,
+                        HelmChartCache chartCache) {
+        this.registry = registry;
+        FunctionCounter.builder("package.build.cache.requests", imageCache, ImageTarballCache::getHits)
+                .tags("cache", "image", "result", "hit").register(registry);
+        FunctionCounter.builder("package.build.cache.requests", imageCache, ImageTarballCache::getMisses)
+                .tags("cache", "image", "result", "miss").register(registry);
+        FunctionCounter.builder("package.build.cache.requests", blobCache, RegistryBlobCache::getHits)
+                .tags("cache", "blob", "result", "hit").register(registry);
+        FunctionCounter.builder("package.build.cache.requests", blobCache, RegistryBlobCache::getMisses)
+                .tags("cache", "blob", "result", "miss").register(registry);
+        FunctionCounter.builder("package.build.cache.requests", chartCache, HelmChartCache::getHits)
+                .tags("cache", "chart", "result", "hit").register(registry);
+        FunctionCounter.builder("package.build.cache.requests", chartCache, HelmChartCache::getMisses)
+                .tags("cache", "chart", "result", "miss").register(registry);
+        Gauge.builder("package.build.running", builds, Map::size)
+                .description("실행 중인 빌드 수").register(registry);
+        Gauge.builder("package.build.storage.bytes", storageBytes, AtomicLong::get)
+                .baseUnit("bytes").description("보관 중인 패키지 파일 크기").register(registry);
+    }
+
+    public void startBuild(String buildHash, PackageBuildDto.BuildRequest request) {
+        Tags tags = Tags.of("deploy_env", String.valueOf(request.getDeployEnv()),
+                "platform", String.valueOf(request.getPlatform()));
+        builds.put(buildHash, new BuildContext(tags, request.getArchiveFormat().name(), System.nanoTime(), new StageClock()));
+    }
+
+    /**
+     * 이전 단계 종료 + 새 단계 시작
+     */
+    public void enterStage(String buildHash, String stage) {
+        BuildContext ctx = builds.get(buildHash);
+        if (ctx == null) return;
+        synchronized (ctx.stage()) {
+            long now = System.nanoTime();
+            recordStage(ctx, now);
+            ctx.stage().name = stage;
+            ctx.stage().startNanos = now;
+        }
+    }
+
+    /**
+     * 이미지 × 플랫폼 1건 (source: registry | docker | cache | checkpoint | delta, result: success | failed)
+     */
+    public void image(String buildHash, String platform, String source, boolean success, long nanos) {
+        BuildContext ctx = builds.get(buildHash);
+        if (ctx == null) return;
+        Timer.builder("package.build.image")
+                .tags(ctx.tags().and("platform", platform))
+                .tag("source", source)
+                .tag("result", success ? "success" : "failed")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void bytes(String buildHash, String kind, long bytes) {
+        BuildContext ctx = builds.get(buildHash);
+        if (ctx == null || bytes <= 0) return;
+        Counter.builder("package.build.bytes").baseUnit("bytes")
+                .tags(ctx.tags()).tag("kind", kind)
+                .register(registry)
+                .increment(bytes);
+    }
+
+    public void archiveWrite(String buildHash, long nanos) {
+        BuildContext ctx = builds.get(buildHash);
+        if (ctx == null) return;
+        Timer.builder("package.build.archive.write")
+                .tags(ctx.tags()).tag("format", ctx.format())
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 외부 명령 실행 (outcome: success | failure | timeout | cancelled)
+     */
+    public void process(String command, String outcome, long durationMs) {
+        Timer.builder("package.build.process")
+                .tag("command", command)
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void retry(String operation) {
+        registry.counter("package.build.retries", "operation", operation).increment();
+    }
+
+    /**
+     * 패키지 파일 정리 (reason: expired | quota)
+     */
+    public void reaped(String reason, long bytes) {
+        registry.counter("package.build.reaped", "reason", reason).increment();
+        if (bytes > 0) {
+            Counter.builder("package.build.reaped.bytes").baseUnit("bytes")
+                    .tag("reason", reason)
+                    .register(registry)
+                    .increment(bytes);
+        }
+    }
+
+    public void storageBytes(long bytes) {
+        storageBytes.set(bytes);
+    }
+
+    /**
+     * 마지막 단계와 빌드 전체 시간 기록 후 빌드 컨텍스트 제거
+     */
+    public void finishBuild(String buildHash, BuildStatus status) {
+        BuildContext ctx = builds.remove(buildHash);
+        if (ctx == null) return;
+        long now = System.nanoTime();
+        synchronized (ctx.stage()) {
+            recordStage(ctx, now);
+        }
+        Timer.builder("package.build.duration")
+                .tags(ctx.tags())
+                .tag("format", ctx.format())
+                .tag("status", status.name())
+                .register(registry)
+                .record(now - ctx.startNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 기록 없이 빌드 컨텍스트 제거 (lease를 잃은 실행 - 같은 빌드는 이어받은 실행이 기록)
+     */
+    public void discardBuild(String buildHash) {
+        builds.remove(buildHash);
+    }
+
+    private void recordStage(BuildContext ctx, long now) {
+        if (ctx.stage().name == null) return;
+        Timer.builder("package.build.stage")
+                .tags(ctx.tags())
+                .tag("stage", ctx.stage().name)
+                .register(registry)
+                .record(now - ctx.stage().startNanos, TimeUnit.NANOSECONDS);
+        ctx.stage().name = null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.osc.devops.packages.service;
+
+import com.osc.devops.common.enums.BuildStatus;
+import com.osc.devops.packages.dto.PackageBuildDto;
+import com.osc.devops.packages.repository.PackageBuildRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 진행 중인 빌드의 진행률을 메모리에서 관리하고 DB에는 모아서 반영
+ * - 직전 반영값 대비 flush-step(기본 5%) 이상 변하면 즉시 반영
+ * - 그 외 변경분은 flush-interval-ms(기본 1초) 주기로 한 번에 반영
+ * 상태 조회 API는 실행 시작 시 등록한 Response 스냅샷에 현재 진행률을 덮어써 반환하므로
+ * 진행 중인 빌드 조회는 DB를 거치지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BuildProgressTracker {
+
+    private final PackageBuildRepository buildRepository;
+
+    @Value("${package.build.progress.flush-step:5}")
+    private int flushStep;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 빌드 등록 (스케줄러가 대기열 빌드를 claim한 뒤 실행 직전에 호출 - claim 시 만든 BUILDING 상태 Response 스냅샷 보관)
+     */
+    public void register(Long buildId, PackageBuildDto.Response snapshot) {
+        entries.put(snapshot.getBuildHash(), new Entry(buildId, snapshot));
+    }
+
+    /**
+     * 진행률 갱신 (증가하는 경우에만 반영)
+     */
+    public void update(String buildHash, int progress) {
+        Entry entry = entries.get(buildHash);
+        if (entry == null) return;
+        boolean flushNow;
+        synchronized (entry) {
+            if (progress <= entry.progress) return;
+            entry.progress = progress;
+            flushNow = progress - entry.persisted >= flushStep;
+        }
+        if (flushNow) flush(entry);
+    }
+
+    /**
+     * 빌드 종료 또는 실행 풀 포화로 대기열 복귀 시 항목 제거
+     * 최종 상태/진행률은 executor가 lease 조건 UPDATE(completeLeased / finishLeased)로 반영하고,
+     * 그 뒤에는 BUILDING이 아니므로 늦게 도착한 flush도 덮어쓰지 않는다.
+     */
+    public void finish(String buildHash) {
+        entries.remove(buildHash);
+    }
+
+    public Optional<Integer> getProgress(String buildHash) {
+        Entry entry = entries.get(buildHash);
+        return entry != null ? Optional.of(entry.progress) : Optional.empty();
+    }
+
+    /**
+     * 진행 중인 빌드면 스냅샷 + 현재 진행률 반환
+     */
+    public Optional<PackageBuildDto.Response> getSnapshot(String buildHash) {
+        Entry entry = entries.get(buildHash);
+        if (entry == null) return Optional.empty();
+        return Optional.of(entry.snapshot.toBuilder().progress(entry.progress).build());
+    }
+
+    @Scheduled(fixedDelayString = "${package.build.progress.flush-interval-ms:1000}")
+    public void flushPending() {
+        for (Entry entry : entries.values()) {
+            if (entry.progress != entry.persisted) {
+                flush(entry);
+            }
+        }
+    }
+
+    private void flush(Entry entry) {
+        int progress = entry.progress;
+        try {
+            // 이미 종료(SUCCESS/FAILED)된 빌드는 건드리지 않음
+            buildRepository.updateProgress(entry.buildId, progress, BuildStatus.BUILDING);
+            synchronized (entry) {
+                if (progress > entry.persisted) entry.persisted = progress;
+            }
+        } catch (Exception e) {
+            log.warn("빌드 진행률 저장 실패: buildId={}, progress={} - {}", entry.buildId, progress, e.getMessage());
+        }
+    }
+
+    private static class Entry {
+        private final Long buildId;
+        private final PackageBuildDto.Response snapshot;
+        private volatile int progress;
+        private volatile int persisted;
+
+        Entry(Long buildId, PackageBuildDto.Response snapshot) {
+            this.buildId = buildId;
+            this.snapshot = snapshot;
+            this.progress = snapshot.getProgress() != null ? snapshot.getProgress() : 0;
+            this.persisted = this.progress;
+        }
+    }
+}
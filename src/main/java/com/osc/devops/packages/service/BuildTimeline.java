@@ -0,0 +1,220 @@
+package com.osc.devops.packages.service;
+
+import com.osc.devops.common.enums.ArtifactType;
+import com.osc.devops.common.enums.BuildStatus;
+import com.osc.devops.common.enums.BuildStepStatus;
+import com.osc.devops.common.enums.BuildStepType;
+import com.osc.devops.packages.entity.PackageBuild;
+import com.osc.devops.packages.entity.PackageBuildArtifact;
+import com.osc.devops.packages.entity.PackageBuildStep;
+import com.osc.devops.packages.repository.PackageBuildArtifactRepository;
+import com.osc.devops.packages.repository.PackageBuildRepository;
+import com.osc.devops.packages.repository.PackageBuildStepRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 빌드별 step 타임라인 + 결과물 목록 수집 → 빌드 종료 시 package_build_step / package_build_artifact에 일괄 저장
+ * (빌드 중에는 메모리에만 쌓아 단계마다 DB를 쓰지 않음)
+ * - STAGE: enterStage 사이 구간 (다음 단계 진입 또는 빌드 종료 시 닫힘)
+ * - CHART / IMAGE: begin → Step.finish (병렬 작업에서 호출)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BuildTimeline {
+
+    private final PackageBuildRepository buildRepository;
+    private final PackageBuildStepRepository stepRepository;
+    private final PackageBuildArtifactRepository artifactRepository;
+
+    private final Map<String, Timeline> timelines = new ConcurrentHashMap<>();
+
+    private static class Timeline {
+        private final List<PackageBuildStep> steps = new ArrayList<>();
+        private final List<PackageBuildArtifact> artifacts = new ArrayList<>();
+        private Step currentStage;
+    }
+
+    /**
+     * 진행 중인 step (한 작업 스레드에서만 사용)
+     */
+    public static class Step {
+        private final Timeline timeline;
+        private final BuildStepType type;
+        private final String name;
+        private final String platform;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private long bytes;
+        private int retries;
+        private Integer exitCode;
+        private String message;
+        private String digest;
+
+        private Step(Timeline timeline, BuildStepType type, String name, String platform) {
+            this.timeline = timeline;
+            this.type = type;
+            this.name = name;
+            this.platform = platform;
+        }
+
+        public Step bytes(long bytes) {
+            this.bytes = bytes;
+            return this;
+        }
+
+        public Step retry() {
+            retries++;
+            return this;
+        }
+
+        public Step exitCode(int exitCode) {
+            this.exitCode = exitCode;
+            return this;
+        }
+
+        public Step message(String message) {
+            this.message = message != null && message.length() > 500 ? message.substring(0, 500) : message;
+            return this;
+        }
+
+        /**
+         * 패키지에 넣은 결과물의 digest (결과물 목록 기록용)
+         */
+        public Step digest(String digest) {
+            this.digest = digest;
+            return this;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        public void finish(BuildStepStatus status) {
+            if (timeline == null) return;
+            PackageBuildStep step = PackageBuildStep.builder()
+                    .stepType(type)
+                    .name(name)
+                    .platform(platform)
+                    .status(status)
+                    .startedAt(startedAt)
+                    .finishedAt(LocalDateTime.now())
+                    .durationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                    .bytes(bytes > 0 ? bytes : null)
+                    .retries(retries)
+                    .exitCode(exitCode)
+                    .message(message)
+                    .build();
+            synchronized (timeline) {
+                timeline.steps.add(step);
+            }
+        }
+    }
+
+    public void start(String buildHash) {
+        timelines.put(buildHash, new Timeline());
+    }
+
+    /**
+     * 이전 STAGE step을 닫고 새 STAGE step 시작
+     */
+    public void stage(String buildHash, String stage) {
+        Timeline timeline = timelines.get(buildHash);
+        if (timeline == null) return;
+        Step previous;
+        synchronized (timeline) {
+            previous = timeline.currentStage;
+            timeline.currentStage = new Step(timeline, BuildStepType.STAGE, stage, null);
+        }
+        if (previous != null) previous.finish(BuildStepStatus.SUCCESS);
+    }
+
+    /**
+     * CHART / IMAGE step 시작 (start 전이거나 종료된 빌드면 기록하지 않는 step)
+     */
+    public Step begin(String buildHash, BuildStepType type, String name, String platform) {
+        return new Step(timelines.get(buildHash), type, name, platform);
+    }
+
+    public void artifact(String buildHash, ArtifactType type, String name, String platform,
+                         String path, long size, String digest) {
+        Timeline timeline = timelines.get(buildHash);
+        if (timeline == null) return;
+        PackageBuildArtifact artifact = PackageBuildArtifact.builder()
+                .artifactType(type)
+                .name(name)
+                .platform(platform)
+                .path(path)
+                .sizeBytes(size)
+                .digest(digest)
+                .build();
+        synchronized (timeline) {
+            timeline.artifacts.add(artifact);
+        }
+    }
+
+    /**
+     * 마지막 STAGE step을 빌드 결과에 맞게 닫고 일괄 저장 (저장 실패는 빌드 결과에 영향 없음)
+     */
+    public void finish(Long buildId, String buildHash, BuildStatus status) {
+        Timeline timeline = timelines.remove(buildHash);
+        if (timeline == null) return;
+        if (timeline.currentStage != null) {
+            timeline.currentStage.finish(switch (status) {
+                case SUCCESS -> BuildStepStatus.SUCCESS;
+                case CANCELLED, QUEUED -> BuildStepStatus.CANCELLED;
+                default -> BuildStepStatus.FAILED;
+            });
+        }
+        try {
+            PackageBuild build = buildRepository.getReferenceById(buildId);
+            timeline.steps.forEach(s -> s.setBuild(build));
+            timeline.artifacts.forEach(a -> a.setBuild(build));
+            stepRepository.saveAll(timeline.steps);
+            artifactRepository.saveAll(timeline.artifacts);
+        } catch (Exception e) {
+            log.warn("빌드 타임라인 저장 실패: hash={} - {}", buildHash, e.getMessage());
+        }
+    }
+
+    /**
+     * 저장 없이 타임라인 제거 (lease를 잃은 실행 - 같은 빌드는 이어받은 실행이 기록)
+     */
+    public void discard(String buildHash) {
+        timelines.remove(buildHash);
+    }
+
+    public static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                md.update(buf, 0, n);
+            }
+            return "sha256:" + HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
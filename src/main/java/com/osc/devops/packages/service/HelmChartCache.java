@@ -0,0 +1,130 @@
+package com.osc.devops.packages.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 빌드 간 공유되는 helm chart(.tgz) 저장소
+ * 키: repo URL + chart 이름 + chart 버전 → {cache-dir}/{sha256(key)}/{helm pull 파일명}
+ * 버전이 지정되지 않은 chart는 내용이 바뀔 수 있으므로 캐시하지 않는다.
+ */
+@Slf4j
+@Component
+public class HelmChartCache {
+
+    @Value("${package.build.chart-cache.path:}")
+    private String cachePath;
+
+    @Value("${package.build.storage-path:/tmp/devops-platform/packages}")
+    private String storagePath;
+
+    private Path cacheDir;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    void init() throws IOException {
+        cacheDir = (cachePath == null || cachePath.isBlank())
+                ? Paths.get(storagePath, ".chart-cache")
+                : Paths.get(cachePath);
+        Files.createDirectories(cacheDir);
+
+        int stale = 0;
+        try (Stream<Path> entries = Files.list(cacheDir)) {
+            for (Path p : entries.toList()) {
+                if (p.getFileName().toString().endsWith(".tmp")) {
+                    deleteQuietly(p); // 이전 실행에서 pull 도중 남은 임시 디렉토리
+                    stale++;
+                }
+            }
+        }
+        log.info("Helm chart 캐시 초기화: dir={}, 정리한 임시 디렉토리={}", cacheDir, stale);
+    }
+
+    /**
+     * 캐시된 chart 파일 조회 (hit/miss 카운트 포함)
+     */
+    public Optional<Path> lookup(String repoUrl, String chartName, String version) {
+        if (version == null || version.isEmpty()) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        Path entryDir = entryDir(repoUrl, chartName, version);
+        try (Stream<Path> files = Files.list(entryDir)) {
+            Optional<Path> chart = files.filter(p -> p.getFileName().toString().endsWith(".tgz")).findFirst();
+            (chart.isPresent() ? hits : misses).incrementAndGet();
+            return chart;
+        } catch (NoSuchFileException e) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Helm chart 캐시 조회 실패: {} {} - {}", chartName, version, e.getMessage());
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * helm pull 결과를 캐시에 등록 (임시 디렉토리 → atomic rename)
+     */
+    public void store(String repoUrl, String chartName, String version, Path pulledChart) {
+        if (version == null || version.isEmpty()) return;
+        Path entryDir = entryDir(repoUrl, chartName, version);
+        if (Files.exists(entryDir)) return;
+
+        Path tmpDir = cacheDir.resolve(entryDir.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(tmpDir);
+            Files.copy(pulledChart, tmpDir.resolve(pulledChart.getFileName()));
+            Files.move(tmpDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            deleteQuietly(tmpDir); // 다른 빌드가 먼저 등록
+        } catch (IOException e) {
+            log.warn("Helm chart 캐시 저장 실패: {} {} - {}", chartName, version, e.getMessage());
+            deleteQuietly(tmpDir);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private Path entryDir(String repoUrl, String chartName, String version) {
+        return cacheDir.resolve(sha256(repoUrl + "|" + chartName + "|" + version));
+    }
+
+    private void deleteQuietly(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try { Files.deleteIfExists(p); } catch (IOException ignored) {}
+            });
+        } catch (IOException ignored) {}
+    }
+
+    private static String sha256(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
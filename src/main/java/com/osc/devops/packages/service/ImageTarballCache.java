@@ -0,0 +1,218 @@
+package com.osc.devops.packages.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 빌드 간 공유되는 docker save 결과(tar) 캐시
+ * 키: 이미지 참조 + 플랫폼 + manifest digest → {cache-dir}/{sha256(key)}.tar
+ * 최근 사용 시각(파일 mtime) 기준 LRU로 max-size-gb를 넘지 않도록 정리한다.
+ */
+@Slf4j
+@Component
+public class ImageTarballCache {
+
+    @Value("${package.build.image-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${package.build.image-cache.path:}")
+    private String cachePath;
+
+    @Value("${package.build.storage-path:/tmp/devops-platform/packages}")
+    private String storagePath;
+
+    @Value("${package.build.image-cache.max-size-gb:50}")
+    private long maxSizeGb;
+
+    private Path cacheDir;
+    private final AtomicLong currentBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // 조회/적재는 동시에, eviction은 단독으로 실행
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) return;
+        cacheDir = (cachePath == null || cachePath.isBlank())
+                ? Paths.get(storagePath, ".image-cache")
+                : Paths.get(cachePath);
+        Files.createDirectories(cacheDir);
+
+        long total = 0;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path p : files.toList()) {
+                if (p.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(p); // 이전 실행에서 남은 임시 파일
+                } else {
+                    total += Files.size(p);
+                }
+            }
+        }
+        currentBytes.set(total);
+        log.info("이미지 캐시 초기화: dir={}, size={}MB, max={}GB", cacheDir, total / 1024 / 1024, maxSizeGb);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 캐시 적중 시 target 위치에 hardlink(불가하면 복사)로 배치하고 true 반환
+     */
+    public boolean copyTo(String imageRef, String platform, String digest, Path target) {
+        if (!enabled) return false;
+        if (digest == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            Path cached = entryPath(imageRef, platform, digest);
+            if (!Files.exists(cached)) {
+                misses.incrementAndGet();
+                return false;
+            }
+            linkOrCopy(cached, target);
+            Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            log.warn("이미지 캐시 읽기 실패: {} [{}] - {}", imageRef, platform, e.getMessage());
+            misses.incrementAndGet();
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * docker save 결과를 캐시에 등록 (임시 파일 → hardlink로 게시), 이후 용량 초과분 정리
+     */
+    public void put(String imageRef, String platform, String digest, Path source) {
+        if (!enabled || digest == null) return;
+        lock.readLock().lock();
+        try {
+            Path cached = entryPath(imageRef, platform, digest);
+            if (Files.exists(cached)) return;
+            Path tmp = cacheDir.resolve(UUID.randomUUID() + ".tmp");
+            linkOrCopy(source, tmp);
+            if (publish(tmp, cached)) currentBytes.addAndGet(Files.size(cached));
+        } catch (IOException e) {
+            log.warn("이미지 캐시 저장 실패: {} [{}] - {}", imageRef, platform, e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+        evictIfNeeded();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getSizeBytes() {
+        return currentBytes.get();
+    }
+
+    private void evictIfNeeded() {
+        long maxBytes = maxSizeGb * 1024 * 1024 * 1024;
+        if (currentBytes.get() <= maxBytes) return;
+
+        lock.writeLock().lock();
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            List<Path> entries = new ArrayList<>(files
+                    .filter(p -> p.getFileName().toString().endsWith(".tar"))
+                    .toList());
+            entries.sort(Comparator.comparing(this::lastModified));
+            // 조회/적재가 없는 동안 실제 파일 크기로 다시 맞춤 (집계가 어긋나도 캐시를 모두 비우지 않도록)
+            long total = 0;
+            for (Path p : entries) total += Files.size(p);
+            currentBytes.set(total);
+            for (Path p : entries) {
+                if (currentBytes.get() <= maxBytes) break;
+                long size = Files.size(p);
+                Files.deleteIfExists(p);
+                currentBytes.addAndGet(-size);
+                log.info("이미지 캐시 정리 (LRU): {} ({}MB)", p.getFileName(), size / 1024 / 1024);
+            }
+        } catch (IOException e) {
+            log.warn("이미지 캐시 정리 실패: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Path entryPath(String imageRef, String platform, String digest) {
+        return cacheDir.resolve(sha256(imageRef + "|" + platform + "|" + digest) + ".tar");
+    }
+
+    private FileTime lastModified(Path p) {
+        try { return Files.getLastModifiedTime(p); }
+        catch (IOException e) { return FileTime.fromMillis(0); }
+    }
+
+    /**
+     * 임시 파일을 캐시 항목 이름으로 게시하고, 이 호출이 등록했으면 true (다른 빌드가 먼저 등록했으면 false)
+     * rename(2)(ATOMIC_MOVE)은 이미 있는 항목을 조용히 덮어써 같은 항목을 동시에 등록하면 크기가 두 번 더해지므로,
+     * 대상이 있으면 실패하는 hardlink로 게시한다. (hardlink를 지원하지 않는 파일시스템은 대상이 없을 때만 move)
+     */
+    private static boolean publish(Path tmp, Path cached) throws IOException {
+        try {
+            Files.createLink(cached, tmp);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (IOException | UnsupportedOperationException e) {
+            try {
+                Files.move(tmp, cached);
+                return true;
+            } catch (FileAlreadyExistsException exists) {
+                return false;
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            // 다른 파일시스템 등 hardlink 불가 시 복사
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String sha256(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
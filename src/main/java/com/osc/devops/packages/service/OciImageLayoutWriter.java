@@ -0,0 +1,357 @@
+package com.osc.devops.packages.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * docker save 결과(tar)를 패키지의 images/ 아래 OCI image layout으로 기록
+ * - images/blobs/sha256/{digest}  : config / layer / OCI manifest (내용 주소 기반 → 공유 레이어는 한 번만 저장)
+ * - images/refs/{name}.manifest.json : docker load용 docker-archive manifest (blobs 경로 참조)
+ * - images/refs/{name}.blobs         : 해당 이미지가 참조하는 blob 경로 목록 (load 시 tar 재구성용)
+ * - images/refs/{name}.descriptor.json : index.json에 들어갈 OCI descriptor (한 줄)
+ * - images/oci-layout, images/index.json : finish() 시 기록
+ * 이미지별 처리는 여러 스레드에서 동시에 호출될 수 있다 (blob 중복 판정은 동시성 안전).
+ * 입력은 docker save tar(addDockerArchive) 또는 레지스트리에서 받은 blob(addBlob + addImage).
+ * 델타 빌드는 기준 패키지에 이미 있는 blob(baseBlobs)을 기록하지 않는다 (apply-delta.sh가 기준 패키지의 blobs/에 병합).
+ */
+public class OciImageLayoutWriter {
+
+    public static final String IMAGES_DIR = "images";
+
+    private static final String MANIFEST_MEDIA_TYPE = "application/vnd.oci.image.manifest.v1+json";
+    private static final String CONFIG_MEDIA_TYPE = "application/vnd.oci.image.config.v1+json";
+    private static final String INDEX_MEDIA_TYPE = "application/vnd.oci.image.index.v1+json";
+    private static final String LAYER_MEDIA_TYPE = "application/vnd.oci.image.layer.v1.tar";
+    private static final String DOCKER_CONFIG_MEDIA_TYPE = "application/vnd.docker.container.image.v1+json";
+    private static final String DOCKER_LAYER_MEDIA_TYPE = "application/vnd.docker.image.rootfs.diff.tar";
+    private static final String REF_NAME_ANNOTATION = "org.opencontainers.image.ref.name";
+
+    private final PackageArchiveWriter archive;
+    private final ObjectMapper objectMapper;
+    // digest → 기록 완료(또는 진행 중) 표시. 기록이 실패하면 제거되어 다른 이미지가 다시 기록한다
+    private final Map<String, CompletableFuture<Void>> blobs = new ConcurrentHashMap<>();
+    private final Map<String, String> descriptors = new ConcurrentHashMap<>();
+    private final Set<String> baseBlobs;
+    // 패키지(델타면 기준 패키지 포함)에 들어있는 blob digest → 크기
+    private final Map<String, Long> referenced = new ConcurrentHashMap<>();
+    private long blobBytesWritten;
+    private long blobBytesSkipped;
+    private long blobBytesInBase;
+
+    public OciImageLayoutWriter(PackageArchiveWriter archive, ObjectMapper objectMapper) {
+        this(archive, objectMapper, Set.of());
+    }
+
+    public OciImageLayoutWriter(PackageArchiveWriter archive, ObjectMapper objectMapper, Set<String> baseBlobs) {
+        this.archive = archive;
+        this.objectMapper = objectMapper;
+        this.baseBlobs = baseBlobs;
+    }
+
+    /**
+     * docker save tar 하나를 layout에 추가 (refName: images/refs/ 아래 파일 이름, 이미지×플랫폼마다 고유)
+     * tar를 두 번 읽는다: 1) 모든 entry의 sha256 계산 + manifest.json 수집 2) 아직 없는 blob만 기록
+     *
+     * @return 기록한 OCI manifest의 digest
+     */
+    public String addDockerArchive(Path savedTar, String refName, String platform) throws IOException, InterruptedException {
+        Map<String, BlobInfo> entries = new HashMap<>();
+        JsonNode dockerManifest = null;
+
+        try (TarArchiveInputStream in = openTar(savedTar)) {
+            TarArchiveEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if (!entry.isFile()) continue;
+                String name = normalize(entry.getName());
+                if (name.equals("manifest.json")) {
+                    dockerManifest = objectMapper.readTree(in.readAllBytes());
+                    continue;
+                }
+                entries.put(name, digest(in, entry.getSize()).withPath(name));
+            }
+        }
+        if (dockerManifest == null || !dockerManifest.isArray() || dockerManifest.isEmpty()) {
+            throw new IOException("docker save 결과에 manifest.json이 없습니다: " + savedTar.getFileName());
+        }
+
+        JsonNode image = dockerManifest.get(0);
+        BlobInfo config = require(entries, image.path("Config").asText(), savedTar);
+        List<BlobInfo> layers = new ArrayList<>();
+        for (JsonNode layer : image.path("Layers")) {
+            layers.add(require(entries, layer.asText(), savedTar));
+        }
+
+        // 2차: 필요한 blob 중 아직 기록되지 않은 것만 append
+        Map<String, BlobInfo> needed = new HashMap<>();
+        needed.put(config.path, config);
+        layers.forEach(l -> needed.put(l.path, l));
+        try (TarArchiveInputStream in = openTar(savedTar)) {
+            TarArchiveEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                BlobInfo blob = needed.remove(normalize(entry.getName()));
+                if (blob == null) continue;
+                TarArchiveInputStream source = in;
+                addBlob(blob.digest, blob.size, (writer, entryPath) -> writer.writeStream(entryPath, source, blob.size));
+            }
+        }
+
+        List<String> repoTags = new ArrayList<>();
+        image.path("RepoTags").forEach(tag -> repoTags.add(tag.asText()));
+        return addImage(refName, platform, repoTags, config, layers);
+    }
+
+    /**
+     * blob 하나를 layout에 기록 (digest: "sha256:..."). 이미 기록된 blob이면 content를 호출하지 않는다.
+     * 다른 이미지가 같은 blob을 기록 중이면 끝날 때까지 기다리며, 그 기록이 실패했으면 직접 기록한다.
+     *
+     * @return 새로 기록했으면 true, 공유 blob이거나 기준 패키지에 있는 blob이라 건너뛰었으면 false
+     */
+    public boolean addBlob(String digest, long size, BlobContent content) throws IOException, InterruptedException {
+        if (baseBlobs.contains(digest)) {
+            if (referenced.putIfAbsent(digest, size) == null) addInBase(size);
+            return false;
+        }
+        while (true) {
+            CompletableFuture<Void> mine = new CompletableFuture<>();
+            CompletableFuture<Void> existing = blobs.putIfAbsent(digest, mine);
+            if (existing == null) {
+                try {
+                    content.writeTo(archive, blobEntry(digest));
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    blobs.remove(digest, mine);
+                    mine.completeExceptionally(e);
+                    throw e;
+                }
+                mine.complete(null);
+                referenced.put(digest, size);
+                addWritten(size);
+                return true;
+            }
+            try {
+                existing.get();
+                addSkipped(size);
+                return false;
+            } catch (ExecutionException e) {
+                // 다른 이미지의 기록 실패 → 다시 시도
+            }
+        }
+    }
+
+    /**
+     * config/layer blob이 모두 기록된 이미지의 OCI manifest + refs 파일 기록
+     * (레지스트리 manifest의 docker 형식 media type은 OCI 형식으로 바꿔 기록)
+     *
+     * @return 기록한 OCI manifest의 digest
+     */
+    public String addImage(String refName, String platform, List<String> repoTags,
+                         BlobInfo config, List<BlobInfo> layers) throws IOException, InterruptedException {
+        ObjectNode manifest = objectMapper.createObjectNode();
+        manifest.put("schemaVersion", 2);
+        manifest.put("mediaType", MANIFEST_MEDIA_TYPE);
+        manifest.set("config", descriptor(CONFIG_MEDIA_TYPE, config.digest, config.size));
+        ArrayNode layerArray = manifest.putArray("layers");
+        for (BlobInfo layer : layers) {
+            layerArray.add(descriptor(ociMediaType(layer.mediaType), layer.digest, layer.size));
+        }
+        byte[] manifestBytes = objectMapper.writeValueAsBytes(manifest);
+        String manifestDigest = sha256(manifestBytes);
+        addBlob(manifestDigest, manifestBytes.length, (writer, entryPath) -> writer.writeBytes(entryPath, manifestBytes));
+
+        ObjectNode indexDescriptor = descriptor(MANIFEST_MEDIA_TYPE, manifestDigest, manifestBytes.length);
+        String[] osArch = platform.split("/");
+        ObjectNode platformNode = indexDescriptor.putObject("platform");
+        platformNode.put("os", osArch[0]);
+        platformNode.put("architecture", osArch.length > 1 ? osArch[1] : "amd64");
+        if (osArch.length > 2) platformNode.put("variant", osArch[2]);
+        indexDescriptor.putObject("annotations").put(REF_NAME_ANNOTATION, refName);
+        String descriptorJson = objectMapper.writeValueAsString(indexDescriptor);
+        descriptors.put(refName, descriptorJson);
+
+        // docker load용 docker-archive manifest (경로는 blobs/ 기준, RepoTags는 docker pull 했을 때의 이름)
+        ObjectNode loadManifest = objectMapper.createObjectNode();
+        loadManifest.put("Config", blobRef(config.digest));
+        loadManifest.set("RepoTags", objectMapper.valueToTree(repoTags));
+        ArrayNode loadLayers = loadManifest.putArray("Layers");
+        StringBuilder blobList = new StringBuilder(blobRef(config.digest)).append('\n');
+        for (BlobInfo layer : layers) {
+            loadLayers.add(blobRef(layer.digest));
+            blobList.append(blobRef(layer.digest)).append('\n');
+        }
+        String refs = IMAGES_DIR + "/refs/" + refName;
+        archive.writeText(refs + ".manifest.json", objectMapper.writeValueAsString(List.of(loadManifest)));
+        archive.writeText(refs + ".blobs", blobList.toString());
+        archive.writeText(refs + ".descriptor.json", descriptorJson + "\n");
+        return manifestDigest;
+    }
+
+    /**
+     * oci-layout + index.json 기록 (모든 이미지 추가 후 한 번 호출)
+     */
+    public void finish() throws IOException {
+        archive.writeText(IMAGES_DIR + "/oci-layout", "{\"imageLayoutVersion\":\"1.0.0\"}\n");
+        StringBuilder index = new StringBuilder();
+        index.append("{\"schemaVersion\":2,\"mediaType\":\"").append(INDEX_MEDIA_TYPE).append("\",\"manifests\":[");
+        List<String> names = new ArrayList<>(descriptors.keySet());
+        Collections.sort(names);
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) index.append(',');
+            index.append(descriptors.get(names.get(i)));
+        }
+        index.append("]}\n");
+        archive.writeText(IMAGES_DIR + "/index.json", index.toString());
+    }
+
+    public synchronized long getBlobBytesWritten() {
+        return blobBytesWritten;
+    }
+
+    public synchronized long getBlobBytesSkipped() {
+        return blobBytesSkipped;
+    }
+
+    public synchronized long getBlobBytesInBase() {
+        return blobBytesInBase;
+    }
+
+    /**
+     * 패키지가 참조하는 blob (기록했거나 기준 패키지에 있는 blob) digest → 크기
+     */
+    public Map<String, Long> getReferencedBlobs() {
+        return Map.copyOf(referenced);
+    }
+
+    private synchronized void addWritten(long size) {
+        blobBytesWritten += size;
+    }
+
+    private synchronized void addSkipped(long size) {
+        blobBytesSkipped += size;
+    }
+
+    private synchronized void addInBase(long size) {
+        blobBytesInBase += size;
+    }
+
+    private ObjectNode descriptor(String mediaType, String digest, long size) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("mediaType", mediaType);
+        node.put("digest", digest);
+        node.put("size", size);
+        return node;
+    }
+
+    // 패키지 내 entry 경로 (images/blobs/sha256/...)
+    public static String blobEntry(String digest) {
+        return IMAGES_DIR + "/" + blobRef(digest);
+    }
+
+    // images/ 기준 상대 경로 (docker-archive manifest / .blobs 목록에서 사용)
+    private static String blobRef(String digest) {
+        return "blobs/sha256/" + digest.substring(digest.indexOf(':') + 1);
+    }
+
+    private static String ociMediaType(String mediaType) {
+        if (mediaType.equals(DOCKER_CONFIG_MEDIA_TYPE)) return CONFIG_MEDIA_TYPE;
+        if (mediaType.startsWith(DOCKER_LAYER_MEDIA_TYPE)) {
+            return mediaType.endsWith(".gzip") ? LAYER_MEDIA_TYPE + "+gzip" : LAYER_MEDIA_TYPE;
+        }
+        return mediaType;
+    }
+
+    private static TarArchiveInputStream openTar(Path tar) throws IOException {
+        return new TarArchiveInputStream(new BufferedInputStream(Files.newInputStream(tar), 64 * 1024));
+    }
+
+    private static String normalize(String name) {
+        return name.startsWith("./") ? name.substring(2) : name;
+    }
+
+    private static BlobInfo require(Map<String, BlobInfo> entries, String path, Path savedTar) throws IOException {
+        BlobInfo blob = entries.get(normalize(path));
+        if (blob == null) {
+            throw new IOException("docker save 결과에 " + path + " 가 없습니다: " + savedTar.getFileName());
+        }
+        return blob;
+    }
+
+    /**
+     * entry 내용의 sha256 + 크기 + 레이어 압축 형식(magic byte) 판별
+     */
+    private static BlobInfo digest(InputStream in, long size) throws IOException {
+        MessageDigest md = newSha256();
+        byte[] buf = new byte[64 * 1024];
+        byte[] head = new byte[4];
+        int headLen = 0;
+        try (DigestInputStream dis = new DigestInputStream(in, md) {
+            @Override
+            public void close() {
+                // tar 스트림은 닫지 않음
+            }
+        }) {
+            int n;
+            while ((n = dis.read(buf)) > 0) {
+                if (headLen < head.length) {
+                    int copy = Math.min(n, head.length - headLen);
+                    System.arraycopy(buf, 0, head, headLen, copy);
+                    headLen += copy;
+                }
+            }
+        }
+        String mediaType = LAYER_MEDIA_TYPE;
+        if (headLen >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b) {
+            mediaType = LAYER_MEDIA_TYPE + "+gzip";
+        } else if (headLen >= 4 && (head[0] & 0xff) == 0x28 && (head[1] & 0xff) == 0xb5
+                && (head[2] & 0xff) == 0x2f && (head[3] & 0xff) == 0xfd) {
+            mediaType = LAYER_MEDIA_TYPE + "+zstd";
+        }
+        return new BlobInfo(null, "sha256:" + HexFormat.of().formatHex(md.digest()), size, mediaType);
+    }
+
+    private static String sha256(byte[] data) {
+        return "sha256:" + HexFormat.of().formatHex(newSha256().digest(data));
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * blob 기록 방법 (entryPath: 패키지 내 images/blobs/sha256/... 경로)
+     */
+    @FunctionalInterface
+    public interface BlobContent {
+        void writeTo(PackageArchiveWriter archive, String entryPath) throws IOException, InterruptedException;
+    }
+
+    /**
+     * blob 정보 (digest: "sha256:...", path: docker save tar 내 경로 - 레지스트리 blob은 null)
+     */
+    public record BlobInfo(String path, String digest, long size, String mediaType) {
+        public static BlobInfo of(String digest, long size, String mediaType) {
+            return new BlobInfo(null, digest, size, mediaType);
+        }
+
+        BlobInfo withPath(String path) {
+            return new BlobInfo(path, digest, size, mediaType);
+        }
+    }
+}
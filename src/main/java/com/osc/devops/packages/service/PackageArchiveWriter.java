@@ -0,0 +1,201 @@
+package com.osc.devops.packages.service;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.osc.devops.common.enums.ArchiveFormat;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 빌드 결과물을 tar(.gz/.zst)에 바로 기록하는 스트리밍 패키저
+ * - 생성 스크립트/values는 메모리에서 바로 entry로 기록 (빌드 디렉토리 불필요)
+ * - 이미지/chart tarball은 준비되는 즉시 append (병렬 작업에서 호출되므로 synchronized)
+ * entry 경로는 {rootDirName}/{상대경로} 형식이며, 상위 디렉토리 entry는 처음 사용 시 자동 추가된다.
+ * 압축: TAR_GZ는 threads가 2 이상이면 ParallelGzipOutputStream, TAR_ZST는 zstd-jni 멀티스레드 모드,
+ * TAR는 압축하지 않는다. level이 null이면 각 형식의 기본 레벨을 사용한다.
+ */
+public class PackageArchiveWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_ZSTD_LEVEL = 3;
+
+    private final TarArchiveOutputStream tar;
+    private final String rootDirName;
+    private final Set<String> directories = new HashSet<>();
+    private int fileCount;
+    // entry 본문 바이트(압축 전)와 tar + 압축 + 디스크 기록에 쓴 시간 (빌드 지표용)
+    private long entryBytes;
+    private long writeNanos;
+    // 패키지 파일(압축 후) sha256 - close 후 확정
+    private final MessageDigest fileDigest;
+    private String sha256;
+
+    public PackageArchiveWriter(Path target, String rootDirName) throws IOException {
+        this(target, rootDirName, ArchiveFormat.TAR_GZ, null, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE, 1);
+    }
+
+    public PackageArchiveWriter(Path target, String rootDirName, ArchiveFormat format, Integer level,
+                                int gzipBlockSize, int threads) throws IOException {
+        try {
+            this.fileDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        OutputStream out = new BufferedOutputStream(
+                new DigestOutputStream(Files.newOutputStream(target), fileDigest), BUFFER_SIZE);
+        this.tar = new TarArchiveOutputStream(compressor(out, format, level, gzipBlockSize, threads));
+        this.tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        this.tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX); // 8GB 초과 이미지 tar 대응
+        this.rootDirName = rootDirName;
+    }
+
+    /**
+     * 텍스트 파일 entry 기록 (UTF-8)
+     */
+    public synchronized void writeText(String relativePath, String content) throws IOException {
+        writeBytes(relativePath, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 디스크에 있는 파일을 entry로 append (호출 측에서 이후 원본 삭제 가능)
+     */
+    public synchronized void writeFile(String relativePath, Path source) throws IOException {
+        long start = System.nanoTime();
+        ensureParentDirectories(relativePath);
+        TarArchiveEntry entry = new TarArchiveEntry(rootDirName + "/" + relativePath);
+        entry.setSize(Files.size(source));
+        tar.putArchiveEntry(entry);
+        Files.copy(source, tar);
+        tar.closeArchiveEntry();
+        fileCount++;
+        entryBytes += entry.getSize();
+        writeNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * 스트림 내용을 entry로 기록 (size 바이트만 읽으며 스트림은 닫지 않음)
+     */
+    public synchronized void writeStream(String relativePath, InputStream in, long size) throws IOException {
+        long start = System.nanoTime();
+        ensureParentDirectories(relativePath);
+        TarArchiveEntry entry = new TarArchiveEntry(rootDirName + "/" + relativePath);
+        entry.setSize(size);
+        tar.putArchiveEntry(entry);
+        byte[] buf = new byte[BUFFER_SIZE];
+        long remaining = size;
+        while (remaining > 0) {
+            int n = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+            if (n < 0) {
+                throw new IOException("entry 크기 불일치: " + relativePath + " (expected=" + size
+                        + ", actual=" + (size - remaining) + ")");
+            }
+            tar.write(buf, 0, n);
+            remaining -= n;
+        }
+        tar.closeArchiveEntry();
+        fileCount++;
+        entryBytes += size;
+        // 입력 스트림 읽기 시간도 포함됨
+        writeNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * 메모리의 바이트 배열을 entry로 기록
+     */
+    public synchronized void writeBytes(String relativePath, byte[] bytes) throws IOException {
+        long start = System.nanoTime();
+        ensureParentDirectories(relativePath);
+        TarArchiveEntry entry = new TarArchiveEntry(rootDirName + "/" + relativePath);
+        entry.setSize(bytes.length);
+        tar.putArchiveEntry(entry);
+        tar.write(bytes);
+        tar.closeArchiveEntry();
+        fileCount++;
+        entryBytes += bytes.length;
+        writeNanos += System.nanoTime() - start;
+    }
+
+    public synchronized int getFileCount() {
+        return fileCount;
+    }
+
+    public synchronized long getEntryBytes() {
+        return entryBytes;
+    }
+
+    /**
+     * write 계열 + close(남은 압축 블록 flush)에 쓴 누적 시간
+     */
+    public synchronized long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * 패키지 파일의 sha256 ("sha256:...", close 전이면 null)
+     */
+    public synchronized String getSha256() {
+        return sha256;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (sha256 != null) return;
+        long start = System.nanoTime();
+        try {
+            tar.finish();
+        } finally {
+            tar.close();
+            writeNanos += System.nanoTime() - start;
+        }
+        sha256 = "sha256:" + HexFormat.of().formatHex(fileDigest.digest());
+    }
+
+    private static OutputStream compressor(OutputStream out, ArchiveFormat format, Integer level,
+                                           int gzipBlockSize, int threads) throws IOException {
+        return switch (format) {
+            case TAR -> out;
+            case TAR_ZST -> {
+                ZstdOutputStream zstd = new ZstdOutputStream(out, level != null ? level : DEFAULT_ZSTD_LEVEL);
+                if (threads > 1) zstd.setWorkers(threads);
+                yield zstd;
+            }
+            case TAR_GZ -> {
+                int gzipLevel = level != null ? level : Deflater.DEFAULT_COMPRESSION;
+                if (threads > 1) {
+                    yield new ParallelGzipOutputStream(out, gzipBlockSize, threads, gzipLevel);
+                }
+                yield new GZIPOutputStream(out, BUFFER_SIZE) {
+                    { def.setLevel(gzipLevel); }
+                };
+            }
+        };
+    }
+
+    private void ensureParentDirectories(String relativePath) throws IOException {
+        int idx = relativePath.indexOf('/');
+        while (idx > 0) {
+            String dir = relativePath.substring(0, idx);
+            if (directories.add(dir)) {
+                tar.putArchiveEntry(new TarArchiveEntry(rootDirName + "/" + dir + "/"));
+                tar.closeArchiveEntry();
+            }
+            idx = relativePath.indexOf('/', idx + 1);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.osc.devops.packages.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.osc.devops.common.enums.BuildStatus;
+import com.osc.devops.packages.dto.PackageBuildDto;
+import com.osc.devops.packages.entity.PackageBuild;
+import com.osc.devops.packages.repository.PackageBuildRepository;
+import com.osc.devops.packages.storage.ArtifactStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 동일 내용 빌드 재사용
+ * fingerprint = 해석된 애드온 목록(버전/이미지 태그/chart 버전 포함) + 렌더링 옵션의 SHA-256.
+ * 고객사/프로젝트/요청 시각은 포함하지 않으므로 같은 구성이면 누가 요청해도 같은 값이 나온다.
+ * 만료되지 않은 SUCCESS 빌드가 있으면 결과물을 공유한다 (ArtifactStore.copy - local: hardlink, s3: 서버 측 복사).
+ * local은 요청 시 바로 hardlink하고, s3는 QUEUED로 저장한 뒤 PackageBuildScheduler가 lease를 잡고 커밋 후 복사한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PackageBuildDeduplicator {
+
+    // 스크립트/values 생성 로직이 바뀌어 기존 결과물을 재사용하면 안 될 때 올린다
+    private static final String FINGERPRINT_VERSION = "1";
+
+    private final PackageBuildRepository buildRepository;
+    private final ArtifactStore artifactStore;
+    private final ObjectMapper objectMapper;
+
+    @Value("${package.build.dedup.enabled:true}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String fingerprint(List<Map<String, Object>> addons, PackageBuildDto.BuildRequest request) {
+        List<Map<String, Object>> canonicalAddons = new ArrayList<>();
+        for (Map<String, Object> addon : addons) {
+            canonicalAddons.add(new TreeMap<>(addon));
+        }
+        canonicalAddons.sort(Comparator.comparing(a -> String.valueOf(a.get("addonId"))));
+
+        String[] platforms = request.getPlatforms();
+        List<String> normalizedPlatforms = new ArrayList<>();
+        for (String p : platforms) normalizedPlatforms.add(p.trim());
+        Collections.sort(normalizedPlatforms);
+
+        Map<String, Object> canonical = new TreeMap<>();
+        canonical.put("version", FINGERPRINT_VERSION);
+        canonical.put("addons", canonicalAddons);
+        canonical.put("namespace", request.getNamespace());
+        canonical.put("domain", request.getDomain());
+        canonical.put("tlsEnabled", request.isTlsEnabled());
+        canonical.put("keycloakEnabled", request.isKeycloakEnabled());
+        canonical.put("deployEnv", request.getDeployEnv().toUpperCase());
+        canonical.put("registryUrl", request.getRegistryUrl());
+        canonical.put("platforms", normalizedPlatforms);
+        canonical.put("archiveFormat", request.getArchiveFormat().name());
+        canonical.put("compressionLevel", request.getCompressionLevel());
+        if (request.getBaseBuildHash() != null) {
+            canonical.put("baseBuildHash", request.getBaseBuildHash());
+        }
+
+        try {
+            byte[] json = objectMapper.writer()
+                    .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(canonical);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(json));
+        } catch (Exception e) {
+            throw new IllegalStateException("빌드 fingerprint 계산 실패", e);
+        }
+    }
+
+    /**
+     * 재사용 가능한 완료 빌드 조회 (만료 전 + 결과물 파일 존재)
+     */
+    public Optional<PackageBuild> findReusable(String fingerprint) {
+        if (!enabled || fingerprint == null) return Optional.empty();
+        return buildRepository.findFirstByFingerprintAndStatusAndExpiresAtAfterOrderByIdDesc(
+                        fingerprint, BuildStatus.SUCCESS, LocalDateTime.now())
+                .filter(b -> b.getFilePath() != null && isStored(b.getFilePath()));
+    }
+
+    private boolean isStored(String location) {
+        try {
+            return artifactStore.stat(location).isPresent();
+        } catch (IOException e) {
+            log.warn("결과물 확인 실패 - 재사용하지 않음: {} ({})", location, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 같은 fingerprint로 대기/진행 중인 빌드 조회
+     */
+    public Optional<PackageBuild> findInFlight(String fingerprint) {
+        if (!enabled || fingerprint == null) return Optional.empty();
+        return buildRepository.findFirstByFingerprintAndStatusInOrderByIdAsc(
+                fingerprint, List.of(BuildStatus.QUEUED, BuildStatus.BUILDING));
+    }
+
+    /**
+     * 요청 스레드에서 바로 복제할 수 있는지 (로컬 저장소 hardlink - 원격 저장소 복사는 scheduler가 커밋 후 실행)
+     */
+    public boolean canLinkInline(PackageBuild source) {
+        return artifactStore.localPath(source.getFilePath()).isPresent();
+    }
+
+    /**
+     * source 결과물을 target 빌드 이름으로 hardlink하고 target을 SUCCESS로 채움 (저장은 호출 측)
+     * 로컬 저장소가 아니거나 복제가 불가하면 false (호출 측에서 대기열로 진행)
+     */
+    public boolean linkArtifact(PackageBuild source, PackageBuild target) {
+        if (!canLinkInline(source)) return false;
+        Optional<String> location = copyArtifact(source, target.getBuildHash());
+        if (location.isEmpty()) return false;
+        target.setStatus(BuildStatus.SUCCESS);
+        target.setFilePath(location.get());
+        target.setTotalSize(source.getTotalSize());
+        target.setProgress(100);
+        return true;
+    }
+
+    /**
+     * source 결과물을 targetHash 이름으로 복제한 위치 (엔티티는 변경하지 않음, 복제 불가면 empty)
+     * s3는 서버 측 복사(5GB 초과 시 UploadPartCopy)라 오래 걸릴 수 있으니 DB 잠금/트랜잭션 밖에서 호출
+     */
+    public Optional<String> copyArtifact(PackageBuild source, String targetHash) {
+        try {
+            String location = artifactStore.copy(source.getFilePath(),
+                    targetHash + "." + source.getArchiveFormat().getExtension());
+            log.info("♻️ 동일 구성 빌드 재사용: {} → {}", source.getBuildHash(), targetHash);
+            return Optional.of(location);
+        } catch (IOException e) {
+            log.warn("결과물 복제 실패 - 새로 빌드: {} → {} ({})", source.getBuildHash(), targetHash, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
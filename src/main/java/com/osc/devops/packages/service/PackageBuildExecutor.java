@@ -1,847 +1,371 @@
 package com.osc.devops.packages.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.devops.common.enums.ArchiveFormat;
+import com.osc.devops.common.enums.ArtifactType;
+import com.osc.devops.common.enums.BuildStepStatus;
+import com.osc.devops.common.enums.BuildStepType;
 import com.osc.devops.common.enums.BuildStatus;
 import com.osc.devops.packages.dto.PackageBuildDto;
 import com.osc.devops.packages.entity.PackageBuild;
+import com.osc.devops.packages.registry.ImageReference;
+import com.osc.devops.packages.registry.OciRegistryClient;
+import com.osc.devops.packages.repository.PackageBuildArtifactRepository;
 import com.osc.devops.packages.repository.PackageBuildRepository;
+import com.osc.devops.packages.storage.ArtifactStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.*;
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.zip.GZIPOutputStream;
-
-import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class PackageBuildExecutor {
 
+    // 실행별 작업 디렉토리 {hash}.work.{leaseToken} (중단 시 {hash}.work로 보존), 결과물 임시 파일 {hash}.{leaseToken}.part
+    public static final String WORK_SUFFIX = ".work";
+    public static final String PART_SUFFIX = ".part";
+
     private final PackageBuildRepository buildRepository;
+    private final PackageBuildArtifactRepository artifactRepository;
+    private final ImageTarballCache imageCache;
+    private final RegistryBlobCache blobCache;
+    private final BuildProgressTracker progressTracker;
+    private final BuildEventBroadcaster buildEvents;
+    private final HelmChartCache chartCache;
+    private final OciRegistryClient registryClient;
+    private final ProcessRunner processRunner;
+    private final BuildMetrics buildMetrics;
+    private final BuildTimeline buildTimeline;
+    private final PackageScriptGenerator scriptGenerator;
+    private final ArtifactStore artifactStore;
+    private final BuildLeaseManager buildLeases;
+    private final ObjectMapper objectMapper;
+
+    @Qualifier("imagePullTaskExecutor")
+    private final Executor imagePullExecutor;
+
+    @Qualifier("chartPullTaskExecutor")
+    private final Executor chartPullExecutor;
+
+    @Qualifier("registryBlobTaskExecutor")
+    private final Executor registryBlobExecutor;
 
     @Value("${package.build.storage-path:/tmp/devops-platform/packages}")
     private String storagePath;
 
-    @Async
-    public void executeBuild(Long buildId, List<Map<String, Object>> addonInfoList,
-                             PackageBuildDto.BuildRequest request) {
-        log.info("패키지 빌드 시작: buildId={}, deployEnv={}", buildId, request.getDeployEnv());
-        Path buildDir = null;
+    @Value("${package.build.gzip.block-size-kb:1024}")
+    private int gzipBlockSizeKb;
 
-        try {
-            PackageBuild build = buildRepository.findById(buildId)
-                    .orElseThrow(() -> new RuntimeException("빌드 레코드를 찾을 수 없습니다. id=" + buildId));
+    // gzip/zstd 압축 스레드 수 (0 이하이면 사용 가능한 CPU 수)
+    @Value("${package.build.gzip.threads:0}")
+    private int gzipThreads;
 
-            // 빌드 디렉토리 생성
-            buildDir = Paths.get(storagePath, build.getBuildHash());
-            Files.createDirectories(buildDir);
-            updateProgress(build, 5);
+    // 요청에 compressionLevel이 없을 때 쓰는 zstd 레벨
+    @Value("${package.build.zstd.level:3}")
+    private int zstdLevel;
 
-            // deploy.sh 생성
-            generateDeployScript(buildDir, addonInfoList, request);
-            updateProgress(build, 15);
+    // registry: 레지스트리에서 manifest/blob 직접 다운로드 (docker daemon 불필요), docker: docker pull + save
+    @Value("${package.build.image-export.mode:registry}")
+    private String imageExportMode;
 
-            // Helm values 생성
-            generateHelmValues(buildDir, addonInfoList, request);
-            updateProgress(build, 25);
+    // 서버 종료/재시작으로 중단된 빌드를 workDir 체크포인트에서 재개
+    @Value("${package.build.resume.enabled:true}")
+    private boolean resumeEnabled;
 
-            // 이미지 목록 생성
-            generateImageList(buildDir, addonInfoList, request);
-            updateProgress(build, 30);
+    // registry 모드 실패 시 docker pull/save로 재시도
+    @Value("${package.build.image-export.docker-fallback:true}")
+    private boolean dockerFallback;
 
-            // Keycloak 설정
-            if (request.isKeycloakEnabled()) {
-                generateKeycloakConfig(buildDir, addonInfoList, request);
+    /**
+     * 빌드 실행 (PackageBuildScheduler가 packageBuildTaskExecutor 스레드에서 호출)
+     * 작업 디렉토리/결과물 임시 파일은 실행(leaseToken)별 경로를 쓰고, DB 반영은 leaseToken이 일치할 때만 한다
+     */
+    public void executeBuild(Long buildId, String leaseToken, List<ResolvedAddon> addons,
+                             PackageBuildDto.BuildRequest request) {
+        log.info("패키지 빌드 시작: buildId={}, deployEnv={}", buildId, request.getDeployEnv());
+        Path workDir = null;
+        Path tarPath = null;
+        String buildHash = null;
+        boolean suspended = false;
+        boolean leaseLost = false;
+        BuildStatus finalStatus = BuildStatus.FAILED;
+
+        try {
+            PackageBuild build = buildRepository.findById(buildId)
+                    .orElseThrow(() -> new RuntimeException("빌드 레코드를 찾을 수 없습니다. id=" + buildId));
+            buildHash = build.getBuildHash();
+            buildMetrics.startBuild(buildHash, request);
+            buildTimeline.start(buildHash);
+
+            // 작업 디렉토리 (chart/image 임시 다운로드용) + 스트리밍 패키저 (tar.gz / tar.zst / tar)
+            // 이번 실행 전용 디렉토리 - 중단된 실행이 남긴 재개용 디렉토리가 있으면 옮겨와서 이어서 사용
+            workDir = attemptWorkDir(buildHash, leaseToken);
+            adoptResumableWorkDir(buildHash, workDir);
+            Files.createDirectories(workDir);
+            BuildCheckpoint checkpoint = BuildCheckpoint.open(workDir, objectMapper, resumeEnabled);
+            if (checkpoint.isResumed()) {
+                if (buildRepository.incrementResumeCount(buildId, leaseToken, BuildStatus.BUILDING) == 0) {
+                    throw buildLeases.markLost(buildId, leaseToken);
+                }
+                build.setResumeCount(build.getResumeCount() + 1);
+                log.info("🔁 체크포인트에서 빌드 재개: hash={}, 완료 단계={}, 완료 이미지 {}개 (재개 {}회째)",
+                        buildHash, checkpoint.getCompletedStages(), checkpoint.getImageCount(), build.getResumeCount());
+                buildEvents.stage(buildHash, "resumed", 0);
             }
-            updateProgress(build, 35);
-
-            // ============ 폐쇄망: helm chart pull + docker image pull/save ============
-            if (request.isAirgapped()) {
-                log.info("폐쇄망 빌드 모드 - helm chart pull 시작");
-                List<String> failedCharts = pullHelmCharts(buildDir, addonInfoList, build);
-                if (!failedCharts.isEmpty()) {
-                    log.warn("⚠️ 다음 chart 다운로드 실패 (deploy.sh에서 건너뜀): {}", failedCharts);
+            // 결과물도 이번 실행 전용 임시 파일에 쓰고 저장 시 최종 이름으로 이동
+            String fileName = build.getBuildHash() + "." + request.getArchiveFormat().getExtension();
+            tarPath = Paths.get(storagePath, build.getBuildHash() + "." + leaseToken + PART_SUFFIX);
+            int fileCount;
+
+            int threads = gzipThreads > 0 ? gzipThreads : Runtime.getRuntime().availableProcessors();
+            PackageArchiveWriter archive = new PackageArchiveWriter(tarPath, build.getBuildHash(),
+                    request.getArchiveFormat(), compressionLevel(request), gzipBlockSizeKb * 1024, threads);
+            try (archive) {
+                updateProgress(build, 5);
+
+                // deploy.sh 생성
+                enterStage(build, "deploy-script");
+                PackageScriptGenerator.ScriptModel scriptModel = scriptGenerator.model(addons, request);
+                archive.writeText("deploy.sh", scriptGenerator.deployScript(scriptModel));
+                updateProgress(build, 15);
+
+                // Helm values 생성
+                enterStage(build, "helm-values");
+                for (Map.Entry<String, String> values : scriptGenerator.helmValues(scriptModel).entrySet()) {
+                    archive.writeText(values.getKey(), values.getValue());
                 }
-                updateProgress(build, 55);
-
-                log.info("폐쇄망 빌드 모드 - docker image pull/save 시작");
-                pullAndSaveImages(buildDir, addonInfoList, request, build);
-                updateProgress(build, 80);
+                updateProgress(build, 25);
 
-                // push-to-registry.sh 생성
-                generatePushToRegistryScript(buildDir, addonInfoList, request);
-            }
-            updateProgress(build, 82);
+                // 이미지 목록 생성
+                enterStage(build, "image-list");
+                generateImageList(archive, addons, request);
+                updateProgress(build, 30);
 
-            // install.sh
-            generateInstallScript(buildDir, addonInfoList, request);
-            updateProgress(build, 85);
+                // Keycloak 설정
+                if (request.isKeycloakEnabled()) {
+                    enterStage(build, "keycloak");
+                    archive.writeText("scripts/configure-keycloak.sh", scriptGenerator.keycloakConfig(scriptModel));
+                }
+                updateProgress(build, 35);
+
+                // ============ 폐쇄망: helm chart pull + docker image pull/save ============
+                if (request.isAirgapped()) {
+                    DeltaBase delta = loadDeltaBase(request);
+                    log.info("폐쇄망 빌드 모드 - helm chart pull 시작{}",
+                            delta != null ? " (델타 기준: " + delta.buildHash() + ")" : "");
+                    enterStage(build, "helm-charts");
+                    List<String> failedCharts = pullHelmCharts(build.getBuildHash(), archive, workDir, addons, delta, checkpoint);
+                    if (!failedCharts.isEmpty()) {
+                        log.warn("⚠️ 다음 chart 다운로드 실패 (deploy.sh에서 건너뜀): {}", failedCharts);
+                    }
+                    completeStage(build, checkpoint, "helm-charts");
+                    updateProgress(build, 55);
+
+                    log.info("폐쇄망 빌드 모드 - docker image pull/save 시작");
+                    enterStage(build, "images");
+                    OciImageLayoutWriter images = new OciImageLayoutWriter(archive, objectMapper,
+                            delta != null ? delta.blobDigests() : Set.of());
+                    List<String> failedImages = pullAndSaveImages(images, workDir, addons, request, build, delta, checkpoint);
+                    if (!failedImages.isEmpty()) {
+                        log.warn("⚠️ 다음 이미지 pull/save 실패 (패키지에서 제외): {}", failedImages);
+                    }
+                    images.finish();
+                    log.info("이미지 레이어 저장: {}MB (공유 레이어 중복 제거 {}MB, 델타 기준 패키지에 있는 레이어 {}MB)",
+                            images.getBlobBytesWritten() / (1024 * 1024), images.getBlobBytesSkipped() / (1024 * 1024),
+                            images.getBlobBytesInBase() / (1024 * 1024));
+                    buildMetrics.bytes(buildHash, "blob-written", images.getBlobBytesWritten());
+                    buildMetrics.bytes(buildHash, "blob-deduplicated", images.getBlobBytesSkipped());
+                    buildMetrics.bytes(buildHash, "blob-in-base", images.getBlobBytesInBase());
+                    // 이 빌드를 기준으로 한 델타 빌드가 blob 단위로 비교할 수 있도록 기록
+                    for (Map.Entry<String, Long> blob : images.getReferencedBlobs().entrySet()) {
+                        buildTimeline.artifact(buildHash, ArtifactType.BLOB, blob.getKey(), null,
+                                OciImageLayoutWriter.blobEntry(blob.getKey()), blob.getValue(), blob.getKey());
+                    }
+                    completeStage(build, checkpoint, "images");
+                    updateProgress(build, 80);
 
-            // README
-            generateReadme(buildDir, addonInfoList, request);
-            updateProgress(build, 88);
+                    // push-to-registry.sh 생성
+                    enterStage(build, "registry-script");
+                    generatePushToRegistryScript(archive, addons, request);
 
-            // tar.gz 패키징 (Java 내장)
-            String tarFileName = build.getBuildHash() + ".tar.gz";
-            Path tarPath = Paths.get(storagePath, tarFileName);
-            createTarGzJava(buildDir, tarPath, build.getBuildHash());
-            updateProgress(build, 95);
+                    if (delta != null) {
+                        generateDeltaFiles(archive, delta, addons, request, build.getBuildHash(), images);
+                    }
+                }
+                updateProgress(build, 82);
+
+                // install.sh
+                enterStage(build, "install-script");
+                generateInstallScript(archive, addons, request);
+                updateProgress(build, 85);
+
+                // README
+                enterStage(build, "readme");
+                generateReadme(archive, addons, request);
+                updateProgress(build, 88);
+
+                fileCount = archive.getFileCount();
+                buildMetrics.bytes(buildHash, "entries", archive.getEntryBytes());
+                buildMetrics.archiveWrite(buildHash, archive.getWriteNanos());
+                // 남은 압축 블록 flush + tar 종료는 finalize 단계 시간에 포함
+                enterStage(build, "finalize");
+            }
+            updateProgress(build, 92);
 
             long totalSize = Files.size(tarPath);
-
-            build.setStatus(BuildStatus.SUCCESS);
-            build.setFilePath(tarPath.toString());
-            build.setTotalSize(totalSize);
-            build.setProgress(100);
-            buildRepository.save(build);
+            // lease가 다른 실행으로 넘어갔으면 같은 key의 결과물을 덮어쓰지 않음
+            buildLeases.checkOwned(buildId, leaseToken);
+            // 결과물 저장소로 이동 (local: 최종 이름으로 rename, s3: multipart 업로드 후 로컬 파일 삭제)
+            enterStage(build, "upload");
+            String location = artifactStore.store(tarPath, fileName);
+            updateProgress(build, 98);
+
+            if (buildRepository.completeLeased(buildId, leaseToken, BuildStatus.BUILDING, BuildStatus.SUCCESS,
+                    location, totalSize) == 0) {
+                throw buildLeases.markLost(buildId, leaseToken);
+            }
+            buildEvents.complete(buildHash, BuildStatus.SUCCESS, 100);
+            buildMetrics.bytes(buildHash, "archive", totalSize);
+            buildTimeline.artifact(buildHash, ArtifactType.BUNDLE, build.getBuildHash(), request.getPlatform(),
+                    fileName, totalSize, archive.getSha256());
+            finalStatus = BuildStatus.SUCCESS;
 
             log.info("패키지 빌드 완료: hash={}, size={}MB, files={}, airgapped={}",
-                    build.getBuildHash(), totalSize / 1024 / 1024, countFiles(buildDir), request.isAirgapped());
+                    build.getBuildHash(), totalSize / 1024 / 1024, fileCount, request.isAirgapped());
 
         } catch (Exception e) {
-            log.error("패키지 빌드 실패: buildId={}", buildId, e);
-            buildRepository.findById(buildId).ifPresent(b -> {
-                b.setStatus(BuildStatus.FAILED);
-                b.setProgress(-1);
-                buildRepository.save(b);
-            });
-        } finally {
-            // 빌드 디렉토리 정리 (tar.gz만 남기고)
-            if (buildDir != null) {
-                try { deleteDirectory(buildDir); } catch (Exception ignored) {}
+            if (tarPath != null) {
+                try { Files.deleteIfExists(tarPath); } catch (IOException ignored) {}
             }
-        }
-    }
-
-    // ======================== tar.gz (Java 내장, 외부 프로세스 불필요) ========================
-
-    private void createTarGzJava(Path sourceDir, Path tarPath, String rootDirName) throws IOException {
-        try (OutputStream fos = Files.newOutputStream(tarPath);
-             GZIPOutputStream gzos = new GZIPOutputStream(fos);
-             TarArchiveOutputStream tar = new TarArchiveOutputStream(gzos)) {
-
-            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
-
-            Files.walk(sourceDir).forEach(path -> {
-                try {
-                    if (path.equals(sourceDir)) return;
-
-                    String entryName = rootDirName + "/" + sourceDir.relativize(path).toString()
-                            .replace("\\", "/"); // Windows 호환
-
-                    if (Files.isDirectory(path)) {
-                        TarArchiveEntry entry = new TarArchiveEntry(entryName + "/");
-                        tar.putArchiveEntry(entry);
-                        tar.closeArchiveEntry();
-                    } else {
-                        TarArchiveEntry entry = new TarArchiveEntry(entryName);
-                        entry.setSize(Files.size(path));
-                        tar.putArchiveEntry(entry);
-                        Files.copy(path, tar);
-                        tar.closeArchiveEntry();
-                    }
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            });
-
-            tar.finish();
-        }
-    }
-
-    // ======================== 파일 생성 (Makefile, values, images, scripts, readme) ========================
-
-    private void generateDeployScript(Path buildDir, List<Map<String, Object>> addons,
-                                      PackageBuildDto.BuildRequest request) throws IOException {
-        String ns = sanitizeNamespace(request.getNamespace());
-        String domain = sanitizeDomain(request.getDomain());
-
-        List<Map<String, Object>> sorted = addons.stream()
-                .sorted(Comparator.comparingInt(a -> (Integer) a.getOrDefault("installOrder", 50)))
-                .collect(Collectors.toList());
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("#!/bin/bash\n");
-        sb.append("set -e\n");
-        sb.append("SCRIPT_DIR=\"$(cd \"$(dirname \"$0\")\" && pwd)\"\n\n");
-
-        sb.append("# ============================================================\n");
-        sb.append("# DevOps Platform - 애드온 배포 스크립트\n");
-        sb.append("# 생성: ").append(LocalDateTime.now().toLocalDate()).append("\n");
-        sb.append("# 모드: ").append(request.isAirgapped() ? "폐쇄망 (로컬 chart + image)" : "인터넷").append("\n");
-        sb.append("# 플랫폼: ").append(request.getPlatform()).append("\n");
-        sb.append("# ============================================================\n\n");
-
-        // 설정 변수
-        sb.append("NAMESPACE=\"${NAMESPACE:-").append(ns).append("}\"\n");
-        sb.append("DOMAIN=\"${DOMAIN:-").append(domain).append("}\"\n");
-        sb.append("REGISTRY=\"harbor.${DOMAIN}\"\n");
-        sb.append("TLS_ENABLED=\"").append(request.isTlsEnabled()).append("\"\n");
-        sb.append("KEYCLOAK_ENABLED=\"").append(request.isKeycloakEnabled()).append("\"\n");
-        sb.append("TIMEOUT=\"600s\"\n\n");
-
-        // 색상
-        sb.append("RED='\\033[0;31m'; GREEN='\\033[0;32m'; YELLOW='\\033[1;33m'; NC='\\033[0m'\n\n");
-
-        // pre_check
-        sb.append("pre_check() {\n");
-        sb.append("  echo \"🔍 사전 점검...\"\n");
-        sb.append("  command -v helm >/dev/null 2>&1 || { echo -e \"${RED}❌ helm이 설치되어 있지 않습니다${NC}\"; exit 1; }\n");
-        sb.append("  command -v kubectl >/dev/null 2>&1 || { echo -e \"${RED}❌ kubectl이 설치되어 있지 않습니다${NC}\"; exit 1; }\n");
-        sb.append("  kubectl create namespace \"$NAMESPACE\" --dry-run=client -o yaml | kubectl apply -f - 2>/dev/null\n");
-        sb.append("  echo -e \"${GREEN}✅ 사전 점검 완료 (namespace: $NAMESPACE)${NC}\"\n");
-        sb.append("}\n\n");
-
-        // load_images
-        sb.append("load_images() {\n");
-        sb.append("  echo \"📦 이미지 로드 시작...\"\n");
-        sb.append("  if [ ! -d \"$SCRIPT_DIR/images\" ] || [ -z \"$(ls -A $SCRIPT_DIR/images/*.tar 2>/dev/null)\" ]; then\n");
-        sb.append("    echo -e \"${YELLOW}⚠️  images/ 디렉토리에 tar 파일이 없습니다${NC}\"\n");
-        sb.append("    return 0\n");
-        sb.append("  fi\n");
-        sb.append("  for img in $SCRIPT_DIR/images/*.tar; do\n");
-        sb.append("    echo \"  로드: $(basename $img)\"\n");
-        sb.append("    docker load -i \"$img\"\n");
-        sb.append("  done\n");
-        sb.append("  echo -e \"${GREEN}✅ 이미지 로드 완료${NC}\"\n");
-        sb.append("}\n\n");
-
-        // 개별 install/uninstall 함수
-        boolean airgapped = request.isAirgapped();
-        for (Map<String, Object> a : addons) {
-            String name = (String) a.get("name");
-            String displayName = (String) a.get("displayName");
-            String helmRepo = (String) a.get("helmRepoUrl");
-            String helmChartName = (String) a.get("helmChartName");
-            String chartVersion = (String) a.get("helmChartVersion");
-
-            // chart 참조 결정
-            String chartRef;
-            if (airgapped) {
-                // 폐쇄망: 로컬 tgz (helm pull 결과)
-                // helm pull 결과 파일명이 예측 불가 (v접두사, +빌드메타 등) → glob으로 탐색
-                String chartFileName = (helmChartName != null && !helmChartName.isEmpty() ? helmChartName : name);
-                chartRef = "$(ls $SCRIPT_DIR/charts/" + chartFileName + "-*.tgz 2>/dev/null | head -1)";
+            if (buildLeases.isLost(leaseToken)) {
+                // 다른 실행이 이어받은 빌드 - DB 상태/타임라인/메트릭은 새 실행이 기록, 이 실행 전용 파일만 정리
+                log.warn("패키지 빌드 중단 (lease 유실): buildId={}, hash={} - {}", buildId, buildHash, e.getMessage());
+                leaseLost = true;
+            } else if (processRunner.isCancelled(buildHash)) {
+                log.info("패키지 빌드 취소됨: buildId={}, hash={}", buildId, buildHash);
+                leaseLost = !finishBuild(buildId, leaseToken, BuildStatus.CANCELLED,
+                        progressTracker.getProgress(buildHash).orElse(0));
+                if (!leaseLost) buildEvents.complete(buildHash, BuildStatus.CANCELLED, null);
+                finalStatus = BuildStatus.CANCELLED;
+            } else if (isInterrupted(e)) {
+                // 서버 종료로 중단 - 작업 디렉토리(체크포인트, 받은 blob/tar)는 재개용 경로로 옮기고 대기열로 복귀
+                log.warn("패키지 빌드 중단 (서버 종료) - 대기열로 복귀: buildId={}, hash={}", buildId, buildHash);
+                leaseLost = buildRepository.releaseLease(buildId, leaseToken, BuildStatus.BUILDING, BuildStatus.QUEUED) == 0;
+                suspended = resumeEnabled && !leaseLost;
+                finalStatus = BuildStatus.QUEUED;
+                Thread.currentThread().interrupt();
             } else {
-                // 인터넷: repo/chart
-                chartRef = (helmChartName != null && !helmChartName.isEmpty())
-                        ? name + "/" + helmChartName : name + "/" + name;
-            }
-            String funcName = name.replace("-", "_");
-
-            sb.append("install_").append(funcName).append("() {\n");
-            sb.append("  echo \"📦 ").append(displayName).append(" 설치 시작...\"\n");
-            if (!airgapped && helmRepo != null && !helmRepo.isEmpty()) {
-                sb.append("  helm repo add ").append(name).append(" ").append(helmRepo).append(" 2>/dev/null || true\n");
-                sb.append("  helm repo update ").append(name).append(" 2>/dev/null || true\n");
-            }
-            if (airgapped) {
-                // chart tgz 존재 검증
-                sb.append("  local CHART=\"").append(chartRef).append("\"\n");
-                sb.append("  if [ -z \"$CHART\" ] || [ ! -f \"$CHART\" ]; then\n");
-                sb.append("    echo -e \"${YELLOW}⚠️  ").append(displayName).append(" chart 파일이 없습니다. 건너뜁니다.${NC}\"\n");
-                sb.append("    return 0\n");
-                sb.append("  fi\n");
-            }
-            sb.append("  local VALUES=\"-f $SCRIPT_DIR/values/").append(name).append(".yaml\"\n");
-            if (request.isTlsEnabled()) {
-                sb.append("  [ -f \"$SCRIPT_DIR/values/").append(name).append("-tls.yaml\" ] && VALUES=\"$VALUES -f $SCRIPT_DIR/values/").append(name).append("-tls.yaml\"\n");
+                log.error("패키지 빌드 실패: buildId={}", buildId, e);
+                leaseLost = !finishBuild(buildId, leaseToken, BuildStatus.FAILED, -1);
+                if (buildHash != null && !leaseLost) {
+                    buildEvents.complete(buildHash, BuildStatus.FAILED, -1);
+                }
             }
-            if (request.isKeycloakEnabled() && Boolean.TRUE.equals(a.get("keycloakEnabled"))) {
-                sb.append("  [ -f \"$SCRIPT_DIR/values/").append(name).append("-keycloak.yaml\" ] && VALUES=\"$VALUES -f $SCRIPT_DIR/values/").append(name).append("-keycloak.yaml\"\n");
+        } finally {
+            if (buildHash != null) {
+                progressTracker.finish(buildHash);
+                processRunner.release(buildHash);
+                if (leaseLost) {
+                    buildMetrics.discardBuild(buildHash);
+                    buildTimeline.discard(buildHash);
+                } else {
+                    buildMetrics.finishBuild(buildHash, finalStatus);
+                    buildTimeline.finish(buildId, buildHash, finalStatus);
+                }
             }
-            sb.append("  helm upgrade --install ").append(name).append(" ");
-            if (airgapped) {
-                sb.append("\"$CHART\"");
-            } else {
-                sb.append(chartRef);
+            // 작업 디렉토리 정리 (아카이브만 남기고, 중단된 빌드는 재개용 경로로 보존)
+            if (workDir != null) {
+                if (suspended) {
+                    suspendWorkDir(buildHash, workDir);
+                } else {
+                    try { deleteDirectory(workDir); } catch (Exception ignored) {}
+                }
             }
-            sb.append(" -n \"$NAMESPACE\" --create-namespace");
-            sb.append(" $VALUES");
-            // 폐쇄망은 로컬 tgz이므로 --version 불필요, 인터넷만 --version 지정
-            if (!airgapped && chartVersion != null && !chartVersion.isEmpty()) sb.append(" --version ").append(chartVersion);
-            sb.append(" --wait --timeout \"$TIMEOUT\"\n");
-            sb.append("  echo -e \"${GREEN}  ✅ ").append(displayName).append(" 설치 완료${NC}\"\n");
-            sb.append("}\n\n");
-
-            sb.append("uninstall_").append(funcName).append("() {\n");
-            sb.append("  echo \"🗑️  ").append(displayName).append(" 삭제...\"\n");
-            sb.append("  helm uninstall ").append(name).append(" -n \"$NAMESPACE\" 2>/dev/null || echo \"  (이미 삭제됨)\"\n");
-            sb.append("}\n\n");
-        }
-
-        // install_all
-        sb.append("install_all() {\n");
-        sb.append("  pre_check\n");
-        if (airgapped) {
-            sb.append("  load_images\n");
-        }
-        sb.append("  echo \"\"\n");
-        sb.append("  echo \"========================================\"\n");
-        sb.append("  echo \"  전체 설치 시작 (").append(sorted.size()).append("개 애드온)\"\n");
-        sb.append("  echo \"  모드: ").append(airgapped ? "폐쇄망 (로컬 chart + image)" : "인터넷").append("\"\n");
-        sb.append("  echo \"========================================\"\n");
-        sb.append("  echo \"\"\n");
-        for (Map<String, Object> a : sorted) {
-            sb.append("  install_").append(((String) a.get("name")).replace("-", "_")).append("\n");
         }
-        if (request.isKeycloakEnabled()) {
-            sb.append("  echo \"\"\n");
-            sb.append("  echo \"🔐 Keycloak SSO 설정 시작...\"\n");
-            sb.append("  bash \"$SCRIPT_DIR/scripts/configure-keycloak.sh\"\n");
-        }
-        sb.append("  echo \"\"\n");
-        sb.append("  echo -e \"${GREEN}========================================${NC}\"\n");
-        sb.append("  echo -e \"${GREEN}  ✅ 전체 설치 완료${NC}\"\n");
-        sb.append("  echo -e \"${GREEN}========================================${NC}\"\n");
-        sb.append("}\n\n");
-
-        // uninstall_all (역순)
-        sb.append("uninstall_all() {\n");
-        sb.append("  echo \"========================================\"\n");
-        sb.append("  echo \"  전체 삭제 시작\"\n");
-        sb.append("  echo \"========================================\"\n");
-        List<Map<String, Object>> reversed = new ArrayList<>(sorted);
-        Collections.reverse(reversed);
-        for (Map<String, Object> a : reversed) {
-            sb.append("  uninstall_").append(((String) a.get("name")).replace("-", "_")).append("\n");
-        }
-        sb.append("  echo -e \"${GREEN}✅ 전체 삭제 완료${NC}\"\n");
-        sb.append("}\n\n");
-
-        // status
-        sb.append("status() {\n");
-        sb.append("  echo \"========================================\"\n");
-        sb.append("  echo \"  배포 상태 (namespace: $NAMESPACE)\"\n");
-        sb.append("  echo \"========================================\"\n");
-        sb.append("  helm list -n \"$NAMESPACE\" 2>/dev/null || echo \"배포된 릴리즈 없음\"\n");
-        sb.append("  echo \"\"\n");
-        sb.append("  kubectl get pods -n \"$NAMESPACE\" 2>/dev/null || true\n");
-        sb.append("}\n\n");
-
-        // usage
-        sb.append("usage() {\n");
-        sb.append("  echo \"사용법: $0 <command> [addon]\"\n");
-        sb.append("  echo \"\"\n");
-        sb.append("  echo \"Commands:\"\n");
-        sb.append("  echo \"  install-all       전체 설치 (의존성 순서)\"\n");
-        sb.append("  echo \"  uninstall-all     전체 삭제 (역순)\"\n");
-        sb.append("  echo \"  install <addon>   개별 애드온 설치\"\n");
-        sb.append("  echo \"  uninstall <addon> 개별 애드온 삭제\"\n");
-        sb.append("  echo \"  load-images       폐쇄망 이미지 로드\"\n");
-        sb.append("  echo \"  status            배포 상태 확인\"\n");
-        sb.append("  echo \"\"\n");
-        sb.append("  echo \"Addons:\"\n");
-        for (Map<String, Object> a : sorted) {
-            sb.append("  echo \"  ").append(String.format("%-20s", a.get("name"))).append(a.get("displayName")).append("\"\n");
-        }
-        sb.append("  echo \"\"\n");
-        sb.append("  echo \"Environment:\"\n");
-        sb.append("  echo \"  NAMESPACE=").append(ns).append("  DOMAIN=").append(domain).append("\"\n");
-        sb.append("  echo \"\"\n");
-        sb.append("  echo \"Examples:\"\n");
-        sb.append("  echo \"  $0 install-all\"\n");
-        sb.append("  echo \"  $0 install keycloak\"\n");
-        sb.append("  echo \"  $0 uninstall harbor\"\n");
-        sb.append("  echo \"  NAMESPACE=prod DOMAIN=prod.com $0 install-all\"\n");
-        sb.append("}\n\n");
-
-        // main dispatcher
-        sb.append("# ============================================================\n");
-        sb.append("# 메인\n");
-        sb.append("# ============================================================\n");
-        sb.append("case \"${1:-}\" in\n");
-        sb.append("  install-all)   install_all ;;\n");
-        sb.append("  uninstall-all) uninstall_all ;;\n");
-        sb.append("  load-images)   load_images ;;\n");
-        sb.append("  status)        status ;;\n");
-        sb.append("  install)\n");
-        sb.append("    [ -z \"${2:-}\" ] && { echo \"사용법: $0 install <addon>\"; exit 1; }\n");
-        sb.append("    FUNC=\"install_$(echo $2 | tr '-' '_')\"\n");
-        sb.append("    if type \"$FUNC\" &>/dev/null; then pre_check; $FUNC\n");
-        sb.append("    else echo -e \"${RED}❌ 알 수 없는 애드온: $2${NC}\"; exit 1; fi\n");
-        sb.append("    ;;\n");
-        sb.append("  uninstall)\n");
-        sb.append("    [ -z \"${2:-}\" ] && { echo \"사용법: $0 uninstall <addon>\"; exit 1; }\n");
-        sb.append("    FUNC=\"uninstall_$(echo $2 | tr '-' '_')\"\n");
-        sb.append("    if type \"$FUNC\" &>/dev/null; then $FUNC\n");
-        sb.append("    else echo -e \"${RED}❌ 알 수 없는 애드온: $2${NC}\"; exit 1; fi\n");
-        sb.append("    ;;\n");
-        sb.append("  *) usage ;;\n");
-        sb.append("esac\n");
-
-        writeFile(buildDir.resolve("deploy.sh"), sb.toString());
     }
 
-    private void generateHelmValues(Path buildDir, List<Map<String, Object>> addons,
-                                    PackageBuildDto.BuildRequest request) throws IOException {
-        Path valuesDir = buildDir.resolve("values");
-        Files.createDirectories(valuesDir);
-
-        String ns = sanitizeNamespace(request.getNamespace());
-        String domain = sanitizeDomain(request.getDomain());
-
-        for (Map<String, Object> addon : addons) {
-            String name = (String) addon.get("name");
-            String version = (String) addon.get("version");
-
-            // values 파일
-            StringBuilder sb = new StringBuilder();
-            sb.append("# ").append(addon.get("displayName")).append(" v").append(version).append("\n\n");
-
-            switch (name) {
-                case "cert-manager" -> sb.append("installCRDs: true\nreplicaCount: 1\n");
-                case "keycloak" -> sb.append("replicas: 1\nextraEnv: |\n  - name: KEYCLOAK_ADMIN\n    value: admin\n  - name: KEYCLOAK_ADMIN_PASSWORD\n    value: admin123\ningress:\n  enabled: true\n  rules:\n    - host: keycloak.").append(domain).append("\n      paths:\n        - path: /\n          pathType: Prefix\n");
-                case "harbor" -> sb.append("expose:\n  type: ingress\n  ingress:\n    hosts:\n      core: harbor.").append(domain).append("\nexternalURL: https://harbor.").append(domain).append("\npersistence:\n  enabled: true\n");
-                case "gitea" -> sb.append("gitea:\n  admin:\n    username: gitea_admin\n    password: admin123\ningress:\n  enabled: true\n  hosts:\n    - host: gitea.").append(domain).append("\n");
-                case "gitlab" -> sb.append("global:\n  hosts:\n    domain: ").append(domain).append("\n    gitlab:\n      name: gitlab.").append(domain).append("\n");
-                case "jenkins" -> sb.append("controller:\n  adminUser: admin\n  adminPassword: admin123\n  ingress:\n    enabled: true\n    hostName: jenkins.").append(domain).append("\n");
-                case "argocd" -> sb.append("server:\n  ingress:\n    enabled: true\n    hosts:\n      - argocd.").append(domain).append("\nconfigs:\n  params:\n    server.insecure: true\n");
-                case "sonarqube" -> sb.append("ingress:\n  enabled: true\n  hosts:\n    - name: sonarqube.").append(domain).append("\n");
-                case "nexus" -> sb.append("ingress:\n  enabled: true\n  hostRepo: nexus.").append(domain).append("\n");
-                case "vault" -> sb.append("server:\n  ingress:\n    enabled: true\n    hosts:\n      - host: vault.").append(domain).append("\n");
-                case "monitoring" -> sb.append("grafana:\n  adminPassword: admin123\n  ingress:\n    enabled: true\n    hosts:\n      - grafana.").append(domain).append("\nprometheus:\n  prometheusSpec:\n    retention: 15d\n");
-                case "service-mesh" -> sb.append("pilot:\n  resources:\n    requests:\n      cpu: 100m\n      memory: 128Mi\n");
-                default -> sb.append("# 커스텀 설정\n");
-            }
+    private Path attemptWorkDir(String buildHash, String leaseToken) {
+        return Paths.get(storagePath, buildHash + WORK_SUFFIX + "." + leaseToken);
+    }
 
-            writeFile(valuesDir.resolve(name + ".yaml"), sb.toString());
+    private Path resumableWorkDir(String buildHash) {
+        return Paths.get(storagePath, buildHash + WORK_SUFFIX);
+    }
 
-            if (request.isTlsEnabled()) {
-                writeFile(valuesDir.resolve(name + "-tls.yaml"), generateTlsValues(name, domain));
-            }
-            if (request.isKeycloakEnabled() && Boolean.TRUE.equals(addon.get("keycloakEnabled"))) {
-                writeFile(valuesDir.resolve(name + "-keycloak.yaml"),
-                        generateKeycloakValues(name, domain, request.isAirgapped()));
-            }
+    /**
+     * 재개용 디렉토리를 이번 실행 디렉토리로 이동 (rename이라 다른 실행과 동시에 가져갈 수 없음)
+     */
+    private void adoptResumableWorkDir(String buildHash, Path workDir) {
+        Path resumable = resumableWorkDir(buildHash);
+        if (!resumeEnabled || !Files.isDirectory(resumable)) return;
+        try {
+            Files.move(resumable, workDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("재개용 작업 디렉토리 이동 실패 - 처음부터 빌드: {} ({})", resumable, e.getMessage());
         }
     }
 
-    private String generateTlsValues(String name, String domain) {
-        String host = name + "." + domain;
-        String secretName = name + "-tls";
-        String issuer = "letsencrypt-prod"; // ClusterIssuer 이름
-
-        return switch (name) {
-            case "keycloak" -> """
-                    ingress:
-                      annotations:
-                        cert-manager.io/cluster-issuer: %s
-                      tls:
-                        - secretName: %s
-                          hosts:
-                            - %s
-                    """.formatted(issuer, secretName, host);
-            case "harbor" -> """
-                    expose:
-                      tls:
-                        enabled: true
-                        certSource: secret
-                        secret:
-                          secretName: %s
-                      ingress:
-                        annotations:
-                          cert-manager.io/cluster-issuer: %s
-                    """.formatted(secretName, issuer);
-            case "gitea" -> """
-                    ingress:
-                      annotations:
-                        cert-manager.io/cluster-issuer: %s
-                      tls:
-                        - secretName: %s
-                          hosts:
-                            - %s
-                    """.formatted(issuer, secretName, host);
-            case "gitlab" -> """
-                    global:
-                      ingress:
-                        configureCertmanager: true
-                        annotations:
-                          cert-manager.io/cluster-issuer: %s
-                        tls:
-                          - secretName: %s
-                            hosts:
-                              - gitlab.%s
-                    """.formatted(issuer, secretName, domain);
-            case "jenkins" -> """
-                    controller:
-                      ingress:
-                        annotations:
-                          cert-manager.io/cluster-issuer: %s
-                        tls:
-                          - secretName: %s
-                            hosts:
-                              - %s
-                    """.formatted(issuer, secretName, host);
-            case "argocd" -> """
-                    server:
-                      ingress:
-                        annotations:
-                          cert-manager.io/cluster-issuer: %s
-                        tls:
-                          - secretName: %s
-                            hosts:
-                              - %s
-                    configs:
-                      params:
-                        server.insecure: false
-                    """.formatted(issuer, secretName, host);
-            case "sonarqube" -> """
-                    ingress:
-                      annotations:
-                        cert-manager.io/cluster-issuer: %s
-                      tls:
-                        - secretName: %s
-                          hosts:
-                            - %s
-                    """.formatted(issuer, secretName, host);
-            case "nexus" -> """
-                    ingress:
-                      annotations:
-                        cert-manager.io/cluster-issuer: %s
-                      tls:
-                        - secretName: %s
-                          hosts:
-                            - %s
-                    """.formatted(issuer, secretName, host);
-            case "vault" -> """
-                    server:
-                      ingress:
-                        annotations:
-                          cert-manager.io/cluster-issuer: %s
-                        tls:
-                          - secretName: %s
-                            hosts:
-                              - %s
-                    """.formatted(issuer, secretName, host);
-            case "monitoring" -> """
-                    grafana:
-                      ingress:
-                        annotations:
-                          cert-manager.io/cluster-issuer: %s
-                        tls:
-                          - secretName: grafana-tls
-                            hosts:
-                              - grafana.%s
-                    """.formatted(issuer, domain);
-            default -> """
-                    # %s TLS 설정
-                    # cert-manager ClusterIssuer: %s
-                    """.formatted(name, issuer);
-        };
+    /**
+     * 중단된 실행의 작업 디렉토리를 재개용 경로로 이동 (이미 있으면 이번 것은 삭제)
+     */
+    private void suspendWorkDir(String buildHash, Path workDir) {
+        try {
+            Files.move(workDir, resumableWorkDir(buildHash), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("작업 디렉토리 보존 실패 - 삭제: {} ({})", workDir, e.getMessage());
+            try { deleteDirectory(workDir); } catch (Exception ignored) {}
+        }
     }
 
-    private String generateKeycloakValues(String name, String domain, boolean isAirgap) {
-        String kcUrl = "https://keycloak." + domain;
-        String realm = "devops";
-        String clientId = name;
-
-        return switch (name) {
-            case "harbor" -> """
-                    # Harbor OIDC 연동 (Keycloak)
-                    # Harbor는 helm values가 아닌 관리자 UI 또는 harbor.yml에서 설정
-                    # 설치 후 Harbor UI > Configuration > Authentication 에서 설정:
-                    #   Auth Mode: OIDC
-                    #   OIDC Provider: Keycloak
-                    #   OIDC Endpoint: %s/realms/%s
-                    #   OIDC Client ID: %s
-                    #   OIDC Client Secret: (configure-keycloak.sh 실행 후 생성됨)
-                    #   OIDC Scope: openid,profile,email
-                    """.formatted(kcUrl, realm, clientId);
-            case "gitea" -> """
-                    gitea:
-                      oauth:
-                        - name: keycloak
-                          provider: openidConnect
-                          clientID: %s
-                          clientSecret: changeme-run-configure-keycloak-sh
-                          autoDiscoverUrl: %s/realms/%s/.well-known/openid-configuration
-                          scopes: openid profile email
-                    """.formatted(clientId, kcUrl, realm);
-            case "jenkins" -> """
-                    controller:
-                      JCasC:
-                        securityRealm: |-
-                          oic:
-                            clientId: %s
-                            clientSecret: changeme-run-configure-keycloak-sh
-                            wellKnownOpenIDConfigurationUrl: %s/realms/%s/.well-known/openid-configuration
-                            userNameField: preferred_username
-                            fullNameFieldName: name
-                            emailFieldName: email
-                            scopes: openid profile email
-                            logoutFromOpenidProvider: true
-                            endSessionEndpoint: %s/realms/%s/protocol/openid-connect/logout
-                      installPlugins:
-                        - oic-auth:latest
-                    """.formatted(clientId, kcUrl, realm, kcUrl, realm);
-            case "argocd" -> """
-                    configs:
-                      cm:
-                        url: https://argocd.%s
-                        oidc.config: |
-                          name: Keycloak
-                          issuer: %s/realms/%s
-                          clientID: %s
-                          clientSecret: changeme-run-configure-keycloak-sh
-                          requestedScopes:
-                            - openid
-                            - profile
-                            - email
-                      rbac:
-                        policy.csv: |
-                          g, /devops-admin, role:admin
-                    """.formatted(domain, kcUrl, realm, clientId);
-            case "sonarqube" -> {
-                String base = """
-                    sonarProperties:
-                      sonar.auth.oidc.enabled: "true"
-                      sonar.auth.oidc.issuerUri: %s/realms/%s
-                      sonar.auth.oidc.clientId.secured: %s
-                      sonar.auth.oidc.clientSecret.secured: changeme-run-configure-keycloak-sh
-                      sonar.auth.oidc.scopes: openid profile email
-                    """.formatted(kcUrl, realm, clientId);
-                if (isAirgap) {
-                    yield base + """
-                    # ⚠️ 폐쇄망: OIDC 플러그인을 수동 설치 필요
-                    # 인터넷 환경에서 다운로드 후 SonarQube plugins/ 디렉토리에 복사:
-                    # https://github.com/vaulttec/sonar-auth-oidc/releases/download/v2.1.1/sonar-auth-oidc-plugin-2.1.1.jar
-                    """;
-                } else {
-                    yield base + """
-                    plugins:
-                      install:
-                        - https://github.com/vaulttec/sonar-auth-oidc/releases/download/v2.1.1/sonar-auth-oidc-plugin-2.1.1.jar
-                    """;
-                }
-            }
-            case "nexus" -> """
-                    # Nexus OIDC: Keycloak 연동은 Nexus Pro 전용 기능
-                    # Community 버전은 SAML/OIDC 미지원
-                    # 대안: keycloak-proxy (oauth2-proxy) 사이드카 사용
-                    nexus:
-                      env:
-                        - name: NEXUS_SECURITY_INITIAL_PASSWORD
-                          value: admin123
-                    """;
-            default -> """
-                    # %s Keycloak OIDC 연동
-                    # OIDC Endpoint: %s/realms/%s
-                    # Client ID: %s
-                    """.formatted(name, kcUrl, realm, clientId);
-        };
+    /**
+     * 비정상 종료된 이전 프로세스의 실행 디렉토리를 재개용 경로로 복구 (시작 시 같은 owner의 빌드를 대기열로 되돌리기 전)
+     */
+    public void recoverWorkDir(String buildHash, String leaseToken) {
+        if (!resumeEnabled || leaseToken == null) return;
+        Path workDir = attemptWorkDir(buildHash, leaseToken);
+        if (Files.isDirectory(workDir) && !Files.exists(resumableWorkDir(buildHash))) {
+            suspendWorkDir(buildHash, workDir);
+        }
     }
 
-    private void generateImageList(Path buildDir, List<Map<String, Object>> addons,
+    // ======================== 파일 생성 (Makefile, values, images, scripts, readme) ========================
+
+    private void generateImageList(PackageArchiveWriter archive, List<ResolvedAddon> addons,
                                    PackageBuildDto.BuildRequest request) throws IOException {
-        Path imagesDir = buildDir.resolve("images");
-        Files.createDirectories(imagesDir);
-        writeFile(imagesDir.resolve(".gitkeep"), "");
+        archive.writeText("images/.gitkeep", "");
 
-        var mapper = new com.fasterxml.jackson.databind.ObjectMapper();
         StringBuilder sb = new StringBuilder();
         sb.append("# 필요 이미지 목록 (폐쇄망 배포 시 Harbor 미러링 필요)\n");
         sb.append("# 플랫폼: ").append(request.getPlatform()).append("\n\n");
-        for (Map<String, Object> a : addons) {
-            sb.append("# ").append(a.get("displayName")).append("\n");
-            String images = (String) a.get("upstreamImages");
-            String imageTagsJson = (String) a.get("imageTags");
-            String version = (String) a.get("version");
-            if (images != null && !images.isEmpty()) {
-                try {
-                    List<String> list = mapper.readValue(images, new com.fasterxml.jackson.core.type.TypeReference<List<String>>() {});
-                    Map<String, String> tagMap = new LinkedHashMap<>();
-                    if (imageTagsJson != null && !imageTagsJson.isEmpty()) {
-                        try {
-                            tagMap = mapper.readValue(imageTagsJson,
-                                    new com.fasterxml.jackson.core.type.TypeReference<>() {});
-                        } catch (Exception ignored) {}
-                    }
-                    for (String img : list) {
-                        String tag = resolveImageTag(img, tagMap, version);
-                        sb.append(img).append(":").append(tag).append("\n");
-                    }
-                } catch (Exception ignored) {}
+        for (ResolvedAddon a : addons) {
+            sb.append("# ").append(a.displayName()).append("\n");
+            for (String image : a.images()) {
+                sb.append(image).append("\n");
             }
             sb.append("\n");
         }
-        writeFile(buildDir.resolve("images.txt"), sb.toString());
+        archive.writeText("images.txt", sb.toString());
     }
 
-
-    private void generateKeycloakConfig(Path buildDir, List<Map<String, Object>> addons,
-                                        PackageBuildDto.BuildRequest request) throws IOException {
-        Path scriptsDir = buildDir.resolve("scripts");
-        Files.createDirectories(scriptsDir);
-        String domain = sanitizeDomain(request.getDomain());
-        String ns = sanitizeNamespace(request.getNamespace());
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("#!/bin/bash\n");
-        sb.append("set -e\n");
-        sb.append("SCRIPT_DIR=\"$(cd \"$(dirname \"$0\")\" && pwd)\"\n");
-        sb.append("BASE_DIR=\"$(dirname \"$SCRIPT_DIR\")\"\n\n");
-        sb.append("# ============================================================\n");
-        sb.append("# Keycloak SSO 자동 설정\n");
-        sb.append("# 1) Realm 생성\n");
-        sb.append("# 2) OIDC 클라이언트 등록 + Secret 발급\n");
-        sb.append("# 3) values/*-keycloak.yaml 에 Secret 자동 반영\n");
-        sb.append("# 4) SSO 대상 애드온 helm upgrade 재배포\n");
-        sb.append("# ============================================================\n\n");
-
-        sb.append("KC_URL=\"https://keycloak.").append(domain).append("\"\n");
-        sb.append("KC_ADMIN=\"${KC_ADMIN:-admin}\"\n");
-        sb.append("KC_PASS=\"${KC_PASS:-admin123}\"\n");
-        sb.append("REALM=\"devops\"\n");
-        sb.append("NAMESPACE=\"").append(ns).append("\"\n");
-        sb.append("PLACEHOLDER=\"changeme-run-configure-keycloak-sh\"\n\n");
-
-        // macOS sed 호환 함수
-        sb.append("# macOS/Linux sed 호환 함수\n");
-        sb.append("replace_in_file() {\n");
-        sb.append("  local file=\"$1\" old=\"$2\" new=\"$3\"\n");
-        sb.append("  if [[ \"$OSTYPE\" == \"darwin\"* ]]; then\n");
-        sb.append("    sed -i '' \"s|${old}|${new}|g\" \"$file\"\n");
-        sb.append("  else\n");
-        sb.append("    sed -i \"s|${old}|${new}|g\" \"$file\"\n");
-        sb.append("  fi\n");
-        sb.append("}\n\n");
-
-        // health check
-        sb.append("echo \"🔐 Keycloak 연결 확인: $KC_URL\"\n");
-        sb.append("until curl -sf \"$KC_URL/health/ready\" > /dev/null 2>&1; do\n");
-        sb.append("  echo \"  대기 중...\"\n  sleep 5\ndone\n");
-        sb.append("echo \"✅ Keycloak 준비됨\"\n\n");
-
-        // 토큰
-        sb.append("# 토큰 발급\n");
-        sb.append("TOKEN=$(curl -sf -X POST \"$KC_URL/realms/master/protocol/openid-connect/token\" \\\n");
-        sb.append("  -d \"client_id=admin-cli\" -d \"username=$KC_ADMIN\" -d \"password=$KC_PASS\" \\\n");
-        sb.append("  -d \"grant_type=password\" | jq -r '.access_token')\n\n");
-        sb.append("if [ -z \"$TOKEN\" ] || [ \"$TOKEN\" = \"null\" ]; then\n");
-        sb.append("  echo \"❌ Keycloak 토큰 발급 실패\"\n  exit 1\nfi\n\n");
-
-        // realm
-        sb.append("# Realm 생성\n");
-        sb.append("echo \"📦 Realm 생성: $REALM\"\n");
-        sb.append("curl -sf -X POST \"$KC_URL/admin/realms\" \\\n");
-        sb.append("  -H \"Authorization: Bearer $TOKEN\" -H \"Content-Type: application/json\" \\\n");
-        sb.append("  -d '{\"realm\":\"'$REALM'\",\"enabled\":true,\"sslRequired\":\"external\"}' || echo \"  (이미 존재)\"\n\n");
-
-        sb.append("echo \"\"\necho \"========================================\"\n");
-        sb.append("echo \"  Phase 1: OIDC 클라이언트 등록 + Secret 발급\"\n");
-        sb.append("echo \"========================================\"\n\n");
-
-        // 클라이언트 등록 + secret -> sed 자동 치환
-        List<String> ssoAddonNames = new java.util.ArrayList<>();
-        for (Map<String, Object> a : addons) {
-            if (Boolean.TRUE.equals(a.get("keycloakEnabled")) && !"keycloak".equals(a.get("name"))) {
-                String n = (String) a.get("name");
-                String displayName = (String) a.get("displayName");
-                String varName = "SECRET_" + n.toUpperCase().replace("-", "_");
-                ssoAddonNames.add(n);
-
-                sb.append("# -- ").append(displayName).append(" --\n");
-                sb.append("echo \"🔧 ").append(displayName).append(" 클라이언트 등록\"\n");
-                sb.append("curl -sf -X POST \"$KC_URL/admin/realms/$REALM/clients\" \\\n");
-                sb.append("  -H \"Authorization: Bearer $TOKEN\" -H \"Content-Type: application/json\" \\\n");
-                sb.append("  -d '{\n");
-                sb.append("    \"clientId\": \"").append(n).append("\",\n");
-                sb.append("    \"name\": \"").append(displayName).append("\",\n");
-                sb.append("    \"enabled\": true,\n");
-                sb.append("    \"publicClient\": false,\n");
-                sb.append("    \"clientAuthenticatorType\": \"client-secret\",\n");
-                sb.append("    \"standardFlowEnabled\": true,\n");
-                sb.append("    \"directAccessGrantsEnabled\": false,\n");
-                sb.append("    \"protocol\": \"openid-connect\",\n");
-                sb.append("    \"redirectUris\": [\"https://").append(n).append(".").append(domain).append("/*\"],\n");
-                sb.append("    \"webOrigins\": [\"https://").append(n).append(".").append(domain).append("\"]\n");
-                sb.append("  }' 2>/dev/null || echo \"  (이미 존재)\"\n\n");
-
-                // secret 조회
-                sb.append("CLIENT_UUID=$(curl -sf \"$KC_URL/admin/realms/$REALM/clients?clientId=").append(n).append("\" \\\n");
-                sb.append("  -H \"Authorization: Bearer $TOKEN\" | jq -r '.[0].id')\n");
-                sb.append(varName).append("=$(curl -sf \"$KC_URL/admin/realms/$REALM/clients/$CLIENT_UUID/client-secret\" \\\n");
-                sb.append("  -H \"Authorization: Bearer $TOKEN\" | jq -r '.value')\n");
-                sb.append("echo \"  ✅ ").append(n).append(": clientSecret=$").append(varName).append("\"\n\n");
-
-                // sed로 values 파일 자동 치환
-                sb.append("# values/").append(n).append("-keycloak.yaml 에 Secret 자동 반영\n");
-                sb.append("if [ -f \"$BASE_DIR/values/").append(n).append("-keycloak.yaml\" ]; then\n");
-                sb.append("  replace_in_file \"$BASE_DIR/values/").append(n).append("-keycloak.yaml\" \"$PLACEHOLDER\" \"$").append(varName).append("\"\n");
-                sb.append("  echo \"  📝 values/").append(n).append("-keycloak.yaml 업데이트 완료\"\n");
-                sb.append("fi\n\n");
-            }
-        }
-
-        // Phase 2: SSO 대상 재배포
-        sb.append("echo \"\"\necho \"========================================\"\n");
-        sb.append("echo \"  Phase 2: SSO 대상 애드온 재배포 (Secret 반영)\"\n");
-        sb.append("echo \"========================================\"\n\n");
-
-        boolean isAirgap = request.isAirgapped();
-        for (Map<String, Object> a : addons) {
-            if (Boolean.TRUE.equals(a.get("keycloakEnabled")) && !"keycloak".equals(a.get("name"))) {
-                String n = (String) a.get("name");
-                String displayName = (String) a.get("displayName");
-                String helmChartName = (String) a.get("helmChartName");
-
-                sb.append("echo \"🔄 ").append(displayName).append(" 재배포\"\n");
-
-                if (isAirgap) {
-                    // 폐쇄망: 로컬 chart tgz 사용 (deploy.sh와 동일 패턴)
-                    String chartGlob = (helmChartName != null && !helmChartName.isEmpty())
-                            ? helmChartName : n;
-                    sb.append("CHART=\"$(ls $BASE_DIR/charts/").append(chartGlob).append("-*.tgz 2>/dev/null | head -1)\"\n");
-                    sb.append("if [ -n \"$CHART\" ] && [ -f \"$CHART\" ]; then\n");
-                    sb.append("  helm upgrade --install ").append(n).append(" \"$CHART\"");
-                } else {
-                    // 인터넷: 원격 repo 참조
-                    String chartRef = (helmChartName != null && !helmChartName.isEmpty())
-                            ? n + "/" + helmChartName : n + "/" + n;
-                    sb.append("helm upgrade --install ").append(n).append(" ").append(chartRef);
-                }
-
-                sb.append(" -n $NAMESPACE");
-                sb.append(" -f \"$BASE_DIR/values/").append(n).append(".yaml\"");
-                if (request.isTlsEnabled()) {
-                    sb.append(" -f \"$BASE_DIR/values/").append(n).append("-tls.yaml\"");
-                }
-                sb.append(" -f \"$BASE_DIR/values/").append(n).append("-keycloak.yaml\"");
-                sb.append(" --wait --timeout 600s\n");
-
-                if (isAirgap) {
-                    sb.append("else\n");
-                    sb.append("  echo \"  ⚠️ ").append(displayName).append(" chart 파일이 없습니다. 건너뜁니다.\"\n");
-                    sb.append("fi\n");
-                }
-
-                sb.append("echo \"  ✅ ").append(displayName).append(" 재배포 완료\"\n\n");
-            }
-        }
-
-        sb.append("echo \"\"\necho \"========================================\"\n");
-        sb.append("echo \"  ✅ Keycloak SSO 설정 완료\"\n");
-        sb.append("echo \"  - Realm: $REALM\"\n");
-        sb.append("echo \"  - 클라이언트: ").append(String.join(", ", ssoAddonNames)).append("\"\n");
-        sb.append("echo \"  - 모든 Secret이 values 파일에 자동 반영됨\"\n");
-        sb.append("echo \"========================================\"\n");
-        writeFile(scriptsDir.resolve("configure-keycloak.sh"), sb.toString());
-    }
-
-    private void generateInstallScript(Path buildDir, List<Map<String, Object>> addons,
+    private void generateInstallScript(PackageArchiveWriter archive, List<ResolvedAddon> addons,
                                        PackageBuildDto.BuildRequest request) throws IOException {
-        Path scriptsDir = buildDir.resolve("scripts");
-        Files.createDirectories(scriptsDir);
 
         StringBuilder sb = new StringBuilder();
         sb.append("#!/bin/bash\n");
@@ -849,10 +373,10 @@ public class PackageBuildExecutor {
         sb.append("set -e\n");
         sb.append("cd \"$(dirname \"$0\")/..\"\n\n");
         sb.append("bash deploy.sh install-all\n");
-        writeFile(scriptsDir.resolve("install.sh"), sb.toString());
+        archive.writeText("scripts/install.sh", sb.toString());
     }
 
-    private void generateReadme(Path buildDir, List<Map<String, Object>> addons,
+    private void generateReadme(PackageArchiveWriter archive, List<ResolvedAddon> addons,
                                 PackageBuildDto.BuildRequest request) throws IOException {
         StringBuilder sb = new StringBuilder();
         sb.append("# DevOps 애드온 패키지\n\n");
@@ -863,13 +387,19 @@ public class PackageBuildExecutor {
         sb.append("- **TLS**: ").append(request.isTlsEnabled() ? "활성" : "비활성").append("\n");
         sb.append("- **Keycloak SSO**: ").append(request.isKeycloakEnabled() ? "활성" : "비활성").append("\n\n");
 
+        if (request.isAirgapped() && request.getBaseBuildHash() != null && !request.getBaseBuildHash().isBlank()) {
+            sb.append("> **델타 패키지**: 기준 빌드 `").append(request.getBaseBuildHash())
+                    .append("` 이후 변경된 chart/이미지만 포함되어 있으며, 기준 패키지에 이미 있는 이미지 레이어(blob)는 제외되었습니다.\n");
+            sb.append("> 기준 패키지 디렉토리에 병합한 뒤 설치하세요: `bash scripts/apply-delta.sh <기준 패키지 디렉토리>`\n\n");
+        }
+
         sb.append("## 애드온 목록\n\n");
         sb.append("| 순서 | 애드온 | 버전 | SSO |\n|------|--------|------|-----|\n");
         addons.stream()
-                .sorted(Comparator.comparingInt(a -> (Integer) a.getOrDefault("installOrder", 50)))
-                .forEach(a -> sb.append("| ").append(a.get("installOrder")).append(" | ").append(a.get("displayName"))
-                        .append(" | ").append(a.get("version")).append(" | ")
-                        .append(Boolean.TRUE.equals(a.get("keycloakEnabled")) ? "✅" : "").append(" |\n"));
+                .sorted(Comparator.comparingInt(ResolvedAddon::installOrder))
+                .forEach(a -> sb.append("| ").append(a.installOrder()).append(" | ").append(a.displayName())
+                        .append(" | ").append(a.version()).append(" | ")
+                        .append(a.keycloakEnabled() ? "✅" : "").append(" |\n"));
 
         sb.append("\n## 사용법\n\n");
         sb.append("```bash\n# 전체 설치\nbash deploy.sh install-all\n\n");
@@ -879,7 +409,8 @@ public class PackageBuildExecutor {
 
         if (request.isAirgapped()) {
             sb.append("\n## 폐쇄망 배포 가이드\n\n");
-            sb.append("이 패키지에는 Helm Chart(.tgz)와 컨테이너 이미지(.tar)가 포함되어 있습니다.\n\n");
+            sb.append("이 패키지에는 Helm Chart(.tgz)와 컨테이너 이미지(images/, OCI image layout)가 포함되어 있습니다.\n");
+            sb.append("여러 이미지가 공유하는 레이어는 `images/blobs/`에 한 번만 저장되며, deploy.sh가 이미지별로 docker load 합니다.\n\n");
             sb.append("```bash\n");
             sb.append("# 1. 이미지 로드 + 전체 설치 (install-all에서 자동 로드)\n");
             sb.append("bash deploy.sh install-all\n\n");
@@ -887,192 +418,653 @@ public class PackageBuildExecutor {
             sb.append("bash scripts/push-to-registry.sh harbor.customer.com\n");
             sb.append("```\n");
         }
-        writeFile(buildDir.resolve("README.md"), sb.toString());
+        archive.writeText("README.md", sb.toString());
     }
 
     // ======================== 폐쇄망 빌드 (helm pull + docker pull/save) ========================
 
     /**
-     * 각 애드온의 helm chart를 다운로드하여 charts/ 디렉토리에 저장
+     * 각 애드온의 helm chart를 패키지의 charts/ 에 추가
+     * HelmChartCache 적중 시 캐시 파일을 바로 append 하고, miss chart는 repo당 한 번 add/update 후 병렬로 helm pull 한다.
+     * 체크포인트가 켜져 있으면 받은 chart를 {workDir}/charts/{chart}-{version}/ 에 보관해 재개 시 다시 받지 않는다.
      */
-    private List<String> pullHelmCharts(Path buildDir, List<Map<String, Object>> addons,
-                                        PackageBuild build) throws IOException, InterruptedException {
-        Path chartsDir = buildDir.resolve("charts");
-        Files.createDirectories(chartsDir);
-        List<String> failedCharts = new ArrayList<>();
+    private List<String> pullHelmCharts(String buildHash, PackageArchiveWriter archive, Path workDir,
+                                        List<ResolvedAddon> addons, DeltaBase delta,
+                                        BuildCheckpoint checkpoint) throws IOException, InterruptedException {
+        Path pullDir = workDir.resolve("charts");
+        if (checkpoint.isStageCompleted("helm-charts")) {
+            log.info("  체크포인트: helm chart 단계 완료 - 보관된 chart 사용 (실패했던 chart만 다시 pull)");
+        }
 
-        for (Map<String, Object> a : addons) {
-            String name = (String) a.get("name");
-            String helmRepo = (String) a.get("helmRepoUrl");
-            String helmChartName = (String) a.get("helmChartName");
-            String helmChartVersion = (String) a.get("helmChartVersion");
+        // 1. 체크포인트/캐시 조회 → miss chart는 repo URL 기준으로 묶음
+        Map<String, List<ChartRef>> missesByRepo = new LinkedHashMap<>();
+        int hitCount = 0;
+        for (ResolvedAddon a : addons) {
+            String name = a.name();
+            String helmRepo = a.helmRepoUrl();
+            String helmChartVersion = a.helmChartVersion();
+
+            String chartFullName = a.repoChartName();
+            if (chartFullName == null) continue;
+
+            if (delta != null && delta.isUnchangedChart(chartFullName, helmChartVersion)) {
+                buildTimeline.begin(buildHash, BuildStepType.CHART, chartFullName + ":" + helmChartVersion, null)
+                        .message("delta").finish(BuildStepStatus.SKIPPED);
+                log.info("  ⏭️ helm chart 변경 없음 (델타 제외): {} (version: {})", chartFullName, helmChartVersion);
+                continue;
+            }
 
-            if (helmRepo == null || helmRepo.isEmpty()) continue;
+            Optional<Path> kept = checkpoint.isEnabled()
+                    ? findChartFile(keptChartDir(pullDir, chartFullName, helmChartVersion))
+                    : Optional.empty();
+            if (kept.isPresent()) {
+                appendChartFile(buildHash, archive, chartFullName, helmChartVersion, kept.get(), "checkpoint");
+                log.info("  ⏭️ 체크포인트 chart 사용: {} (version: {})", chartFullName, helmChartVersion);
+                continue;
+            }
 
-            String chartFullName = (helmChartName != null && !helmChartName.isEmpty())
-                    ? helmChartName : name;
+            Optional<Path> cached = chartCache.lookup(helmRepo, chartFullName, helmChartVersion);
+            if (cached.isPresent()) {
+                appendChartFile(buildHash, archive, chartFullName, helmChartVersion, cached.get(), "cache");
+                log.info("  ♻️ helm chart 캐시 사용: {} (version: {})", chartFullName, helmChartVersion);
+                hitCount++;
+                continue;
+            }
+            missesByRepo.computeIfAbsent(helmRepo, k -> new ArrayList<>())
+                    .add(new ChartRef(name, helmRepo, chartFullName, helmChartVersion));
+        }
+
+        // 2. repo별 add/update 1회 → 해당 repo의 chart pull 병렬 실행
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (Map.Entry<String, List<ChartRef>> entry : missesByRepo.entrySet()) {
+            String repoAlias = entry.getValue().get(0).name();
+            CompletableFuture<Void> repoReady = CompletableFuture.runAsync(
+                    () -> prepareHelmRepo(buildHash, repoAlias, entry.getKey()), chartPullExecutor);
+            for (ChartRef chart : entry.getValue()) {
+                futures.add(repoReady.thenApplyAsync(
+                        v -> pullHelmChart(buildHash, repoAlias, chart, archive, pullDir, checkpoint), chartPullExecutor));
+            }
+        }
 
-            // 1. helm repo add
-            exec("helm", "repo", "add", name, helmRepo);
+        List<String> failedCharts = new ArrayList<>();
+        try {
+            for (CompletableFuture<String> future : futures) {
+                String failed = future.join();
+                if (failed != null) failedCharts.add(failed);
+            }
+        } catch (CompletionException e) {
+            // 남은 pull이 끝난 뒤에 pull 디렉토리를 지운다 (helm 프로세스는 취소 시 processRunner가 종료)
+            awaitAll(futures);
+            if (e.getCause() instanceof InterruptedException ie) throw ie;
+            throw e;
+        } finally {
+            // pull 임시 디렉토리 정리 (체크포인트가 켜져 있으면 받은 chart는 보관)
+            deleteDirectory(checkpoint.isEnabled() ? pullDir.resolve(".pull") : pullDir);
+        }
 
-            // 2. helm repo update
-            exec("helm", "repo", "update", name);
+        log.info("  helm chart 캐시: hit={}, miss={} (누적 hit={}, miss={})", hitCount, futures.size(),
+                chartCache.getHits(), chartCache.getMisses());
+        return failedCharts;
+    }
 
-            // 3. helm pull → charts/{name}-{version}.tgz
+    private void prepareHelmRepo(String buildHash, String repoAlias, String helmRepo) {
+        try {
+            exec(buildHash, "helm", "repo", "add", repoAlias, helmRepo);
+            exec(buildHash, "helm", "repo", "update", repoAlias);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (IOException e) {
+            log.warn("  ⚠️ helm repo 준비 실패: {} - {}", helmRepo, e.getMessage());
+        }
+    }
+
+    /**
+     * 개별 chart pull → 캐시 등록 → 패키지 append. 실패 시 "chart:version" 반환, 성공 시 null
+     */
+    private String pullHelmChart(String buildHash, String repoAlias, ChartRef chart, PackageArchiveWriter archive,
+                                 Path pullDir, BuildCheckpoint checkpoint) {
+        checkCancelled(buildHash);
+        BuildTimeline.Step step = buildTimeline.begin(buildHash, BuildStepType.CHART,
+                chart.chartName() + ":" + chart.version(), null).message("helm");
+        try {
+            // helm pull 결과 파일명이 예측 불가 → chart별 임시 디렉토리에 받은 뒤 이동
+            Path targetDir = Files.createDirectories(pullDir.resolve(".pull").resolve(UUID.randomUUID().toString()));
             List<String> pullCmd = new ArrayList<>(List.of(
-                    "helm", "pull", name + "/" + chartFullName,
-                    "-d", chartsDir.toString(), "--untar=false"
+                    "helm", "pull", repoAlias + "/" + chart.chartName(),
+                    "-d", targetDir.toString(), "--untar=false"
             ));
-            if (helmChartVersion != null && !helmChartVersion.isEmpty()) {
-                pullCmd.addAll(List.of("--version", helmChartVersion));
+            if (chart.version() != null && !chart.version().isEmpty()) {
+                pullCmd.addAll(List.of("--version", chart.version()));
+            }
+            int code = exec(buildHash, pullCmd.toArray(new String[0]));
+            step.exitCode(code);
+            Optional<Path> pulled;
+            try (var files = Files.list(targetDir)) {
+                pulled = files.filter(p -> p.getFileName().toString().endsWith(".tgz")).findFirst();
+            }
+            if (code != 0 || pulled.isEmpty()) {
+                log.warn("  ⚠️ helm chart pull 실패: {}/{} (version: {})", repoAlias, chart.chartName(), chart.version());
+                step.finish(BuildStepStatus.FAILED);
+                return chart.chartName() + ":" + chart.version();
             }
-            int code = exec(pullCmd.toArray(new String[0]));
-            if (code == 0) {
-                log.info("  ✅ helm chart pull: {}/{} (version: {})", name, chartFullName, helmChartVersion);
+
+            chartCache.store(chart.repoUrl(), chart.chartName(), chart.version(), pulled.get());
+            String chartPath = "charts/" + pulled.get().getFileName();
+            long chartSize = Files.size(pulled.get());
+            String chartDigest = BuildTimeline.sha256(pulled.get());
+            if (checkpoint.isEnabled()) {
+                // 다 받은 파일만 보관 위치로 이동 (재개 시 보관된 파일은 완료된 chart)
+                Path keptDir = Files.createDirectories(keptChartDir(pullDir, chart.chartName(), chart.version()));
+                Path kept = Files.move(pulled.get(), keptDir.resolve(pulled.get().getFileName()),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                archive.writeFile(chartPath, kept);
             } else {
-                log.warn("  ⚠️ helm chart pull 실패: {}/{} (version: {})", name, chartFullName, helmChartVersion);
-                failedCharts.add(chartFullName + ":" + helmChartVersion);
+                appendAndDelete(archive, chartPath, pulled.get());
             }
+            step.bytes(chartSize).finish(BuildStepStatus.SUCCESS);
+            buildTimeline.artifact(buildHash, ArtifactType.CHART, chart.chartName() + ":" + chart.version(), null,
+                    chartPath, chartSize, chartDigest);
+            log.info("  ✅ helm chart pull: {}/{} (version: {})", repoAlias, chart.chartName(), chart.version());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (IOException e) {
+            log.warn("  ⚠️ helm chart pull 오류: {} - {}", chart.chartName(), e.getMessage());
+            step.message(e.getMessage()).finish(BuildStepStatus.FAILED);
+            return chart.chartName() + ":" + chart.version();
+        }
+    }
+
+    private record ChartRef(String name, String repoUrl, String chartName, String version) {}
+
+    private void appendChartFile(String buildHash, PackageArchiveWriter archive, String chartName, String version,
+                                 Path file, String source) throws IOException {
+        BuildTimeline.Step step = buildTimeline.begin(buildHash, BuildStepType.CHART,
+                chartName + ":" + version, null).message(source);
+        String chartPath = "charts/" + file.getFileName();
+        String chartDigest = BuildTimeline.sha256(file);
+        archive.writeFile(chartPath, file);
+        long chartSize = Files.size(file);
+        step.bytes(chartSize).finish(BuildStepStatus.SUCCESS);
+        buildTimeline.artifact(buildHash, ArtifactType.CHART, chartName + ":" + version, null,
+                chartPath, chartSize, chartDigest);
+    }
+
+    private static Path keptChartDir(Path pullDir, String chartName, String version) {
+        return pullDir.resolve((chartName + "-" + (version != null ? version : "latest")).replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    private static Optional<Path> findChartFile(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return Optional.empty();
+        try (var files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".tgz")).findFirst();
         }
-        return failedCharts;
     }
 
     /**
-     * 각 애드온의 컨테이너 이미지를 pull → save (tar) → images/ 디렉토리에 저장
+     * 각 애드온의 컨테이너 이미지를 pull → save (tar) → 패키지의 images/ 에 append
      * registryUrl이 있으면 해당 레지스트리에서 pull, 없으면 upstream에서 pull
+     * 이미지 단위로 imagePullTaskExecutor에서 병렬 실행하며, 실패한 이미지 목록을 반환한다.
+     * (같은 이미지의 플랫폼별 pull은 로컬 태그를 공유하므로 한 작업 안에서 순차 처리)
      */
-    private void pullAndSaveImages(Path buildDir, List<Map<String, Object>> addons,
-                                   PackageBuildDto.BuildRequest request,
-                                   PackageBuild build) throws IOException, InterruptedException {
-        Path imagesDir = buildDir.resolve("images");
+    private List<String> pullAndSaveImages(OciImageLayoutWriter images, Path workDir,
+                                           List<ResolvedAddon> addons,
+                                           PackageBuildDto.BuildRequest request,
+                                           PackageBuild build, DeltaBase delta,
+                                           BuildCheckpoint checkpoint) throws IOException, InterruptedException {
+        Path imagesDir = workDir.resolve("images");
         Files.createDirectories(imagesDir);
 
-        String registryUrl = request.getRegistryUrl();
-        boolean useRegistry = (registryUrl != null && !registryUrl.isBlank());
         String[] platforms = request.getPlatforms(); // ["linux/amd64"] or ["linux/amd64","linux/arm64"]
-
-        List<String> allImages = resolveImageList(addons);
+        Set<String> allImages = new LinkedHashSet<>(ResolvedAddon.imageList(addons));
         int total = allImages.size() * platforms.length;
-        int done = 0;
+        AtomicInteger done = new AtomicInteger();
+        if (checkpoint.isResumed()) {
+            log.info("  체크포인트: 이미지 {}/{}개 완료 - 나머지만 다운로드", checkpoint.getImageCount(), total);
+        }
 
+        List<CompletableFuture<List<ImagePullResult>>> futures = new ArrayList<>();
         for (String image : allImages) {
-            for (String platform : platforms) {
-                platform = platform.trim();
-                String pullTarget = image;
-                if (useRegistry) {
-                    String imagePath = image.contains("/") ? image : "library/" + image;
-                    pullTarget = registryUrl.replaceAll("/$", "") + "/" + imagePath;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                List<ImagePullResult> results = new ArrayList<>();
+                for (String p : platforms) {
+                    checkCancelled(build.getBuildHash());
+                    String refName = imageRefName(image, p.trim(), request.isMultiPlatform());
+                    BuildTimeline.Step step = buildTimeline.begin(build.getBuildHash(), BuildStepType.IMAGE, image, p.trim());
+                    if (delta != null && delta.imageRefs().contains(refName)) {
+                        // 기준 빌드에 같은 이미지가 있으면 델타에서 제외
+                        buildEvents.image(build.getBuildHash(), image, p.trim(), "UNCHANGED");
+                        step.message("delta").finish(BuildStepStatus.SKIPPED);
+                        results.add(new ImagePullResult(image, p.trim(), true, "delta"));
+                        advanceProgress(build, 55 + (int) ((done.incrementAndGet() / (double) total) * 25));
+                        continue;
+                    }
+                    buildEvents.image(build.getBuildHash(), image, p.trim(), "PULLING");
+                    long start = System.nanoTime();
+                    ImagePullResult result = pullAndSaveImage(build.getBuildHash(), images, imagesDir, image, p.trim(),
+                            request, checkpoint, step);
+                    buildEvents.image(build.getBuildHash(), image, p.trim(), result.success() ? "DONE" : "FAILED");
+                    buildMetrics.image(build.getBuildHash(), p.trim(), result.source(), result.success(),
+                            System.nanoTime() - start);
+                    if (result.success()) step.message(result.source());
+                    step.finish(result.success() ? BuildStepStatus.SUCCESS : BuildStepStatus.FAILED);
+                    if (result.success() && step.getDigest() != null) {
+                        buildTimeline.artifact(build.getBuildHash(), ArtifactType.IMAGE, image, p.trim(),
+                                "images/refs/" + refName, step.getBytes(), step.getDigest());
+                    }
+                    results.add(result);
+                    int imgProgress = 55 + (int) ((done.incrementAndGet() / (double) total) * 25);
+                    advanceProgress(build, imgProgress);
                 }
+                return results;
+            }, imagePullExecutor));
+        }
 
-                // docker pull --platform <arch> (최대 3회 재시도)
-                log.info("  docker pull [{}]: {}", platform, pullTarget);
-                int pullCode = -1;
-                int maxRetries = 3;
-                for (int attempt = 1; attempt <= maxRetries; attempt++) {
-                    pullCode = exec("docker", "pull", "--platform", platform, pullTarget);
-                    if (pullCode == 0) break;
-                    if (attempt < maxRetries) {
-                        log.warn("  ⚠️ docker pull 실패 (시도 {}/{}) [{}]: {} - {}초 후 재시도",
-                                attempt, maxRetries, platform, pullTarget, attempt * 10);
-                        Thread.sleep(attempt * 10_000L); // 10s, 20s 대기
+        List<String> failedImages = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<ImagePullResult>> future : futures) {
+                for (ImagePullResult result : future.join()) {
+                    if (!result.success()) {
+                        failedImages.add(result.image() + " [" + result.platform() + "]");
                     }
                 }
-                if (pullCode != 0) {
-                    log.warn("  ❌ docker pull 최종 실패 [{}]: {} ({}회 시도 후 스킵)", platform, pullTarget, maxRetries);
-                    done++;
-                    continue;
+            }
+        } catch (CompletionException | CancellationException e) {
+            // 남은 이미지 작업이 workDir/아카이브에 기록을 마친 뒤에 빌드 종료 처리로 넘어간다
+            awaitAll(futures);
+            if (e.getCause() instanceof InterruptedException ie) throw ie;
+            throw e;
+        }
+        return failedImages;
+    }
+
+    /**
+     * 단일 이미지 × 플랫폼 pull (최대 3회 재시도) → save → OCI layout에 blob 추가 후 임시 tar 삭제.
+     * 체크포인트가 켜져 있으면 tar/blob을 빌드 종료까지 보관하고, 재개 시 보관된 것을 다시 사용한다.
+     * 실패해도 예외 대신 결과로 반환하며, 크기/digest/재시도/종료 코드는 step에 기록한다.
+     */
+    private ImagePullResult pullAndSaveImage(String buildHash, OciImageLayoutWriter images, Path imagesDir, String image,
+                                             String platform, PackageBuildDto.BuildRequest request,
+                                             BuildCheckpoint checkpoint, BuildTimeline.Step step) {
+        String registryUrl = request.getRegistryUrl();
+        String pullTarget = image;
+        if (registryUrl != null && !registryUrl.isBlank()) {
+            String imagePath = image.contains("/") ? image : "library/" + image;
+            pullTarget = registryUrl.replaceAll("/$", "") + "/" + imagePath;
+        }
+
+        // docker save → 임시 tar → images/blobs + images/refs/{ref-name}[_arch].*
+        String refName = imageRefName(image, platform, request.isMultiPlatform());
+        Path tarPath = imagesDir.resolve(refName + ".tar");
+
+        try {
+            Optional<BuildCheckpoint.ImageEntry> saved = checkpoint.getImage(refName);
+            if (saved.isPresent() && "docker".equals(saved.get().source()) && Files.exists(tarPath)) {
+                step.bytes(Files.size(tarPath));
+                step.digest(images.addDockerArchive(tarPath, refName, platform));
+                log.info("  ⏭️ 체크포인트 이미지 사용 [{}]: {}", platform, refName);
+                return new ImagePullResult(image, platform, true, "checkpoint");
+            }
+
+            if ("registry".equalsIgnoreCase(imageExportMode)) {
+                try {
+                    exportFromRegistry(buildHash, images, imagesDir, pullTarget, refName, platform, checkpoint, step);
+                    return new ImagePullResult(image, platform, true, "registry");
+                } catch (IOException e) {
+                    step.message(e.getMessage());
+                    if (!dockerFallback) {
+                        log.warn("  ❌ 레지스트리 다운로드 실패 [{}]: {} - {}", platform, pullTarget, e.getMessage());
+                        return new ImagePullResult(image, platform, false, "registry");
+                    }
+                    log.warn("  ⚠️ 레지스트리 다운로드 실패 [{}]: {} - {} → docker pull/save로 재시도",
+                            platform, pullTarget, e.getMessage());
                 }
+            }
 
-                // docker save → images/{safe-filename}[_arch].tar
-                String archSuffix = platforms.length > 1 ? "_" + platform.replace("linux/", "") : "";
-                String safeFileName = image.replaceAll("[/:@]", "_") + archSuffix + ".tar";
-                Path tarPath = imagesDir.resolve(safeFileName);
-                int saveCode = exec("docker", "save", "-o", tarPath.toString(), pullTarget);
-                if (saveCode == 0) {
-                    log.info("  ✅ docker save [{}]: {} → {}", platform, pullTarget, safeFileName);
-                } else {
-                    log.warn("  ⚠️ docker save 실패 [{}]: {}", platform, pullTarget);
+            // 캐시 조회 (레지스트리 digest 기준, 조회 불가 시 캐시 미사용)
+            String digest = imageCache.isEnabled() ? resolveImageDigest(buildHash, pullTarget, platform) : null;
+            if (imageCache.copyTo(pullTarget, platform, digest, tarPath)) {
+                log.info("  ♻️ 이미지 캐시 사용 [{}]: {} → {}", platform, pullTarget, refName);
+                addDockerImage(images, checkpoint, tarPath, refName, platform, step);
+                return new ImagePullResult(image, platform, true, "cache");
+            }
+
+            // docker pull --platform <arch> (최대 3회 재시도)
+            log.info("  docker pull [{}]: {}", platform, pullTarget);
+            int pullCode = -1;
+            int maxRetries = 3;
+            for (int attempt = 1; attempt <= maxRetries; attempt++) {
+                pullCode = exec(buildHash, "docker", "pull", "--platform", platform, pullTarget);
+                step.exitCode(pullCode);
+                if (pullCode == 0) break;
+                if (attempt < maxRetries) {
+                    step.retry();
+                    buildMetrics.retry("docker-pull");
+                    log.warn("  ⚠️ docker pull 실패 (시도 {}/{}) [{}]: {} - {}초 후 재시도",
+                            attempt, maxRetries, platform, pullTarget, attempt * 10);
+                    Thread.sleep(attempt * 10_000L); // 10s, 20s 대기
                 }
+            }
+            if (pullCode != 0) {
+                log.warn("  ❌ docker pull 최종 실패 [{}]: {} ({}회 시도 후 스킵)", platform, pullTarget, maxRetries);
+                return new ImagePullResult(image, platform, false, "docker");
+            }
 
-                done++;
-                int imgProgress = 55 + (int) ((done / (double) total) * 25);
-                updateProgress(build, imgProgress);
+            int saveCode = exec(buildHash, "docker", "save", "-o", tarPath.toString(), pullTarget);
+            step.exitCode(saveCode);
+            if (saveCode == 0) {
+                log.info("  ✅ docker save [{}]: {} → {}", platform, pullTarget, refName);
+                imageCache.put(pullTarget, platform, digest, tarPath);
+                addDockerImage(images, checkpoint, tarPath, refName, platform, step);
+                return new ImagePullResult(image, platform, true, "docker");
             }
+            log.warn("  ⚠️ docker save 실패 [{}]: {}", platform, pullTarget);
+            return new ImagePullResult(image, platform, false, "docker");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (IOException e) {
+            log.warn("  ❌ docker pull/save 오류 [{}]: {} - {}", platform, pullTarget, e.getMessage());
+            step.message(e.getMessage());
+            return new ImagePullResult(image, platform, false, "docker");
         }
     }
 
     /**
-     * addons의 upstreamImages + imageTags를 파싱하여 image:tag 목록 반환
-     * imageTags: {"grafana":"11.3.0","loki":"3.2.0","prometheus":"2.54.0"}
-     * upstreamImages: ["grafana/grafana","grafana/loki","prom/prometheus"]
-     * → grafana/grafana:11.3.0, grafana/loki:3.2.0, prom/prometheus:2.54.0
+     * docker 없이 레지스트리에서 manifest + blob을 받아 OCI layout에 추가
+     * 다른 이미지와 공유하는 blob은 다운로드하지 않으며, 나머지 blob은 registryBlobTaskExecutor에서 병렬로 받는다.
+     * 이전 빌드가 받아 둔 blob은 RegistryBlobCache에서 가져오고, 새로 받은 blob은 digest 검증 후 캐시에 등록한다.
+     * (blob은 workDir에 받아 검증한 뒤 패키지에 append - 체크포인트가 꺼져 있으면 append 후 삭제)
+     * 재개 시에는 체크포인트의 manifest와 이미 받은 blob을 사용하므로 레지스트리에 다시 요청하지 않는다.
      */
-    private List<String> resolveImageList(List<Map<String, Object>> addons) {
-        List<String> result = new ArrayList<>();
-        var mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-        for (Map<String, Object> a : addons) {
-            String images = (String) a.get("upstreamImages");
-            String imageTagsJson = (String) a.get("imageTags");
-            String version = (String) a.get("version");
-            if (images == null || images.isEmpty()) continue;
-            try {
-                List<String> list = mapper.readValue(images,
-                        new com.fasterxml.jackson.core.type.TypeReference<>() {});
-
-                // imageTags JSON 파싱 (key: short name, value: tag)
-                Map<String, String> tagMap = new LinkedHashMap<>();
-                if (imageTagsJson != null && !imageTagsJson.isEmpty()) {
-                    try {
-                        tagMap = mapper.readValue(imageTagsJson,
-                                new com.fasterxml.jackson.core.type.TypeReference<>() {});
-                    } catch (Exception ignored) {}
+    private void exportFromRegistry(String buildHash, OciImageLayoutWriter images, Path imagesDir, String pullTarget,
+                                    String refName, String platform, BuildCheckpoint checkpoint,
+                                    BuildTimeline.Step step) throws IOException, InterruptedException {
+        ImageReference ref = ImageReference.parse(pullTarget);
+        Optional<BuildCheckpoint.ImageEntry> saved = checkpoint.getImage(refName)
+                .filter(entry -> "registry".equals(entry.source()));
+        BuildCheckpoint.ImageEntry entry;
+        String manifestDigest;
+        if (saved.isPresent()) {
+            entry = saved.get();
+            manifestDigest = "checkpoint";
+        } else {
+            OciRegistryClient.ImageManifest manifest = registryClient.resolve(ref, platform);
+            entry = new BuildCheckpoint.ImageEntry("registry", manifest.config(), manifest.layers(),
+                    ref.repoTag() != null ? List.of(ref.repoTag()) : List.of());
+            manifestDigest = OciRegistryClient.shortDigest(manifest.digest());
+        }
+
+        Path blobDir = checkpoint.getBlobDir();
+        List<OciRegistryClient.Descriptor> blobs = new ArrayList<>();
+        blobs.add(entry.config());
+        blobs.addAll(entry.layers());
+        // 한 blob이 실패하거나 빌드가 취소/lease 유실되면 진행 중인 나머지 다운로드도 다음 버퍼에서 멈춘다
+        AtomicBoolean failed = new AtomicBoolean();
+        BooleanSupplier aborted = () -> failed.get() || processRunner.isCancelled(buildHash);
+        List<CompletableFuture<Void>> downloads = new ArrayList<>();
+        for (OciRegistryClient.Descriptor blob : blobs) {
+            downloads.add(CompletableFuture.runAsync(() -> {
+                try {
+                    if (aborted.getAsBoolean()) throw new CancellationException("blob 다운로드 중단: " + blob.digest());
+                    images.addBlob(blob.digest(), blob.size(), (archive, entryPath) -> {
+                        String fileName = blob.digest().replace(':', '_') + ".blob";
+                        Path file = blobDir != null ? blobDir.resolve(fileName) : imagesDir.resolve(fileName);
+                        try {
+                            if ((!Files.exists(file) || Files.size(file) != blob.size())
+                                    && !blobCache.copyTo(blob.digest(), blob.size(), file)) {
+                                registryClient.downloadBlob(ref, blob, file, aborted);
+                                blobCache.put(blob.digest(), file);
+                            }
+                            archive.writeFile(entryPath, file);
+                        } finally {
+                            if (blobDir == null) Files.deleteIfExists(file);
+                        }
+                    });
+                } catch (IOException e) {
+                    failed.set(true);
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    failed.set(true);
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    throw e;
                 }
+            }, registryBlobExecutor));
+        }
+        try {
+            // allOf는 모든 다운로드가 끝난 뒤에 완료되므로 예외를 던질 때 workDir/아카이브에 기록 중인 작업이 없다
+            CompletableFuture.allOf(downloads.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException | CancellationException e) {
+            // 취소/lease 유실이면 먼저 실패한 blob과 상관없이 취소로 처리 (docker 재시도 없이 빌드 종료)
+            checkCancelled(buildHash);
+            Throwable cause = firstFailure(downloads);
+            if (cause instanceof InterruptedException ie) throw ie;
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
 
-                for (String img : list) {
-                    String tag = resolveImageTag(img, tagMap, version);
-                    result.add(img + ":" + tag);
+        OciImageLayoutWriter.BlobInfo config = toBlobInfo(entry.config());
+        List<OciImageLayoutWriter.BlobInfo> layers = entry.layers().stream().map(PackageBuildExecutor::toBlobInfo).toList();
+        step.bytes(blobs.stream().mapToLong(OciRegistryClient.Descriptor::size).sum());
+        step.digest(images.addImage(refName, platform, entry.repoTags(), config, layers));
+        if (saved.isEmpty()) checkpoint.completeImage(refName, entry);
+        log.info("  ✅ registry export [{}]: {} → {} (manifest {}, layer {}개)",
+                platform, pullTarget, refName, manifestDigest, layers.size());
+    }
+
+    private static OciImageLayoutWriter.BlobInfo toBlobInfo(OciRegistryClient.Descriptor descriptor) {
+        return OciImageLayoutWriter.BlobInfo.of(descriptor.digest(), descriptor.size(), descriptor.mediaType());
+    }
+
+    /**
+     * docker manifest inspect로 플랫폼별 manifest digest 조회 (이미지 pull 없이 레지스트리만 조회)
+     * 멀티 아키텍처 이미지는 배열, 단일 이미지는 객체로 반환된다. 조회 실패 시 null.
+     */
+    private String resolveImageDigest(String buildHash, String pullTarget, String platform) throws InterruptedException {
+        StringBuilder output = new StringBuilder();
+        try {
+            if (exec(buildHash, 60, output, "docker", "manifest", "inspect", "--verbose", pullTarget) != 0) return null;
+            JsonNode root = objectMapper.readTree(output.toString());
+            Iterable<JsonNode> entries = root.isArray() ? root : List.of(root);
+            for (JsonNode entry : entries) {
+                JsonNode descriptor = entry.path("Descriptor");
+                JsonNode p = descriptor.path("platform");
+                String entryPlatform = p.path("os").asText() + "/" + p.path("architecture").asText();
+                if (!root.isArray() || platform.startsWith(entryPlatform)) {
+                    String digest = descriptor.path("digest").asText(null);
+                    return (digest == null || digest.isEmpty()) ? null : digest;
                 }
-            } catch (Exception ignored) {}
+            }
+        } catch (IOException e) {
+            log.debug("  manifest digest 조회 실패: {} - {}", pullTarget, e.getMessage());
         }
-        return result;
+        return null;
+    }
+
+    /**
+     * source: registry | docker | cache | checkpoint | delta (지표 태그)
+     */
+    private record ImagePullResult(String image, String platform, boolean success, String source) {}
+
+    /**
+     * 이미지 × 플랫폼의 패키지 내 이름 (images/refs/{이름}.*, 델타 비교 기준)
+     */
+    private static String imageRefName(String image, String platform, boolean multiPlatform) {
+        String archSuffix = multiPlatform ? "_" + platform.replace("linux/", "") : "";
+        return image.replaceAll("[/:@]", "_") + archSuffix;
     }
 
+    // ======================== 델타 패키지 (기준 빌드 대비 변경분만 포함) ========================
+
     /**
-     * 이미지 이름에서 short name을 추출하고 tagMap에서 태그를 찾는다.
-     * 예: "grafana/loki" → shortName="loki" → tagMap.get("loki") = "3.2.0"
+     * 기준 패키지의 chart 파일 삭제 명령 (helm pull 파일명 {chart}-{version}.tgz)
+     * "{chart}-*.tgz"는 이름이 "{chart}-"로 시작하는 다른 chart(grafana → grafana-agent)까지 지우므로 정확한 파일만 지정하고,
+     * 기준 빌드에 버전이 없으면 숫자로 시작하는 버전만 매칭한다.
      */
-    private String resolveImageTag(String imageName, Map<String, String> tagMap, String fallbackVersion) {
-        // 이미지 이름에서 마지막 / 뒤의 부분 추출
-        String shortName = imageName.contains("/")
-                ? imageName.substring(imageName.lastIndexOf("/") + 1)
-                : imageName;
-
-        // 1) tagMap에서 정확히 일치하는 키 찾기
-        if (tagMap.containsKey(shortName)) {
-            return tagMap.get(shortName);
+    private static String removeBaseChart(String chartName, String baseVersion) {
+        if (baseVersion == null || baseVersion.isEmpty()) {
+            return "rm -f \"$BASE_DIR/charts/" + chartName + "\"-[0-9]*.tgz\n";
         }
+        return "rm -f \"$BASE_DIR/charts/" + chartName + "-" + baseVersion + ".tgz\"\n";
+    }
 
-        // 2) tagMap에서 부분 일치 (예: "configmap-reload" → 없으면 스킵)
-        for (Map.Entry<String, String> entry : tagMap.entrySet()) {
-            if (shortName.contains(entry.getKey()) || entry.getKey().contains(shortName)) {
-                return entry.getValue();
+    /**
+     * 델타 기준 빌드에 이미 포함된 이미지 ref 이름, chart 버전 (chart 이름 → 버전, 미지정이면 null), blob digest
+     * (blob 기록이 없는 이전 빌드가 기준이면 blobDigests는 비어 있고 이미지 ref 단위로만 비교)
+     */
+    private record DeltaBase(String buildHash, Set<String> imageRefs, Map<String, String> charts,
+                             Set<String> blobDigests) {
+        boolean isUnchangedChart(String chartName, String version) {
+            return version != null && !version.isEmpty() && version.equals(charts.get(chartName));
+        }
+    }
+
+    private DeltaBase loadDeltaBase(PackageBuildDto.BuildRequest request) throws IOException {
+        if (request.getBaseBuildHash() == null || request.getBaseBuildHash().isBlank()) return null;
+        PackageBuild base = buildRepository.findByBuildHash(request.getBaseBuildHash())
+                .orElseThrow(() -> new IllegalStateException("델타 기준 빌드를 찾을 수 없습니다: " + request.getBaseBuildHash()));
+        List<ResolvedAddon> baseAddons = ResolvedAddon.fromJson(base.getSelectedAddons(), objectMapper);
+        PackageBuildDto.BuildRequest baseRequest = PackageBuildDto.BuildRequest.from(base);
+
+        Set<String> imageRefs = new LinkedHashSet<>();
+        for (String image : ResolvedAddon.imageList(baseAddons)) {
+            for (String p : baseRequest.getPlatforms()) {
+                imageRefs.add(imageRefName(image, p.trim(), baseRequest.isMultiPlatform()));
             }
         }
+        Map<String, String> charts = new LinkedHashMap<>();
+        for (ResolvedAddon a : baseAddons) {
+            String chartName = a.repoChartName();
+            if (chartName != null) charts.put(chartName, a.helmChartVersion());
+        }
+        Set<String> blobDigests = new HashSet<>(artifactRepository.findDigests(base.getId(), ArtifactType.BLOB));
+        return new DeltaBase(base.getBuildHash(), imageRefs, charts, blobDigests);
+    }
+
+    /**
+     * delta-manifest.json + scripts/apply-delta.sh 생성
+     * apply-delta.sh는 기준 패키지 디렉토리에서 제거/교체될 이미지·chart를 지운 뒤 델타 내용을 덮어쓴다.
+     * 추가된 이미지의 blob 중 기준 패키지에 있는 것은 델타에 없고, 병합 시 기준 패키지의 blobs/를 그대로 쓴다.
+     * (deploy.sh/values/scripts 등 생성 파일은 델타에도 항상 전체 포함)
+     */
+    private void generateDeltaFiles(PackageArchiveWriter archive, DeltaBase delta, List<ResolvedAddon> addons,
+                                    PackageBuildDto.BuildRequest request, String buildHash,
+                                    OciImageLayoutWriter images) throws IOException {
+        Set<String> imageRefs = new LinkedHashSet<>();
+        for (String image : new LinkedHashSet<>(ResolvedAddon.imageList(addons))) {
+            for (String p : request.getPlatforms()) {
+                imageRefs.add(imageRefName(image, p.trim(), request.isMultiPlatform()));
+            }
+        }
+        List<String> addedImages = imageRefs.stream().filter(f -> !delta.imageRefs().contains(f)).toList();
+        List<String> unchangedImages = imageRefs.stream().filter(f -> delta.imageRefs().contains(f)).toList();
+        List<String> removedImages = delta.imageRefs().stream().filter(f -> !imageRefs.contains(f)).toList();
+
+        Map<String, String> charts = new LinkedHashMap<>();
+        for (ResolvedAddon a : addons) {
+            String chartName = a.repoChartName();
+            if (chartName != null) charts.put(chartName, a.helmChartVersion());
+        }
+        List<String> changedCharts = charts.entrySet().stream()
+                .filter(e -> !delta.isUnchangedChart(e.getKey(), e.getValue()))
+                .map(Map.Entry::getKey).toList();
+        List<String> removedCharts = delta.charts().keySet().stream()
+                .filter(c -> !charts.containsKey(c)).toList();
+
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("buildHash", buildHash);
+        manifest.put("baseBuildHash", delta.buildHash());
+        manifest.put("addedImages", addedImages);
+        manifest.put("unchangedImages", unchangedImages);
+        manifest.put("removedImages", removedImages);
+        manifest.put("changedCharts", changedCharts);
+        manifest.put("removedCharts", removedCharts);
+        // 기준 패키지에 있어 델타에서 제외한 blob (병합 시 기준 패키지의 blobs/ 사용)
+        List<String> reusedBlobs = images.getReferencedBlobs().keySet().stream()
+                .filter(delta.blobDigests()::contains).sorted().toList();
+        manifest.put("reusedBlobs", reusedBlobs);
+        archive.writeText("delta-manifest.json",
+                objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(manifest));
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("#!/bin/bash\n");
+        sb.append("# ============================================================\n");
+        sb.append("# 델타 패키지 병합 스크립트\n");
+        sb.append("# 기준 빌드: ").append(delta.buildHash()).append(" → 빌드: ").append(buildHash).append("\n");
+        sb.append("# 사용법: bash scripts/apply-delta.sh <기준 패키지를 압축 해제한 디렉토리>\n");
+        sb.append("# ============================================================\n");
+        sb.append("set -euo pipefail\n\n");
+        sb.append("DELTA_DIR=\"$(cd \"$(dirname \"$0\")/..\" && pwd)\"\n");
+        sb.append("BASE_DIR=\"${1:-}\"\n");
+        sb.append("if [ -z \"$BASE_DIR\" ] || [ ! -d \"$BASE_DIR\" ]; then\n");
+        sb.append("  echo \"사용법: $0 <기준 패키지 디렉토리 (빌드 ").append(delta.buildHash()).append(")>\"\n");
+        sb.append("  exit 1\n");
+        sb.append("fi\n");
+        sb.append("BASE_DIR=\"$(cd \"$BASE_DIR\" && pwd)\"\n");
+        sb.append("if [ \"$(basename \"$BASE_DIR\")\" != \"").append(delta.buildHash()).append("\" ]; then\n");
+        sb.append("  echo \"⚠️  기준 디렉토리 이름이 기준 빌드 해시(").append(delta.buildHash())
+                .append(")와 다릅니다. 올바른 패키지인지 확인하세요.\"\n");
+        sb.append("fi\n\n");
 
-        // 3) fallback: 공식 이미지(슬래시 없음)는 latest, 그 외는 version
-        if (!imageName.contains("/")) {
-            return "latest";
+        sb.append("echo \"🧹 제거/교체 대상 정리\"\n");
+        for (String f : removedImages) {
+            // refs 정의 삭제 (blob은 병합 후 참조 여부로 정리) + 이전 형식(.tar) 패키지 호환
+            sb.append("rm -f \"$BASE_DIR/images/refs/").append(f).append("\".* \"$BASE_DIR/images/").append(f).append(".tar\"\n");
         }
-        return fallbackVersion != null ? fallbackVersion : "latest";
+        for (String c : removedCharts) {
+            sb.append(removeBaseChart(c, delta.charts().get(c)));
+        }
+        for (String c : changedCharts) {
+            if (delta.charts().containsKey(c)) sb.append(removeBaseChart(c, delta.charts().get(c)));
+        }
+        sb.append("\necho \"📦 델타 내용 병합: $DELTA_DIR → $BASE_DIR\"\n");
+        sb.append("cp -a \"$DELTA_DIR\"/. \"$BASE_DIR\"/\n\n");
+
+        // 델타의 index.json은 델타 이미지만 담고 있으므로 병합된 refs 기준으로 다시 만들고, 어떤 이미지도 참조하지 않는 blob 삭제
+        sb.append("IMG_DIR=\"$BASE_DIR/images\"\n");
+        sb.append("if [ -d \"$IMG_DIR/refs\" ]; then\n");
+        sb.append("  echo \"🔗 images/index.json 재생성 + 미사용 blob 정리\"\n");
+        sb.append("  {\n");
+        sb.append("    printf '{\"schemaVersion\":2,\"mediaType\":\"application/vnd.oci.image.index.v1+json\",\"manifests\":['\n");
+        sb.append("    first=1\n");
+        sb.append("    for d in \"$IMG_DIR\"/refs/*.descriptor.json; do\n");
+        sb.append("      [ -f \"$d\" ] || continue\n");
+        sb.append("      [ \"$first\" -eq 1 ] || printf ','\n");
+        sb.append("      first=0\n");
+        sb.append("      tr -d '\\n' < \"$d\"\n");
+        sb.append("    done\n");
+        sb.append("    printf ']}\\n'\n");
+        sb.append("  } > \"$IMG_DIR/index.json\"\n");
+        sb.append("  KEEP=\"$(mktemp)\"\n");
+        sb.append("  cat \"$IMG_DIR\"/refs/*.blobs > \"$KEEP\" 2>/dev/null || true\n");
+        sb.append("  sed -n 's|.*\"digest\":\"sha256:\\([0-9a-f]*\\)\".*|blobs/sha256/\\1|p' \"$IMG_DIR\"/refs/*.descriptor.json >> \"$KEEP\" 2>/dev/null || true\n");
+        sb.append("  for b in \"$IMG_DIR\"/blobs/sha256/*; do\n");
+        sb.append("    [ -f \"$b\" ] || continue\n");
+        sb.append("    grep -qxF \"blobs/sha256/$(basename \"$b\")\" \"$KEEP\" || rm -f \"$b\"\n");
+        sb.append("  done\n");
+        sb.append("  rm -f \"$KEEP\"\n");
+        sb.append("fi\n\n");
+        sb.append("echo \"✅ 병합 완료 (이미지 추가 ").append(addedImages.size()).append("개, 유지 ")
+                .append(unchangedImages.size()).append("개, 제거 ").append(removedImages.size()).append("개)\"\n");
+        sb.append("echo \"   다음 단계: cd $BASE_DIR && bash deploy.sh install-all\"\n");
+        archive.writeText("scripts/apply-delta.sh", sb.toString());
+
+        log.info("델타 패키지: 기준={}, 이미지 추가={}, 유지={}, 제거={}, chart 변경={}, 제거={}, 기준 패키지 blob 재사용={}",
+                delta.buildHash(), addedImages.size(), unchangedImages.size(), removedImages.size(),
+                changedCharts.size(), removedCharts.size(), reusedBlobs.size());
     }
 
     /**
      * 고객사 내부 레지스트리에 이미지 push 스크립트 생성
      */
-    private void generatePushToRegistryScript(Path buildDir, List<Map<String, Object>> addons,
+    private void generatePushToRegistryScript(PackageArchiveWriter archive, List<ResolvedAddon> addons,
                                               PackageBuildDto.BuildRequest request) throws IOException {
-        Path scriptsDir = buildDir.resolve("scripts");
-        Files.createDirectories(scriptsDir);
 
         StringBuilder sb = new StringBuilder();
         sb.append("#!/bin/bash\n");
@@ -1098,13 +1090,10 @@ public class PackageBuildExecutor {
         sb.append("echo \"========================================\"\n\n");
 
         // 이미지 로드 → 태그 → push
-        List<String> allImages = resolveImageList(addons);
+        List<String> allImages = ResolvedAddon.imageList(addons);
         sb.append("echo \"📦 이미지 로드 중...\"\n");
-        sb.append("for img in $BASE_DIR/images/*.tar; do\n");
-        sb.append("  [ -f \"$img\" ] || continue\n");
-        sb.append("  echo \"  로드: $(basename $img)\"\n");
-        sb.append("  docker load -i \"$img\"\n");
-        sb.append("done\n\n");
+        scriptGenerator.appendOciImageLoader(sb);
+        sb.append("load_all_images \"$BASE_DIR/images\"\n\n");
 
         sb.append("echo \"\"\necho \"🏷️  태그 + Push 시작...\"\n\n");
 
@@ -1119,70 +1108,152 @@ public class PackageBuildExecutor {
         sb.append("echo \"========================================\"\n");
         sb.append("echo \"  ✅ Push 완료: $REGISTRY\"\n");
         sb.append("echo \"========================================\"\n");
-        writeFile(scriptsDir.resolve("push-to-registry.sh"), sb.toString());
+        archive.writeText("scripts/push-to-registry.sh", sb.toString());
     }
 
     /**
-     * 외부 프로세스 실행 헬퍼 (기본 타임아웃 10분)
+     * 외부 프로세스 실행 헬퍼 (기본 타임아웃 10분, buildHash 단위로 취소 가능)
      */
-    private int exec(String... command) throws IOException, InterruptedException {
-        return exec(600, command);
+    private int exec(String buildHash, String... command) throws IOException, InterruptedException {
+        return exec(buildHash, 600, null, command);
     }
 
     /**
-     * 외부 프로세스 실행 헬퍼 (타임아웃 지정, 초 단위)
+     * 외부 프로세스 실행 헬퍼 (타임아웃 초 단위, output이 있으면 출력의 마지막 부분을 담음)
+     */
+    private int exec(String buildHash, int timeoutSeconds, StringBuilder output, String... command)
+            throws IOException, InterruptedException {
+        ProcessRunner.Result result = processRunner.run(buildHash, Duration.ofSeconds(timeoutSeconds), command);
+        if (output != null) output.append(result.output());
+        return result.exitCode();
+    }
+
+    // ======================== 유틸리티 ========================
+
+    /**
+     * docker save 결과를 OCI layout에 추가 (체크포인트가 켜져 있으면 재개용으로 tar 보관, 아니면 삭제)
      */
-    private int exec(int timeoutSeconds, String... command) throws IOException, InterruptedException {
-        ProcessBuilder pb = new ProcessBuilder(command)
-                .redirectErrorStream(true);
-        Process process = pb.start();
-
-        // 출력 소비 (프로세스 블로킹 방지)
-        try (var reader = new java.io.BufferedReader(new java.io.InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                log.debug("[exec] {}", line);
+    private void addDockerImage(OciImageLayoutWriter images, BuildCheckpoint checkpoint, Path tarPath,
+                                String refName, String platform, BuildTimeline.Step step)
+            throws IOException, InterruptedException {
+        boolean keep = false;
+        try {
+            step.bytes(Files.size(tarPath));
+            step.digest(images.addDockerArchive(tarPath, refName, platform));
+            if (checkpoint.isEnabled()) {
+                checkpoint.completeImage(refName, new BuildCheckpoint.ImageEntry("docker", null, List.of(), List.of()));
+                keep = true;
             }
+        } finally {
+            if (!keep) Files.deleteIfExists(tarPath);
         }
+    }
 
-        boolean finished = process.waitFor(timeoutSeconds, java.util.concurrent.TimeUnit.SECONDS);
-        if (!finished) {
-            log.error("[exec] 타임아웃 ({}초): {}", timeoutSeconds, String.join(" ", command));
-            process.destroyForcibly();
-            return -1;
+    /**
+     * 임시 파일을 패키지에 append 한 뒤 즉시 삭제 (디스크에는 패키지 1벌만 유지)
+     */
+    private void appendAndDelete(PackageArchiveWriter archive, String relativePath, Path file) throws IOException {
+        try {
+            archive.writeFile(relativePath, file);
+        } finally {
+            Files.deleteIfExists(file);
         }
+    }
 
-        int exitCode = process.exitValue();
-        if (exitCode != 0) {
-            log.warn("[exec] 종료 코드 {}: {}", exitCode, String.join(" ", command));
-        }
-        return exitCode;
+    private Integer compressionLevel(PackageBuildDto.BuildRequest request) {
+        if (request.getCompressionLevel() != null) return request.getCompressionLevel();
+        return request.getArchiveFormat() == ArchiveFormat.TAR_ZST ? zstdLevel : null;
     }
 
-    // ======================== 유틸리티 ========================
+    /**
+     * 진행률 갱신 - DB 반영은 BuildProgressTracker가 모아서 처리
+     */
+    private void updateProgress(PackageBuild build, int progress) {
+        build.setProgress(progress);
+        progressTracker.update(build.getBuildHash(), progress);
+        buildEvents.progress(build.getBuildHash(), progress);
+    }
 
-    private void writeFile(Path path, String content) throws IOException {
-        Files.writeString(path, content, StandardCharsets.UTF_8);
+    private void enterStage(PackageBuild build, String stage) {
+        checkCancelled(build.getBuildHash());
+        buildMetrics.enterStage(build.getBuildHash(), stage);
+        buildTimeline.stage(build.getBuildHash(), stage);
+        buildEvents.stage(build.getBuildHash(), stage, build.getProgress() != null ? build.getProgress() : 0);
     }
 
-    private String sanitizeDomain(String domain) {
-        if (domain == null || domain.isBlank()) return "example.com";
-        return domain.replaceAll("[,;\\s]+", "").trim();
+    /**
+     * 단계 완료를 체크포인트 파일과 DB(checkpoint_stage)에 기록
+     */
+    private void completeStage(PackageBuild build, BuildCheckpoint checkpoint, String stage) throws IOException {
+        checkpoint.completeStage(stage);
+        build.setCheckpointStage(stage);
+        buildRepository.updateCheckpointStage(build.getId(), stage);
     }
 
-    private String sanitizeNamespace(String ns) {
-        if (ns == null || ns.isBlank()) return "devops";
-        return ns.replaceAll("[^a-zA-Z0-9\\-]", "").trim();
+    /**
+     * 병렬 작업이 모두 끝날 때까지 대기 (결과/예외 무시)
+     * CompletableFuture.cancel은 실행 중인 작업을 멈추지 않으므로, 실패 직후 반환하면 남은 작업이
+     * 정리 중인 workDir이나 닫힌 아카이브에 계속 기록한다. 작업은 checkCancelled / 다운로드 중단 확인으로 빨리 끝난다.
+     */
+    private static void awaitAll(List<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException | CancellationException ignored) {
+            }
+        }
     }
 
-    private void updateProgress(PackageBuild build, int progress) {
-        build.setProgress(progress);
-        buildRepository.save(build);
+    /**
+     * 모두 끝난 작업 중 실패 원인 - 다른 작업의 실패로 중단된 경우(CancellationException)보다 원래 원인을 우선
+     */
+    private static Throwable firstFailure(List<? extends CompletableFuture<?>> futures) {
+        Throwable cancelled = null;
+        for (CompletableFuture<?> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof CancellationException)) return e.getCause();
+                cancelled = e.getCause();
+            } catch (CancellationException e) {
+                cancelled = e;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * 취소 요청된 빌드면 CancellationException (단계/이미지/blob 경계에서 호출)
+     */
+    private void checkCancelled(String buildHash) {
+        if (processRunner.isCancelled(buildHash)) {
+            throw new CancellationException("빌드 취소됨: " + buildHash);
+        }
+    }
+
+    private static boolean isInterrupted(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof InterruptedException || t instanceof ClosedByInterruptException) return true;
+        }
+        return Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * 실패/취소 종료 기록 - lease를 잃어 반영하지 못했으면 false
+     */
+    private boolean finishBuild(Long buildId, String leaseToken, BuildStatus status, int progress) {
+        return buildRepository.finishLeased(buildId, leaseToken, BuildStatus.BUILDING, status, progress) > 0;
     }
 
-    private long countFiles(Path dir) {
-        try { return Files.walk(dir).filter(Files::isRegularFile).count(); }
-        catch (Exception e) { return -1; }
+    /**
+     * 병렬 작업에서 호출되는 진행률 갱신 (증가하는 경우에만 반영)
+     */
+    private void advanceProgress(PackageBuild build, int progress) {
+        synchronized (build) {
+            if (build.getProgress() == null || progress > build.getProgress()) {
+                updateProgress(build, progress);
+            }
+        }
     }
 
     private void deleteDirectory(Path dir) throws IOException {
@@ -5,7 +5,9 @@ import com.osc.devops.addon.entity.Addon;
 import com.osc.devops.addon.entity.AddonVersion;
 import com.osc.devops.addon.repository.AddonRepository;
 import com.osc.devops.addon.repository.AddonVersionRepository;
+import com.osc.devops.common.enums.ArchiveFormat;
 import com.osc.devops.common.enums.BuildStatus;
+import com.osc.devops.common.enums.BuildStepType;
 import com.osc.devops.common.exception.BadRequestException;
 import com.osc.devops.common.exception.NotFoundException;
 import com.osc.devops.customer.entity.Customer;
@@ -14,19 +16,30 @@ import com.osc.devops.customer.repository.CustomerRepository;
 import com.osc.devops.customer.repository.ProjectRepository;
 import com.osc.devops.packages.dto.PackageBuildDto;
 import com.osc.devops.packages.entity.PackageBuild;
+import com.osc.devops.packages.entity.PackageBuildStep;
+import com.osc.devops.packages.repository.PackageBuildArtifactRepository;
 import com.osc.devops.packages.repository.PackageBuildRepository;
+import com.osc.devops.packages.repository.PackageBuildStepRepository;
+import com.osc.devops.packages.scheduler.PackageBuildScheduler;
+import com.osc.devops.packages.storage.ArtifactStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -41,12 +54,38 @@ public class PackageBuildService {
     private final AddonVersionRepository addonVersionRepository;
     private final CustomerRepository customerRepository;
     private final ProjectRepository projectRepository;
-    private final PackageBuildExecutor buildExecutor;
+    private final PackageBuildScheduler buildScheduler;
+    private final ImageTarballCache imageCache;
+    private final RegistryBlobCache blobCache;
+    private final HelmChartCache chartCache;
+    private final BuildProgressTracker progressTracker;
+    private final BuildEventBroadcaster buildEvents;
+    private final PackageBuildDeduplicator deduplicator;
+    private final ProcessRunner processRunner;
+    private final BuildLeaseManager buildLeases;
+    private final PackageBuildStepRepository stepRepository;
+    private final PackageBuildArtifactRepository artifactRepository;
+    private final ArtifactStore artifactStore;
     private final ObjectMapper objectMapper;
 
+    @Value("${package.build.storage-path:/tmp/devops-platform/packages}")
+    private String storagePath;
+
     @Value("${package.build.expire-days:30}")
     private int expireDays;
 
+    @Value("${package.build.queue.max-queued:50}")
+    private long maxQueued;
+
+    @Value("${package.build.queue.priority.production:20}")
+    private int productionPriority;
+
+    @Value("${package.build.queue.priority.staging:10}")
+    private int stagingPriority;
+
+    @Value("${package.build.queue.priority.airgapped:0}")
+    private int airgappedPriority;
+
     // ======================== 빌드 시작 ========================
 
     @Transactional
@@ -62,8 +101,21 @@ public class PackageBuildService {
                     .orElseThrow(() -> new NotFoundException("프로젝트를 찾을 수 없습니다."));
         }
 
-        String buildHash = generateBuildHash(request);
+        validateCompression(request);
+        validateDeltaBase(request);
         List<Map<String, Object>> addonInfoList = resolveAddonSelections(request.getAddons());
+        String fingerprint = deduplicator.fingerprint(addonInfoList, request);
+
+        // 같은 고객사/프로젝트의 동일 구성 빌드가 완료됐거나 진행 중이면 그 빌드를 그대로 반환
+        Optional<PackageBuild> reusable = deduplicator.findReusable(fingerprint);
+        Optional<PackageBuild> sameOwner = reusable.filter(b -> isSameOwner(b, request))
+                .or(() -> deduplicator.findInFlight(fingerprint).filter(b -> isSameOwner(b, request)));
+        if (sameOwner.isPresent()) {
+            log.info("♻️ 동일 구성 빌드 반환: hash={}, status={}", sameOwner.get().getBuildHash(), sameOwner.get().getStatus());
+            return toResponse(sameOwner.get());
+        }
+
+        String buildHash = generateBuildHash(request);
 
         String selectedAddonsJson;
         try {
@@ -76,6 +128,7 @@ public class PackageBuildService {
                 .customer(customer)
                 .project(project)
                 .buildHash(buildHash)
+                .fingerprint(fingerprint)
                 .selectedAddons(selectedAddonsJson)
                 .builtBy(request.getBuiltBy())
                 .keycloakEnabled(request.isKeycloakEnabled())
@@ -85,24 +138,57 @@ public class PackageBuildService {
                 .deployEnv(request.getDeployEnv())
                 .registryUrl(request.getRegistryUrl())
                 .platform(request.getPlatform())
-                .status(BuildStatus.BUILDING)
+                .archiveFormat(request.getArchiveFormat())
+                .compressionLevel(request.getCompressionLevel())
+                .baseBuildHash(request.getBaseBuildHash())
+                .status(BuildStatus.QUEUED)
+                .priority(resolvePriority(customer, request))
                 .progress(0)
                 .expiresAt(LocalDateTime.now().plusDays(expireDays))
                 .build();
+
+        // 다른 고객사/프로젝트의 동일 구성 결과물이 로컬 저장소에 있으면 hardlink로 즉시 완료
+        // (원격 저장소는 QUEUED로 저장 → scheduler가 lease를 잡고 트랜잭션 밖에서 복사 후 SUCCESS 처리)
+        if (reusable.isPresent() && deduplicator.linkArtifact(reusable.get(), build)) {
+            deleteArtifactOnRollback(build.getFilePath());
+            return toResponse(buildRepository.save(build));
+        }
+        // 재사용 대기 빌드는 실행 슬롯을 쓰지 않고 바로 처리되므로 대기열 상한에서 제외
+        // 상한 확인 + 저장은 admission 잠금 행을 잡고 실행 (동시 요청/여러 replica가 함께 상한을 넘지 않도록, 커밋 시 해제)
+        if (reusable.isEmpty()) {
+            buildRepository.lockQueueAdmission();
+            if (buildRepository.countByStatus(BuildStatus.QUEUED) >= maxQueued) {
+                throw new BadRequestException("빌드 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요. (최대 " + maxQueued + "건)");
+            }
+        }
         build = buildRepository.save(build);
 
-        // 트랜잭션 커밋 후 비동기 빌드 실행 (커밋 전 @Async 호출 시 레코드 조회 실패 방지)
-        final Long buildId = build.getId();
-        final List<Map<String, Object>> finalAddonInfoList = addonInfoList;
-        final PackageBuildDto.BuildRequest finalRequest = request;
+        // 트랜잭션 커밋 후 대기열 dispatch (커밋 전에는 scheduler가 QUEUED 레코드를 볼 수 없음)
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
-                buildExecutor.executeBuild(buildId, finalAddonInfoList, finalRequest);
+                buildScheduler.dispatch();
             }
         });
 
-        return PackageBuildDto.Response.from(build);
+        return toResponse(build);
+    }
+
+    /**
+     * 요청 트랜잭션이 롤백되면 먼저 만든 결과물 복제본 삭제 (어떤 빌드도 가리키지 않는 파일이 남지 않도록)
+     */
+    private void deleteArtifactOnRollback(String location) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) return;
+                try {
+                    artifactStore.delete(location);
+                } catch (IOException e) {
+                    log.warn("롤백된 빌드의 결과물 복제본 삭제 실패: {} - {}", location, e.getMessage());
+                }
+            }
+        });
     }
 
     // ======================== 조회 ========================
@@ -117,38 +203,188 @@ public class PackageBuildService {
         } else {
             page = buildRepository.findByOrderByCreatedAtDesc(pageable);
         }
-        return page.map(PackageBuildDto.Response::from);
+        return page.map(this::toResponse);
     }
 
     @Transactional(readOnly = true)
     public PackageBuildDto.Response getBuild(Long id) {
         return buildRepository.findById(id)
-                .map(PackageBuildDto.Response::from)
+                .map(this::toResponse)
                 .orElseThrow(() -> new NotFoundException("빌드를 찾을 수 없습니다."));
     }
 
     @Transactional(readOnly = true)
     public PackageBuildDto.Response getBuildByHash(String hash) {
+        // 진행 중인 빌드는 메모리 스냅샷으로 응답 (DB 조회 없음)
+        Optional<PackageBuildDto.Response> live = progressTracker.getSnapshot(hash);
+        if (live.isPresent()) return live.get();
         return buildRepository.findByBuildHash(hash)
-                .map(PackageBuildDto.Response::from)
+                .map(this::toResponse)
                 .orElseThrow(() -> new NotFoundException("빌드를 찾을 수 없습니다."));
     }
 
-    public File getBuildFile(String hash) {
+    /**
+     * 빌드 진행 이벤트 구독 (SSE)
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter subscribeEvents(String hash) {
+        SseEmitter emitter = buildEvents.subscribe(getBuildByHash(hash));
+        // 구독 직전에 빌드가 끝났으면 종료 이벤트를 놓치므로 한 번 더 확인
+        PackageBuildDto.Response latest = getBuildByHash(hash);
+        if (!latest.getStatus().isActive()) {
+            buildEvents.complete(hash, latest.getStatus(), latest.getProgress());
+        }
+        return emitter;
+    }
+
+    private boolean isSameOwner(PackageBuild build, PackageBuildDto.BuildRequest request) {
+        Long customerId = build.getCustomer() != null ? build.getCustomer().getId() : null;
+        Long projectId = build.getProject() != null ? build.getProject().getId() : null;
+        return Objects.equals(customerId, request.getCustomerId()) && Objects.equals(projectId, request.getProjectId());
+    }
+
+    private PackageBuildDto.Response toResponse(PackageBuild build) {
+        PackageBuildDto.Response response = PackageBuildDto.Response.from(build);
+        if (build.getStatus() == BuildStatus.QUEUED) {
+            long ahead = buildRepository.countQueuedAhead(BuildStatus.QUEUED, build.getPriority(), build.getId());
+            return response.toBuilder().queuePosition((int) ahead + 1).build();
+        }
+        if (build.getStatus() != BuildStatus.BUILDING) return response;
+        return progressTracker.getProgress(build.getBuildHash())
+                .map(progress -> response.toBuilder().progress(progress).build())
+                .orElse(response);
+    }
+
+    /**
+     * 빌드 취소
+     * - 대기 중: 바로 CANCELLED (중단 후 대기열로 돌아온 빌드면 재개용 작업 디렉토리도 삭제)
+     * - 실행 중: 실행 중인 helm/docker 프로세스를 종료하고, executor가 다음 단계 경계에서 CANCELLED 처리
+     *   다른 replica가 실행 중이면 cancel_requested를 기록하고 그 replica가 heartbeat에서 반영
+     */
+    public PackageBuildDto.Response cancelBuild(String hash) {
         PackageBuild build = buildRepository.findByBuildHash(hash)
                 .orElseThrow(() -> new NotFoundException("빌드를 찾을 수 없습니다."));
+        if (!build.getStatus().isActive()) {
+            throw new BadRequestException("이미 종료된 빌드입니다. (status: " + build.getStatus() + ")");
+        }
+
+        if (buildRepository.transitionStatus(build.getId(), BuildStatus.QUEUED, BuildStatus.CANCELLED, null) > 0) {
+            deleteWorkDir(hash);
+            buildEvents.complete(hash, BuildStatus.CANCELLED, build.getProgress());
+            log.info("대기 중인 빌드 취소: hash={}", hash);
+        } else {
+            // 그 사이 실행이 시작된 경우 포함
+            buildLeases.requestCancel(build.getId(), hash);
+            log.info("실행 중인 빌드 취소 요청: hash={}", hash);
+        }
+        return getBuildByHash(hash);
+    }
+
+    public PackageBuildDto.DownloadFile getBuildFile(String hash) {
+        PackageBuild build = buildRepository.findByBuildHash(hash)
+                .orElseThrow(() -> new NotFoundException("빌드를 찾을 수 없습니다."));
+        if (build.getStatus() == BuildStatus.EXPIRED) {
+            throw new NotFoundException("만료되어 삭제된 빌드입니다.");
+        }
         if (build.getStatus() != BuildStatus.SUCCESS || build.getFilePath() == null) {
             throw new BadRequestException("빌드가 완료되지 않았거나 파일이 존재하지 않습니다.");
         }
-        File file = new File(build.getFilePath());
-        if (!file.exists()) {
-            throw new NotFoundException("빌드 파일이 존재하지 않습니다.");
+        ArtifactStore.StoredArtifact stored;
+        try {
+            stored = artifactStore.stat(build.getFilePath())
+                    .orElseThrow(() -> new NotFoundException("빌드 파일이 존재하지 않습니다."));
+        } catch (IOException e) {
+            throw new UncheckedIOException("빌드 파일 조회 실패: " + hash, e);
         }
-        return file;
+        return new PackageBuildDto.DownloadFile(build.getBuildHash(), build.getFilePath(),
+                stored.size(), stored.lastModified(), build.getArchiveFormat());
+    }
+
+    /**
+     * 다운로드 시각 기록 (저장 용량 정리 순서 + 모든 replica의 reaper가 보는 사용 중 기준)
+     * 그 사이 만료 처리됐으면 NotFoundException - reaper는 EXPIRED 전환 후 이 값을 다시 읽으므로 둘 중 하나는 상대를 본다
+     */
+    public void recordDownload(String hash) {
+        if (buildRepository.updateLastDownloadedAt(hash, BuildStatus.SUCCESS, LocalDateTime.now()) == 0) {
+            throw new NotFoundException("만료되어 삭제된 빌드입니다.");
+        }
+    }
+
+    /**
+     * 이 replica에서 전송 중인 다운로드의 시각 갱신
+     */
+    public void touchDownloads(Collection<String> hashes) {
+        buildRepository.touchLastDownloadedAt(hashes, LocalDateTime.now());
+    }
+
+    public PackageBuildDto.CacheStats getCacheStats() {
+        return PackageBuildDto.CacheStats.builder()
+                .imageCacheHits(imageCache.getHits())
+                .imageCacheMisses(imageCache.getMisses())
+                .imageCacheSize(imageCache.getSizeBytes())
+                .blobCacheHits(blobCache.getHits())
+                .blobCacheMisses(blobCache.getMisses())
+                .blobCacheSize(blobCache.getSizeBytes())
+                .chartCacheHits(chartCache.getHits())
+                .chartCacheMisses(chartCache.getMisses())
+                .build();
+    }
+
+    public List<PackageBuildDto.ProcessStats> getProcessStats() {
+        return processRunner.getStats();
+    }
+
+    /**
+     * 빌드의 step 타임라인 (빌드 종료 후 기록됨)
+     */
+    @Transactional(readOnly = true)
+    public List<PackageBuildDto.StepResponse> getBuildSteps(String hash) {
+        PackageBuild build = buildRepository.findByBuildHash(hash)
+                .orElseThrow(() -> new NotFoundException("빌드를 찾을 수 없습니다."));
+        return stepRepository.findByBuildIdOrderByStartedAtAscIdAsc(build.getId()).stream()
+                .map(step -> PackageBuildDto.StepResponse.from(step, null))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<PackageBuildDto.ArtifactResponse> getBuildArtifacts(String hash) {
+        PackageBuild build = buildRepository.findByBuildHash(hash)
+                .orElseThrow(() -> new NotFoundException("빌드를 찾을 수 없습니다."));
+        return artifactRepository.findByBuildIdOrderByArtifactTypeAscPathAsc(build.getId()).stream()
+                .map(PackageBuildDto.ArtifactResponse::from)
+                .toList();
+    }
+
+    /**
+     * 최근 recentBuilds개 빌드의 step 중 느린 순 (정렬/페이지는 pageable, 기본 durationMs 내림차순)
+     */
+    @Transactional(readOnly = true)
+    public Page<PackageBuildDto.StepResponse> getSlowestSteps(int recentBuilds, BuildStepType stepType, Pageable pageable) {
+        if (recentBuilds < 1 || recentBuilds > 1000) {
+            throw new BadRequestException("recentBuilds는 1~1000 사이여야 합니다.");
+        }
+        List<Long> buildIds = buildRepository.findRecentIds(PageRequest.of(0, recentBuilds));
+        if (buildIds.isEmpty()) return Page.empty(pageable);
+        Page<PackageBuildStep> steps = stepType == null
+                ? stepRepository.findByBuildIdIn(buildIds, pageable)
+                : stepRepository.findByBuildIdInAndStepType(buildIds, stepType, pageable);
+        return steps.map(step -> PackageBuildDto.StepResponse.from(step, step.getBuild().getBuildHash()));
     }
 
     // ======================== 유틸리티 ========================
 
+    private void deleteWorkDir(String hash) {
+        Path workDir = Paths.get(storagePath, hash + ".work");
+        if (!Files.exists(workDir)) return;
+        try (var paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try { Files.deleteIfExists(p); } catch (IOException ignored) {}
+            });
+        } catch (IOException e) {
+            log.warn("작업 디렉토리 삭제 실패: {} - {}", workDir, e.getMessage());
+        }
+    }
+
     private List<Map<String, Object>> resolveAddonSelections(List<PackageBuildDto.AddonSelection> selections) {
         List<Map<String, Object>> result = new ArrayList<>();
         for (PackageBuildDto.AddonSelection sel : selections) {
@@ -190,6 +426,48 @@ public class PackageBuildService {
         return result;
     }
 
+    /**
+     * 대기열 우선순위: 고객사 환경(PRODUCTION/STAGING) + 폐쇄망 가중치
+     */
+    private int resolvePriority(Customer customer, PackageBuildDto.BuildRequest request) {
+        int priority = 0;
+        if (customer != null && customer.getEnvironment() != null) {
+            priority += switch (customer.getEnvironment().toUpperCase()) {
+                case "PRODUCTION" -> productionPriority;
+                case "STAGING" -> stagingPriority;
+                default -> 0;
+            };
+        }
+        if (request.isAirgapped()) priority += airgappedPriority;
+        return priority;
+    }
+
+    private void validateDeltaBase(PackageBuildDto.BuildRequest request) {
+        String baseHash = request.getBaseBuildHash();
+        if (baseHash == null) return;
+        if (!request.isAirgapped()) {
+            throw new BadRequestException("델타 패키지는 폐쇄망(AIRGAPPED) 빌드에서만 사용할 수 있습니다.");
+        }
+        PackageBuild base = buildRepository.findByBuildHash(baseHash)
+                .orElseThrow(() -> new NotFoundException("델타 기준 빌드를 찾을 수 없습니다: " + baseHash));
+        if (base.getStatus() != BuildStatus.SUCCESS || !"AIRGAPPED".equalsIgnoreCase(base.getDeployEnv())) {
+            throw new BadRequestException("델타 기준 빌드는 완료된 폐쇄망 빌드여야 합니다: " + baseHash);
+        }
+    }
+
+    private void validateCompression(PackageBuildDto.BuildRequest request) {
+        Integer level = request.getCompressionLevel();
+        if (level == null) return;
+        ArchiveFormat format = request.getArchiveFormat();
+        if (!format.isCompressed()) {
+            throw new BadRequestException("압축하지 않는 형식(" + format + ")에는 압축 레벨을 지정할 수 없습니다.");
+        }
+        if (level < format.getMinLevel() || level > format.getMaxLevel()) {
+            throw new BadRequestException(format + " 압축 레벨은 " + format.getMinLevel() + "~"
+                    + format.getMaxLevel() + " 범위여야 합니다.");
+        }
+    }
+
     private String generateBuildHash(PackageBuildDto.BuildRequest request) {
         try {
             String input = request.getCustomerId() + "-" + request.getProjectId() + "-"
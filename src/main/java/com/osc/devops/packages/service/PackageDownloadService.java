@@ -0,0 +1,204 @@
+package com.osc.devops.packages.service;
+
+import com.osc.devops.packages.dto.PackageBuildDto;
+import com.osc.devops.packages.storage.ArtifactStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 패키지 파일 다운로드 (HTTP Range / 조건부 요청 지원)
+ * - ETag는 빌드 해시 기반 strong ETag: 같은 해시의 결과물은 바뀌지 않으므로 이어받기에 그대로 사용 가능
+ * - 단일 범위 Range만 처리 (다중 범위 요청은 전체 응답으로 대체)
+ * - 로컬 저장소: Tomcat sendfile을 사용할 수 있으면 커널 sendfile로 전송하여 서블릿 스레드를 점유하지 않고,
+ *   불가하면 FileChannel.transferTo로 직접 전송한다 (힙에 파일 내용을 올리지 않음)
+ * - S3 저장소: presign이 켜져 있으면 서명 URL로 redirect, 아니면 요청 범위만 Range GET으로 받아 그대로 전달
+ * - 요청 처리 중인 빌드 해시를 세어 두고 PackageStorageReaper는 그 파일을 삭제하지 않는다
+ *   (sendfile / presigned redirect는 요청 처리 후에 전송되므로 lastDownloadedAt 유예 시간으로 보호)
+ * - 다른 replica의 reaper도 볼 수 있도록 전송 시작 시 lastDownloadedAt을 기록하고, 전송 중에는 주기적으로 갱신한다
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PackageDownloadService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    static final long[] UNSATISFIABLE = new long[0];
+
+    private final PackageBuildService buildService;
+    private final ArtifactStore artifactStore;
+
+    // 빌드 해시 → 처리 중인 다운로드 요청 수
+    private final Map<String, Integer> activeDownloads = new ConcurrentHashMap<>();
+
+    public void download(String hash, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // 빌드 상태 확인보다 먼저 등록: reaper는 EXPIRED 전환 후 이 값을 확인하므로 둘 중 하나는 반드시 상대를 본다
+        activeDownloads.merge(hash, 1, Integer::sum);
+        try {
+            send(hash, request, response);
+        } finally {
+            activeDownloads.computeIfPresent(hash, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * 해당 빌드의 파일을 전송 중인지 여부
+     */
+    public boolean isDownloading(String hash) {
+        return activeDownloads.containsKey(hash);
+    }
+
+    /**
+     * 전송 중인 다운로드의 lastDownloadedAt 갱신 (reaper의 download-grace-minutes보다 짧은 주기)
+     */
+    @Scheduled(fixedDelayString = "${package.build.download.touch-interval-ms:60000}")
+    public void touchActiveDownloads() {
+        if (activeDownloads.isEmpty()) return;
+        buildService.touchDownloads(Set.copyOf(activeDownloads.keySet()));
+    }
+
+    private void send(String hash, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PackageBuildDto.DownloadFile download = buildService.getBuildFile(hash);
+        // 응답 헤더를 쓰기 전에 기록 (그 사이 만료 처리됐으면 여기서 NotFound)
+        if (!"HEAD".equalsIgnoreCase(request.getMethod())) buildService.recordDownload(hash);
+        Optional<URI> presigned = artifactStore.presignedUrl(download.getLocation(), download.getFileName(),
+                download.getArchiveFormat().getContentType());
+        if (presigned.isPresent()) {
+            // Range/조건부 요청은 오브젝트 스토리지가 직접 처리
+            log.info("📦 패키지 다운로드 (presigned redirect): {}", download.getFileName());
+            response.sendRedirect(presigned.get().toString());
+            return;
+        }
+
+        long length = download.getSize();
+        long lastModified = download.getLastModified() / 1000 * 1000;
+        String etag = "\"" + download.getBuildHash() + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matchesEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == UNSATISFIABLE) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            if (parsed != null) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(download.getArchiveFormat().getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + download.getFileName() + "\"");
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        Optional<Path> localPath = artifactStore.localPath(download.getLocation());
+        if (localPath.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, localPath.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            log.info("📦 패키지 다운로드 (sendfile): {} [{}-{}/{}]", download.getFileName(), start, end, length);
+            return;
+        }
+
+        log.info("📦 패키지 다운로드: {} [{}-{}/{}]", download.getFileName(), start, end, length);
+        try {
+            artifactStore.read(download.getLocation(), start, count, response.getOutputStream());
+        } catch (IOException e) {
+            // 클라이언트 연결 끊김 (VPN 단절 등) - Range 요청으로 이어받을 수 있음
+            log.warn("패키지 다운로드 중단: {} - {}", download.getFileName(), e.getMessage());
+        }
+    }
+
+    /**
+     * "bytes=a-b" / "bytes=a-" / "bytes=-n" 형식의 단일 범위 해석
+     * 형식이 잘못되었거나 다중 범위면 null (전체 응답), 파일 범위를 벗어나면 UNSATISFIABLE
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=")) return null;
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.contains(",")) return null;
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                if (last.isEmpty()) return null;
+                long suffix = Long.parseLong(last);
+                if (suffix == 0) return UNSATISFIABLE;
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+                if (end < start) return null;
+                end = Math.min(end, length - 1);
+            }
+            if (start >= length) return UNSATISFIABLE;
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * If-Range가 없거나 현재 ETag/Last-Modified와 일치할 때만 Range 적용
+     */
+    static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null || ifRange.isBlank()) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.trim().equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) return true;
+        }
+        return false;
+    }
+}
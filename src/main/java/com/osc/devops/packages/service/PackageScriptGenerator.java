@@ -0,0 +1,143 @@
+package com.osc.devops.packages.service;
+
+import com.osc.devops.packages.dto.PackageBuildDto;
+import com.osc.devops.packages.template.ScriptTemplate;
+import com.osc.devops.packages.template.ScriptTemplates;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 패키지 스크립트/values 생성 (classpath:templates/package/*.tmpl)
+ * - deploy.sh, scripts/configure-keycloak.sh: ScriptModel
+ * - values/{name}.yaml, values/{name}-tls.yaml, values/{name}-keycloak.yaml: ValuesModel
+ *   (애드온 이름의 템플릿이 없으면 _default 템플릿)
+ * 템플릿은 빈 생성 시 한 번 컴파일하고, 빌드마다 ResolvedAddon 목록을 템플릿 모델로 한 번 변환해 렌더링한다.
+ */
+@Component
+public class PackageScriptGenerator {
+
+    private static final String ISSUER = "letsencrypt-prod"; // ClusterIssuer 이름
+    private static final String REALM = "devops";
+
+    private final ScriptTemplates templates;
+
+    public PackageScriptGenerator() {
+        this.templates = ScriptTemplates.load("templates/package", name ->
+                name.endsWith(".sh") ? ScriptModel.class : ValuesModel.class);
+    }
+
+    /**
+     * 스크립트 템플릿 모델 (addons: 선택 순서, installOrder: installOrder 오름차순)
+     */
+    public record ScriptModel(String date, String platform, String namespace, String domain,
+                              boolean airgapped, boolean tlsEnabled, boolean keycloakEnabled,
+                              int addonCount, List<AddonModel> addons, List<AddonModel> installOrder,
+                              List<AddonModel> uninstallOrder, List<AddonModel> ssoAddons, String ssoClients) {}
+
+    /**
+     * @param chartFile   폐쇄망 로컬 chart tgz 이름 (helm pull 결과 파일명이 예측 불가 → {chartFile}-*.tgz glob)
+     * @param remoteChart 인터넷 모드 repo/chart 참조
+     * @param usageName   usage 출력용 (20자 왼쪽 정렬)
+     */
+    public record AddonModel(String name, String displayName, String version, int installOrder,
+                             String funcName, String helmRepoUrl,
+                             String chartFile, String remoteChart, String chartVersion,
+                             boolean keycloakEnabled, String usageName, String secretVar) {}
+
+    public record ValuesModel(String name, String displayName, String version, String domain, String host,
+                              String secretName, String issuer, String keycloakUrl, String realm, String clientId,
+                              boolean airgapped) {}
+
+    public ScriptModel model(List<ResolvedAddon> addons, PackageBuildDto.BuildRequest request) {
+        String domain = sanitizeDomain(request.getDomain());
+        List<AddonModel> models = new ArrayList<>(addons.size());
+        for (ResolvedAddon addon : addons) {
+            models.add(addonModel(addon));
+        }
+        List<AddonModel> ordered = new ArrayList<>(models);
+        ordered.sort(Comparator.comparingInt(AddonModel::installOrder));
+        List<AddonModel> reversed = new ArrayList<>(ordered);
+        Collections.reverse(reversed);
+        List<AddonModel> sso = models.stream()
+                .filter(a -> a.keycloakEnabled() && !"keycloak".equals(a.name()))
+                .toList();
+
+        return new ScriptModel(LocalDate.now().toString(), request.getPlatform(),
+                sanitizeNamespace(request.getNamespace()), domain,
+                request.isAirgapped(), request.isTlsEnabled(), request.isKeycloakEnabled(),
+                ordered.size(), models, ordered, reversed, sso,
+                String.join(", ", sso.stream().map(AddonModel::name).toList()));
+    }
+
+    private static AddonModel addonModel(ResolvedAddon a) {
+        String name = a.name();
+        return new AddonModel(name,
+                a.displayName(),
+                a.version(),
+                a.installOrder(),
+                name.replace("-", "_"),
+                a.helmRepoUrl(),
+                a.chartName(),
+                name + "/" + a.chartName(),
+                a.helmChartVersion(),
+                a.keycloakEnabled(),
+                String.format("%-20s", name),
+                "SECRET_" + name.toUpperCase().replace("-", "_"));
+    }
+
+    public String deployScript(ScriptModel model) {
+        return templates.get("deploy.sh").render(model);
+    }
+
+    public String keycloakConfig(ScriptModel model) {
+        return templates.get("configure-keycloak.sh").render(model);
+    }
+
+    /**
+     * values/ 아래 파일 (패키지 경로 → 내용, 애드온 순서)
+     */
+    public Map<String, String> helmValues(ScriptModel model) {
+        Map<String, String> files = new LinkedHashMap<>();
+        for (AddonModel a : model.addons()) {
+            String name = a.name();
+            ValuesModel values = new ValuesModel(name, a.displayName(), a.version(), model.domain(),
+                    name + "." + model.domain(), name + "-tls", ISSUER,
+                    "https://keycloak." + model.domain(), REALM, name, model.airgapped());
+
+            files.put("values/" + name + ".yaml", template("values/", name).render(values));
+            if (model.tlsEnabled()) {
+                files.put("values/" + name + "-tls.yaml", template("tls/", name).render(values));
+            }
+            if (model.keycloakEnabled() && a.keycloakEnabled()) {
+                files.put("values/" + name + "-keycloak.yaml", template("keycloak/", name).render(values));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 생성 스크립트 공용 이미지 로드 함수 (deploy.sh, push-to-registry.sh)
+     * - load_oci_image <images 디렉토리> <ref 이름>: refs/{ref}.manifest.json + 참조 blob으로
+     *   docker-archive tar를 스트림으로 재구성해 docker load (이미지 tar를 디스크에 다시 만들지 않음)
+     * - load_all_images <images 디렉토리>: refs/ 전체 + 이전 형식 패키지의 images/*.tar
+     */
+    public void appendOciImageLoader(StringBuilder sb) {
+        templates.get("partials/oci-image-loader.sh").renderTo(null, sb);
+    }
+
+    private ScriptTemplate template(String dir, String name) {
+        return templates.getOrDefault(dir + name + ".yaml", dir + "_default.yaml");
+    }
+
+    static String sanitizeDomain(String domain) {
+        if (domain == null || domain.isBlank()) return "example.com";
+        return domain.replaceAll("[,;\\s]+", "").trim();
+    }
+
+    static String sanitizeNamespace(String ns) {
+        if (ns == null || ns.isBlank()) return "devops";
+        return ns.replaceAll("[^a-zA-Z0-9\\-]", "").trim();
+    }
+}
@@ -0,0 +1,203 @@
+package com.osc.devops.packages.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * pigz 방식의 블록 병렬 gzip 스트림
+ * - 입력을 blockSize 단위로 나눠 여러 스레드에서 동시에 deflate
+ * - 각 블록은 직전 블록의 마지막 32KB를 preset dictionary로 사용하고 SYNC_FLUSH로 끝내므로
+ *   출력은 하나의 표준 gzip member가 된다 (tar xzf / gzip -d 로 그대로 해제 가능)
+ * - 블록 결과는 제출 순서대로 기록하며, 동시에 메모리에 올라가는 블록은 threads * 2 개로 제한
+ * CRC32는 호출 스레드에서 순차 계산한다.
+ */
+public class ParallelGzipOutputStream extends FilterOutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final AtomicInteger POOL_SEQ = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final int blockSize;
+    private final int level;
+    private final int maxPending;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+
+    private byte[] block;
+    private int blockLength;
+    private byte[] dictionary;
+    private long totalIn;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out, int blockSize, int threads) throws IOException {
+        this(out, blockSize, threads, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public ParallelGzipOutputStream(OutputStream out, int blockSize, int threads, int level) throws IOException {
+        super(out);
+        if (blockSize < DICTIONARY_SIZE) {
+            throw new IllegalArgumentException("blockSize는 " + DICTIONARY_SIZE + " 이상이어야 합니다: " + blockSize);
+        }
+        int poolSize = Math.max(1, threads);
+        int poolId = POOL_SEQ.incrementAndGet();
+        AtomicInteger threadSeq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, "pgzip-" + poolId + "-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.blockSize = blockSize;
+        this.level = level;
+        this.maxPending = poolSize * 2;
+        this.block = new byte[blockSize];
+        out.write(GZIP_HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        crc.update(b, off, len);
+        totalIn += len;
+        while (len > 0) {
+            int n = Math.min(len, blockSize - blockLength);
+            System.arraycopy(b, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            len -= n;
+            if (blockLength == blockSize) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    /**
+     * 제출된 블록까지의 결과를 모두 기록 (현재 채우는 중인 블록은 유지)
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain(0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        try {
+            submitBlock(true);
+            drain(0);
+            writeTrailer();
+            out.flush();
+        } finally {
+            closed = true;
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        byte[] data = block;
+        int length = blockLength;
+        byte[] dict = dictionary;
+
+        // 다음 블록의 dictionary = 이번 블록의 마지막 32KB
+        if (length > 0) {
+            dictionary = length >= DICTIONARY_SIZE
+                    ? Arrays.copyOfRange(data, length - DICTIONARY_SIZE, length)
+                    : appendTail(dict, data, length);
+        }
+        pending.add(executor.submit(() -> deflateBlock(data, length, dict, last)));
+        block = last ? null : new byte[blockSize];
+        blockLength = 0;
+        drain(maxPending);
+    }
+
+    private byte[] deflateBlock(byte[] data, int length, byte[] dict, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dict != null) deflater.setDictionary(dict);
+            deflater.setInput(data, 0, length);
+            ByteArrayOutputStream result = new ByteArrayOutputStream(Math.max(64, length / 2));
+            byte[] buf = new byte[64 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buf);
+                    result.write(buf, 0, n);
+                }
+            } else {
+                // SYNC_FLUSH: 출력 버퍼가 가득 차지 않을 때까지 반복해야 블록이 byte 경계에서 끝난다
+                int n;
+                do {
+                    n = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+                    result.write(buf, 0, n);
+                } while (n == buf.length);
+            }
+            return result.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 대기 중인 블록이 limit 개 이하가 될 때까지 앞에서부터 순서대로 기록
+     */
+    private void drain(int limit) throws IOException {
+        while (pending.size() > limit) {
+            try {
+                out.write(pending.removeFirst().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("gzip 블록 압축 대기 중 인터럽트");
+            } catch (ExecutionException e) {
+                throw new IOException("gzip 블록 압축 실패", e.getCause());
+            }
+        }
+    }
+
+    private void writeTrailer() throws IOException {
+        writeIntLE((int) crc.getValue());
+        writeIntLE((int) totalIn); // ISIZE: 원본 크기 mod 2^32
+    }
+
+    private void writeIntLE(int v) throws IOException {
+        out.write(v & 0xff);
+        out.write((v >>> 8) & 0xff);
+        out.write((v >>> 16) & 0xff);
+        out.write((v >>> 24) & 0xff);
+    }
+
+    private static byte[] appendTail(byte[] previous, byte[] data, int length) {
+        byte[] prev = previous != null ? previous : new byte[0];
+        int keep = Math.min(prev.length, DICTIONARY_SIZE - length);
+        byte[] dict = new byte[keep + length];
+        System.arraycopy(prev, prev.length - keep, dict, 0, keep);
+        System.arraycopy(data, 0, dict, keep, length);
+        return dict;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("스트림이 이미 닫혔습니다.");
+    }
+}
@@ -0,0 +1,254 @@
+package com.osc.devops.packages.service;
+
+import com.osc.devops.packages.dto.PackageBuildDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 외부 프로세스(helm, docker) 실행기
+ * - 출력은 가상 스레드가 별도로 읽으므로 출력이 계속 나와도 타임아웃(wall-clock)이 지켜진다
+ * - 출력은 마지막 output-buffer-kb 만큼만 보관 (실패 시 로그에 남기고 호출 측에 반환)
+ * - owner(빌드 해시) 단위로 실행 중인 프로세스를 추적해 cancel 시 하위 프로세스까지 종료
+ * - 명령별(예: "docker pull", "helm pull") 실행 횟수/실패/타임아웃/소요 시간 집계
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProcessRunner {
+
+    private final BuildMetrics buildMetrics;
+
+    @Value("${package.build.process.output-buffer-kb:64}")
+    private int outputBufferKb;
+
+    // destroy 후 강제 종료(SIGKILL)까지 대기 시간
+    @Value("${package.build.process.kill-grace-ms:5000}")
+    private long killGraceMs;
+
+    private final Map<String, Set<Process>> running = new ConcurrentHashMap<>();
+    private final Set<String> cancelledOwners = ConcurrentHashMap.newKeySet();
+    private final Map<String, CommandStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 실행 결과 (timedOut/cancelled면 exitCode = -1, output은 출력의 마지막 부분)
+     */
+    public record Result(int exitCode, boolean timedOut, boolean cancelled, long durationMs, String output) {
+        public boolean isSuccess() {
+            return exitCode == 0;
+        }
+    }
+
+    /**
+     * 명령 실행 후 종료(또는 타임아웃/취소)까지 대기
+     *
+     * @param owner 취소 단위 (빌드 해시, 없으면 null)
+     */
+    public Result run(String owner, Duration timeout, String... command) throws IOException, InterruptedException {
+        String commandLine = String.join(" ", command);
+        String key = commandKey(command);
+        CommandStats commandStats = stats.computeIfAbsent(key, k -> new CommandStats());
+        if (owner != null && cancelledOwners.contains(owner)) {
+            return new Result(-1, false, true, 0, "");
+        }
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        if (owner != null) {
+            register(owner, process);
+            // 등록 전에 cancel()이 호출된 경우 (등록 후 확인하므로 둘 중 하나는 반드시 종료시킴)
+            if (cancelledOwners.contains(owner)) terminate(process);
+        }
+
+        OutputBuffer output = new OutputBuffer(outputBufferKb * 1024);
+        Thread pump = Thread.ofVirtual().name("exec-out-" + process.pid()).start(() -> pump(process, output));
+
+        boolean finished = false;
+        try {
+            finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } finally {
+            if (!finished) terminate(process);
+            if (owner != null) unregister(owner, process);
+        }
+        // 하위 프로세스가 파이프를 계속 잡고 있어도 무한정 기다리지 않음
+        pump.join(killGraceMs);
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        boolean cancelled = owner != null && cancelledOwners.contains(owner);
+        boolean timedOut = !finished && !cancelled;
+        int exitCode = finished && !cancelled ? process.exitValue() : -1;
+        commandStats.record(durationMs, exitCode == 0, timedOut);
+        buildMetrics.process(key, timedOut ? "timeout" : cancelled ? "cancelled" : exitCode == 0 ? "success" : "failure",
+                durationMs);
+
+        Result result = new Result(exitCode, timedOut, cancelled, durationMs, output.toString());
+        if (timedOut) {
+            log.error("[exec] 타임아웃 ({}초): {}\n{}", timeout.toSeconds(), commandLine, result.output());
+        } else if (cancelled) {
+            log.info("[exec] 취소됨: {}", commandLine);
+        } else if (exitCode != 0) {
+            log.warn("[exec] 종료 코드 {} ({}ms): {}\n{}", exitCode, durationMs, commandLine, result.output());
+        } else {
+            log.debug("[exec] 완료 ({}ms): {}", durationMs, commandLine);
+        }
+        return result;
+    }
+
+    // 집합 생성/추가와 제거/빈 집합 정리를 같은 compute 안에서 처리 (다른 스레드가 방금 받은 집합을 지우지 않도록)
+    private void register(String owner, Process process) {
+        running.compute(owner, (k, processes) -> {
+            Set<Process> set = processes != null ? processes : ConcurrentHashMap.newKeySet();
+            set.add(process);
+            return set;
+        });
+    }
+
+    private void unregister(String owner, Process process) {
+        running.compute(owner, (k, processes) -> {
+            if (processes == null) return null;
+            processes.remove(process);
+            return processes.isEmpty() ? null : processes;
+        });
+    }
+
+    /**
+     * owner의 실행 중 프로세스를 모두 종료하고, release 전까지 새 실행도 거부
+     */
+    public void cancel(String owner) {
+        cancelledOwners.add(owner);
+        Set<Process> processes = running.getOrDefault(owner, Set.of());
+        log.info("[exec] 취소 요청: owner={}, 실행 중 프로세스 {}개", owner, processes.size());
+        processes.forEach(this::terminate);
+    }
+
+    public boolean isCancelled(String owner) {
+        return owner != null && cancelledOwners.contains(owner);
+    }
+
+    /**
+     * owner 취소 상태 해제 (빌드 종료 시 호출)
+     */
+    public void release(String owner) {
+        cancelledOwners.remove(owner);
+    }
+
+    public List<PackageBuildDto.ProcessStats> getStats() {
+        List<PackageBuildDto.ProcessStats> result = new ArrayList<>();
+        stats.forEach((command, s) -> result.add(s.toDto(command)));
+        result.sort(Comparator.comparing(PackageBuildDto.ProcessStats::getTotalMs).reversed());
+        return result;
+    }
+
+    /**
+     * destroy(SIGTERM) → kill-grace-ms 후에도 살아있으면 destroyForcibly (하위 프로세스 포함)
+     */
+    private void terminate(Process process) {
+        List<ProcessHandle> descendants = process.descendants().toList();
+        descendants.forEach(ProcessHandle::destroy);
+        process.destroy();
+        try {
+            if (!process.waitFor(killGraceMs, TimeUnit.MILLISECONDS)) {
+                descendants.forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            descendants.forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void pump(Process process, OutputBuffer output) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.trace("[exec] {}", line);
+                output.append(line);
+            }
+        } catch (IOException e) {
+            // 프로세스 종료로 스트림이 닫힌 경우
+        }
+    }
+
+    // 실행 파일 이름 + 첫 번째 하위 명령 (옵션 제외)
+    private static String commandKey(String... command) {
+        String key = Paths.get(command[0]).getFileName().toString();
+        if (command.length > 1 && !command[1].startsWith("-")) key += " " + command[1];
+        return key;
+    }
+
+    /**
+     * 최근 출력 줄을 maxChars 이내로 보관하는 링 버퍼
+     */
+    private static class OutputBuffer {
+        private final int maxChars;
+        private final Deque<String> lines = new ArrayDeque<>();
+        private int chars;
+        private boolean truncated;
+
+        OutputBuffer(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        synchronized void append(String line) {
+            lines.addLast(line);
+            chars += line.length() + 1;
+            while (chars > maxChars && lines.size() > 1) {
+                chars -= lines.removeFirst().length() + 1;
+                truncated = true;
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder sb = new StringBuilder(chars + 16);
+            if (truncated) sb.append("...\n");
+            lines.forEach(l -> sb.append(l).append('\n'));
+            return sb.toString();
+        }
+    }
+
+    private static class CommandStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder totalMs = new LongAdder();
+        private final AtomicLong maxMs = new AtomicLong();
+
+        void record(long durationMs, boolean success, boolean timedOut) {
+            count.increment();
+            if (!success) failures.increment();
+            if (timedOut) timeouts.increment();
+            totalMs.add(durationMs);
+            maxMs.accumulateAndGet(durationMs, Math::max);
+        }
+
+        PackageBuildDto.ProcessStats toDto(String command) {
+            long n = count.sum();
+            long total = totalMs.sum();
+            return PackageBuildDto.ProcessStats.builder()
+                    .command(command)
+                    .count(n)
+                    .failures(failures.sum())
+                    .timeouts(timeouts.sum())
+                    .totalMs(total)
+                    .avgMs(n > 0 ? total / n : 0)
+                    .maxMs(maxMs.get())
+                    .build();
+        }
+    }
+}
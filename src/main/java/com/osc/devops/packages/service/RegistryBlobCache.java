@@ -0,0 +1,217 @@
+package com.osc.devops.packages.service;
+
+import com.osc.devops.packages.registry.OciRegistryClient;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 빌드 간 공유되는 레지스트리 blob 캐시 (image-export.mode=registry)
+ * 키: blob digest → {cache-dir}/{algorithm}_{hex}.blob
+ * 레지스트리에서 받아 digest/크기 검증을 마친 blob만 등록하며,
+ * 최근 사용 시각(파일 mtime) 기준 LRU로 max-size-gb를 넘지 않도록 정리한다.
+ */
+@Slf4j
+@Component
+public class RegistryBlobCache {
+
+    private static final String SUFFIX = ".blob";
+
+    @Value("${package.build.blob-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${package.build.blob-cache.path:}")
+    private String cachePath;
+
+    @Value("${package.build.storage-path:/tmp/devops-platform/packages}")
+    private String storagePath;
+
+    @Value("${package.build.blob-cache.max-size-gb:50}")
+    private long maxSizeGb;
+
+    private Path cacheDir;
+    private final AtomicLong currentBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // 조회/적재는 동시에, eviction은 단독으로 실행
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) return;
+        cacheDir = (cachePath == null || cachePath.isBlank())
+                ? Paths.get(storagePath, ".blob-cache")
+                : Paths.get(cachePath);
+        Files.createDirectories(cacheDir);
+
+        long total = 0;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path p : files.toList()) {
+                if (p.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(p); // 이전 실행에서 남은 임시 파일
+                } else {
+                    total += Files.size(p);
+                }
+            }
+        }
+        currentBytes.set(total);
+        log.info("레지스트리 blob 캐시 초기화: dir={}, size={}MB, max={}GB", cacheDir, total / 1024 / 1024, maxSizeGb);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 캐시 적중 시 target 위치에 hardlink(불가하면 복사)로 배치하고 true 반환
+     * 크기가 descriptor와 다른 항목은 손상된 것으로 보고 삭제한다.
+     */
+    public boolean copyTo(String digest, long size, Path target) {
+        if (!enabled) return false;
+        lock.readLock().lock();
+        try {
+            Path cached = entryPath(digest);
+            if (!Files.exists(cached)) {
+                misses.incrementAndGet();
+                return false;
+            }
+            long cachedSize = Files.size(cached);
+            if (cachedSize != size) {
+                log.warn("레지스트리 blob 캐시 크기 불일치 - 삭제: {} (expected={}, actual={})", digest, size, cachedSize);
+                if (Files.deleteIfExists(cached)) currentBytes.addAndGet(-cachedSize);
+                misses.incrementAndGet();
+                return false;
+            }
+            linkOrCopy(cached, target);
+            Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            log.warn("레지스트리 blob 캐시 읽기 실패: {} - {}", digest, e.getMessage());
+            misses.incrementAndGet();
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 검증이 끝난 blob을 캐시에 등록 (임시 파일 → hardlink로 게시), 이후 용량 초과분 정리
+     */
+    public void put(String digest, Path source) {
+        if (!enabled) return;
+        lock.readLock().lock();
+        try {
+            Path cached = entryPath(digest);
+            if (Files.exists(cached)) return;
+            Path tmp = cacheDir.resolve(UUID.randomUUID() + ".tmp");
+            linkOrCopy(source, tmp);
+            if (publish(tmp, cached)) currentBytes.addAndGet(Files.size(cached));
+        } catch (IOException e) {
+            log.warn("레지스트리 blob 캐시 저장 실패: {} - {}", digest, e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+        evictIfNeeded();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getSizeBytes() {
+        return currentBytes.get();
+    }
+
+    private void evictIfNeeded() {
+        long maxBytes = maxSizeGb * 1024 * 1024 * 1024;
+        if (currentBytes.get() <= maxBytes) return;
+
+        lock.writeLock().lock();
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            List<Path> entries = new ArrayList<>(files
+                    .filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+                    .toList());
+            entries.sort(Comparator.comparing(this::lastModified));
+            // write lock 동안 실제 크기로 집계 보정
+            long total = 0;
+            for (Path p : entries) total += Files.size(p);
+            currentBytes.set(total);
+            for (Path p : entries) {
+                if (currentBytes.get() <= maxBytes) break;
+                long size = Files.size(p);
+                Files.deleteIfExists(p);
+                currentBytes.addAndGet(-size);
+                log.debug("레지스트리 blob 캐시 정리 (LRU): {} ({}MB)", p.getFileName(), size / 1024 / 1024);
+            }
+        } catch (IOException e) {
+            log.warn("레지스트리 blob 캐시 정리 실패: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * digest는 레지스트리 manifest에서 온 값이므로 파일명에 쓸 수 있는 문자만 허용
+     */
+    private Path entryPath(String digest) throws IOException {
+        if (!OciRegistryClient.isValidDigest(digest)) {
+            throw new IOException("지원하지 않는 blob digest: " + digest);
+        }
+        return cacheDir.resolve(digest.replace(':', '_') + SUFFIX);
+    }
+
+    private FileTime lastModified(Path p) {
+        try { return Files.getLastModifiedTime(p); }
+        catch (IOException e) { return FileTime.fromMillis(0); }
+    }
+
+    /**
+     * ImageTarballCache.publish와 같음 - 이미 있는 항목은 덮어쓰지 않고 false (먼저 등록한 빌드만 크기 집계)
+     */
+    private static boolean publish(Path tmp, Path cached) throws IOException {
+        try {
+            Files.createLink(cached, tmp);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (IOException | UnsupportedOperationException e) {
+            try {
+                Files.move(tmp, cached);
+                return true;
+            } catch (FileAlreadyExistsException exists) {
+                return false;
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            // 다른 파일시스템 등 hardlink 불가 시 복사
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
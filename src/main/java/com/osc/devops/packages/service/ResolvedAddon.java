@@ -0,0 +1,146 @@
+package com.osc.devops.packages.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 빌드 1건의 애드온 정보 (selectedAddons JSON 한 항목을 해석한 결과)
+ * 빌드를 꺼낼 때 한 번 만들어 모든 생성기(deploy.sh, values, images.txt, push 스크립트, 델타)가 공유한다.
+ *
+ * @param images upstreamImages + imageTags로 태그까지 결정한 image:tag 목록
+ */
+public record ResolvedAddon(Long addonId, String name, String displayName, String category, String version,
+                            String helmRepoUrl, String helmChartName, String helmChartVersion,
+                            boolean keycloakEnabled, int installOrder, List<String> images) {
+
+    private static final TypeReference<List<Map<String, Object>>> SELECTED_ADDONS = new TypeReference<>() {};
+    private static final TypeReference<List<String>> IMAGE_LIST = new TypeReference<>() {};
+    private static final TypeReference<Map<String, String>> TAG_MAP = new TypeReference<>() {};
+
+    public ResolvedAddon {
+        images = List.copyOf(images);
+    }
+
+    /**
+     * PackageBuild.selectedAddons JSON → 애드온 목록 (선택 순서 유지)
+     */
+    public static List<ResolvedAddon> fromJson(String selectedAddons, ObjectMapper objectMapper) throws IOException {
+        return fromMaps(objectMapper.readValue(selectedAddons, SELECTED_ADDONS), objectMapper);
+    }
+
+    public static List<ResolvedAddon> fromMaps(List<Map<String, Object>> addons, ObjectMapper objectMapper) {
+        List<ResolvedAddon> result = new ArrayList<>(addons.size());
+        for (Map<String, Object> addon : addons) {
+            result.add(from(addon, objectMapper));
+        }
+        return result;
+    }
+
+    public static ResolvedAddon from(Map<String, Object> info, ObjectMapper objectMapper) {
+        String version = (String) info.get("version");
+        return new ResolvedAddon(
+                info.get("addonId") instanceof Number id ? id.longValue() : null,
+                (String) info.get("name"),
+                (String) info.get("displayName"),
+                (String) info.get("category"),
+                version,
+                (String) info.get("helmRepoUrl"),
+                (String) info.get("helmChartName"),
+                (String) info.get("helmChartVersion"),
+                Boolean.TRUE.equals(info.get("keycloakEnabled")),
+                info.get("installOrder") instanceof Number order ? order.intValue() : 50,
+                resolveImages((String) info.get("upstreamImages"), (String) info.get("imageTags"), version, objectMapper));
+    }
+
+    /**
+     * 모든 애드온의 image:tag 목록 (애드온 순서, 중복 포함)
+     */
+    public static List<String> imageList(List<ResolvedAddon> addons) {
+        List<String> result = new ArrayList<>();
+        for (ResolvedAddon addon : addons) {
+            result.addAll(addon.images());
+        }
+        return result;
+    }
+
+    public boolean hasHelmRepo() {
+        return helmRepoUrl != null && !helmRepoUrl.isEmpty();
+    }
+
+    /**
+     * chart 이름 (helmChartName 우선, 없으면 애드온 이름)
+     */
+    public String chartName() {
+        return helmChartName != null && !helmChartName.isEmpty() ? helmChartName : name;
+    }
+
+    /**
+     * helm repo가 있는 애드온의 chart 이름 (repo가 없으면 null - chart pull/델타 대상 아님)
+     */
+    public String repoChartName() {
+        return hasHelmRepo() ? chartName() : null;
+    }
+
+    /**
+     * upstreamImages + imageTags를 파싱하여 image:tag 목록 반환
+     * imageTags: {"grafana":"11.3.0","loki":"3.2.0","prometheus":"2.54.0"}
+     * upstreamImages: ["grafana/grafana","grafana/loki","prom/prometheus"]
+     * → grafana/grafana:11.3.0, grafana/loki:3.2.0, prom/prometheus:2.54.0
+     * (upstreamImages를 읽을 수 없으면 빈 목록, imageTags를 읽을 수 없으면 태그 없이 fallback)
+     */
+    static List<String> resolveImages(String upstreamImages, String imageTagsJson, String version,
+                                      ObjectMapper objectMapper) {
+        if (upstreamImages == null || upstreamImages.isEmpty()) return List.of();
+        List<String> images;
+        try {
+            images = objectMapper.readValue(upstreamImages, IMAGE_LIST);
+        } catch (IOException e) {
+            return List.of();
+        }
+        // imageTags JSON 파싱 (key: short name, value: tag)
+        Map<String, String> tagMap = new LinkedHashMap<>();
+        if (imageTagsJson != null && !imageTagsJson.isEmpty()) {
+            try {
+                tagMap = objectMapper.readValue(imageTagsJson, TAG_MAP);
+            } catch (IOException ignored) {}
+        }
+        List<String> result = new ArrayList<>(images.size());
+        for (String image : images) {
+            if (image == null) continue;
+            result.add(image + ":" + resolveImageTag(image, tagMap, version));
+        }
+        return result;
+    }
+
+    /**
+     * 이미지 이름에서 short name을 추출하고 tagMap에서 태그를 찾는다.
+     * 예: "grafana/loki" → shortName="loki" → tagMap.get("loki") = "3.2.0"
+     */
+    public static String resolveImageTag(String imageName, Map<String, String> tagMap, String fallbackVersion) {
+        // 이미지 이름에서 마지막 / 뒤의 부분 추출
+        String shortName = imageName.contains("/")
+                ? imageName.substring(imageName.lastIndexOf("/") + 1)
+                : imageName;
+
+        // 1) tagMap에서 정확히 일치하는 키 찾기
+        if (tagMap.containsKey(shortName)) {
+            return tagMap.get(shortName);
+        }
+
+        // 2) tagMap에서 부분 일치 (예: "configmap-reload" → 없으면 스킵)
+        for (Map.Entry<String, String> entry : tagMap.entrySet()) {
+            if (shortName.contains(entry.getKey()) || entry.getKey().contains(shortName)) {
+                return entry.getValue();
+            }
+        }
+
+        // 3) fallback: 공식 이미지(슬래시 없음)는 latest, 그 외는 version
+        if (!imageName.contains("/")) {
+            return "latest";
+        }
+        return fallbackVersion != null ? fallbackVersion : "latest";
+    }
+}
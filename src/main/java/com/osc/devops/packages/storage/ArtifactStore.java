@@ -0,0 +1,64 @@
+package com.osc.devops.packages.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 패키지 결과물 저장소 (package.build.artifact-store.type: local | s3)
+ * 빌드는 storage-path에 패키지 파일을 만든 뒤 store로 넘기고, PackageBuild.filePath에는 반환된 위치(location)를 저장한다.
+ * - local: storage-path의 파일 경로 (기존 빌드 데이터와 동일)
+ * - s3: s3://{bucket}/{key} - 모든 replica가 같은 결과물을 내려줄 수 있다
+ */
+public interface ArtifactStore {
+
+    /**
+     * @param fileKey 같은 실제 데이터를 공유하는 결과물이면 같은 값 (local: hardlink inode) - 용량 계산용
+     */
+    record StoredArtifact(long size, long lastModified, Object fileKey) {}
+
+    /**
+     * 로컬 패키지 파일을 key 이름으로 저장하고 위치 반환 (source는 이후 사용하지 않음 - 필요하면 구현이 정리)
+     */
+    String store(Path source, String key) throws IOException;
+
+    /**
+     * 저장된 결과물을 다른 key로 복제 (동일 구성 빌드 재사용) - local은 hardlink, s3는 서버 측 복사
+     */
+    String copy(String location, String key) throws IOException;
+
+    /**
+     * 결과물 정보 (없으면 empty)
+     */
+    Optional<StoredArtifact> stat(String location) throws IOException;
+
+    /**
+     * 로컬 파일 경로 (sendfile/FileChannel 전송용, 로컬 저장소가 아니면 empty)
+     */
+    Optional<Path> localPath(String location);
+
+    /**
+     * [start, start + length) 범위를 out으로 전송
+     */
+    void read(String location, long start, long length, OutputStream out) throws IOException;
+
+    /**
+     * 다운로드용 서명 URL (지원하지 않거나 비활성화면 empty - 애플리케이션이 직접 전송)
+     */
+    Optional<URI> presignedUrl(String location, String fileName, String contentType);
+
+    /**
+     * presignedUrl로 내준 URL의 유효 시간 - redirect 후에는 클라이언트가 직접 받으므로 정리 시 이 시간만큼 더 보존
+     */
+    default Duration downloadUrlTtl() {
+        return Duration.ZERO;
+    }
+
+    /**
+     * 결과물 삭제 (없으면 무시)
+     */
+    void delete(String location) throws IOException;
+}
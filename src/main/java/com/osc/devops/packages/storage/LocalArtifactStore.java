@@ -0,0 +1,90 @@
+package com.osc.devops.packages.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+/**
+ * storage-path 디렉토리에 결과물 보관 (단일 replica / PVC 공유 환경)
+ * location은 파일 절대 경로이며, 복제는 hardlink로 하므로 같은 파일시스템이어야 한다.
+ */
+@Component
+@ConditionalOnProperty(name = "package.build.artifact-store.type", havingValue = "local", matchIfMissing = true)
+public class LocalArtifactStore implements ArtifactStore {
+
+    @Value("${package.build.storage-path:/tmp/devops-platform/packages}")
+    private String storagePath;
+
+    @Override
+    public String store(Path source, String key) throws IOException {
+        Path target = Paths.get(storagePath, key);
+        if (!source.toAbsolutePath().equals(target.toAbsolutePath())) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target.toString();
+    }
+
+    @Override
+    public String copy(String location, String key) throws IOException {
+        Path target = Paths.get(storagePath, key);
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, Paths.get(location));
+        } catch (UnsupportedOperationException e) {
+            throw new IOException("hardlink를 지원하지 않는 파일시스템: " + e.getMessage(), e);
+        }
+        return target.toString();
+    }
+
+    @Override
+    public Optional<StoredArtifact> stat(String location) throws IOException {
+        Path path = Paths.get(location);
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            Object fileKey = attrs.fileKey() != null ? attrs.fileKey() : path.toAbsolutePath();
+            return Optional.of(new StoredArtifact(attrs.size(), attrs.lastModifiedTime().toMillis(), fileKey));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String location) {
+        return Optional.of(Paths.get(location));
+    }
+
+    @Override
+    public void read(String location, long start, long length, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(location), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) break;
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    @Override
+    public Optional<URI> presignedUrl(String location, String fileName, String contentType) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void delete(String location) throws IOException {
+        Files.deleteIfExists(Paths.get(location));
+    }
+}
@@ -0,0 +1,454 @@
+package com.osc.devops.packages.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * S3 호환 오브젝트 스토리지(AWS S3, MinIO 등)에 결과물 보관 - 여러 replica가 같은 결과물을 공유
+ * - 업로드: part-size-mb 단위 multipart 업로드를 artifactUploadTaskExecutor에서 병렬 실행 (part별 재시도)
+ * - 복제: 서버 측 복사 (5GB 초과는 UploadPartCopy multipart)
+ * - 다운로드: presign이 켜져 있으면 서명 URL로 redirect, 아니면 Range GET 결과를 그대로 전달
+ * 요청 서명은 S3RequestSigner(SigV4)로 직접 하며, MinIO는 path-style: true로 사용한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "package.build.artifact-store.type", havingValue = "s3")
+public class S3ArtifactStore implements ArtifactStore {
+
+    private static final String SCHEME = "s3://";
+    private static final long MAX_COPY_OBJECT_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+    private static final Pattern ETAG = Pattern.compile("<ETag>([^<]+)</ETag>");
+    private static final Pattern ERROR_CODE = Pattern.compile("<Code>([^<]+)</Code>");
+
+    @Qualifier("artifactUploadTaskExecutor")
+    private final Executor uploadExecutor;
+
+    // 비어있으면 https://s3.{region}.amazonaws.com
+    @Value("${package.build.artifact-store.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${package.build.artifact-store.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${package.build.artifact-store.s3.bucket:}")
+    private String bucket;
+
+    // 객체 key 앞에 붙는 경로 (예: packages/)
+    @Value("${package.build.artifact-store.s3.prefix:}")
+    private String prefix;
+
+    @Value("${package.build.artifact-store.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${package.build.artifact-store.s3.secret-key:}")
+    private String secretKey;
+
+    // true: {endpoint}/{bucket}/{key} (MinIO), false: {bucket}.{endpoint host}/{key}
+    @Value("${package.build.artifact-store.s3.path-style:true}")
+    private boolean pathStyle;
+
+    @Value("${package.build.artifact-store.s3.part-size-mb:64}")
+    private long partSizeMb;
+
+    @Value("${package.build.artifact-store.s3.presign:true}")
+    private boolean presign;
+
+    @Value("${package.build.artifact-store.s3.presign-ttl-minutes:60}")
+    private long presignTtlMinutes;
+
+    @Value("${package.build.artifact-store.s3.connect-timeout-ms:10000}")
+    private long connectTimeoutMs;
+
+    @Value("${package.build.artifact-store.s3.response-timeout-ms:60000}")
+    private long responseTimeoutMs;
+
+    private HttpClient httpClient;
+    private S3RequestSigner signer;
+    private String baseUrl;
+    private String bucketPath;
+    private long partSize;
+    // 단일 CopyObject 상한 - 초과하면 UploadPartCopy multipart
+    private long maxCopyObjectSize = MAX_COPY_OBJECT_SIZE;
+
+    @FunctionalInterface
+    private interface PartWriter {
+        /**
+         * @return part ETag
+         */
+        String write(String uploadId, int partNumber, long offset, long length) throws IOException;
+    }
+
+    @PostConstruct
+    void init() {
+        if (bucket == null || bucket.isBlank()) {
+            throw new IllegalStateException("package.build.artifact-store.s3.bucket 설정이 필요합니다.");
+        }
+        String base = (endpoint == null || endpoint.isBlank())
+                ? "https://s3." + region + ".amazonaws.com"
+                : endpoint.replaceAll("/+$", "");
+        if (pathStyle) {
+            baseUrl = base;
+            bucketPath = "/" + S3RequestSigner.encodePath(bucket) + "/";
+        } else {
+            URI uri = URI.create(base);
+            baseUrl = uri.getScheme() + "://" + bucket + "." + uri.getRawAuthority();
+            bucketPath = "/";
+        }
+        partSize = Math.max(MIN_PART_SIZE, partSizeMb * 1024 * 1024);
+        signer = new S3RequestSigner(accessKey, secretKey, region);
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        log.info("S3 결과물 저장소: {} (bucket={}, prefix={}, part={}MB, presign={})",
+                base, bucket, prefix, partSize / 1024 / 1024, presign);
+    }
+
+    @Override
+    public String store(Path source, String key) throws IOException {
+        String objectKey = prefix + key;
+        long size = Files.size(source);
+        long start = System.nanoTime();
+        if (size <= partSize) {
+            withRetry("업로드 " + objectKey, () -> {
+                HttpResponse<InputStream> response = send("PUT", objectKey, Map.of(), Map.of(),
+                        HttpRequest.BodyPublishers.ofFile(source), S3RequestSigner.UNSIGNED_PAYLOAD);
+                return readOk(response, "업로드 " + objectKey);
+            });
+        } else {
+            multipart(objectKey, size, (uploadId, partNumber, offset, length) -> {
+                HttpResponse<InputStream> response = send("PUT", objectKey, partQuery(uploadId, partNumber), Map.of(),
+                        HttpRequest.BodyPublishers.fromPublisher(
+                                HttpRequest.BodyPublishers.ofInputStream(() -> new FileRangeInputStream(source, offset, length)),
+                                length),
+                        S3RequestSigner.UNSIGNED_PAYLOAD);
+                readOk(response, "part 업로드 " + objectKey + " #" + partNumber);
+                return response.headers().firstValue("ETag")
+                        .orElseThrow(() -> new IOException("part ETag 없음: " + objectKey + " #" + partNumber));
+            });
+        }
+        Files.deleteIfExists(source);
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("☁️ S3 업로드 완료: {} ({}MB, {}ms, {}MB/s)", objectKey, size / 1024 / 1024, elapsedMs,
+                size / 1024 / 1024 * 1000 / elapsedMs);
+        return SCHEME + bucket + "/" + objectKey;
+    }
+
+    @Override
+    public String copy(String location, String key) throws IOException {
+        String sourceKey = objectKey(location);
+        String objectKey = prefix + key;
+        String copySource = "/" + S3RequestSigner.encodePath(bucket + "/" + sourceKey);
+        long size = stat(location).orElseThrow(() -> new IOException("복사할 객체 없음: " + location)).size();
+        if (size <= maxCopyObjectSize) {
+            withRetry("복사 " + objectKey, () -> readOk(send("PUT", objectKey, Map.of(),
+                    Map.of("x-amz-copy-source", copySource), HttpRequest.BodyPublishers.noBody(),
+                    S3RequestSigner.EMPTY_PAYLOAD), "복사 " + objectKey));
+        } else {
+            multipart(objectKey, size, (uploadId, partNumber, offset, length) -> {
+                String body = readOk(send("PUT", objectKey, partQuery(uploadId, partNumber),
+                        Map.of("x-amz-copy-source", copySource,
+                                "x-amz-copy-source-range", "bytes=" + offset + "-" + (offset + length - 1)),
+                        HttpRequest.BodyPublishers.noBody(), S3RequestSigner.EMPTY_PAYLOAD),
+                        "part 복사 " + objectKey + " #" + partNumber);
+                return match(ETAG, body, "part 복사 ETag").replace("&quot;", "\"");
+            });
+        }
+        return SCHEME + bucket + "/" + objectKey;
+    }
+
+    @Override
+    public Optional<StoredArtifact> stat(String location) throws IOException {
+        if (location == null || !location.startsWith(SCHEME + bucket + "/")) return Optional.empty();
+        HttpResponse<InputStream> response = send("HEAD", objectKey(location), Map.of(), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), S3RequestSigner.EMPTY_PAYLOAD);
+        response.body().close();
+        if (response.statusCode() == 404) return Optional.empty();
+        if (response.statusCode() != 200) {
+            throw new IOException("S3 조회 실패: HTTP " + response.statusCode() + " " + location);
+        }
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        long lastModified = response.headers().firstValue("Last-Modified")
+                .map(v -> ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                .orElse(0L);
+        return Optional.of(new StoredArtifact(size, lastModified, location));
+    }
+
+    @Override
+    public Optional<Path> localPath(String location) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void read(String location, long start, long length, OutputStream out) throws IOException {
+        if (length <= 0) return;
+        HttpResponse<InputStream> response = send("GET", objectKey(location), Map.of(),
+                Map.of("Range", "bytes=" + start + "-" + (start + length - 1)),
+                HttpRequest.BodyPublishers.noBody(), S3RequestSigner.EMPTY_PAYLOAD);
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 206 && response.statusCode() != 200) {
+                throw new IOException("S3 다운로드 실패: HTTP " + response.statusCode() + " " + errorCode(body) + " " + location);
+            }
+            body.transferTo(out);
+        }
+    }
+
+    @Override
+    public Optional<URI> presignedUrl(String location, String fileName, String contentType) {
+        if (!presign) return Optional.empty();
+        Map<String, String> query = new TreeMap<>();
+        query.put("response-content-disposition", "attachment; filename=\"" + fileName + "\"");
+        query.put("response-content-type", contentType);
+        return Optional.of(signer.presign("GET", baseUrl, bucketPath + S3RequestSigner.encodePath(objectKey(location)),
+                query, Duration.ofMinutes(presignTtlMinutes), Instant.now()));
+    }
+
+    @Override
+    public Duration downloadUrlTtl() {
+        return presign ? Duration.ofMinutes(presignTtlMinutes) : Duration.ZERO;
+    }
+
+    @Override
+    public void delete(String location) throws IOException {
+        if (location == null || !location.startsWith(SCHEME + bucket + "/")) return;
+        HttpResponse<InputStream> response = send("DELETE", objectKey(location), Map.of(), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), S3RequestSigner.EMPTY_PAYLOAD);
+        try (InputStream body = response.body()) {
+            if (response.statusCode() / 100 != 2 && response.statusCode() != 404) {
+                throw new IOException("S3 삭제 실패: HTTP " + response.statusCode() + " " + errorCode(body) + " " + location);
+            }
+        }
+    }
+
+    // ======================== multipart ========================
+
+    /**
+     * multipart 업로드: part는 업로드 풀에서 병렬 실행하고, 하나라도 실패하면 업로드를 중단(abort)한다.
+     */
+    private void multipart(String objectKey, long size, PartWriter writer) throws IOException {
+        // part 수 상한(10,000)을 넘지 않도록 part 크기 조정
+        long partBytes = Math.max(partSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+        int parts = (int) ((size + partBytes - 1) / partBytes);
+        String uploadId = match(UPLOAD_ID, readOk(send("POST", objectKey, Map.of("uploads", ""), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), S3RequestSigner.EMPTY_PAYLOAD), "multipart 시작 " + objectKey), "UploadId");
+
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<CompletableFuture<String>> futures = new ArrayList<>(parts);
+        try {
+            for (int i = 0; i < parts; i++) {
+                int partNumber = i + 1;
+                long offset = i * partBytes;
+                long length = Math.min(partBytes, size - offset);
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    if (aborted.get()) throw new IllegalStateException("multipart 중단됨");
+                    try {
+                        return withRetry("part " + objectKey + " #" + partNumber,
+                                () -> writer.write(uploadId, partNumber, offset, length));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, uploadExecutor));
+            }
+            List<String> etags = new ArrayList<>(parts);
+            for (CompletableFuture<String> future : futures) {
+                etags.add(await(future));
+            }
+
+            StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < etags.size(); i++) {
+                xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(etags.get(i)).append("</ETag></Part>");
+            }
+            byte[] body = xml.append("</CompleteMultipartUpload>").toString().getBytes(StandardCharsets.UTF_8);
+            withRetry("multipart 완료 " + objectKey, () -> readOk(send("POST", objectKey, Map.of("uploadId", uploadId),
+                    Map.of("Content-Type", "application/xml"), HttpRequest.BodyPublishers.ofByteArray(body),
+                    S3RequestSigner.sha256Hex(body)), "multipart 완료 " + objectKey));
+        } catch (IOException | RuntimeException e) {
+            aborted.set(true);
+            // 진행 중인 part가 끝난 뒤 abort 해야 남는 part가 없음
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).handle((r, t) -> null).join();
+            try {
+                send("DELETE", objectKey, Map.of("uploadId", uploadId), Map.of(),
+                        HttpRequest.BodyPublishers.noBody(), S3RequestSigner.EMPTY_PAYLOAD).body().close();
+            } catch (IOException abortError) {
+                log.warn("multipart 중단 실패: {} ({}) - {}", objectKey, uploadId, abortError.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private static Map<String, String> partQuery(String uploadId, int partNumber) {
+        return Map.of("partNumber", Integer.toString(partNumber), "uploadId", uploadId);
+    }
+
+    private static String await(CompletableFuture<String> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("multipart 대기 중 중단");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // ======================== HTTP ========================
+
+    @FunctionalInterface
+    private interface S3Call<T> {
+        T call() throws IOException;
+    }
+
+    private <T> T withRetry(String operation, S3Call<T> call) throws IOException {
+        IOException lastError = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                return call.call();
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                lastError = e;
+                if (attempt < MAX_ATTEMPTS) {
+                    log.warn("  ⚠️ S3 재시도 ({}/{}) {} - {}", attempt, MAX_ATTEMPTS, operation, e.getMessage());
+                    try {
+                        Thread.sleep(attempt * 2_000L);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException(operation + " 재시도 대기 중 중단");
+                    }
+                }
+            }
+        }
+        throw lastError;
+    }
+
+    private HttpResponse<InputStream> send(String method, String objectKey, Map<String, String> query,
+                                           Map<String, String> headers, HttpRequest.BodyPublisher body,
+                                           String payloadHash) throws IOException {
+        URI uri = S3RequestSigner.request(baseUrl, bucketPath + S3RequestSigner.encodePath(objectKey), query);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(responseTimeoutMs))
+                .method(method, body);
+        signer.sign(method, uri, headers, payloadHash, Instant.now()).forEach(builder::header);
+        try {
+            return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S3 요청 중단: " + method + " " + objectKey);
+        }
+    }
+
+    /**
+     * 2xx가 아니거나 본문이 S3 오류(200 응답의 CopyObject/CompleteMultipartUpload 오류 포함)면 IOException
+     */
+    private static String readOk(HttpResponse<InputStream> response, String operation) throws IOException {
+        String body;
+        try (InputStream in = response.body()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (response.statusCode() / 100 != 2 || body.contains("<Error>")) {
+            Matcher code = ERROR_CODE.matcher(body);
+            throw new IOException("S3 " + operation + " 실패: HTTP " + response.statusCode()
+                    + (code.find() ? " " + code.group(1) : ""));
+        }
+        return body;
+    }
+
+    private static String errorCode(InputStream body) throws IOException {
+        Matcher code = ERROR_CODE.matcher(new String(body.readNBytes(4096), StandardCharsets.UTF_8));
+        return code.find() ? code.group(1) : "";
+    }
+
+    private static String match(Pattern pattern, String body, String name) throws IOException {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) throw new IOException("S3 응답에 " + name + " 없음");
+        return matcher.group(1);
+    }
+
+    private String objectKey(String location) {
+        String bucketPrefix = SCHEME + bucket + "/";
+        if (location == null || !location.startsWith(bucketPrefix)) {
+            throw new IllegalArgumentException("S3 결과물 위치가 아닙니다: " + location);
+        }
+        return location.substring(bucketPrefix.length());
+    }
+
+    /**
+     * 파일의 [offset, offset + length) 구간 (part 업로드 본문 - part별로 독립된 위치 읽기)
+     */
+    private static final class FileRangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        FileRangeInputStream(Path file, long offset, long length) {
+            try {
+                this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.position = offset;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (n < 0) throw new IOException("파일이 예상보다 짧습니다");
+            position += n;
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
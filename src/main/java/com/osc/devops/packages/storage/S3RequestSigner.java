@@ -0,0 +1,174 @@
+package com.osc.devops.packages.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * S3 요청 서명 (AWS Signature Version 4)
+ * - sign: Authorization 헤더 방식 (본문 해시는 호출 측이 지정, 대용량 part는 UNSIGNED-PAYLOAD)
+ * - presign: 쿼리 문자열 방식 (브라우저/curl이 그대로 받을 수 있는 URL)
+ * 경로와 쿼리는 이 클래스의 encode로 만든 그대로 서명하므로 URI도 request()로 만들어야 한다.
+ */
+final class S3RequestSigner {
+
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    static final String EMPTY_PAYLOAD = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final String accessKey;
+    private final String secretKey;
+    private final String region;
+
+    S3RequestSigner(String accessKey, String secretKey, String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    /**
+     * @param rawPath 인코딩된 경로 (encodePath 결과)
+     * @param query   인코딩 전 쿼리 파라미터 (값 없는 파라미터는 "")
+     */
+    static URI request(String endpoint, String rawPath, Map<String, String> query) {
+        String queryString = canonicalQuery(query);
+        return URI.create(endpoint + rawPath + (queryString.isEmpty() ? "" : "?" + queryString));
+    }
+
+    /**
+     * 서명된 요청 헤더 (headers + host, x-amz-date, x-amz-content-sha256, authorization) - host는 서명에만 쓰고 반환하지 않음
+     */
+    Map<String, String> sign(String method, URI uri, Map<String, String> headers, String payloadHash, Instant now) {
+        String amzDate = AMZ_DATE.format(now);
+        SortedMap<String, String> signed = new TreeMap<>();
+        headers.forEach((name, value) -> signed.put(name.toLowerCase(), value.trim()));
+        signed.put("host", hostHeader(uri));
+        signed.put("x-amz-content-sha256", payloadHash);
+        signed.put("x-amz-date", amzDate);
+
+        StringBuilder canonicalHeaders = new StringBuilder();
+        signed.forEach((name, value) -> canonicalHeaders.append(name).append(':').append(value).append('\n'));
+        String signedHeaders = String.join(";", signed.keySet());
+        String canonicalRequest = method + "\n" + uri.getRawPath() + "\n" + nullToEmpty(uri.getRawQuery()) + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+
+        String scope = scope(amzDate);
+        String signature = signature(amzDate, scope, canonicalRequest);
+
+        Map<String, String> result = new LinkedHashMap<>(signed);
+        result.remove("host");
+        result.put("authorization", ALGORITHM + " Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature);
+        return result;
+    }
+
+    /**
+     * 쿼리 문자열 서명 URL (host 헤더만 서명)
+     */
+    URI presign(String method, String endpoint, String rawPath, Map<String, String> query, Duration ttl, Instant now) {
+        String amzDate = AMZ_DATE.format(now);
+        String scope = scope(amzDate);
+        Map<String, String> params = new TreeMap<>(query);
+        params.put("X-Amz-Algorithm", ALGORITHM);
+        params.put("X-Amz-Credential", accessKey + "/" + scope);
+        params.put("X-Amz-Date", amzDate);
+        params.put("X-Amz-Expires", Long.toString(ttl.toSeconds()));
+        params.put("X-Amz-SignedHeaders", "host");
+
+        URI unsigned = request(endpoint, rawPath, params);
+        String canonicalRequest = method + "\n" + rawPath + "\n" + unsigned.getRawQuery() + "\n"
+                + "host:" + hostHeader(unsigned) + "\n\nhost\n" + UNSIGNED_PAYLOAD;
+        params.put("X-Amz-Signature", signature(amzDate, scope, canonicalRequest));
+        return request(endpoint, rawPath, params);
+    }
+
+    /**
+     * 객체 key → 경로 인코딩 ('/'는 유지)
+     */
+    static String encodePath(String path) {
+        return encode(path, false);
+    }
+
+    static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String scope(String amzDate) {
+        return amzDate.substring(0, 8) + "/" + region + "/s3/aws4_request";
+    }
+
+    private String signature(String amzDate, String scope, String canonicalRequest) {
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n"
+                + sha256Hex(canonicalRequest.getBytes(StandardCharsets.UTF_8));
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), amzDate.substring(0, 8));
+        key = hmac(key, region);
+        key = hmac(key, "s3");
+        key = hmac(key, "aws4_request");
+        return HexFormat.of().formatHex(hmac(key, stringToSign));
+    }
+
+    private static String canonicalQuery(Map<String, String> query) {
+        StringJoiner joiner = new StringJoiner("&");
+        new TreeMap<>(query).forEach((name, value) ->
+                joiner.add(encode(name, true) + "=" + encode(value, true)));
+        return joiner.toString();
+    }
+
+    private static String hostHeader(URI uri) {
+        boolean defaultPort = uri.getPort() == -1
+                || ("https".equals(uri.getScheme()) && uri.getPort() == 443)
+                || ("http".equals(uri.getScheme()) && uri.getPort() == 80);
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
+    /**
+     * RFC 3986 unreserved 문자 외에는 %XX (UTF-8)
+     */
+    private static String encode(String value, boolean encodeSlash) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                sb.append(c);
+            } else {
+                sb.append('%').append(HexFormat.of().withUpperCase().toHexDigits(b));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,345 @@
+package com.osc.devops.packages.template;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 컴파일된 스크립트/values 템플릿 (mustache 축약 문법)
+ * - {{a.b}}: 값 출력 (String.valueOf - null이면 "null")
+ * - {{#if a}} .. {{else}} .. {{/if}}: 조건 (Boolean 값, 비어있지 않은 String/Collection, 그 외 null 아님), {{#if !a}}는 부정
+ * - {{#each list as x}} .. {{/each}}: 반복 (본문에서 x.필드로 원소 접근)
+ * - {{> name}}: 변수 없는 다른 템플릿(partials/) 포함
+ * 블록 태그만 있는 줄은 들여쓰기와 줄바꿈까지 출력에서 빠진다.
+ * 경로는 컴파일 시점에 모델 record 접근자(MethodHandle)로 해석되므로 렌더링 중 Map 조회/형변환이 없다.
+ */
+public final class ScriptTemplate {
+
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    // 렌더링 버퍼 (스레드별 재사용)
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(16 * 1024));
+
+    private final String name;
+    private final Node[] nodes;
+    private final int slots;
+
+    private ScriptTemplate(String name, Node[] nodes, int slots) {
+        this.name = name;
+        this.nodes = nodes;
+        this.slots = slots;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param modelType 렌더링에 넘길 모델 record 타입 (변수 없는 템플릿이면 null)
+     * @param includes  {{> name}} 대상 조회 (컴파일 시점에 해석)
+     */
+    public static ScriptTemplate compile(String name, String source, Class<?> modelType,
+                                         Function<String, ScriptTemplate> includes) {
+        return new Compiler(name, source, modelType, includes).compile();
+    }
+
+    public String render(Object model) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        renderTo(model, sb);
+        String result = sb.toString();
+        // 큰 출력 한 번으로 버퍼가 계속 커진 채 남지 않도록
+        if (sb.capacity() > 1024 * 1024) BUFFER.remove();
+        return result;
+    }
+
+    public void renderTo(Object model, StringBuilder out) {
+        Object[] scope = new Object[slots];
+        scope[0] = model;
+        render(nodes, scope, out);
+    }
+
+    private static void render(Node[] nodes, Object[] scope, StringBuilder out) {
+        for (Node node : nodes) {
+            node.render(scope, out);
+        }
+    }
+
+    private static boolean truthy(Object value) {
+        if (value == null) return false;
+        if (value instanceof Boolean b) return b;
+        if (value instanceof CharSequence s) return !s.isEmpty();
+        if (value instanceof Collection<?> c) return !c.isEmpty();
+        return true;
+    }
+
+    // ======================== AST ========================
+
+    private interface Node {
+        void render(Object[] scope, StringBuilder out);
+    }
+
+    private record Text(String text) implements Node {
+        public void render(Object[] scope, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private record Value(Accessor accessor) implements Node {
+        public void render(Object[] scope, StringBuilder out) {
+            out.append(accessor.get(scope));
+        }
+    }
+
+    private record If(Accessor accessor, boolean negate, Node[] then, Node[] otherwise) implements Node {
+        public void render(Object[] scope, StringBuilder out) {
+            ScriptTemplate.render(truthy(accessor.get(scope)) != negate ? then : otherwise, scope, out);
+        }
+    }
+
+    private record Each(Accessor accessor, int slot, Node[] body) implements Node {
+        public void render(Object[] scope, StringBuilder out) {
+            Object items = accessor.get(scope);
+            if (items == null) return;
+            for (Object item : (Iterable<?>) items) {
+                scope[slot] = item;
+                ScriptTemplate.render(body, scope, out);
+            }
+            scope[slot] = null;
+        }
+    }
+
+    private record Include(ScriptTemplate template) implements Node {
+        public void render(Object[] scope, StringBuilder out) {
+            template.renderTo(null, out);
+        }
+    }
+
+    /**
+     * scope[slot]에서 시작해 record 접근자를 차례로 호출 (중간 값이 null이면 null)
+     */
+    private record Accessor(String path, int slot, MethodHandle[] chain) {
+        Object get(Object[] scope) {
+            Object value = scope[slot];
+            try {
+                for (MethodHandle handle : chain) {
+                    if (value == null) return null;
+                    value = (Object) handle.invokeExact(value);
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("템플릿 값 조회 실패: " + path, e);
+            }
+            return value;
+        }
+    }
+
+    // ======================== 파서 ========================
+
+    private static final class Compiler {
+        private final String name;
+        private final String source;
+        private final Class<?> modelType;
+        private final Function<String, ScriptTemplate> includes;
+
+        // each 변수 이름 → (slot, 원소 타입)
+        private final Deque<Map.Entry<String, Binding>> bindings = new ArrayDeque<>();
+        private int slots = 1;
+        private Token lastEnd;
+
+        private record Binding(int slot, Type type) {}
+
+        // 텍스트 구간 [from, to) 또는 태그
+        private static final class Token {
+            final boolean tag;
+            final String content;
+            final int start;
+            int from, to;
+
+            Token(int from, int to) {
+                this.tag = false;
+                this.content = null;
+                this.start = from;
+                this.from = from;
+                this.to = to;
+            }
+
+            Token(String content, int start, int end) {
+                this.tag = true;
+                this.content = content;
+                this.start = start;
+                this.from = start;
+                this.to = end;
+            }
+        }
+
+        private Compiler(String name, String source, Class<?> modelType, Function<String, ScriptTemplate> includes) {
+            this.name = name;
+            this.source = source;
+            this.modelType = modelType;
+            this.includes = includes;
+        }
+
+        ScriptTemplate compile() {
+            List<Token> tokens = tokenize();
+            Iterator<Token> it = tokens.iterator();
+            List<Node> nodes = parse(it, null);
+            return new ScriptTemplate(name, nodes.toArray(Node[]::new), slots);
+        }
+
+        // 태그 사이에는 항상 (빈) 텍스트 토큰을 두고, 블록 태그만 있는 줄은 앞뒤 텍스트에서 그 줄을 잘라낸다
+        private List<Token> tokenize() {
+            List<Token> tokens = new ArrayList<>();
+            int pos = 0;
+            while (true) {
+                int open = source.indexOf("{{", pos);
+                if (open < 0) {
+                    tokens.add(new Token(pos, source.length()));
+                    break;
+                }
+                int close = source.indexOf("}}", open + 2);
+                if (close < 0) throw error(open, "닫히지 않은 태그");
+                Token before = new Token(pos, open);
+                Token tag = new Token(source.substring(open + 2, close).trim(), open, close + 2);
+                tokens.add(before);
+                tokens.add(tag);
+                pos = close + 2;
+            }
+            for (int i = 1; i < tokens.size(); i += 2) {
+                Token tag = tokens.get(i);
+                if (!isBlockTag(tag.content)) continue;
+                int lineStart = source.lastIndexOf('\n', tag.start - 1) + 1;
+                int lineEnd = source.indexOf('\n', tag.to);
+                if (lineEnd < 0) lineEnd = source.length();
+                if (source.substring(lineStart, tag.start).isBlank() && source.substring(tag.to, lineEnd).isBlank()) {
+                    tokens.get(i - 1).to = lineStart;
+                    tokens.get(i + 1).from = Math.min(lineEnd + 1, source.length());
+                }
+            }
+            return tokens;
+        }
+
+        private static boolean isBlockTag(String content) {
+            return content.startsWith("#") || content.startsWith("/") || content.startsWith(">") || content.equals("else");
+        }
+
+        /**
+         * end 태그(/if, /each 또는 else)를 만날 때까지 노드 목록 생성 - 만난 태그는 lastEnd에 기록
+         */
+        private List<Node> parse(Iterator<Token> it, String closing) {
+            List<Node> nodes = new ArrayList<>();
+            while (it.hasNext()) {
+                Token token = it.next();
+                if (!token.tag) {
+                    if (token.from < token.to) nodes.add(new Text(source.substring(token.from, token.to)));
+                    continue;
+                }
+                String tag = token.content;
+                if (tag.equals("else") || tag.startsWith("/")) {
+                    if (closing == null || !(tag.equals("else") ? closing.equals("/if") : tag.equals(closing))) {
+                        throw error(token.start, "예상하지 못한 태그 {{" + tag + "}}");
+                    }
+                    lastEnd = token;
+                    return nodes;
+                }
+                if (tag.startsWith("#if ")) {
+                    nodes.add(parseIf(it, token, tag.substring(4).trim()));
+                } else if (tag.startsWith("#each ")) {
+                    nodes.add(parseEach(it, token, tag.substring(6).trim()));
+                } else if (tag.startsWith(">")) {
+                    String include = tag.substring(1).trim();
+                    ScriptTemplate template = includes != null ? includes.apply(include) : null;
+                    if (template == null) throw error(token.start, "포함할 템플릿 없음: " + include);
+                    nodes.add(new Include(template));
+                } else if (tag.startsWith("#")) {
+                    throw error(token.start, "알 수 없는 블록 {{" + tag + "}}");
+                } else {
+                    nodes.add(new Value(resolve(tag, token.start).accessor));
+                }
+            }
+            if (closing != null) throw error(source.length(), closing + " 누락");
+            return nodes;
+        }
+
+        private Node parseIf(Iterator<Token> it, Token token, String expr) {
+            boolean negate = expr.startsWith("!");
+            Accessor accessor = resolve(negate ? expr.substring(1).trim() : expr, token.start).accessor;
+            Node[] then = parse(it, "/if").toArray(Node[]::new);
+            Node[] otherwise = new Node[0];
+            if (lastEnd.content.equals("else")) {
+                otherwise = parse(it, "/if").toArray(Node[]::new);
+                if (lastEnd.content.equals("else")) throw error(lastEnd.start, "{{else}} 중복");
+            }
+            return new If(accessor, negate, then, otherwise);
+        }
+
+        private Node parseEach(Iterator<Token> it, Token token, String expr) {
+            String[] parts = expr.split("\\s+");
+            if (parts.length != 3 || !parts[1].equals("as")) throw error(token.start, "{{#each <경로> as <변수>}} 형식이 아님");
+            Resolved list = resolve(parts[0], token.start);
+            if (!(list.type instanceof ParameterizedType pt) || !(pt.getRawType() instanceof Class<?> raw)
+                    || !Iterable.class.isAssignableFrom(raw)) {
+                throw error(token.start, parts[0] + "은(는) List<record>가 아님");
+            }
+            int slot = slots++;
+            bindings.push(Map.entry(parts[2], new Binding(slot, pt.getActualTypeArguments()[0])));
+            try {
+                Node[] body = parse(it, "/each").toArray(Node[]::new);
+                return new Each(list.accessor, slot, body);
+            } finally {
+                bindings.pop();
+            }
+        }
+
+        private record Resolved(Accessor accessor, Type type) {}
+
+        /**
+         * 경로의 첫 이름이 each 변수면 그 원소에서, 아니면 모델에서 시작해 record 컴포넌트를 따라간다
+         */
+        private Resolved resolve(String path, int offset) {
+            String[] names = path.split("\\.");
+            int slot = 0;
+            Type type = modelType;
+            int first = 0;
+            for (Map.Entry<String, Binding> binding : bindings) {
+                if (binding.getKey().equals(names[0])) {
+                    slot = binding.getValue().slot();
+                    type = binding.getValue().type();
+                    first = 1;
+                    break;
+                }
+            }
+            if (type == null) throw error(offset, "모델 없는 템플릿에서 변수 사용: " + path);
+            MethodHandle[] chain = new MethodHandle[names.length - first];
+            for (int i = first; i < names.length; i++) {
+                String componentName = names[i];
+                Class<?> owner = type instanceof ParameterizedType pt ? (Class<?>) pt.getRawType() : (Class<?>) type;
+                RecordComponent component = owner.isRecord() ? Arrays.stream(owner.getRecordComponents())
+                        .filter(c -> c.getName().equals(componentName))
+                        .findFirst().orElse(null) : null;
+                if (component == null) throw error(offset, owner.getSimpleName() + "에 " + componentName + " 없음 (" + path + ")");
+                try {
+                    chain[i - first] = MethodHandles.publicLookup().unreflect(component.getAccessor()).asType(ACCESSOR_TYPE);
+                } catch (IllegalAccessException e) {
+                    throw error(offset, owner.getSimpleName() + "." + componentName + " 접근 불가 (public record 여야 함)");
+                }
+                type = component.getGenericType();
+            }
+            return new Resolved(new Accessor(path, slot, chain), type);
+        }
+
+        private IllegalArgumentException error(int offset, String message) {
+            int line = 1;
+            for (int i = 0; i < offset && i < source.length(); i++) {
+                if (source.charAt(i) == '\n') line++;
+            }
+            return new IllegalArgumentException("템플릿 " + name + ":" + line + " - " + message);
+        }
+    }
+}
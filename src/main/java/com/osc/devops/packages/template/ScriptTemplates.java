@@ -0,0 +1,76 @@
+package com.osc.devops.packages.template;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * classpath:{basePath}/**&#47;*.tmpl 템플릿 묶음 - 한 번 읽어 컴파일해 두고 이름으로 조회
+ * 이름은 basePath 기준 상대 경로에서 .tmpl을 뗀 것 (예: values/harbor.yaml)
+ * partials/ 아래 템플릿은 모델 없이 먼저 컴파일되어 {{> partials/..}} 로 포함할 수 있다.
+ */
+@Slf4j
+public final class ScriptTemplates {
+
+    private static final String SUFFIX = ".tmpl";
+    private static final String PARTIALS = "partials/";
+
+    private final Map<String, ScriptTemplate> templates;
+
+    private ScriptTemplates(Map<String, ScriptTemplate> templates) {
+        this.templates = templates;
+    }
+
+    /**
+     * @param modelTypes 템플릿 이름 → 모델 record 타입
+     */
+    public static ScriptTemplates load(String basePath, Function<String, Class<?>> modelTypes) {
+        Map<String, String> sources = new TreeMap<>();
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver(ScriptTemplates.class.getClassLoader())
+                    .getResources("classpath*:" + basePath + "/**/*" + SUFFIX);
+            for (Resource resource : resources) {
+                String url = resource.getURL().toString();
+                String name = url.substring(url.indexOf(basePath + "/") + basePath.length() + 1, url.length() - SUFFIX.length());
+                try (InputStream in = resource.getInputStream()) {
+                    sources.put(name, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("템플릿 읽기 실패: " + basePath, e);
+        }
+
+        Map<String, ScriptTemplate> compiled = new HashMap<>();
+        sources.forEach((name, source) -> {
+            if (name.startsWith(PARTIALS)) compiled.put(name, ScriptTemplate.compile(name, source, null, null));
+        });
+        sources.forEach((name, source) -> {
+            if (!name.startsWith(PARTIALS)) {
+                compiled.put(name, ScriptTemplate.compile(name, source, modelTypes.apply(name), compiled::get));
+            }
+        });
+        log.info("스크립트 템플릿 {}개 컴파일 완료 ({})", compiled.size(), basePath);
+        return new ScriptTemplates(Map.copyOf(compiled));
+    }
+
+    public ScriptTemplate get(String name) {
+        ScriptTemplate template = templates.get(name);
+        if (template == null) throw new IllegalStateException("템플릿 없음: " + name);
+        return template;
+    }
+
+    /**
+     * name이 없으면 fallback
+     */
+    public ScriptTemplate getOrDefault(String name, String fallback) {
+        ScriptTemplate template = templates.get(name);
+        return template != null ? template : get(fallback);
+    }
+}
@@ -0,0 +1,11 @@
+-- ============================================================
+-- V10: 패키지 빌드 대기열 (QUEUED 상태 + 우선순위)
+-- 우선순위가 높은 순, 같은 우선순위는 먼저 요청된 순으로 실행
+-- ============================================================
+
+ALTER TABLE package_build ADD COLUMN priority INT NOT NULL DEFAULT 0;
+
+-- 대기열에서 꺼내 실제 빌드를 시작한 시각
+ALTER TABLE package_build ADD COLUMN started_at TIMESTAMP;
+
+CREATE INDEX idx_package_build_queue ON package_build(status, priority, id);
@@ -0,0 +1,8 @@
+-- ============================================================
+-- V11: 동일 구성 빌드 재사용을 위한 내용 fingerprint
+-- 해석된 애드온 목록 + 렌더링 옵션의 SHA-256 (고객사/요청 시각 제외)
+-- ============================================================
+
+ALTER TABLE package_build ADD COLUMN fingerprint VARCHAR(64);
+
+CREATE INDEX idx_package_build_fingerprint ON package_build(fingerprint, status);
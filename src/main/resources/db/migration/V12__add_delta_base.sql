@@ -0,0 +1,5 @@
+-- ============================================================
+-- V12: 델타 패키지 - 기준 빌드 대비 변경된 chart/이미지만 포함
+-- ============================================================
+
+ALTER TABLE package_build ADD COLUMN base_build_hash VARCHAR(100);
@@ -0,0 +1,6 @@
+-- ============================================================
+-- V13: 빌드 취소 / 체크포인트 재개
+-- ============================================================
+
+ALTER TABLE package_build ADD COLUMN checkpoint_stage VARCHAR(50);
+ALTER TABLE package_build ADD COLUMN resume_count INT NOT NULL DEFAULT 0;
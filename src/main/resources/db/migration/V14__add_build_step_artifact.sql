@@ -0,0 +1,46 @@
+-- ============================================================
+-- V14: 빌드 단계별 실행 기록 + 패키지 결과물 목록
+-- 느린 빌드의 원인(단계/chart/이미지)을 빌드 종료 후에도 조회하기 위함
+-- ============================================================
+
+CREATE TABLE package_build_step (
+    id BIGSERIAL PRIMARY KEY,
+    build_id BIGINT NOT NULL,
+    step_type VARCHAR(20) NOT NULL,
+    name VARCHAR(500) NOT NULL,
+    platform VARCHAR(100),
+    status VARCHAR(20) NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP,
+    duration_ms BIGINT NOT NULL,
+    bytes BIGINT,
+    retries INT NOT NULL DEFAULT 0,
+    exit_code INT,
+    message VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (build_id) REFERENCES package_build(id) ON DELETE CASCADE
+);
+
+-- 빌드별 타임라인
+CREATE INDEX idx_build_step_build ON package_build_step(build_id, started_at);
+-- 최근 빌드들의 느린 step 순위 (유형 필터 + 소요 시간 정렬)
+CREATE INDEX idx_build_step_duration ON package_build_step(build_id, duration_ms);
+CREATE INDEX idx_build_step_type_duration ON package_build_step(step_type, duration_ms);
+
+CREATE TABLE package_build_artifact (
+    id BIGSERIAL PRIMARY KEY,
+    build_id BIGINT NOT NULL,
+    artifact_type VARCHAR(20) NOT NULL,
+    name VARCHAR(500) NOT NULL,
+    platform VARCHAR(100),
+    path VARCHAR(500) NOT NULL,
+    size_bytes BIGINT,
+    digest VARCHAR(100),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (build_id) REFERENCES package_build(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_build_artifact_build ON package_build_artifact(build_id);
+CREATE INDEX idx_build_artifact_digest ON package_build_artifact(digest);
@@ -0,0 +1,9 @@
+-- ============================================================
+-- V15: 패키지 파일 정리 (만료 / 저장 용량 제한)
+-- 용량 초과 시 마지막 다운로드가 오래된 패키지부터 정리하기 위함
+-- ============================================================
+
+ALTER TABLE package_build ADD COLUMN last_downloaded_at TIMESTAMP;
+
+-- 만료 대상 조회
+CREATE INDEX idx_package_build_status_expires ON package_build(status, expires_at);
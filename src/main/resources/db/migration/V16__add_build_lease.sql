@@ -0,0 +1,14 @@
+-- ============================================================
+-- V16: 빌드 실행 lease (여러 replica가 같은 대기열을 공유)
+-- 실행 중인 replica가 lease_expires_at을 주기적으로 연장하고,
+-- 만료된 BUILDING 빌드는 다른 replica가 대기열로 되돌려 다시 실행
+-- ============================================================
+
+ALTER TABLE package_build ADD COLUMN lease_owner VARCHAR(100);
+ALTER TABLE package_build ADD COLUMN lease_expires_at TIMESTAMP;
+
+-- 실행 중 취소 요청 (빌드를 실행 중인 replica가 heartbeat에서 확인)
+ALTER TABLE package_build ADD COLUMN cancel_requested BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- lease 만료 빌드 조회
+CREATE INDEX idx_package_build_status_lease ON package_build(status, lease_expires_at);
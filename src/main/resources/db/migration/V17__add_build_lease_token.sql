@@ -0,0 +1,9 @@
+-- ============================================================
+-- V17: 빌드 실행(lease 획득)마다 발급하는 토큰
+-- 같은 replica가 같은 빌드를 다시 가져가도 이전 실행과 구분하고,
+-- 결과 저장/상태 변경은 현재 토큰을 가진 실행만 반영
+-- ============================================================
+
+ALTER TABLE package_build ADD COLUMN lease_token VARCHAR(36);
+
+CREATE INDEX idx_package_build_lease_token ON package_build(lease_token);
@@ -0,0 +1,11 @@
+-- ============================================================
+-- V18: 빌드 대기열 admission 잠금 행
+-- 빌드 요청은 이 행을 FOR UPDATE로 잠근 뒤 QUEUED 수 확인 + INSERT를 하므로
+-- 여러 요청/replica가 동시에 들어와도 max-queued를 넘지 않는다 (잠금은 요청 트랜잭션 종료 시 해제)
+-- ============================================================
+
+CREATE TABLE package_build_queue_lock (
+    id INT PRIMARY KEY
+);
+
+INSERT INTO package_build_queue_lock (id) VALUES (1);
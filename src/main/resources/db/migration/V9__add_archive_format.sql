@@ -0,0 +1,8 @@
+-- ============================================================
+-- V9: 패키지 아카이브 형식 선택 (TAR_GZ / TAR_ZST / TAR)
+-- ============================================================
+
+ALTER TABLE package_build ADD COLUMN archive_format VARCHAR(20) NOT NULL DEFAULT 'TAR_GZ';
+
+-- 압축 레벨 (NULL이면 서버 기본값)
+ALTER TABLE package_build ADD COLUMN compression_level INT;
@@ -0,0 +1,82 @@
+package com.osc.devops.packages.registry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageReferenceTest {
+
+    @Test
+    void dockerHubNameGetsLibraryPrefixAndLatestTag() {
+        ImageReference ref = ImageReference.parse("nginx");
+
+        assertEquals("https://registry-1.docker.io", ref.baseUrl());
+        assertEquals("docker.io", ref.registry());
+        assertEquals("library/nginx", ref.repository());
+        assertEquals("latest", ref.reference());
+        assertEquals("nginx:latest", ref.repoTag());
+    }
+
+    @Test
+    void registryWithPortAndNestedRepository() {
+        ImageReference ref = ImageReference.parse("registry.example.com:5000/team/app:1.2.3");
+
+        assertEquals("https://registry.example.com:5000", ref.baseUrl());
+        assertEquals("registry.example.com:5000", ref.registry());
+        assertEquals("team/app", ref.repository());
+        assertEquals("1.2.3", ref.reference());
+        assertEquals("registry.example.com:5000/team/app:1.2.3", ref.repoTag());
+    }
+
+    @Test
+    void dockerHubUserRepositoryKeepsName() {
+        ImageReference ref = ImageReference.parse("bitnami/redis:7.2");
+
+        assertEquals("bitnami/redis", ref.repository());
+        assertEquals("bitnami/redis:7.2", ref.repoTag());
+    }
+
+    @Test
+    void digestReferenceHasNoRepoTag() {
+        String digest = "sha256:" + "a".repeat(64);
+        ImageReference ref = ImageReference.parse("ghcr.io/org/app@" + digest);
+
+        assertTrue(ref.isDigest());
+        assertEquals(digest, ref.reference());
+        assertNull(ref.repoTag());
+        assertEquals("ghcr.io/org/app@" + digest, ref.toString());
+    }
+
+    @Test
+    void tagAndDigestReferenceUsesDigest() {
+        String digest = "sha256:" + "b".repeat(64);
+        ImageReference hub = ImageReference.parse("nginx:1.25@" + digest);
+        ImageReference registry = ImageReference.parse("registry.example.com:5000/team/app:1.2.3@" + digest);
+
+        assertEquals("library/nginx", hub.repository());
+        assertEquals(digest, hub.reference());
+        assertEquals("team/app", registry.repository());
+        assertEquals("registry.example.com:5000", registry.registry());
+        assertEquals(digest, registry.reference());
+        assertEquals("registry.example.com:5000/team/app@" + digest, registry.toString());
+    }
+
+    @Test
+    void loopbackRegistryUsesPlainHttp() {
+        assertEquals("http://localhost:5000", ImageReference.parse("localhost:5000/app").baseUrl());
+        assertEquals("http://127.0.0.1:5000", ImageReference.parse("127.0.0.1:5000/app:dev").baseUrl());
+        assertEquals("https://localhost:5000", ImageReference.parse("https://localhost:5000/app").baseUrl());
+    }
+
+    @Test
+    void explicitHttpScheme() {
+        ImageReference ref = ImageReference.parse("http://mirror.internal/team/app:2");
+
+        assertEquals("http://mirror.internal", ref.baseUrl());
+        assertEquals("mirror.internal", ref.registry());
+        assertFalse(ref.isDigest());
+    }
+}
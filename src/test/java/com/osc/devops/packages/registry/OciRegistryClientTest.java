@@ -0,0 +1,323 @@
+package com.osc.devops.packages.registry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OciRegistryClient - 로컬 HttpServer 두 개로 확인
+ * - registry: Bearer 토큰을 요구하는 OCI Distribution API (/v2/..., /token)
+ * - storage: 레이어 blob redirect 대상 (다른 호스트 - S3 등 외부 스토리지 역할)
+ */
+class OciRegistryClientTest {
+
+    private static final String REPOSITORY = "team/app";
+    private static final String TOKEN = "registry-token";
+    private static final String LAYER_TYPE = "application/vnd.oci.image.layer.v1.tar+gzip";
+    private static final String CONFIG_TYPE = "application/vnd.oci.image.config.v1+json";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer registry;
+    private HttpServer storage;
+    private SimpleMeterRegistry meterRegistry;
+    private OciRegistryClient client;
+    private ImageReference ref;
+
+    // manifest 참조(tag 또는 digest) → 본문
+    private final Map<String, byte[]> manifests = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+    private final List<String> tokenQueries = new CopyOnWriteArrayList<>();
+    private final List<String> registryAuthorizations = new CopyOnWriteArrayList<>();
+    private final List<String> storageAuthorizations = new CopyOnWriteArrayList<>();
+    // 다음 n개의 storage 응답 본문을 1바이트 변조
+    private final AtomicInteger corruptNext = new AtomicInteger();
+
+    private byte[] amd64Layer;
+    private byte[] arm64Layer;
+    private byte[] config;
+    private String amd64Manifest;
+    private String arm64Manifest;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        registry = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        registry.createContext("/token", this::token);
+        registry.createContext("/v2/", this::registryApi);
+        registry.start();
+        storage = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        storage.createContext("/", this::storageBlob);
+        storage.start();
+
+        config = "{\"architecture\":\"arm64\",\"os\":\"linux\"}".getBytes(StandardCharsets.UTF_8);
+        amd64Layer = bytes(300_000, 1);
+        arm64Layer = bytes(200_000, 2);
+        blobs.put(digest(config), config);
+        blobs.put(digest(amd64Layer), amd64Layer);
+        blobs.put(digest(arm64Layer), arm64Layer);
+
+        amd64Manifest = putManifest(manifestJson(amd64Layer));
+        arm64Manifest = putManifest(manifestJson(arm64Layer));
+        manifests.put("1.0", ("{\"schemaVersion\":2,\"mediaType\":\"" + OciRegistryClient.OCI_INDEX + "\",\"manifests\":["
+                + indexEntry(amd64Manifest, "{\"os\":\"linux\",\"architecture\":\"amd64\"}") + ","
+                + indexEntry(arm64Manifest, "{\"os\":\"linux\",\"architecture\":\"arm64\",\"variant\":\"v8\"}")
+                + "]}").getBytes(StandardCharsets.UTF_8));
+
+        meterRegistry = new SimpleMeterRegistry();
+        client = new OciRegistryClient(new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(client, "connectTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(client, "responseTimeoutMs", 10_000L);
+        client.init();
+        ref = ImageReference.parse("127.0.0.1:" + registry.getAddress().getPort() + "/" + REPOSITORY + ":1.0");
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.stop(0);
+        storage.stop(0);
+    }
+
+    @Test
+    void resolveSelectsPlatformManifestFromIndex() throws Exception {
+        OciRegistryClient.ImageManifest arm64 = client.resolve(ref, "linux/arm64/v8");
+        OciRegistryClient.ImageManifest amd64 = client.resolve(ref, "linux/amd64");
+
+        assertEquals(arm64Manifest, arm64.digest());
+        assertEquals(new OciRegistryClient.Descriptor(CONFIG_TYPE, digest(config), config.length), arm64.config());
+        assertEquals(List.of(new OciRegistryClient.Descriptor(LAYER_TYPE, digest(arm64Layer), arm64Layer.length)),
+                arm64.layers());
+        assertEquals(amd64Manifest, amd64.digest());
+        assertEquals(digest(amd64Layer), amd64.layers().get(0).digest());
+        assertThrows(IOException.class, () -> client.resolve(ref, "windows/amd64"));
+    }
+
+    @Test
+    void resolveRejectsManifestNotMatchingPinnedDigest() {
+        String pinned = "sha256:" + "0".repeat(64);
+        manifests.put(pinned, manifests.get(arm64Manifest));
+        ImageReference pinnedRef = ImageReference.parse(
+                "127.0.0.1:" + registry.getAddress().getPort() + "/" + REPOSITORY + "@" + pinned);
+
+        IOException error = assertThrows(IOException.class, () -> client.resolve(pinnedRef, "linux/arm64"));
+        assertTrue(error.getMessage().contains(pinned));
+    }
+
+    @Test
+    void resolveRejectsPathLikeDigests() {
+        // 이미지 작성자가 만든 manifest의 digest가 파일 경로로 쓰이지 않도록 형식 검증
+        String traversal = "sha256:x/../../../etc";
+        manifests.put("bad-layer", ("{\"schemaVersion\":2,\"mediaType\":\"" + OciRegistryClient.OCI_MANIFEST + "\","
+                + "\"config\":{\"mediaType\":\"" + CONFIG_TYPE + "\",\"digest\":\"" + digest(config) + "\",\"size\":" + config.length + "},"
+                + "\"layers\":[{\"mediaType\":\"" + LAYER_TYPE + "\",\"digest\":\"" + traversal + "\",\"size\":1}]}")
+                .getBytes(StandardCharsets.UTF_8));
+        manifests.put("bad-index", ("{\"schemaVersion\":2,\"mediaType\":\"" + OciRegistryClient.OCI_INDEX + "\",\"manifests\":["
+                + indexEntry(traversal, "{\"os\":\"linux\",\"architecture\":\"amd64\"}") + "]}")
+                .getBytes(StandardCharsets.UTF_8));
+        String base = "127.0.0.1:" + registry.getAddress().getPort() + "/" + REPOSITORY;
+
+        IOException layer = assertThrows(IOException.class,
+                () -> client.resolve(ImageReference.parse(base + ":bad-layer"), "linux/amd64"));
+        IOException index = assertThrows(IOException.class,
+                () -> client.resolve(ImageReference.parse(base + ":bad-index"), "linux/amd64"));
+
+        assertTrue(layer.getMessage().contains("digest 형식"));
+        assertTrue(index.getMessage().contains("digest 형식"));
+        assertTrue(OciRegistryClient.isValidDigest(digest(config)));
+        assertFalse(OciRegistryClient.isValidDigest("sha256:ABC"));
+    }
+
+    @Test
+    void bearerChallengeFetchesTokenOnceAndAuthorizesRequests() throws Exception {
+        client.resolve(ref, "linux/amd64");
+        client.resolve(ref, "linux/arm64/v8");
+
+        assertEquals(1, tokenQueries.size());
+        assertEquals("service=test-registry&scope=repository:team/app:pull", tokenQueries.get(0));
+        // 첫 요청만 토큰 없이 401, 이후 모두 Bearer
+        assertNull(registryAuthorizations.get(0));
+        assertEquals(List.of("Bearer " + TOKEN), registryAuthorizations.subList(1, registryAuthorizations.size())
+                .stream().distinct().toList());
+    }
+
+    @Test
+    void downloadBlobFollowsRedirectWithoutAuthorization() throws Exception {
+        OciRegistryClient.Descriptor layer = client.resolve(ref, "linux/amd64").layers().get(0);
+        Path target = tempDir.resolve("layer.tar.gz");
+
+        client.downloadBlob(ref, layer, target);
+
+        assertArrayEquals(amd64Layer, Files.readAllBytes(target));
+        assertEquals(1, storageAuthorizations.size());
+        assertEquals("", storageAuthorizations.get(0));
+        assertTrue(registryAuthorizations.contains("Bearer " + TOKEN));
+    }
+
+    @Test
+    void downloadBlobRetriesCorruptedBody() throws Exception {
+        OciRegistryClient.Descriptor layer = client.resolve(ref, "linux/arm64/v8").layers().get(0);
+        Path target = tempDir.resolve("layer.tar.gz");
+        corruptNext.set(1);
+
+        client.downloadBlob(ref, layer, target);
+
+        assertArrayEquals(arm64Layer, Files.readAllBytes(target));
+        assertEquals(2, storageAuthorizations.size());
+        assertEquals(1.0, meterRegistry.counter("package.build.retries", "operation", "blob-download").count());
+        assertFalse(Files.exists(tempDir.resolve("layer.tar.gz.part")));
+    }
+
+    @Test
+    void downloadBlobRejectsSizeMismatchAfterRetries() throws Exception {
+        OciRegistryClient.Descriptor layer = client.resolve(ref, "linux/amd64").layers().get(0);
+        OciRegistryClient.Descriptor wrongSize =
+                new OciRegistryClient.Descriptor(layer.mediaType(), layer.digest(), layer.size() + 1);
+        Path target = tempDir.resolve("layer.tar.gz");
+
+        IOException error = assertThrows(IOException.class, () -> client.downloadBlob(ref, wrongSize, target));
+
+        assertTrue(error.getMessage().contains("blob 검증 실패"));
+        assertEquals(3, storageAuthorizations.size());
+        assertFalse(Files.exists(target));
+        assertFalse(Files.exists(tempDir.resolve("layer.tar.gz.part")));
+    }
+
+    @Test
+    void downloadBlobStopsReadingWhenCancelled() throws Exception {
+        OciRegistryClient.Descriptor layer = client.resolve(ref, "linux/amd64").layers().get(0);
+        Path target = tempDir.resolve("layer.tar.gz");
+        // 시도 전 확인은 통과, 첫 버퍼를 읽은 뒤 취소
+        AtomicInteger checks = new AtomicInteger();
+
+        assertThrows(CancellationException.class,
+                () -> client.downloadBlob(ref, layer, target, () -> checks.incrementAndGet() > 1));
+
+        assertEquals(2, checks.get());
+        assertEquals(1, storageAuthorizations.size());
+        assertEquals(0.0, meterRegistry.counter("package.build.retries", "operation", "blob-download").count());
+        assertFalse(Files.exists(target));
+        assertFalse(Files.exists(tempDir.resolve("layer.tar.gz.part")));
+    }
+
+    // ======================== 테스트 서버 ========================
+
+    private void token(HttpExchange exchange) throws IOException {
+        tokenQueries.add(exchange.getRequestURI().getQuery());
+        send(exchange, 200, "application/json",
+                ("{\"token\":\"" + TOKEN + "\",\"expires_in\":300}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void registryApi(HttpExchange exchange) throws IOException {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        registryAuthorizations.add(authorization);
+        if (!("Bearer " + TOKEN).equals(authorization)) {
+            exchange.getResponseHeaders().add("WWW-Authenticate", "Bearer realm=\"http://127.0.0.1:"
+                    + registry.getAddress().getPort() + "/token\",service=\"test-registry\",scope=\"repository:"
+                    + REPOSITORY + ":pull\"");
+            send(exchange, 401, "application/json", "{\"errors\":[{\"code\":\"UNAUTHORIZED\"}]}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        String manifestPrefix = "/v2/" + REPOSITORY + "/manifests/";
+        String blobPrefix = "/v2/" + REPOSITORY + "/blobs/";
+        if (path.startsWith(manifestPrefix) && manifests.containsKey(path.substring(manifestPrefix.length()))) {
+            send(exchange, 200, OciRegistryClient.OCI_MANIFEST, manifests.get(path.substring(manifestPrefix.length())));
+        } else if (path.startsWith(blobPrefix) && digest(config).equals(path.substring(blobPrefix.length()))) {
+            send(exchange, 200, "application/octet-stream", config);
+        } else if (path.startsWith(blobPrefix) && blobs.containsKey(path.substring(blobPrefix.length()))) {
+            // 레이어는 외부 스토리지로 redirect (서명 URL 흉내)
+            exchange.getResponseHeaders().add("Location", "http://127.0.0.1:" + storage.getAddress().getPort()
+                    + "/blobs/" + path.substring(blobPrefix.length()) + "?signature=test");
+            send(exchange, 307, "text/plain", new byte[0]);
+        } else {
+            send(exchange, 404, "application/json", "{\"errors\":[{\"code\":\"NOT_FOUND\"}]}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void storageBlob(HttpExchange exchange) throws IOException {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        storageAuthorizations.add(authorization == null ? "" : authorization);
+        byte[] blob = blobs.get(exchange.getRequestURI().getPath().substring("/blobs/".length()));
+        if (blob == null) {
+            send(exchange, 404, "text/plain", new byte[0]);
+            return;
+        }
+        if (corruptNext.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            blob = blob.clone();
+            blob[blob.length / 2] ^= 0x01;
+        }
+        send(exchange, 200, "application/octet-stream", blob);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+            exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+            if (body.length > 0) exchange.getResponseBody().write(body);
+        }
+    }
+
+    // ======================== 테스트 데이터 ========================
+
+    private String putManifest(String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        String digest = digest(body);
+        manifests.put(digest, body);
+        return digest;
+    }
+
+    private String manifestJson(byte[] layer) {
+        return "{\"schemaVersion\":2,\"mediaType\":\"" + OciRegistryClient.OCI_MANIFEST + "\","
+                + "\"config\":{\"mediaType\":\"" + CONFIG_TYPE + "\",\"digest\":\"" + digest(config) + "\",\"size\":" + config.length + "},"
+                + "\"layers\":[{\"mediaType\":\"" + LAYER_TYPE + "\",\"digest\":\"" + digest(layer) + "\",\"size\":" + layer.length + "}]}";
+    }
+
+    private static String indexEntry(String digest, String platform) {
+        return "{\"mediaType\":\"" + OciRegistryClient.OCI_MANIFEST + "\",\"digest\":\"" + digest
+                + "\",\"size\":0,\"platform\":" + platform + "}";
+    }
+
+    private static byte[] bytes(int size, int seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            return "sha256:" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.osc.devops.packages.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.devops.common.enums.ArchiveFormat;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OciImageLayoutWriter - 실제 PackageArchiveWriter(TAR)에 기록한 뒤 패키지를 다시 읽어 확인
+ * - 공유 레이어는 한 번만 기록, 기준 패키지에 있는 blob(baseBlobs)은 기록하지 않음
+ * - blobs/sha256/{hex}의 내용이 이름의 digest와 일치하고, index.json → manifest → config/layer가 모두 패키지 안에 있는지
+ */
+class OciImageLayoutWriterTest {
+
+    private static final String ROOT = "pkg";
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesSharedLayerOnceAndProducesValidLayout() throws Exception {
+        byte[] base = gzip(randomBytes(50_000, 1));
+        byte[] app = randomBytes(20_000, 2);
+        byte[] worker = randomBytes(30_000, 3);
+        Path appTar = dockerSave("app", List.of(base, app), "team/app:1.0");
+        Path workerTar = dockerSave("worker", List.of(base, worker), "team/worker:1.0");
+
+        Map<String, byte[]> entries = writePackage(Set.of(), images -> {
+            images.addDockerArchive(appTar, "team_app_1.0", "linux/amd64");
+            images.addDockerArchive(workerTar, "team_worker_1.0", "linux/arm64/v8");
+        }, stats -> {
+            assertEquals(base.length, stats.getBlobBytesSkipped());
+            assertEquals(0, stats.getBlobBytesInBase());
+        });
+
+        // config 2 + 공유 레이어 1 + 개별 레이어 2 + manifest 2
+        List<String> blobEntries = entries.keySet().stream().filter(n -> n.startsWith("images/blobs/sha256/")).toList();
+        assertEquals(7, blobEntries.size());
+        for (String name : blobEntries) {
+            assertEquals(name.substring(name.lastIndexOf('/') + 1), hex(entries.get(name)), "내용 주소 불일치: " + name);
+        }
+
+        assertEquals("{\"imageLayoutVersion\":\"1.0.0\"}\n", text(entries, "images/oci-layout"));
+        JsonNode index = objectMapper.readTree(entries.get("images/index.json"));
+        assertEquals("application/vnd.oci.image.index.v1+json", index.path("mediaType").asText());
+        assertEquals(2, index.path("manifests").size());
+        JsonNode appDescriptor = index.path("manifests").get(0);
+        JsonNode workerDescriptor = index.path("manifests").get(1);
+        assertEquals("team_app_1.0", appDescriptor.path("annotations").path("org.opencontainers.image.ref.name").asText());
+        assertEquals("amd64", appDescriptor.path("platform").path("architecture").asText());
+        assertEquals("arm64", workerDescriptor.path("platform").path("architecture").asText());
+        assertEquals("v8", workerDescriptor.path("platform").path("variant").asText());
+
+        JsonNode appManifest = manifest(entries, appDescriptor);
+        assertEquals(2, appManifest.path("layers").size());
+        assertEquals(sha256(base), appManifest.path("layers").get(0).path("digest").asText());
+        assertEquals("application/vnd.oci.image.layer.v1.tar+gzip", appManifest.path("layers").get(0).path("mediaType").asText());
+        assertEquals(sha256(app), appManifest.path("layers").get(1).path("digest").asText());
+        assertEquals("application/vnd.oci.image.layer.v1.tar", appManifest.path("layers").get(1).path("mediaType").asText());
+        assertLayerBlobsPresent(entries, appManifest);
+        assertLayerBlobsPresent(entries, manifest(entries, workerDescriptor));
+
+        // docker load용 refs 파일은 blobs/ 기준 경로로 같은 blob을 가리킨다
+        JsonNode load = objectMapper.readTree(entries.get("images/refs/team_app_1.0.manifest.json")).get(0);
+        assertEquals("team/app:1.0", load.path("RepoTags").get(0).asText());
+        assertEquals(blobRef(appManifest.path("config").path("digest").asText()), load.path("Config").asText());
+        assertEquals(blobRef(sha256(base)), load.path("Layers").get(0).asText());
+        String blobList = text(entries, "images/refs/team_app_1.0.blobs");
+        assertEquals(3, blobList.lines().count());
+        blobList.lines().forEach(ref -> assertTrue(entries.containsKey("images/" + ref), "없는 blob 참조: " + ref));
+        assertEquals(objectMapper.readTree(appDescriptor.toString()),
+                objectMapper.readTree(entries.get("images/refs/team_app_1.0.descriptor.json")));
+    }
+
+    @Test
+    void skipsBlobsAlreadyInDeltaBase() throws Exception {
+        byte[] base = gzip(randomBytes(40_000, 4));
+        byte[] app = randomBytes(10_000, 5);
+        Path appTar = dockerSave("app", List.of(base, app), "team/app:2.0");
+
+        Map<String, byte[]> entries = writePackage(Set.of(sha256(base)), images -> {
+            images.addDockerArchive(appTar, "team_app_2.0", "linux/amd64");
+            assertTrue(images.getReferencedBlobs().containsKey(sha256(base)));
+            assertEquals((long) base.length, images.getReferencedBlobs().get(sha256(base)).longValue());
+        }, stats -> {
+            assertEquals(base.length, stats.getBlobBytesInBase());
+            assertEquals(0, stats.getBlobBytesSkipped());
+        });
+
+        assertFalse(entries.containsKey(OciImageLayoutWriter.blobEntry(sha256(base))));
+        assertTrue(entries.containsKey(OciImageLayoutWriter.blobEntry(sha256(app))));
+        // manifest는 기준 패키지 blob도 그대로 참조 (apply-delta.sh 병합 후 기준 패키지의 blobs/에서 찾음)
+        JsonNode index = objectMapper.readTree(entries.get("images/index.json"));
+        JsonNode manifest = manifest(entries, index.path("manifests").get(0));
+        assertEquals(sha256(base), manifest.path("layers").get(0).path("digest").asText());
+    }
+
+    @Test
+    void addBlobWritesEachDigestOnceAcrossThreads() throws Exception {
+        byte[] layer = randomBytes(100_000, 6);
+        String digest = sha256(layer);
+        AtomicInteger writes = new AtomicInteger();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+
+        Map<String, byte[]> entries = writePackage(Set.of(), images -> {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return images.addBlob(digest, layer.length, (archive, path) -> {
+                            writes.incrementAndGet();
+                            Thread.sleep(20); // 다른 스레드가 기록 중인 blob을 기다리도록
+                            archive.writeBytes(path, layer);
+                        });
+                    }));
+                }
+                start.countDown();
+                int written = 0;
+                for (Future<Boolean> result : results) {
+                    if (result.get()) written++;
+                }
+                assertEquals(1, written);
+            } finally {
+                executor.shutdownNow();
+            }
+        }, stats -> {
+            assertEquals(layer.length, stats.getBlobBytesWritten());
+            assertEquals((long) layer.length * (threads - 1), stats.getBlobBytesSkipped());
+        });
+
+        assertEquals(1, writes.get());
+        assertArrayEquals(layer, entries.get(OciImageLayoutWriter.blobEntry(digest)));
+    }
+
+    @Test
+    void addBlobRetriesAfterFailedWrite() throws Exception {
+        byte[] layer = randomBytes(5_000, 7);
+        String digest = sha256(layer);
+
+        Map<String, byte[]> entries = writePackage(Set.of(), images -> {
+            assertThrows(IOException.class, () -> images.addBlob(digest, layer.length, (archive, path) -> {
+                throw new IOException("download failed");
+            }));
+            assertTrue(images.addBlob(digest, layer.length, (archive, path) -> archive.writeBytes(path, layer)));
+            assertFalse(images.addBlob(digest, layer.length, (archive, path) -> {
+                throw new AssertionError("이미 기록된 blob을 다시 기록함");
+            }));
+        }, stats -> {});
+
+        assertArrayEquals(layer, entries.get(OciImageLayoutWriter.blobEntry(digest)));
+    }
+
+    @Test
+    void convertsRegistryDockerMediaTypesToOci() throws Exception {
+        byte[] config = "{\"architecture\":\"amd64\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] layer = gzip(randomBytes(8_000, 8));
+        OciImageLayoutWriter.BlobInfo configInfo = OciImageLayoutWriter.BlobInfo.of(sha256(config), config.length,
+                "application/vnd.docker.container.image.v1+json");
+        OciImageLayoutWriter.BlobInfo layerInfo = OciImageLayoutWriter.BlobInfo.of(sha256(layer), layer.length,
+                "application/vnd.docker.image.rootfs.diff.tar.gzip");
+
+        Map<String, byte[]> entries = writePackage(Set.of(), images -> {
+            images.addBlob(configInfo.digest(), config.length, (archive, path) -> archive.writeBytes(path, config));
+            images.addBlob(layerInfo.digest(), layer.length, (archive, path) -> archive.writeBytes(path, layer));
+            String manifestDigest = images.addImage("nginx_1.27", "linux/amd64", List.of("nginx:1.27"),
+                    configInfo, List.of(layerInfo));
+            assertTrue(manifestDigest.startsWith("sha256:"));
+        }, stats -> {});
+
+        JsonNode index = objectMapper.readTree(entries.get("images/index.json"));
+        JsonNode manifest = manifest(entries, index.path("manifests").get(0));
+        assertEquals("application/vnd.oci.image.config.v1+json", manifest.path("config").path("mediaType").asText());
+        assertEquals("application/vnd.oci.image.layer.v1.tar+gzip", manifest.path("layers").get(0).path("mediaType").asText());
+        assertLayerBlobsPresent(entries, manifest);
+    }
+
+    // ======================== helpers ========================
+
+    @FunctionalInterface
+    private interface LayoutWork {
+        void run(OciImageLayoutWriter images) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface StatsCheck {
+        void check(OciImageLayoutWriter images);
+    }
+
+    /**
+     * 패키지(TAR)에 layout을 기록하고 {ROOT}/ 아래 파일 entry를 경로 → 내용으로 반환
+     */
+    private Map<String, byte[]> writePackage(Set<String> baseBlobs, LayoutWork work, StatsCheck stats) throws Exception {
+        Path target = tempDir.resolve("package-" + System.nanoTime() + ".tar");
+        try (PackageArchiveWriter archive = new PackageArchiveWriter(target, ROOT, ArchiveFormat.TAR, null,
+                ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE, 1)) {
+            OciImageLayoutWriter images = new OciImageLayoutWriter(archive, objectMapper, baseBlobs);
+            work.run(images);
+            images.finish();
+            stats.check(images);
+        }
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (TarArchiveInputStream in = new TarArchiveInputStream(Files.newInputStream(target))) {
+            TarArchiveEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if (!entry.isFile()) continue;
+                assertTrue(entry.getName().startsWith(ROOT + "/"), entry.getName());
+                byte[] previous = entries.put(entry.getName().substring(ROOT.length() + 1), in.readAllBytes());
+                assertNull(previous, "같은 entry가 두 번 기록됨: " + entry.getName());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * docker save 형식 tar (manifest.json + {id}.json config + {id}/layer.tar)
+     */
+    private Path dockerSave(String name, List<byte[]> layers, String repoTag) throws IOException {
+        Path tar = tempDir.resolve(name + ".tar");
+        byte[] config = ("{\"architecture\":\"amd64\",\"os\":\"linux\",\"name\":\"" + name + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        String configPath = hex(config) + ".json";
+        List<String> layerPaths = new ArrayList<>();
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(Files.newOutputStream(tar))) {
+            putEntry(out, configPath, config);
+            for (byte[] layer : layers) {
+                String layerPath = hex(layer) + "/layer.tar";
+                layerPaths.add(layerPath);
+                putEntry(out, layerPath, layer);
+            }
+            Map<String, Object> manifest = new LinkedHashMap<>();
+            manifest.put("Config", configPath);
+            manifest.put("RepoTags", List.of(repoTag));
+            manifest.put("Layers", layerPaths);
+            putEntry(out, "manifest.json", objectMapper.writeValueAsBytes(List.of(manifest)));
+        }
+        return tar;
+    }
+
+    private static void putEntry(TarArchiveOutputStream out, String name, byte[] content) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        out.putArchiveEntry(entry);
+        out.write(content);
+        out.closeArchiveEntry();
+    }
+
+    private JsonNode manifest(Map<String, byte[]> entries, JsonNode descriptor) throws IOException {
+        String digest = descriptor.path("digest").asText();
+        byte[] manifest = entries.get(OciImageLayoutWriter.blobEntry(digest));
+        assertEquals(descriptor.path("size").asLong(), manifest.length);
+        JsonNode node = objectMapper.readTree(manifest);
+        assertEquals("application/vnd.oci.image.manifest.v1+json", node.path("mediaType").asText());
+        return node;
+    }
+
+    private static void assertLayerBlobsPresent(Map<String, byte[]> entries, JsonNode manifest) {
+        List<JsonNode> descriptors = new ArrayList<>();
+        descriptors.add(manifest.path("config"));
+        manifest.path("layers").forEach(descriptors::add);
+        for (JsonNode descriptor : descriptors) {
+            byte[] blob = entries.get(OciImageLayoutWriter.blobEntry(descriptor.path("digest").asText()));
+            assertNotNull(blob, "manifest가 참조하는 blob이 없음: " + descriptor);
+            assertEquals(descriptor.path("size").asLong(), blob.length);
+        }
+    }
+
+    private static String text(Map<String, byte[]> entries, String name) {
+        return new String(entries.get(name), StandardCharsets.UTF_8);
+    }
+
+    private static String blobRef(String digest) {
+        return "blobs/sha256/" + digest.substring("sha256:".length());
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static String sha256(byte[] data) {
+        return "sha256:" + hex(data);
+    }
+
+    private static String hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
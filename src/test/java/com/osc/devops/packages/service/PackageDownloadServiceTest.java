@@ -0,0 +1,106 @@
+package com.osc.devops.packages.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PackageDownloadService의 Range / If-Range / If-None-Match 해석
+ * 잘못 해석하면 이어받기가 엉뚱한 바이트를 붙이므로 경계값 위주로 확인
+ */
+class PackageDownloadServiceTest {
+
+    private static final long LENGTH = 1000;
+    private static final String ETAG = "\"abc123\"";
+    private static final long LAST_MODIFIED = Instant.parse("2026-10-18T13:18:55Z").toEpochMilli();
+
+    @Test
+    void parsesClosedRange() {
+        assertArrayEquals(new long[]{0, 99}, PackageDownloadService.parseRange("bytes=0-99", LENGTH));
+        assertArrayEquals(new long[]{999, 999}, PackageDownloadService.parseRange("bytes=999-999", LENGTH));
+        assertArrayEquals(new long[]{10, 20}, PackageDownloadService.parseRange("bytes= 10 - 20 ", LENGTH));
+    }
+
+    @Test
+    void clampsEndPastFileLength() {
+        assertArrayEquals(new long[]{900, 999}, PackageDownloadService.parseRange("bytes=900-5000", LENGTH));
+    }
+
+    @Test
+    void parsesOpenEndedRange() {
+        assertArrayEquals(new long[]{500, 999}, PackageDownloadService.parseRange("bytes=500-", LENGTH));
+        assertArrayEquals(new long[]{0, 999}, PackageDownloadService.parseRange("bytes=0-", LENGTH));
+    }
+
+    @Test
+    void parsesSuffixRange() {
+        assertArrayEquals(new long[]{800, 999}, PackageDownloadService.parseRange("bytes=-200", LENGTH));
+        // 파일보다 긴 suffix는 전체
+        assertArrayEquals(new long[]{0, 999}, PackageDownloadService.parseRange("bytes=-5000", LENGTH));
+    }
+
+    @Test
+    void rejectsRangeOutsideFile() {
+        assertSame(PackageDownloadService.UNSATISFIABLE, PackageDownloadService.parseRange("bytes=1000-", LENGTH));
+        assertSame(PackageDownloadService.UNSATISFIABLE, PackageDownloadService.parseRange("bytes=1000-1100", LENGTH));
+        assertSame(PackageDownloadService.UNSATISFIABLE, PackageDownloadService.parseRange("bytes=-0", LENGTH));
+        assertSame(PackageDownloadService.UNSATISFIABLE, PackageDownloadService.parseRange("bytes=0-", 0));
+        assertSame(PackageDownloadService.UNSATISFIABLE, PackageDownloadService.parseRange("bytes=-10", 0));
+    }
+
+    @Test
+    void ignoresMultiRangeAndMalformedHeaders() {
+        // null: Range 무시하고 전체 응답 (200)
+        assertNull(PackageDownloadService.parseRange("bytes=0-99,200-299", LENGTH));
+        assertNull(PackageDownloadService.parseRange("items=0-99", LENGTH));
+        assertNull(PackageDownloadService.parseRange("bytes=100-50", LENGTH));
+        assertNull(PackageDownloadService.parseRange("bytes=-", LENGTH));
+        assertNull(PackageDownloadService.parseRange("bytes=abc-", LENGTH));
+        assertNull(PackageDownloadService.parseRange("bytes=100", LENGTH));
+    }
+
+    @Test
+    void appliesRangeWithoutIfRange() {
+        assertTrue(PackageDownloadService.ifRangeMatches(new MockHttpServletRequest(), ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    void appliesRangeOnlyForSameStrongEtag() {
+        assertTrue(PackageDownloadService.ifRangeMatches(ifRange(ETAG), ETAG, LAST_MODIFIED));
+        assertFalse(PackageDownloadService.ifRangeMatches(ifRange("\"other\""), ETAG, LAST_MODIFIED));
+        // If-Range는 strong 비교 - weak ETag는 일치로 보지 않음
+        assertFalse(PackageDownloadService.ifRangeMatches(ifRange("W/" + ETAG), ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    void appliesRangeOnlyForSameLastModified() {
+        assertTrue(PackageDownloadService.ifRangeMatches(
+                ifRange("Sun, 18 Oct 2026 13:18:55 GMT"), ETAG, LAST_MODIFIED));
+        assertFalse(PackageDownloadService.ifRangeMatches(
+                ifRange("Sun, 18 Oct 2026 13:18:54 GMT"), ETAG, LAST_MODIFIED));
+        assertFalse(PackageDownloadService.ifRangeMatches(ifRange("not a date"), ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    void matchesIfNoneMatch() {
+        assertTrue(PackageDownloadService.matchesEtag(ETAG, ETAG));
+        assertTrue(PackageDownloadService.matchesEtag("\"x\", W/" + ETAG, ETAG));
+        assertTrue(PackageDownloadService.matchesEtag("*", ETAG));
+        assertFalse(PackageDownloadService.matchesEtag("\"x\"", ETAG));
+        assertFalse(PackageDownloadService.matchesEtag(null, ETAG));
+    }
+
+    private static MockHttpServletRequest ifRange(String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_RANGE, value);
+        return request;
+    }
+}
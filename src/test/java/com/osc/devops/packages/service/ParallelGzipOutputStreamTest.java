@@ -0,0 +1,181 @@
+package com.osc.devops.packages.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ParallelGzipOutputStream - GZIPInputStream으로 되풀어 원본과 비교하고,
+ * 출력이 하나의 gzip member(헤더 + 이어지는 deflate 스트림 + CRC32/ISIZE)인지 확인
+ */
+class ParallelGzipOutputStreamTest {
+
+    private static final int BLOCK = 64 * 1024;
+
+    @Test
+    void roundTripsRandomDataAcrossManyBlocks() throws IOException {
+        byte[] data = randomBytes(BLOCK * 7 + 12345, 1);
+
+        byte[] gz = compress(data, BLOCK, 4, 1024);
+
+        assertArrayEquals(data, gunzip(gz));
+        assertSingleMember(gz, data);
+    }
+
+    @Test
+    void roundTripsCompressibleDataThatReferencesPreviousBlock() throws IOException {
+        // 블록 경계를 넘어 반복되는 텍스트 - 직전 블록 dictionary를 참조하는 match가 생긴다
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < BLOCK * 5; i++) {
+            sb.append("line ").append(i % 97).append(" - keycloak harbor argocd\n");
+        }
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        byte[] gz = compress(data, BLOCK, 3, 777);
+
+        assertArrayEquals(data, gunzip(gz));
+        assertSingleMember(gz, data);
+        assertTrue(gz.length < data.length / 5, "압축률이 너무 낮음: " + gz.length + "/" + data.length);
+    }
+
+    @Test
+    void roundTripsExactBlockMultiple() throws IOException {
+        byte[] data = randomBytes(BLOCK * 3, 2);
+
+        byte[] gz = compress(data, BLOCK, 2, BLOCK);
+
+        assertArrayEquals(data, gunzip(gz));
+        assertSingleMember(gz, data);
+    }
+
+    @Test
+    void roundTripsInputSmallerThanDictionary() throws IOException {
+        byte[] data = "deploy.sh\n".getBytes(StandardCharsets.UTF_8);
+
+        byte[] gz = compress(data, BLOCK, 4, 3);
+
+        assertArrayEquals(data, gunzip(gz));
+        assertSingleMember(gz, data);
+    }
+
+    @Test
+    void writesValidEmptyMember() throws IOException {
+        byte[] gz = compress(new byte[0], BLOCK, 2, 1);
+
+        assertArrayEquals(new byte[0], gunzip(gz));
+        assertSingleMember(gz, new byte[0]);
+    }
+
+    @Test
+    void producesSameBytesForAnyThreadCount() throws IOException {
+        // 스레드 수와 상관없이 블록 분할이 같으면 같은 바이트가 나온다 (순서대로 기록되는지)
+        byte[] data = randomBytes(BLOCK * 4 + 10, 3);
+
+        assertArrayEquals(compress(data, BLOCK, 1, 4096), compress(data, BLOCK, 8, 4096));
+    }
+
+    @Test
+    void flushKeepsOutputDecodable() throws IOException {
+        byte[] data = randomBytes(BLOCK * 2 + 100, 4);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, BLOCK, 2)) {
+            gzip.write(data, 0, BLOCK + 50);
+            gzip.flush();
+            gzip.write(data, BLOCK + 50, data.length - BLOCK - 50);
+        }
+
+        assertArrayEquals(data, gunzip(out.toByteArray()));
+    }
+
+    @Test
+    void writesSingleBytes() throws IOException {
+        byte[] data = randomBytes(40_000, 5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, 32 * 1024, 2)) {
+            for (byte b : data) gzip.write(b);
+        }
+
+        assertArrayEquals(data, gunzip(out.toByteArray()));
+    }
+
+    @Test
+    void rejectsWriteAfterCloseAndBlockSmallerThanDictionary() throws IOException {
+        ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(new ByteArrayOutputStream(), BLOCK, 1);
+        gzip.close();
+        gzip.close(); // 두 번 닫아도 trailer를 다시 쓰지 않음
+
+        assertThrows(IOException.class, () -> gzip.write(1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParallelGzipOutputStream(new ByteArrayOutputStream(), 1024, 1));
+    }
+
+    private static byte[] compress(byte[] data, int blockSize, int threads, int chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, blockSize, threads)) {
+            for (int off = 0; off < data.length; off += chunk) {
+                gzip.write(data, off, Math.min(chunk, data.length - off));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] gz) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gz))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * GZIPInputStream은 이어 붙인 member도 풀어주므로, 헤더 뒤 deflate 스트림이 한 번에 끝나고
+     * 남은 8바이트가 원본의 CRC32/ISIZE인지 직접 확인
+     */
+    private static void assertSingleMember(byte[] gz, byte[] original) {
+        assertEquals(0x1f, gz[0] & 0xff);
+        assertEquals(0x8b, gz[1] & 0xff);
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(gz, 10, gz.length - 10);
+            byte[] buf = new byte[Math.max(1, original.length)];
+            int n = 0;
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) throw new AssertionError("deflate 스트림이 끝나지 않음");
+                n += inflater.inflate(buf, n, buf.length - n);
+                if (n == buf.length && !inflater.finished()) buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            assertArrayEquals(original, Arrays.copyOf(buf, n));
+            assertEquals(8, inflater.getRemaining(), "trailer 외의 데이터가 남음 (member가 여러 개)");
+
+            ByteBuffer trailer = ByteBuffer.wrap(gz, gz.length - 8, 8).order(ByteOrder.LITTLE_ENDIAN);
+            CRC32 crc = new CRC32();
+            crc.update(original);
+            assertEquals((int) crc.getValue(), trailer.getInt());
+            assertEquals(original.length, trailer.getInt());
+        } catch (DataFormatException e) {
+            throw new AssertionError("deflate 스트림 오류", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] randomBytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,105 @@
+package com.osc.devops.packages.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RegistryBlobCache - 같은 blob을 동시에 등록해도 크기가 한 번만 집계되는지, 크기가 다른 항목은 버리는지 확인
+ */
+class RegistryBlobCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RegistryBlobCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new RegistryBlobCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "cachePath", tempDir.resolve("cache").toString());
+        ReflectionTestUtils.setField(cache, "maxSizeGb", 1L);
+        cache.init();
+    }
+
+    @Test
+    void concurrentPutOfSameBlobCountsBytesOnce() throws Exception {
+        byte[] blob = randomBytes(50_000);
+        int threads = 8;
+        int rounds = 30;
+        List<Path> sources = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            sources.add(Files.write(tempDir.resolve("blob-" + i), blob));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // 경합 구간이 짧으므로 digest를 바꿔가며 여러 번 동시에 등록
+            for (int round = 0; round < rounds; round++) {
+                String digest = digest(round);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> puts = new ArrayList<>();
+                for (Path source : sources) {
+                    puts.add(executor.submit(() -> {
+                        start.await();
+                        cache.put(digest, source);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> put : puts) put.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals((long) blob.length * rounds, cache.getSizeBytes());
+        try (Stream<Path> files = Files.list(tempDir.resolve("cache"))) {
+            assertEquals(rounds, files.filter(p -> p.getFileName().toString().endsWith(".blob")).count());
+        }
+
+        Path target = tempDir.resolve("target");
+        assertTrue(cache.copyTo(digest(0), blob.length, target));
+        assertArrayEquals(blob, Files.readAllBytes(target));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void dropsEntryWithUnexpectedSize() throws Exception {
+        byte[] blob = randomBytes(1_000);
+        cache.put(digest(0), Files.write(tempDir.resolve("blob"), blob));
+
+        assertFalse(cache.copyTo(digest(0), blob.length + 1, tempDir.resolve("target")));
+        assertEquals(0, cache.getSizeBytes());
+        assertFalse(cache.copyTo(digest(0), blob.length, tempDir.resolve("target")));
+        assertEquals(2, cache.getMisses());
+    }
+
+    private static String digest(int n) {
+        return "sha256:" + String.format("%064x", n);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,304 @@
+package com.osc.devops.packages.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 테스트용 S3 호환 서버 (path-style, 메모리 보관)
+ * - 모든 요청의 SigV4 서명(헤더/presign 쿼리)을 S3RequestSigner로 다시 계산해 검증 - 불일치는 403
+ * - PUT / CopyObject / multipart(시작, part, UploadPartCopy, 완료, 중단) / HEAD / GET(Range) / DELETE
+ * 객체는 "bucket/key"로 보관한다.
+ */
+class InMemoryS3Server implements AutoCloseable {
+
+    static final String ACCESS_KEY = "test-access-key";
+    static final String SECRET_KEY = "test-secret-key";
+    static final String REGION = "us-east-1";
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final Pattern SIGNED_HEADERS = Pattern.compile("SignedHeaders=([^,]+)");
+    private static final Pattern COMPLETE_PART = Pattern.compile("<PartNumber>(\\d+)</PartNumber><ETag>([^<]+)</ETag>");
+
+    private final S3RequestSigner signer = new S3RequestSigner(ACCESS_KEY, SECRET_KEY, REGION);
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    // 다음 n개의 part 요청을 500으로 실패
+    final AtomicInteger failNextParts = new AtomicInteger();
+    final AtomicInteger partUploads = new AtomicInteger();
+    final AtomicInteger partCopies = new AtomicInteger();
+    // 서버에서 발생한 검증 실패 (테스트에서 비어있는지 확인)
+    final List<String> errors = new CopyOnWriteArrayList<>();
+
+    InMemoryS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            try {
+                handle(exchange);
+            } catch (Exception e) {
+                errors.add(exchange.getRequestMethod() + " " + exchange.getRequestURI() + ": " + e);
+                send(exchange, 500, "<Error><Code>InternalError</Code></Error>");
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    byte[] object(String bucketKey) {
+        return objects.get(bucketKey);
+    }
+
+    void putObject(String bucketKey, byte[] content) {
+        objects.put(bucketKey, content);
+    }
+
+    boolean hasPendingUploads() {
+        return !uploads.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        URI uri = exchange.getRequestURI();
+        Map<String, String> query = parseQuery(uri.getRawQuery());
+        String signatureError = query.containsKey("X-Amz-Signature")
+                ? verifyPresigned(exchange, query)
+                : verifySigned(exchange, body);
+        if (signatureError != null) {
+            errors.add(signatureError);
+            send(exchange, 403, "<Error><Code>SignatureDoesNotMatch</Code></Error>");
+            return;
+        }
+
+        String method = exchange.getRequestMethod();
+        String key = URLDecoder.decode(uri.getRawPath().replace("+", "%2B"), StandardCharsets.UTF_8).substring(1);
+        String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+
+        if ("POST".equals(method) && query.containsKey("uploads")) {
+            String uploadId = UUID.randomUUID().toString();
+            uploads.put(uploadId, new ConcurrentSkipListMap<>());
+            send(exchange, 200, "<InitiateMultipartUploadResult><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+        } else if ("PUT".equals(method) && query.containsKey("partNumber")) {
+            if (failNextParts.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                send(exchange, 500, "<Error><Code>InternalError</Code></Error>");
+                return;
+            }
+            Map<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+            if (parts == null) {
+                send(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+                return;
+            }
+            byte[] data = copySource == null ? body : copyRange(copySource,
+                    exchange.getRequestHeaders().getFirst("x-amz-copy-source-range"));
+            parts.put(Integer.parseInt(query.get("partNumber")), data);
+            if (copySource == null) {
+                partUploads.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", etag(data));
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                partCopies.incrementAndGet();
+                send(exchange, 200, "<CopyPartResult><ETag>" + etag(data).replace("\"", "&quot;") + "</ETag></CopyPartResult>");
+            }
+        } else if ("POST".equals(method) && query.containsKey("uploadId")) {
+            Map<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            Matcher part = COMPLETE_PART.matcher(new String(body, StandardCharsets.UTF_8));
+            int count = 0;
+            while (part.find()) {
+                byte[] data = parts.get(Integer.parseInt(part.group(1)));
+                if (data == null || !etag(data).equals(part.group(2))) {
+                    send(exchange, 400, "<Error><Code>InvalidPart</Code></Error>");
+                    return;
+                }
+                content.write(data);
+                count++;
+            }
+            if (count != parts.size()) {
+                send(exchange, 400, "<Error><Code>InvalidPartOrder</Code></Error>");
+                return;
+            }
+            objects.put(key, content.toByteArray());
+            send(exchange, 200, "<CompleteMultipartUploadResult><Key>" + key + "</Key></CompleteMultipartUploadResult>");
+        } else if ("DELETE".equals(method) && query.containsKey("uploadId")) {
+            uploads.remove(query.get("uploadId"));
+            exchange.sendResponseHeaders(204, -1);
+        } else if ("PUT".equals(method)) {
+            if (copySource != null) {
+                byte[] source = objects.get(sourceKey(copySource));
+                if (source == null) {
+                    send(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+                    return;
+                }
+                objects.put(key, source);
+                send(exchange, 200, "<CopyObjectResult><ETag>" + etag(source).replace("\"", "&quot;") + "</ETag></CopyObjectResult>");
+            } else {
+                objects.put(key, body);
+                exchange.getResponseHeaders().add("ETag", etag(body));
+                exchange.sendResponseHeaders(200, -1);
+            }
+        } else if ("DELETE".equals(method)) {
+            objects.remove(key);
+            exchange.sendResponseHeaders(204, -1);
+        } else {
+            getObject(exchange, method, objects.get(key));
+        }
+    }
+
+    private void getObject(HttpExchange exchange, String method, byte[] object) throws IOException {
+        if (object == null) {
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                send(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+            }
+            return;
+        }
+        exchange.getResponseHeaders().add("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT");
+        if ("HEAD".equals(method)) {
+            exchange.getResponseHeaders().add("Content-Length", Long.toString(object.length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        byte[] data = range == null ? object : slice(object, range);
+        exchange.sendResponseHeaders(range == null ? 200 : 206, data.length);
+        exchange.getResponseBody().write(data);
+    }
+
+    /**
+     * Authorization 헤더 서명 검증 - 서명된 헤더 값과 요청 시각으로 다시 서명해 비교
+     */
+    private String verifySigned(HttpExchange exchange, byte[] body) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        String payloadHash = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        String amzDate = exchange.getRequestHeaders().getFirst("x-amz-date");
+        if (authorization == null || payloadHash == null || amzDate == null) return "서명 헤더 없음";
+        if (!S3RequestSigner.UNSIGNED_PAYLOAD.equals(payloadHash) && !payloadHash.equals(S3RequestSigner.sha256Hex(body))) {
+            return "본문 해시 불일치";
+        }
+        Matcher signedHeaders = SIGNED_HEADERS.matcher(authorization);
+        if (!signedHeaders.find()) return "SignedHeaders 없음";
+
+        Map<String, String> headers = new TreeMap<>();
+        for (String name : signedHeaders.group(1).split(";")) {
+            if (!List.of("host", "x-amz-date", "x-amz-content-sha256").contains(name)) {
+                headers.put(name, exchange.getRequestHeaders().getFirst(name));
+            }
+        }
+        String expected = signer.sign(exchange.getRequestMethod(), requestUri(exchange), headers, payloadHash,
+                parseAmzDate(amzDate)).get("authorization");
+        return expected.equals(authorization) ? null : "서명 불일치: " + authorization;
+    }
+
+    /**
+     * presign 쿼리 서명 검증 - 만료 시각도 확인
+     */
+    private String verifyPresigned(HttpExchange exchange, Map<String, String> query) {
+        Map<String, String> params = new TreeMap<>(query);
+        Instant signedAt = parseAmzDate(params.remove("X-Amz-Date"));
+        Duration ttl = Duration.ofSeconds(Long.parseLong(params.remove("X-Amz-Expires")));
+        params.keySet().removeIf(name -> name.startsWith("X-Amz-"));
+        if (Instant.now().isAfter(signedAt.plus(ttl))) return "presign 만료";
+
+        URI uri = requestUri(exchange);
+        URI expected = signer.presign(exchange.getRequestMethod(), "http://" + uri.getRawAuthority(), uri.getRawPath(),
+                params, ttl, signedAt);
+        return expected.equals(uri) ? null : "presign 서명 불일치: " + uri;
+    }
+
+    private static URI requestUri(HttpExchange exchange) {
+        URI uri = exchange.getRequestURI();
+        return URI.create("http://" + exchange.getRequestHeaders().getFirst("Host") + uri.getRawPath()
+                + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery()));
+    }
+
+    private static Instant parseAmzDate(String amzDate) {
+        return LocalDateTime.parse(amzDate, AMZ_DATE).toInstant(ZoneOffset.UTC);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new TreeMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return query;
+        for (String pair : rawQuery.split("&")) {
+            String[] nameValue = pair.split("=", 2);
+            query.put(decode(nameValue[0]), nameValue.length > 1 ? decode(nameValue[1]) : "");
+        }
+        return query;
+    }
+
+    private static String decode(String value) {
+        // S3 인코딩은 공백을 %20으로 보내므로 '+'는 문자 그대로
+        return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static String sourceKey(String copySource) {
+        return decode(copySource).substring(1);
+    }
+
+    private byte[] copyRange(String copySource, String range) {
+        byte[] source = objects.get(sourceKey(copySource));
+        return range == null ? source : slice(source, range);
+    }
+
+    private static byte[] slice(byte[] data, String range) {
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        return Arrays.copyOfRange(data, Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]) + 1);
+    }
+
+    private static String etag(byte[] data) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data)) + "\"";
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
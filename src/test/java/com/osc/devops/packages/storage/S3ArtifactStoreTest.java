@@ -0,0 +1,193 @@
+package com.osc.devops.packages.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * S3ArtifactStore - InMemoryS3Server(서명 검증)를 상대로 업로드/복사/조회/다운로드/삭제 확인
+ */
+class S3ArtifactStoreTest {
+
+    private static final String BUCKET = "packages-test";
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryS3Server server;
+    private ExecutorService uploadExecutor;
+    private S3ArtifactStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new InMemoryS3Server();
+        uploadExecutor = Executors.newFixedThreadPool(4);
+        store = new S3ArtifactStore(uploadExecutor);
+        ReflectionTestUtils.setField(store, "endpoint", server.endpoint() + "/");
+        ReflectionTestUtils.setField(store, "region", InMemoryS3Server.REGION);
+        ReflectionTestUtils.setField(store, "bucket", BUCKET);
+        ReflectionTestUtils.setField(store, "prefix", "packages/");
+        ReflectionTestUtils.setField(store, "accessKey", InMemoryS3Server.ACCESS_KEY);
+        ReflectionTestUtils.setField(store, "secretKey", InMemoryS3Server.SECRET_KEY);
+        ReflectionTestUtils.setField(store, "pathStyle", true);
+        ReflectionTestUtils.setField(store, "partSizeMb", 5L);
+        ReflectionTestUtils.setField(store, "presign", true);
+        ReflectionTestUtils.setField(store, "presignTtlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "connectTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(store, "responseTimeoutMs", 30_000L);
+        store.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadExecutor.shutdownNow();
+        server.close();
+        assertTrue(server.errors.isEmpty(), () -> "S3 서버 오류: " + server.errors);
+    }
+
+    @Test
+    void storeUploadsLargeFileInPartsAndRetriesFailedPart() throws IOException {
+        byte[] content = randomBytes(2 * PART_SIZE + 123);
+        Path source = write("large.tar.gz", content);
+        server.failNextParts.set(1);
+
+        String location = store.store(source, "h1.tar.gz");
+
+        assertEquals("s3://" + BUCKET + "/packages/h1.tar.gz", location);
+        assertArrayEquals(content, server.object(BUCKET + "/packages/h1.tar.gz"));
+        assertEquals(3, server.partUploads.get());
+        assertFalse(server.hasPendingUploads());
+        assertFalse(Files.exists(source));
+    }
+
+    @Test
+    void storeSmallFileWithSinglePut() throws IOException {
+        Path source = write("small.tar", "hello world".getBytes(StandardCharsets.UTF_8));
+
+        String location = store.store(source, "h 2+x$.tar");
+
+        assertEquals("s3://" + BUCKET + "/packages/h 2+x$.tar", location);
+        assertEquals("hello world", new String(server.object(BUCKET + "/packages/h 2+x$.tar"), StandardCharsets.UTF_8));
+        assertEquals(0, server.partUploads.get());
+        assertFalse(Files.exists(source));
+    }
+
+    @Test
+    void statReturnsSizeAndEmptyForMissingObject() throws IOException {
+        String location = store.store(write("a.tar", new byte[1234]), "a.tar");
+
+        Optional<ArtifactStore.StoredArtifact> stored = store.stat(location);
+
+        assertTrue(stored.isPresent());
+        assertEquals(1234, stored.get().size());
+        assertEquals(1445412480000L, stored.get().lastModified());
+        assertFalse(store.stat("s3://" + BUCKET + "/packages/missing.tar").isPresent());
+        assertFalse(store.stat("s3://other-bucket/packages/a.tar").isPresent());
+        assertFalse(store.stat("/data/packages/a.tar").isPresent());
+    }
+
+    @Test
+    void readReturnsRequestedRange() throws IOException {
+        byte[] content = randomBytes(64 * 1024);
+        String location = store.store(write("b.tar", content), "b.tar");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        store.read(location, 1000, 5000, out);
+
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 6000), out.toByteArray());
+    }
+
+    @Test
+    void copyUsesServerSideCopy() throws IOException {
+        byte[] content = randomBytes(4096);
+        String location = store.store(write("c.tar", content), "c.tar");
+
+        String copied = store.copy(location, "d.tar");
+
+        assertEquals("s3://" + BUCKET + "/packages/d.tar", copied);
+        assertArrayEquals(content, server.object(BUCKET + "/packages/d.tar"));
+        assertEquals(0, server.partCopies.get());
+    }
+
+    @Test
+    void copyAboveCopyObjectLimitUsesUploadPartCopy() throws IOException {
+        byte[] content = randomBytes(2 * PART_SIZE + 7);
+        server.putObject(BUCKET + "/packages/e.tar", content);
+        ReflectionTestUtils.setField(store, "maxCopyObjectSize", (long) PART_SIZE);
+
+        store.copy("s3://" + BUCKET + "/packages/e.tar", "f.tar");
+
+        assertArrayEquals(content, server.object(BUCKET + "/packages/f.tar"));
+        assertEquals(3, server.partCopies.get());
+        assertFalse(server.hasPendingUploads());
+    }
+
+    @Test
+    void presignedUrlDownloadsWithoutCredentials() throws Exception {
+        byte[] content = randomBytes(2048);
+        String location = store.store(write("g.tar.gz", content), "g.tar.gz");
+
+        URI url = store.presignedUrl(location, "g.tar.gz", "application/gzip").orElseThrow();
+        HttpResponse<byte[]> response = HttpClient.newHttpClient()
+                .send(HttpRequest.newBuilder(url).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertTrue(url.getRawQuery().contains("X-Amz-Expires=3600"));
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(content, response.body());
+        assertEquals(Duration.ofMinutes(60), store.downloadUrlTtl());
+    }
+
+    @Test
+    void presignDisabledStreamsThroughServer() {
+        ReflectionTestUtils.setField(store, "presign", false);
+
+        assertFalse(store.presignedUrl("s3://" + BUCKET + "/packages/g.tar.gz", "g.tar.gz", "application/gzip").isPresent());
+        assertEquals(Duration.ZERO, store.downloadUrlTtl());
+    }
+
+    @Test
+    void deleteRemovesObjectAndIgnoresOtherLocations() throws IOException {
+        String location = store.store(write("h.tar", new byte[10]), "h.tar");
+
+        store.delete(location);
+        store.delete(location);
+        store.delete("/data/packages/h.tar");
+
+        assertNull(server.object(BUCKET + "/packages/h.tar"));
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}